@@ -0,0 +1,125 @@
+package wallabag.apiwrapper;
+
+import com.squareup.moshi.Json;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+import wallabag.apiwrapper.models.adapters.NumericBoolean;
+import wallabag.apiwrapper.models.adapters.Rfc3339DateAdapter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the costs of the custom JSON adapters
+ * ({@code NumericBooleanAdapter}, {@code Rfc3339DateAdapter} and Moshi's {@code Rfc3339DateJsonAdapter})
+ * on arrays of {@value #COUNT} values, compared to decoding the same values as plain booleans and strings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class AdaptersBenchmark {
+
+    static final int COUNT = 100;
+
+    static class NumericFlags {
+        @Json(name = "is_archived") @NumericBoolean boolean archived;
+        @Json(name = "is_starred") @NumericBoolean boolean starred;
+    }
+
+    static class PlainFlags {
+        @Json(name = "is_archived") boolean archived;
+        @Json(name = "is_starred") boolean starred;
+    }
+
+    private JsonAdapter<List<NumericFlags>> numericFlagsAdapter;
+    private JsonAdapter<List<PlainFlags>> plainFlagsAdapter;
+    private JsonAdapter<List<Date>> datesAdapter;
+    private JsonAdapter<List<Date>> legacyDatesAdapter;
+    private JsonAdapter<List<String>> stringsAdapter;
+
+    private byte[] numericFlagsJson;
+    private byte[] plainFlagsJson;
+    private byte[] datesJson;
+    private String[] dateStrings;
+
+    @Setup
+    public void setup() {
+        Moshi moshi = BenchmarkUtils.createMoshi();
+        numericFlagsAdapter = moshi.adapter(Types.newParameterizedType(List.class, NumericFlags.class));
+        plainFlagsAdapter = moshi.adapter(Types.newParameterizedType(List.class, PlainFlags.class));
+        datesAdapter = moshi.adapter(Types.newParameterizedType(List.class, Date.class));
+        stringsAdapter = moshi.adapter(Types.newParameterizedType(List.class, String.class));
+        legacyDatesAdapter = BenchmarkUtils.createReflectiveMoshi()
+                .adapter(Types.newParameterizedType(List.class, Date.class));
+
+        StringBuilder numericFlags = new StringBuilder("[");
+        StringBuilder plainFlags = new StringBuilder("[");
+        StringBuilder dates = new StringBuilder("[");
+        dateStrings = new String[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            if (i > 0) {
+                numericFlags.append(',');
+                plainFlags.append(',');
+                dates.append(',');
+            }
+            numericFlags.append("{\"is_archived\":").append(i % 2).append(",\"is_starred\":").append(i % 3 == 0 ? 1 : 0)
+                    .append('}');
+            plainFlags.append("{\"is_archived\":").append(i % 2 == 1).append(",\"is_starred\":").append(i % 3 == 0)
+                    .append('}');
+            // the format used by wallabag
+            dateStrings[i] = String.format("2020-%02d-%02dT%02d:%02d:%02d+0100",
+                    1 + i % 12, 1 + i % 28, i % 24, i % 60, (i * 7) % 60);
+            dates.append('"').append(dateStrings[i]).append('"');
+        }
+
+        numericFlagsJson = utf8(numericFlags.append(']'));
+        plainFlagsJson = utf8(plainFlags.append(']'));
+        datesJson = utf8(dates.append(']'));
+    }
+
+    @Benchmark
+    public List<NumericFlags> numericBooleans() throws IOException {
+        return numericFlagsAdapter.fromJson(new Buffer().write(numericFlagsJson));
+    }
+
+    @Benchmark
+    public List<PlainFlags> plainBooleans() throws IOException {
+        return plainFlagsAdapter.fromJson(new Buffer().write(plainFlagsJson));
+    }
+
+    @Benchmark
+    public List<Date> rfc3339Dates() throws IOException {
+        return datesAdapter.fromJson(new Buffer().write(datesJson));
+    }
+
+    @Benchmark
+    public List<Date> legacyRfc3339Dates() throws IOException {
+        return legacyDatesAdapter.fromJson(new Buffer().write(datesJson));
+    }
+
+    @Benchmark
+    public long rfc3339Millis() {
+        long sum = 0;
+        for (String date : dateStrings) {
+            sum += Rfc3339DateAdapter.parseMillis(date);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<String> dateStrings() throws IOException {
+        return stringsAdapter.fromJson(new Buffer().write(datesJson));
+    }
+
+    private static byte[] utf8(CharSequence s) {
+        return new Buffer().writeUtf8(s.toString()).readByteArray();
+    }
+
+}
@@ -0,0 +1,55 @@
+package wallabag.apiwrapper;
+
+import okhttp3.FormBody;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the form body of an add/modify article request
+ * ({@link AbstractArticleBuilder#populateFormBodyBuilder(FormBody.Builder)}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ArticleFormBodyBenchmark {
+
+    /**
+     * The length of the article content in characters.
+     */
+    @Param({"0", "1000", "100000"})
+    int contentLength;
+
+    private AddArticleBuilder builder;
+
+    @Setup
+    public void setup() {
+        StringBuilder content = new StringBuilder(contentLength);
+        String paragraph = "<p>Lorem ipsum dolor sit amet, \"consectetur\" & adipiscing elit \u2014 \u00e9\u00e0\u00fc \u20ac.</p>\n";
+        while (content.length() < contentLength) content.append(paragraph);
+        content.setLength(contentLength);
+
+        builder = BenchmarkUtils.createService()
+                .addArticleBuilder("https://news.example.com/2020/1/some-article?id=1&ref=rss")
+                .title("Some article title: with (punctuation) & unicode \u2014 \u00fc")
+                .content(content.toString())
+                .language("en")
+                .previewPicture("https://news.example.com/images/preview.jpg")
+                .starred(true)
+                .archive(false)
+                .publishedAt(new Date(1577836800000L))
+                .authors(Arrays.asList("First Author", "Second Author"))
+                .tags(Arrays.asList("java", "performance", "wallabag"))
+                .originUrl("https://origin.example.com/article");
+    }
+
+    @Benchmark
+    public FormBody populateFormBody() {
+        return builder.populateFormBodyBuilder(new FormBody.Builder()).build();
+    }
+
+}
@@ -0,0 +1,89 @@
+package wallabag.apiwrapper;
+
+import org.openjdk.jmh.annotations.*;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Tag;
+import wallabag.apiwrapper.testing.FakeDataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares filtering a {@code List<Article>} with scanning an {@link ArticleTable} holding the same articles
+ * (starred and unread articles with a tag, created in a date range).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ArticleTableScanBenchmark {
+
+    @Param({"100000"})
+    int articles;
+
+    private List<Article> list;
+    private ArticleTable table;
+
+    private String tag;
+    private long from;
+    private long to;
+
+    @Setup
+    public void setup() {
+        FakeDataset dataset = FakeDataset.generate(articles, 42, 0);
+
+        list = new ArrayList<>(articles);
+        table = new ArticleTable();
+        for (int id = 1; id <= articles; id++) {
+            Article article = dataset.getArticle(id);
+            article.content = null;
+            list.add(article);
+            table.add(article);
+        }
+
+        tag = dataset.getTags().get(0).label;
+        from = list.get(articles / 4).createdAt.getTime();
+        to = list.get(articles * 3 / 4).createdAt.getTime();
+    }
+
+    @Benchmark
+    public int listFlags() {
+        int count = 0;
+        for (Article article : list) {
+            if (article.starred && !article.archived) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int tableFlags() {
+        return table.filter().starred(true).archive(false).count();
+    }
+
+    @Benchmark
+    public int listCombined() {
+        int count = 0;
+        for (Article article : list) {
+            if (article.starred || article.archived) continue;
+
+            long created = article.createdAt.getTime();
+            if (created < from || created >= to) continue;
+
+            for (Tag articleTag : article.tags) {
+                if (tag.equals(articleTag.label)) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int tableCombined() {
+        return table.filter().starred(false).archive(false).tag(tag).createdBetween(from, to).count();
+    }
+
+}
@@ -0,0 +1,74 @@
+package wallabag.apiwrapper;
+
+import com.squareup.moshi.JsonAdapter;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Articles;
+import wallabag.apiwrapper.models.adapters.Deduplicator;
+import wallabag.apiwrapper.models.adapters.ModelJsonAdapters;
+import wallabag.apiwrapper.testing.FakeDataset;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of {@link Articles} pages (what {@code getArticlesBuilder().execute()} does
+ * with a response body) with the streaming model adapters ({@code STREAMING}),
+ * the streaming adapters with a {@code Deduplicator} ({@code DEDUPLICATING})
+ * and Moshi's reflective adapters ({@code REFLECTIVE}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ArticlesDecodingBenchmark {
+
+    @Param({"1", "30", "100"})
+    int perPage;
+
+    @Param({"FULL", "METADATA"})
+    ArticlesQueryBuilder.DetailLevel detailLevel;
+
+    @Param({"STREAMING", "DEDUPLICATING", "REFLECTIVE"})
+    String adapters;
+
+    private JsonAdapter<Articles> adapter;
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        if ("REFLECTIVE".equals(adapters)) {
+            adapter = BenchmarkUtils.createReflectiveMoshi().adapter(Articles.class);
+        } else {
+            ModelJsonAdapters.Factory factory = new ModelJsonAdapters.Factory();
+            if ("DEDUPLICATING".equals(adapters)) factory.setDeduplicator(new Deduplicator());
+            adapter = BenchmarkUtils.createMoshi(factory).adapter(Articles.class);
+        }
+
+        FakeDataset dataset = FakeDataset.generate(perPage, 42);
+
+        Articles articles = new Articles();
+        articles.page = 1;
+        articles.limit = perPage;
+        articles.pages = 1;
+        articles.total = perPage;
+        articles.embedded = new Articles.Embedded();
+        articles.embedded.items = new ArrayList<>();
+        for (int id = 1; id <= perPage; id++) {
+            Article article = dataset.getArticle(id);
+            if (detailLevel == ArticlesQueryBuilder.DetailLevel.METADATA) article.content = null;
+            articles.embedded.items.add(article);
+        }
+
+        json = new Buffer().writeUtf8(adapter.toJson(articles)).readByteArray();
+    }
+
+    @Benchmark
+    public Articles decode() throws IOException {
+        return adapter.fromJson(new Buffer().write(json));
+    }
+
+}
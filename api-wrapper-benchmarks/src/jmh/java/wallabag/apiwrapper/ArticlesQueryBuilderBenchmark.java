@@ -0,0 +1,50 @@
+package wallabag.apiwrapper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ArticlesQueryBuilder#build()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ArticlesQueryBuilderBenchmark {
+
+    private ArticlesQueryBuilder defaultQueryBuilder;
+    private ArticlesQueryBuilder queryBuilder;
+
+    @Setup
+    public void setup() {
+        WallabagService service = BenchmarkUtils.createService();
+
+        defaultQueryBuilder = service.getArticlesBuilder();
+        queryBuilder = service.getArticlesBuilder()
+                .archive(false)
+                .starred(true)
+                .isPublic(false)
+                .tags(Arrays.asList("java", "performance", "wallabag"))
+                .sortCriterion(ArticlesQueryBuilder.SortCriterion.UPDATED)
+                .sortOrder(ArticlesQueryBuilder.SortOrder.ASCENDING)
+                .detailLevel(ArticlesQueryBuilder.DetailLevel.METADATA)
+                .since(1577836800L)
+                .page(3)
+                .perPage(100);
+    }
+
+    @Benchmark
+    public Map<String, String> buildDefault() {
+        return defaultQueryBuilder.build();
+    }
+
+    @Benchmark
+    public Map<String, String> buildAllParameters() {
+        return queryBuilder.build();
+    }
+
+}
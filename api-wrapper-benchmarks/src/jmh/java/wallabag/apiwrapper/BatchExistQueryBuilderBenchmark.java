@@ -0,0 +1,69 @@
+package wallabag.apiwrapper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the request size accounting of {@link BatchExistQueryBuilder}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class BatchExistQueryBuilderBenchmark {
+
+    private static final int URLS = 1024; // power of two
+
+    private BatchExistQueryBuilder builder;
+    private String[] urls;
+    private String[] hashes;
+    private int index;
+
+    @Setup
+    public void setup() {
+        builder = BenchmarkUtils.createService().getArticlesExistQueryBuilder();
+
+        urls = BenchmarkUtils.generateUrls(URLS);
+        hashes = new String[URLS];
+        for (int i = 0; i < URLS; i++) {
+            hashes[i] = Utils.sha1Hex(urls[i]);
+        }
+    }
+
+    @Benchmark
+    public int calculateParameterLengthPlain() {
+        return builder.calculateParameterLength(urls[index++ & (URLS - 1)], true);
+    }
+
+    @Benchmark
+    public int calculateParameterLengthHash() {
+        return builder.calculateParameterLength(hashes[index++ & (URLS - 1)], false);
+    }
+
+    /**
+     * Fills a batch (of the default size) with plain URLs, the number of URLs per batch is returned.
+     */
+    @Benchmark
+    public int fillBatchPlain() {
+        builder.reset();
+
+        int count = 0;
+        while (builder.add(urls[count & (URLS - 1)], null, true)) count++;
+        return count;
+    }
+
+    /**
+     * Fills a batch (of the default size) with URL hashes, the number of hashes per batch is returned.
+     */
+    @Benchmark
+    public int fillBatchHashes() {
+        builder.reset();
+
+        int count = 0;
+        while (builder.add(urls[count & (URLS - 1)], hashes[count & (URLS - 1)], false)) count++;
+        return count;
+    }
+
+}
@@ -0,0 +1,61 @@
+package wallabag.apiwrapper;
+
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+import wallabag.apiwrapper.models.adapters.EntryReferenceAdapter;
+import wallabag.apiwrapper.models.adapters.ModelJsonAdapters;
+import wallabag.apiwrapper.models.adapters.NumericBooleanAdapter;
+import wallabag.apiwrapper.models.adapters.Rfc3339DateAdapter;
+
+import java.util.Date;
+
+class BenchmarkUtils {
+
+    static final String API_BASE_URL = "https://wallabag.example.com/";
+
+    /**
+     * Returns a {@code Moshi} instance configured the same way as the one used by {@link WallabagService}.
+     */
+    static Moshi createMoshi() {
+        return createMoshi(new ModelJsonAdapters.Factory());
+    }
+
+    static Moshi createMoshi(ModelJsonAdapters.Factory modelJsonAdapters) {
+        return new Moshi.Builder()
+                .add(modelJsonAdapters)
+                .add(new NumericBooleanAdapter())
+                .add(new EntryReferenceAdapter())
+                .add(Date.class, new Rfc3339DateAdapter().nullSafe())
+                .build();
+    }
+
+    /**
+     * Returns a {@code Moshi} instance that uses the reflective adapters for the model classes
+     * and {@code Rfc3339DateJsonAdapter} for dates
+     * (the way {@link WallabagService} did before {@link ModelJsonAdapters} and {@link Rfc3339DateAdapter}).
+     */
+    static Moshi createReflectiveMoshi() {
+        return new Moshi.Builder()
+                .add(new NumericBooleanAdapter())
+                .add(new EntryReferenceAdapter())
+                .add(Date.class, new Rfc3339DateJsonAdapter().nullSafe())
+                .build();
+    }
+
+    /**
+     * Returns a {@link WallabagService} that doesn't make any requests unless asked to.
+     */
+    static WallabagService createService() {
+        return WallabagService.instance(API_BASE_URL, new BasicParameterHandler("user", "password", "id", "secret"));
+    }
+
+    static String[] generateUrls(int count) {
+        String[] urls = new String[count];
+        for (int i = 0; i < count; i++) {
+            urls[i] = "https://news.example.com/" + (2000 + i % 20) + "/" + (1 + i % 12)
+                    + "/some-article-title-number-" + i + "?utm_source=feed&utm_medium=rss";
+        }
+        return urls;
+    }
+
+}
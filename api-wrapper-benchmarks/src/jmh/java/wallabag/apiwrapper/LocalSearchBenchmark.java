@@ -0,0 +1,61 @@
+package wallabag.apiwrapper;
+
+import org.openjdk.jmh.annotations.*;
+import wallabag.apiwrapper.models.Articles;
+import wallabag.apiwrapper.testing.FakeDataset;
+import wallabag.apiwrapper.testing.FakeWallabagServer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a search with {@link ArticlesSearchBuilder} against a local {@link FakeWallabagServer}
+ * with the same search answered by the {@link LocalSearchIndex} of the service,
+ * populated by iterating over all articles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class LocalSearchBenchmark {
+
+    @Param({"10000"})
+    int articles;
+
+    @Param({"false", "true"})
+    boolean contentIndexed;
+
+    @Param({"delta", "sierra tango"})
+    String term;
+
+    private FakeWallabagServer server;
+    private WallabagService service;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new FakeWallabagServer(FakeDataset.generate(articles, 42));
+        server.start();
+        service = WallabagService.instance(server.getUrl(), server.parameterHandler());
+
+        service.getLocalSearchIndex().setContentIndexed(contentIndexed);
+        for (ArticleIterator it = service.getArticlesBuilder().perPage(100).articleIterator(); it.hasNext(); ) {
+            it.next();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Benchmark
+    public Articles server() throws Exception {
+        return service.searchArticlesBuilder().term(term).execute();
+    }
+
+    @Benchmark
+    public Articles local() {
+        return service.getLocalSearchIndex().searchArticlesBuilder().term(term).execute();
+    }
+
+}
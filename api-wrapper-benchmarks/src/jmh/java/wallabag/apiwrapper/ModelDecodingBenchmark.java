@@ -0,0 +1,80 @@
+package wallabag.apiwrapper;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+import wallabag.apiwrapper.models.Annotation;
+import wallabag.apiwrapper.models.Annotations;
+import wallabag.apiwrapper.models.Tag;
+import wallabag.apiwrapper.testing.FakeDataset;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of the tag list and annotation responses
+ * with the streaming model adapters ({@code STREAMING}) and Moshi's reflective adapters ({@code REFLECTIVE}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ModelDecodingBenchmark {
+
+    static final int ANNOTATIONS = 50;
+
+    @Param({"STREAMING", "REFLECTIVE"})
+    String adapters;
+
+    private JsonAdapter<List<Tag>> tagsAdapter;
+    private JsonAdapter<Annotations> annotationsAdapter;
+
+    private byte[] tagsJson;
+    private byte[] annotationsJson;
+
+    @Setup
+    public void setup() {
+        Moshi moshi = "REFLECTIVE".equals(adapters) ? BenchmarkUtils.createReflectiveMoshi()
+                : BenchmarkUtils.createMoshi();
+        tagsAdapter = moshi.adapter(Types.newParameterizedType(List.class, Tag.class));
+        annotationsAdapter = moshi.adapter(Annotations.class);
+
+        tagsJson = new Buffer().writeUtf8(tagsAdapter.toJson(FakeDataset.generate(100, 42).getTags()))
+                .readByteArray();
+
+        Annotations annotations = new Annotations();
+        annotations.total = ANNOTATIONS;
+        annotations.rows = new ArrayList<>();
+        for (int i = 1; i <= ANNOTATIONS; i++) {
+            Annotation annotation = new Annotation();
+            annotation.id = i;
+            annotation.annotatorSchemaVersion = "v1.0";
+            annotation.text = "Annotation text number " + i;
+            annotation.quote = "The quoted part of the article number " + i;
+            annotation.createdAt = new Date(1500000000000L + i * 60000L);
+            annotation.updatedAt = annotation.createdAt;
+            annotation.ranges = Collections.singletonList(
+                    new Annotation.Range("/p[" + i + "]", "/p[" + i + "]", 0, 20 + i));
+            annotations.rows.add(annotation);
+        }
+        annotationsJson = new Buffer().writeUtf8(annotationsAdapter.toJson(annotations)).readByteArray();
+    }
+
+    @Benchmark
+    public List<Tag> tags() throws IOException {
+        return tagsAdapter.fromJson(new Buffer().write(tagsJson));
+    }
+
+    @Benchmark
+    public Annotations annotations() throws IOException {
+        return annotationsAdapter.fromJson(new Buffer().write(annotationsJson));
+    }
+
+}
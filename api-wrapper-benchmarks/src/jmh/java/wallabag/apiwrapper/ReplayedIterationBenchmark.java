@@ -0,0 +1,90 @@
+package wallabag.apiwrapper;
+
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.*;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.testing.FakeDataset;
+import wallabag.apiwrapper.testing.FakeWallabagServer;
+
+import java.io.File;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures iterating over all articles with {@link ArticleIterator} against replayed traffic
+ * (see {@link TrafficReplayer}), without network and server costs.
+ * <p>The traffic is read from the {@code archive} file if it is specified
+ * (recorded with {@link TrafficRecorder} from an iteration over all articles
+ * with the same {@code perPage}, e.g. from a real server); otherwise it is recorded from a {@link FakeWallabagServer}
+ * with {@link #GENERATED_ARTICLES} articles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ReplayedIterationBenchmark {
+
+    static final int GENERATED_ARTICLES = 2000;
+
+    @Param({""})
+    String archive;
+
+    @Param({"30", "100"})
+    int perPage;
+
+    @Param({"FULL", "METADATA"})
+    ArticlesQueryBuilder.DetailLevel detailLevel;
+
+    private WallabagService service;
+
+    @Setup
+    public void setup() throws Exception {
+        File archiveFile;
+        String basePath = "/";
+        if (!archive.isEmpty()) {
+            archiveFile = new File(archive);
+        } else {
+            archiveFile = File.createTempFile("traffic", ".bin");
+            archiveFile.deleteOnExit();
+            basePath = record(archiveFile);
+        }
+
+        service = WallabagService.instance("https://replay.invalid" + basePath,
+                new BasicParameterHandler("user", "password", "id", "secret"),
+                new OkHttpClient.Builder().addInterceptor(new TrafficReplayer(archiveFile)).build(), null);
+    }
+
+    private String record(File file) throws Exception {
+        FakeWallabagServer server = new FakeWallabagServer(FakeDataset.generate(GENERATED_ARTICLES, 42));
+        server.start();
+        TrafficRecorder recorder = new TrafficRecorder(file);
+        try {
+            WallabagService service = WallabagService.instance(server.getUrl(), server.parameterHandler(),
+                    new OkHttpClient.Builder().addInterceptor(recorder).build(), null);
+            iterate(service);
+        } finally {
+            recorder.close();
+            server.close();
+        }
+        return new URL(server.getUrl()).getPath();
+    }
+
+    @Benchmark
+    public long iterate() throws Exception {
+        return iterate(service);
+    }
+
+    private long iterate(WallabagService service) throws Exception {
+        long sum = 0;
+        for (ArticleIterator it = service.getArticlesBuilder()
+                .perPage(perPage)
+                .detailLevel(detailLevel)
+                .articleIterator(); it.hasNext(); ) {
+            Article article = it.next();
+            sum += article.id;
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,32 @@
+package wallabag.apiwrapper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Utils#sha1Hex(String)} (used for "exists by URL hash" requests).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class Sha1HexBenchmark {
+
+    private static final int URLS = 1024; // power of two
+
+    private String[] urls;
+    private int index;
+
+    @Setup
+    public void setup() {
+        urls = BenchmarkUtils.generateUrls(URLS);
+    }
+
+    @Benchmark
+    public String sha1Hex() {
+        return Utils.sha1Hex(urls[index++ & (URLS - 1)]);
+    }
+
+}
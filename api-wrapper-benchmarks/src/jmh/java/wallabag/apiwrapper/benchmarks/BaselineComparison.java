@@ -0,0 +1,147 @@
+package wallabag.apiwrapper.benchmarks;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import okio.BufferedSource;
+import okio.Okio;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compares JMH results (in the JSON format) with a baseline and reports the changes.
+ * <p>A benchmark is reported as a regression if its score got worse by more than the threshold
+ * (and by more than the sum of the score errors), or if its normalized allocation rate
+ * ({@code gc.alloc.rate.norm}, reported by the GC profiler) grew by more than the threshold.
+ * <p>Usage: {@code BaselineComparison <baseline.json> <results.json> [threshold percent]}.
+ * Exits with status {@code 1} if there are regressions.
+ */
+public class BaselineComparison {
+
+    private static final String ALLOCATION_METRIC = "\u00b7gc.alloc.rate.norm";
+
+    private static class Result {
+        String mode;
+        double score;
+        double error;
+        String unit;
+        Double allocation;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <results.json> [threshold percent]");
+            System.exit(2);
+        }
+
+        File baselineFile = new File(args[0]);
+        File resultsFile = new File(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.1;
+
+        if (!baselineFile.exists()) {
+            System.out.println("No baseline found at " + baselineFile + ", store one with the jmhBaseline task");
+            return;
+        }
+
+        Map<String, Result> baseline = read(baselineFile);
+        Map<String, Result> results = read(resultsFile);
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            String name = entry.getKey();
+            Result current = entry.getValue();
+            Result base = baseline.get(name);
+
+            if (base == null || !base.mode.equals(current.mode) || !base.unit.equals(current.unit)) {
+                System.out.printf("%-90s %12.3f %-8s (no baseline)%n", name, current.score, current.unit);
+                continue;
+            }
+
+            // higher is better for throughput, lower is better for the other modes
+            boolean higherIsBetter = "thrpt".equals(current.mode);
+            double change = (current.score - base.score) / base.score;
+            double worsening = higherIsBetter ? -change : change;
+            boolean slower = worsening > threshold
+                    && Math.abs(current.score - base.score) > base.error + current.error;
+
+            boolean allocating = false;
+            String allocation = "";
+            if (base.allocation != null && current.allocation != null) {
+                allocating = current.allocation > base.allocation * (1 + threshold) + 1;
+                allocation = String.format("%10.0f -> %10.0f B/op", base.allocation, current.allocation);
+            }
+
+            String verdict = slower || allocating ? "REGRESSION" : worsening < -threshold ? "improvement" : "";
+            if (slower || allocating) regressions++;
+
+            System.out.printf("%-90s %12.3f -> %12.3f %-8s %+7.1f%% %s %s%n",
+                    name, base.score, current.score, current.unit, change * 100, allocation, verdict);
+        }
+
+        for (String name : baseline.keySet()) {
+            if (!results.containsKey(name)) System.out.printf("%-90s (not run)%n", name);
+        }
+
+        System.out.println(regressions > 0 ? regressions + " regression(s) found" : "No regressions found");
+        if (regressions > 0) System.exit(1);
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        JsonAdapter<List<Map<String, Object>>> adapter = new Moshi.Builder().build()
+                .adapter(Types.newParameterizedType(List.class,
+                        Types.newParameterizedType(Map.class, String.class, Object.class)));
+
+        List<Map<String, Object>> list;
+        BufferedSource source = Okio.buffer(Okio.source(file));
+        try {
+            list = adapter.fromJson(source);
+        } finally {
+            source.close();
+        }
+
+        Map<String, Result> results = new TreeMap<>();
+        for (Map<String, Object> item : list) {
+            StringBuilder name = new StringBuilder((String) item.get("benchmark"));
+
+            Object params = item.get("params");
+            if (params instanceof Map) {
+                name.append(new TreeMap<>((Map<?, ?>) params));
+            }
+
+            Map<?, ?> primary = (Map<?, ?>) item.get("primaryMetric");
+
+            Result result = new Result();
+            result.mode = (String) item.get("mode");
+            result.score = toDouble(primary.get("score"));
+            result.error = toDouble(primary.get("scoreError"));
+            result.unit = (String) primary.get("scoreUnit");
+
+            Object secondary = item.get("secondaryMetrics");
+            if (secondary instanceof Map) {
+                Object allocation = ((Map<?, ?>) secondary).get(ALLOCATION_METRIC);
+                if (allocation instanceof Map) result.allocation = toDouble(((Map<?, ?>) allocation).get("score"));
+            }
+
+            results.put(name.toString(), result);
+        }
+        return results;
+    }
+
+    private static double toDouble(Object value) {
+        // JMH writes "NaN" for the errors of single-iteration runs
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        return value instanceof String ? parseDouble((String) value) : 0;
+    }
+
+    private static double parseDouble(String value) {
+        try {
+            double result = Double.parseDouble(value);
+            return Double.isNaN(result) ? 0 : result;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package wallabag.apiwrapper.benchmarks;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import okio.Buffer;
+import wallabag.apiwrapper.ArticleTable;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Articles;
+import wallabag.apiwrapper.models.adapters.*;
+import wallabag.apiwrapper.testing.FakeDataset;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Measures the heap retained by decoded articles (metadata only) with and without a {@link Deduplicator},
+ * and by an {@link ArticleTable} filled with the same articles.
+ * <p>The articles of a generated dataset are encoded page by page and decoded the way
+ * {@code WallabagService} decodes them; the retained heap is measured after a full GC.
+ * <p>Usage: {@code HeapFootprint [article count]} (100000 by default).
+ */
+public class HeapFootprint {
+
+    private static final int PAGE_SIZE = 100;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        FakeDataset dataset = FakeDataset.generate(count, 42, 0);
+
+        List<byte[]> pages = new ArrayList<>();
+        JsonAdapter<Articles> encoder = createMoshi(new ModelJsonAdapters.Factory()).adapter(Articles.class);
+        for (int start = 1; start <= count; start += PAGE_SIZE) {
+            Articles articles = new Articles();
+            articles.embedded = new Articles.Embedded();
+            articles.embedded.items = new ArrayList<>();
+            for (int id = start; id < start + PAGE_SIZE && id <= count; id++) {
+                Article article = dataset.getArticle(id);
+                article.content = null;
+                articles.embedded.items.add(article);
+            }
+            pages.add(new Buffer().writeUtf8(encoder.toJson(articles)).readByteArray());
+        }
+
+        long plain = measure(pages, null);
+        Deduplicator deduplicator = new Deduplicator();
+        long deduplicated = measure(pages, deduplicator);
+
+        System.out.printf("Articles:             %d%n", count);
+        System.out.printf("Without deduplication: %8.1f MB (%d B per article)%n", plain / 1e6, plain / count);
+        System.out.printf("With deduplication:    %8.1f MB (%d B per article), %d strings, %d tags%n",
+                deduplicated / 1e6, deduplicated / count,
+                deduplicator.getStringCount(), deduplicator.getTagCount());
+        System.out.printf("Reduction:             %8.1f%%%n", 100.0 * (plain - deduplicated) / plain);
+
+        long table = measureTable(pages);
+        System.out.printf("ArticleTable:          %8.1f MB (%d B per article)%n", table / 1e6, table / count);
+        System.out.printf("Reduction:             %8.1f%%%n", 100.0 * (plain - table) / plain);
+    }
+
+    private static long measure(List<byte[]> pages, Deduplicator deduplicator) throws IOException {
+        ModelJsonAdapters.Factory factory = new ModelJsonAdapters.Factory();
+        factory.setDeduplicator(deduplicator);
+        JsonAdapter<Articles> adapter = createMoshi(factory).adapter(Articles.class);
+
+        long before = usedHeap();
+
+        List<Article> retained = new ArrayList<>();
+        for (byte[] page : pages) {
+            retained.addAll(adapter.fromJson(new Buffer().write(page)).embedded.items);
+        }
+
+        long after = usedHeap();
+        if (retained.isEmpty()) System.out.println(); // keeps the list reachable
+
+        return after - before;
+    }
+
+    private static long measureTable(List<byte[]> pages) throws IOException {
+        JsonAdapter<Articles> adapter = createMoshi(new ModelJsonAdapters.Factory()).adapter(Articles.class);
+
+        long before = usedHeap();
+
+        ArticleTable table = new ArticleTable();
+        for (byte[] page : pages) {
+            for (Article article : adapter.fromJson(new Buffer().write(page)).embedded.items) {
+                table.add(article);
+            }
+        }
+
+        long after = usedHeap();
+        if (table.size() == 0) System.out.println(); // keeps the table reachable
+
+        return after - before;
+    }
+
+    private static Moshi createMoshi(ModelJsonAdapters.Factory factory) {
+        return new Moshi.Builder()
+                .add(factory)
+                .add(new NumericBooleanAdapter())
+                .add(new EntryReferenceAdapter())
+                .add(Date.class, new Rfc3339DateAdapter().nullSafe())
+                .build();
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+}
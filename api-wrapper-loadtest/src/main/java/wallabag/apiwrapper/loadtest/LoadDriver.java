@@ -0,0 +1,184 @@
+package wallabag.apiwrapper.loadtest;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.WallabagService;
+import wallabag.apiwrapper.testing.FakeDataset;
+import wallabag.apiwrapper.testing.FakeWallabagServer;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs a load test {@link Scenario} against a {@link FakeWallabagServer}
+ * and reports the throughput, latency percentiles, errors, connection pool usage and allocations.
+ * <p>Usage: {@code LoadDriver <scenario.properties> [histogram output directory]}.
+ * <p>A single {@link WallabagService} (and {@code OkHttpClient}) is shared by all worker threads,
+ * each thread performs the operations picked randomly according to the scenario mix, one after another.
+ */
+public class LoadDriver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadDriver.class);
+
+    private static final int URL_SAMPLE_SIZE = 10000;
+    private static final long POOL_SAMPLING_MILLIS = 100;
+
+    private final Scenario scenario;
+    private final Metrics metrics = new Metrics();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LoadDriver <scenario.properties> [histogram output directory]");
+            System.exit(2);
+        }
+
+        LoadDriver driver = new LoadDriver(Scenario.load(new File(args[0])));
+        driver.run(System.out);
+
+        if (args.length > 1) driver.metrics.writeHistograms(new File(args[1]));
+    }
+
+    LoadDriver(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    void run(PrintStream out) throws Exception {
+        out.println(scenario);
+
+        long time = System.nanoTime();
+        FakeDataset dataset = FakeDataset.generate(scenario.datasetSize, scenario.datasetSeed, scenario.contentWords);
+        out.printf("Generated %d articles in %d ms%n", dataset.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time));
+
+        String[] urls = new String[Math.min(URL_SAMPLE_SIZE, scenario.datasetSize)];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = dataset.getArticleUrl(1 + (int) ((long) i * scenario.datasetSize / urls.length));
+        }
+
+        final FakeWallabagServer server = new FakeWallabagServer(dataset);
+        server.setLatency(scenario.minLatencyMillis, scenario.maxLatencyMillis, TimeUnit.MILLISECONDS);
+        server.setSlowResponses(scenario.slowProbability, scenario.slowDelayMillis, TimeUnit.MILLISECONDS);
+        server.setErrors(scenario.errorProbability, scenario.errorCode);
+        server.setDisconnects(scenario.disconnectProbability);
+        server.setTokenLifetime(scenario.tokenLifetimeSeconds, TimeUnit.SECONDS);
+        server.start();
+
+        final ConnectionPool connectionPool = new ConnectionPool(
+                scenario.maxIdleConnections, scenario.keepAliveSeconds, TimeUnit.SECONDS);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .connectTimeout(scenario.timeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(scenario.timeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(scenario.timeoutSeconds, TimeUnit.SECONDS)
+                .eventListenerFactory(metrics.eventListenerFactory())
+                .build();
+
+        WallabagService service = WallabagService.instance(server.getUrl(), server.parameterHandler(), client, null);
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                metrics.samplePool(connectionPool);
+            }
+        }, POOL_SAMPLING_MILLIS, POOL_SAMPLING_MILLIS, TimeUnit.MILLISECONDS);
+
+        if (scenario.expireTokensEverySeconds > 0) {
+            scheduler.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    LOG.debug("Expiring tokens");
+                    server.expireTokens();
+                }
+            }, scenario.expireTokensEverySeconds, scenario.expireTokensEverySeconds, TimeUnit.SECONDS);
+        }
+
+        long start = System.nanoTime();
+        long measurementStart = start + TimeUnit.SECONDS.toNanos(scenario.warmupSeconds);
+        long end = measurementStart + TimeUnit.SECONDS.toNanos(scenario.durationSeconds);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < scenario.threads; i++) {
+            Thread thread = new Thread(new WorkerLoop(
+                    new Operation.Worker(service, scenario, i, urls), end), "loadtest-worker-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+
+        out.printf("Warming up for %d s, measuring for %d s with %d threads%n",
+                scenario.warmupSeconds, scenario.durationSeconds, scenario.threads);
+
+        TimeUnit.NANOSECONDS.sleep(measurementStart - System.nanoTime());
+        metrics.start();
+
+        for (Thread thread : threads) thread.join();
+        metrics.stop();
+
+        scheduler.shutdownNow();
+        client.dispatcher().executorService().shutdown();
+        connectionPool.evictAll();
+        server.close();
+
+        out.println();
+        metrics.report(out);
+
+        out.println();
+        out.println("Server requests: " + server.getRequestCounts());
+    }
+
+    private class WorkerLoop implements Runnable {
+
+        private final Operation.Worker worker;
+        private final long endNanos;
+
+        WorkerLoop(Operation.Worker worker, long endNanos) {
+            this.worker = worker;
+            this.endNanos = endNanos;
+        }
+
+        @Override
+        public void run() {
+            long allocatedAtStart = -1;
+
+            while (System.nanoTime() < endNanos) {
+                if (allocatedAtStart == -1 && metrics.isRecording()) allocatedAtStart = getAllocatedBytes();
+
+                Operation operation = scenario.pickOperation(worker.random.nextDouble());
+
+                long start = System.nanoTime();
+                Exception error = null;
+                try {
+                    operation.execute(worker);
+                } catch (Exception e) {
+                    LOG.debug("Operation {} failed", operation, e);
+                    error = e;
+                }
+                metrics.recordOperation(operation, start, error);
+            }
+
+            if (allocatedAtStart != -1) metrics.recordAllocations(getAllocatedBytes() - allocatedAtStart);
+        }
+
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread, or {@code 0} if not supported by the JVM.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            long bytes = ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+            if (bytes >= 0) return bytes;
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,301 @@
+package wallabag.apiwrapper.loadtest;
+
+import okhttp3.*;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the load test measurements: operation and endpoint latencies (in HdrHistograms),
+ * errors, connection usage, connection pool samples, allocations and GC activity.
+ * <p>Nothing is recorded until {@link #start()} is called (after the warmup).
+ */
+class Metrics {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    static class Stats {
+
+        final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong connects = new AtomicLong();
+        final AtomicLong connectionAcquisitions = new AtomicLong();
+
+    }
+
+    private final ConcurrentMap<Operation, Stats> operations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Stats> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    private final Histogram poolConnections = new Histogram(3);
+    private final Histogram poolIdleConnections = new Histogram(3);
+
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    private volatile boolean recording;
+    private long startNanos;
+    private long endNanos;
+    private long gcCountAtStart;
+    private long gcTimeAtStart;
+    private long gcCount;
+    private long gcTime;
+
+    void start() {
+        gcCountAtStart = getGcCount();
+        gcTimeAtStart = getGcTime();
+        startNanos = System.nanoTime();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+        endNanos = System.nanoTime();
+        gcCount = getGcCount() - gcCountAtStart;
+        gcTime = getGcTime() - gcTimeAtStart;
+    }
+
+    boolean isRecording() {
+        return recording;
+    }
+
+    void recordOperation(Operation operation, long startNanos, Exception error) {
+        if (!recording) return;
+
+        Stats stats = getStats(operations, operation);
+        stats.latency.recordValue(toMicros(System.nanoTime() - startNanos));
+        if (error != null) {
+            stats.failures.incrementAndGet();
+            increment(errors, operation + ": " + error.getClass().getSimpleName());
+        }
+    }
+
+    void recordAllocations(long bytes) {
+        allocatedBytes.addAndGet(bytes);
+    }
+
+    synchronized void samplePool(ConnectionPool pool) {
+        if (!recording) return;
+
+        poolConnections.recordValue(pool.connectionCount());
+        poolIdleConnections.recordValue(pool.idleConnectionCount());
+    }
+
+    /**
+     * Returns an {@code EventListener.Factory} recording the call latencies and the connection usage per endpoint.
+     */
+    EventListener.Factory eventListenerFactory() {
+        return new EventListener.Factory() {
+            @Override
+            public EventListener create(Call call) {
+                return new CallListener(getEndpoint(call.request()));
+            }
+        };
+    }
+
+    private class CallListener extends EventListener {
+
+        private final String endpoint;
+        private long callStartNanos;
+
+        CallListener(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            if (recording) getStats(endpoints, endpoint).connects.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            if (recording) getStats(endpoints, endpoint).connectionAcquisitions.incrementAndGet();
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            record(false);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            record(true);
+        }
+
+        private void record(boolean failed) {
+            if (!recording) return;
+
+            Stats stats = getStats(endpoints, endpoint);
+            stats.latency.recordValue(toMicros(System.nanoTime() - callStartNanos));
+            if (failed) stats.failures.incrementAndGet();
+        }
+
+    }
+
+    void report(PrintStream out) {
+        double seconds = (endNanos - startNanos) / 1e9;
+
+        long operationCount = 0;
+        long failureCount = 0;
+        for (Stats stats : operations.values()) {
+            operationCount += stats.latency.getTotalCount();
+            failureCount += stats.failures.get();
+        }
+
+        out.printf("Measured %.1f s: %d operations (%.1f ops/s), %d failed%n%n",
+                seconds, operationCount, operationCount / seconds, failureCount);
+
+        out.println("Operations (latency in ms):");
+        printHeader(out, "operation", false);
+        for (Map.Entry<Operation, Stats> entry : new TreeMap<>(operations).entrySet()) {
+            printStats(out, entry.getKey().name().toLowerCase(), entry.getValue(), seconds, false);
+        }
+
+        out.println();
+        out.println("Endpoints (latency in ms, including token refreshing):");
+        printHeader(out, "endpoint", true);
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(endpoints).entrySet()) {
+            printStats(out, entry.getKey(), entry.getValue(), seconds, true);
+        }
+
+        if (!errors.isEmpty()) {
+            out.println();
+            out.println("Errors:");
+            for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(errors).entrySet()) {
+                out.printf("  %-60s %8d%n", entry.getKey(), entry.getValue().get());
+            }
+        }
+
+        out.println();
+        synchronized (this) {
+            if (poolConnections.getTotalCount() > 0) {
+                out.printf("Connection pool: connections avg %.1f, max %d; idle avg %.1f, max %d%n",
+                        poolConnections.getMean(), poolConnections.getMaxValue(),
+                        poolIdleConnections.getMean(), poolIdleConnections.getMaxValue());
+            }
+        }
+
+        long allocated = allocatedBytes.get();
+        if (allocated > 0) {
+            out.printf("Allocations (worker threads): %.1f MB/s, %.1f KB/operation%n",
+                    allocated / seconds / (1024 * 1024), operationCount > 0 ? allocated / 1024.0 / operationCount : 0);
+        }
+        out.printf("GC (whole JVM, including the server): %d collections, %d ms%n", gcCount, gcTime);
+    }
+
+    /**
+     * Writes the latency percentile distributions ({@code .hgrm} files) to the {@code directory}.
+     */
+    void writeHistograms(File directory) throws FileNotFoundException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new FileNotFoundException("Couldn't create directory: " + directory);
+        }
+
+        for (Map.Entry<Operation, Stats> entry : operations.entrySet()) {
+            writeHistogram(new File(directory, "operation-" + entry.getKey().name().toLowerCase() + ".hgrm"),
+                    entry.getValue().latency);
+        }
+        for (Map.Entry<String, Stats> entry : endpoints.entrySet()) {
+            String name = entry.getKey().replaceAll("[^A-Za-z0-9.]+", "_");
+            writeHistogram(new File(directory, "endpoint-" + name + ".hgrm"), entry.getValue().latency);
+        }
+    }
+
+    private static void writeHistogram(File file, Histogram histogram) throws FileNotFoundException {
+        PrintStream out = new PrintStream(file);
+        try {
+            // the values are in microseconds, the output is in milliseconds
+            histogram.outputPercentileDistribution(out, 1000.0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void printHeader(PrintStream out, String name, boolean connections) {
+        out.printf("  %-44s %9s %9s %7s %8s %8s %8s %8s %8s", name, "count", "per sec", "failed",
+                "p50", "p90", "p99", "p99.9", "max");
+        if (connections) out.printf(" %9s %9s", "new conn", "reused");
+        out.println();
+    }
+
+    private static void printStats(PrintStream out, String name, Stats stats, double seconds, boolean connections) {
+        Histogram h = stats.latency;
+        out.printf("  %-44s %9d %9.1f %7d %8.2f %8.2f %8.2f %8.2f %8.2f", name, h.getTotalCount(),
+                h.getTotalCount() / seconds, stats.failures.get(),
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+                h.getMaxValue() / 1000.0);
+        if (connections) {
+            long connects = stats.connects.get();
+            out.printf(" %9d %9d", connects, Math.max(0, stats.connectionAcquisitions.get() - connects));
+        }
+        out.println();
+    }
+
+    /**
+     * Returns the endpoint of the request with the IDs replaced by placeholders,
+     * e.g. {@code "GET api/entries/{id}.json"}.
+     */
+    static String getEndpoint(Request request) {
+        return request.method() + " " + request.url().encodedPath().substring(1).replaceAll("/\\d+", "/{id}");
+    }
+
+    private static <K> Stats getStats(ConcurrentMap<K, Stats> map, K key) {
+        Stats stats = map.get(key);
+        if (stats == null) {
+            Stats newStats = new Stats();
+            stats = map.putIfAbsent(key, newStats);
+            if (stats == null) stats = newStats;
+        }
+        return stats;
+    }
+
+    private static void increment(ConcurrentMap<String, AtomicLong> map, String key) {
+        AtomicLong counter = map.get(key);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = map.putIfAbsent(key, newCounter);
+            if (counter == null) counter = newCounter;
+        }
+        counter.incrementAndGet();
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_LATENCY_MICROS);
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long getGcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return time;
+    }
+
+}
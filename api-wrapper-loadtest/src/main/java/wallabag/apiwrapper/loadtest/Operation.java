@@ -0,0 +1,233 @@
+package wallabag.apiwrapper.loadtest;
+
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import wallabag.apiwrapper.ArticlesPageIterator;
+import wallabag.apiwrapper.ArticlesQueryBuilder;
+import wallabag.apiwrapper.BulkExistsBuilder;
+import wallabag.apiwrapper.NotFoundPolicy;
+import wallabag.apiwrapper.WallabagService;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * The operations a load test workload consists of.
+ */
+public enum Operation {
+
+    /**
+     * Gets a random article.
+     */
+    GET_ARTICLE {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            worker.service.getArticle(worker.randomId(), NotFoundPolicy.DEFAULT_VALUE);
+        }
+    },
+
+    /**
+     * Gets a page of articles with random filters.
+     */
+    LIST_ARTICLES {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            Random random = worker.random;
+            worker.service.getArticlesBuilder()
+                    .archive(randomFlag(random))
+                    .starred(randomFlag(random))
+                    .sortOrder(random.nextBoolean()
+                            ? ArticlesQueryBuilder.SortOrder.ASCENDING : ArticlesQueryBuilder.SortOrder.DESCENDING)
+                    .detailLevel(random.nextBoolean()
+                            ? ArticlesQueryBuilder.DetailLevel.FULL : ArticlesQueryBuilder.DetailLevel.METADATA)
+                    .perPage(worker.scenario.perPage)
+                    .page(1 + random.nextInt(10))
+                    .execute(NotFoundPolicy.DEFAULT_VALUE);
+        }
+    },
+
+    /**
+     * Searches for a random term.
+     */
+    SEARCH {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            worker.service.searchArticlesBuilder()
+                    .term("/articles/" + (1 + worker.random.nextInt(1000)))
+                    .perPage(worker.scenario.perPage)
+                    .execute(NotFoundPolicy.DEFAULT_VALUE);
+        }
+    },
+
+    /**
+     * Iterates over the first {@code iterationPages} pages of all articles.
+     */
+    ITERATE {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            ArticlesPageIterator iterator = worker.service.getArticlesBuilder()
+                    .detailLevel(ArticlesQueryBuilder.DetailLevel.METADATA)
+                    .perPage(worker.scenario.perPage)
+                    .pageIterator();
+
+            for (int i = 0; i < worker.scenario.iterationPages && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+        }
+    },
+
+    /**
+     * Checks whether a random URL (existing most of the time) exists.
+     */
+    EXISTS {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            worker.service.articleExistsWithId(worker.randomUrl());
+        }
+    },
+
+    /**
+     * Checks whether {@code bulkExistsUrls} random URLs exist using {@link BulkExistsBuilder}.
+     */
+    BULK_EXISTS {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            BulkExistsBuilder builder = worker.service.bulkExistsBuilder();
+            for (int i = 0; i < worker.scenario.bulkExistsUrls; i++) {
+                builder.addUrl(worker.randomUrl());
+            }
+            builder.execute();
+        }
+    },
+
+    /**
+     * Adds a new article.
+     */
+    ADD_ARTICLE {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            worker.service.addArticleBuilder(worker.newUrl())
+                    .title("Load test article")
+                    .tag("loadtest")
+                    .execute();
+        }
+    },
+
+    /**
+     * Changes the flags of a random article.
+     */
+    MODIFY_ARTICLE {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            worker.service.modifyArticleBuilder(worker.randomId())
+                    .archive(worker.random.nextBoolean())
+                    .starred(worker.random.nextBoolean())
+                    .execute(NotFoundPolicy.DEFAULT_VALUE);
+        }
+    },
+
+    /**
+     * Gets all tags.
+     */
+    GET_TAGS {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            worker.service.getTags();
+        }
+    },
+
+    /**
+     * Adds a tag to a random article.
+     */
+    ADD_TAGS {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            worker.service.addTags(worker.randomId(), Collections.singletonList("tag-" + worker.random.nextInt(100)),
+                    NotFoundPolicy.DEFAULT_VALUE);
+        }
+    },
+
+    /**
+     * Gets the annotations of a random article.
+     */
+    GET_ANNOTATIONS {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            worker.service.getAnnotations(worker.randomId(), NotFoundPolicy.DEFAULT_VALUE);
+        }
+    },
+
+    /**
+     * Exports a random article as text.
+     */
+    EXPORT {
+        @Override
+        void execute(Worker worker) throws IOException, UnsuccessfulResponseException {
+            ResponseBody body = worker.service.exportArticle(worker.randomId(), WallabagService.ResponseFormat.TXT,
+                    NotFoundPolicy.DEFAULT_VALUE);
+            if (body != null) {
+                try {
+                    Buffer buffer = new Buffer();
+                    while (body.source().read(buffer, 8192) != -1) buffer.clear();
+                } finally {
+                    body.close();
+                }
+            }
+        }
+    };
+
+    abstract void execute(Worker worker) throws IOException, UnsuccessfulResponseException;
+
+    private static Boolean randomFlag(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return true;
+            case 1:
+                return false;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The state of a worker thread passed to the operations.
+     */
+    static class Worker {
+
+        final WallabagService service;
+        final Scenario scenario;
+        final Random random;
+        final int index;
+        final String[] urls;
+
+        private int addedArticles;
+
+        Worker(WallabagService service, Scenario scenario, int index, String[] urls) {
+            this.service = service;
+            this.scenario = scenario;
+            this.random = new Random(scenario.seed + index);
+            this.index = index;
+            this.urls = urls;
+        }
+
+        int randomId() {
+            return 1 + random.nextInt(scenario.datasetSize);
+        }
+
+        /**
+         * Returns a URL of an existing article 90% of the time, a missing URL otherwise.
+         */
+        String randomUrl() {
+            if (random.nextInt(10) == 0) return "https://missing.example.com/" + random.nextInt();
+            return urls[random.nextInt(urls.length)];
+        }
+
+        String newUrl() {
+            return "https://loadtest.example.com/" + index + "/" + addedArticles++;
+        }
+
+    }
+
+}
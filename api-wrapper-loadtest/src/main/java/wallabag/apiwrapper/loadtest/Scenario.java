@@ -0,0 +1,200 @@
+package wallabag.apiwrapper.loadtest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A load test scenario: the dataset, the server behavior, the client configuration and the workload mix.
+ * <p>Scenarios are read from properties files (see the {@code scenarios} directory of this module);
+ * the omitted properties get the default values. The workload is reproducible:
+ * each worker thread uses a random generator seeded with {@code seed + threadIndex}.
+ * <p>Properties:
+ * <ul>
+ * <li>{@code dataset.size}, {@code dataset.seed}, {@code dataset.contentWords} - the generated dataset;</li>
+ * <li>{@code server.latency.minMillis}, {@code server.latency.maxMillis} - the server latency range;</li>
+ * <li>{@code server.slow.probability}, {@code server.slow.delayMillis} - slow responses;</li>
+ * <li>{@code server.error.probability}, {@code server.error.code} - error responses;</li>
+ * <li>{@code server.disconnect.probability} - dropped connections;</li>
+ * <li>{@code server.tokenLifetimeSeconds} - the lifetime of the access tokens;</li>
+ * <li>{@code server.expireTokensEverySeconds} - expire all access tokens periodically (token expiry storms),
+ * {@code 0} to disable;</li>
+ * <li>{@code client.maxIdleConnections}, {@code client.keepAliveSeconds} - the OkHttp connection pool;</li>
+ * <li>{@code client.timeoutSeconds} - the OkHttp connect/read/write timeouts;</li>
+ * <li>{@code threads} - the number of worker threads;</li>
+ * <li>{@code warmupSeconds}, {@code durationSeconds} - the warmup (not measured) and measurement durations;</li>
+ * <li>{@code seed} - the seed of the workload;</li>
+ * <li>{@code mix.<operation>} - the relative weight of an {@link Operation} (lower case, e.g. {@code mix.get_article});
+ * the operations without weights are not performed;</li>
+ * <li>{@code perPage}, {@code iterationPages}, {@code bulkExistsUrls} - the sizes used by the operations.</li>
+ * </ul>
+ */
+public class Scenario {
+
+    String name = "default";
+
+    int datasetSize = 10000;
+    long datasetSeed = 42;
+    int contentWords = 500;
+
+    long minLatencyMillis = 5;
+    long maxLatencyMillis = 20;
+    double slowProbability;
+    long slowDelayMillis;
+    double errorProbability;
+    int errorCode = 503;
+    double disconnectProbability;
+    long tokenLifetimeSeconds = 3600;
+    long expireTokensEverySeconds;
+
+    int maxIdleConnections = 5;
+    long keepAliveSeconds = 300;
+    long timeoutSeconds = 30;
+
+    int threads = 8;
+    long warmupSeconds = 5;
+    long durationSeconds = 30;
+    long seed = 1;
+
+    int perPage = 30;
+    int iterationPages = 5;
+    int bulkExistsUrls = 200;
+
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+    /**
+     * Reads a scenario from a properties file.
+     *
+     * @param file the file to read
+     * @return the scenario
+     * @throws IOException              if the file could not be read
+     * @throws IllegalArgumentException if the file contains invalid values
+     */
+    public static Scenario load(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+
+        String name = file.getName();
+        if (name.endsWith(".properties")) name = name.substring(0, name.length() - ".properties".length());
+
+        return fromProperties(name, properties);
+    }
+
+    static Scenario fromProperties(String name, Properties p) {
+        Scenario s = new Scenario();
+        s.name = name;
+
+        s.datasetSize = getInt(p, "dataset.size", s.datasetSize);
+        s.datasetSeed = getLong(p, "dataset.seed", s.datasetSeed);
+        s.contentWords = getInt(p, "dataset.contentWords", s.contentWords);
+
+        s.minLatencyMillis = getLong(p, "server.latency.minMillis", s.minLatencyMillis);
+        s.maxLatencyMillis = getLong(p, "server.latency.maxMillis", s.maxLatencyMillis);
+        s.slowProbability = getDouble(p, "server.slow.probability", s.slowProbability);
+        s.slowDelayMillis = getLong(p, "server.slow.delayMillis", s.slowDelayMillis);
+        s.errorProbability = getDouble(p, "server.error.probability", s.errorProbability);
+        s.errorCode = getInt(p, "server.error.code", s.errorCode);
+        s.disconnectProbability = getDouble(p, "server.disconnect.probability", s.disconnectProbability);
+        s.tokenLifetimeSeconds = getLong(p, "server.tokenLifetimeSeconds", s.tokenLifetimeSeconds);
+        s.expireTokensEverySeconds = getLong(p, "server.expireTokensEverySeconds", s.expireTokensEverySeconds);
+
+        s.maxIdleConnections = getInt(p, "client.maxIdleConnections", s.maxIdleConnections);
+        s.keepAliveSeconds = getLong(p, "client.keepAliveSeconds", s.keepAliveSeconds);
+        s.timeoutSeconds = getLong(p, "client.timeoutSeconds", s.timeoutSeconds);
+
+        s.threads = getInt(p, "threads", s.threads);
+        s.warmupSeconds = getLong(p, "warmupSeconds", s.warmupSeconds);
+        s.durationSeconds = getLong(p, "durationSeconds", s.durationSeconds);
+        s.seed = getLong(p, "seed", s.seed);
+
+        s.perPage = getInt(p, "perPage", s.perPage);
+        s.iterationPages = getInt(p, "iterationPages", s.iterationPages);
+        s.bulkExistsUrls = getInt(p, "bulkExistsUrls", s.bulkExistsUrls);
+
+        for (String key : p.stringPropertyNames()) {
+            if (!key.startsWith("mix.")) continue;
+
+            String operationName = key.substring("mix.".length());
+            Operation operation;
+            try {
+                operation = Operation.valueOf(operationName.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown operation: " + operationName);
+            }
+
+            int weight = getInt(p, key, 0);
+            if (weight < 0) throw new IllegalArgumentException("Negative weight: " + key);
+            if (weight > 0) s.mix.put(operation, weight);
+        }
+
+        if (s.mix.isEmpty()) throw new IllegalArgumentException("The scenario has no operations (mix.*)");
+        if (s.datasetSize <= 0) throw new IllegalArgumentException("dataset.size is not positive");
+        if (s.threads <= 0) throw new IllegalArgumentException("threads is not positive");
+
+        return s;
+    }
+
+    /**
+     * Returns the operation corresponding to a uniformly distributed value in the {@code [0, 1)} range
+     * according to the weights of the mix.
+     */
+    Operation pickOperation(double value) {
+        int total = 0;
+        for (int weight : mix.values()) total += weight;
+
+        double target = value * total;
+        int sum = 0;
+        Operation last = null;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            sum += entry.getValue();
+            last = entry.getKey();
+            if (target < sum) break;
+        }
+        return last;
+    }
+
+    private static int getInt(Properties p, String key, int defaultValue) {
+        String value = p.getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    private static long getLong(Properties p, String key, long defaultValue) {
+        String value = p.getProperty(key);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    private static double getDouble(Properties p, String key, double defaultValue) {
+        String value = p.getProperty(key);
+        return value != null ? Double.parseDouble(value.trim()) : defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        return "Scenario{" +
+                "name='" + name + '\'' +
+                ", datasetSize=" + datasetSize +
+                ", latency=" + minLatencyMillis + "-" + maxLatencyMillis + "ms" +
+                ", slowProbability=" + slowProbability +
+                ", errorProbability=" + errorProbability +
+                ", disconnectProbability=" + disconnectProbability +
+                ", tokenLifetimeSeconds=" + tokenLifetimeSeconds +
+                ", expireTokensEverySeconds=" + expireTokensEverySeconds +
+                ", maxIdleConnections=" + maxIdleConnections +
+                ", threads=" + threads +
+                ", warmupSeconds=" + warmupSeconds +
+                ", durationSeconds=" + durationSeconds +
+                ", seed=" + seed +
+                ", mix=" + mix +
+                '}';
+    }
+
+}
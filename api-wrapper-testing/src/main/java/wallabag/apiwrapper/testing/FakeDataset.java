@@ -0,0 +1,645 @@
+package wallabag.apiwrapper.testing;
+
+import okio.ByteString;
+import wallabag.apiwrapper.models.Annotation;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Tag;
+
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * The {@code FakeDataset} class holds the articles, tags and annotations served by a {@link FakeWallabagServer}.
+ * <p>A dataset may be generated with {@link #generate(int, long)}: the generated articles
+ * have random flags, tags and dates, and their URLs, titles and contents are derived from their IDs
+ * (on demand, so the datasets of millions of articles fit in memory).
+ * The same seed always produces the same dataset.
+ * <p>This class is thread safe.
+ */
+public class FakeDataset {
+
+    /**
+     * The default number of words in the content of a generated article.
+     */
+    public static final int DEFAULT_CONTENT_WORDS = 500;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final long BASE_TIME = 1577836800000L; // 2020-01-01T00:00:00Z
+    private static final long MINUTE = 60 * 1000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    private static final String[] DOMAINS = {
+            "news.example.com", "blog.example.org", "docs.example.net", "example.com", "journal.example.io",
+            "tech.example.com", "science.example.org", "notes.example.net"
+    };
+
+    private static final String[] WORDS = {
+            "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliett",
+            "kilo", "lima", "mike", "november", "oscar", "papa", "quebec", "romeo", "sierra", "tango",
+            "uniform", "victor", "whiskey", "xray", "yankee", "zulu", "server", "client", "reader", "article",
+            "network", "latency", "cache", "index", "query", "stream", "thread", "memory", "queue", "buffer",
+            "wallabag", "android", "java", "kotlin", "linux", "garden", "coffee", "travel", "history", "music"
+    };
+
+    private static final int GENERATED_TAGS = 30;
+
+    private final long seed;
+    private final int contentWords;
+
+    private final List<StoredArticle> articles = new ArrayList<>(); // index = id - 1
+    private final Map<String, Integer> urlIndex = new HashMap<>();
+    private Map<String, Integer> hashIndex;
+    private int size;
+
+    private final Map<Integer, Tag> tags = new LinkedHashMap<>();
+    private final Map<String, Tag> tagsByLabel = new HashMap<>();
+    private int lastTagId;
+
+    private final Map<Integer, Annotation> annotations = new HashMap<>();
+    private final Map<Integer, List<Annotation>> articleAnnotations = new HashMap<>();
+    private final Map<Integer, Integer> annotationArticles = new HashMap<>();
+    private int lastAnnotationId;
+
+    /**
+     * Creates an empty dataset.
+     */
+    public FakeDataset() {
+        this(0, DEFAULT_CONTENT_WORDS);
+    }
+
+    private FakeDataset(long seed, int contentWords) {
+        this.seed = seed;
+        this.contentWords = contentWords;
+    }
+
+    /**
+     * Generates a dataset of {@code count} articles with {@link #DEFAULT_CONTENT_WORDS} words of content.
+     *
+     * @param count the number of articles
+     * @param seed  the seed of the random generator
+     * @return the generated dataset
+     * @throws IllegalArgumentException if {@code count < 0}
+     */
+    public static FakeDataset generate(int count, long seed) {
+        return generate(count, seed, DEFAULT_CONTENT_WORDS);
+    }
+
+    /**
+     * Generates a dataset of {@code count} articles.
+     *
+     * @param count        the number of articles
+     * @param seed         the seed of the random generator
+     * @param contentWords the number of words in the content of an article
+     * @return the generated dataset
+     * @throws IllegalArgumentException if {@code count < 0} or {@code contentWords < 0}
+     */
+    public static FakeDataset generate(int count, long seed, int contentWords) {
+        if (count < 0) throw new IllegalArgumentException("count is less than zero: " + count);
+        if (contentWords < 0) throw new IllegalArgumentException("contentWords is less than zero: " + contentWords);
+
+        FakeDataset dataset = new FakeDataset(seed, contentWords);
+
+        for (int i = 0; i < GENERATED_TAGS; i++) {
+            dataset.getOrCreateTag(WORDS[i % WORDS.length] + (i >= WORDS.length ? "-" + i : ""));
+        }
+
+        Random random = new Random(seed);
+        for (int id = 1; id <= count; id++) {
+            StoredArticle article = new StoredArticle(id);
+
+            article.createdAt = BASE_TIME + id * MINUTE;
+            article.updatedAt = article.createdAt + (long) (random.nextDouble() * 30 * DAY);
+            if (random.nextInt(2) == 0) {
+                article.archived = true;
+                article.archivedAt = article.updatedAt;
+            }
+            if (random.nextInt(10) == 0) {
+                article.starred = true;
+                article.starredAt = article.updatedAt;
+            }
+
+            int tagCount = random.nextInt(4);
+            for (int i = 0; i < tagCount; i++) {
+                article.addTag(1 + random.nextInt(GENERATED_TAGS));
+            }
+
+            dataset.articles.add(article);
+        }
+        dataset.size = count;
+
+        return dataset;
+    }
+
+    /**
+     * Returns the number of articles.
+     *
+     * @return the number of articles
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the article with the specified ID.
+     *
+     * @param id the ID of the article
+     * @return the article or {@code null} if there's no such article
+     */
+    public synchronized Article getArticle(int id) {
+        StoredArticle article = get(id);
+        return article != null ? toArticle(article, true) : null;
+    }
+
+    /**
+     * Returns the URL of the article with the specified ID
+     * (cheaper than {@code getArticle(id).url} as the content is not generated).
+     *
+     * @param id the ID of the article
+     * @return the URL of the article or {@code null} if there's no such article
+     */
+    public synchronized String getArticleUrl(int id) {
+        StoredArticle article = get(id);
+        return article != null ? getUrl(article) : null;
+    }
+
+    /**
+     * Adds an article, returns the added article.
+     * If an article with the same URL exists, it is returned instead.
+     *
+     * @param url     the URL of the article
+     * @param title   the title of the article, {@code null}able
+     * @param content the content of the article, {@code null}able
+     * @return the added article
+     */
+    public synchronized Article addArticle(String url, String title, String content) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("url", url);
+        if (title != null) fields.put("title", title);
+        if (content != null) fields.put("content", content);
+
+        return toArticle(add(fields), true);
+    }
+
+    /**
+     * Returns all tags.
+     *
+     * @return a new list of all tags
+     */
+    public synchronized List<Tag> getTags() {
+        List<Tag> result = new ArrayList<>();
+        for (Tag tag : tags.values()) result.add(copy(tag));
+        return result;
+    }
+
+    // the methods below are used by the server
+
+    synchronized StoredArticle get(int id) {
+        return id >= 1 && id <= articles.size() ? articles.get(id - 1) : null;
+    }
+
+    synchronized Article getArticle(int id, boolean withContent) {
+        StoredArticle article = get(id);
+        return article != null ? toArticle(article, withContent) : null;
+    }
+
+    /**
+     * Returns the articles matching the {@code query}.
+     */
+    synchronized Page list(ListQuery query) {
+        int[] requiredTags = null;
+        if (query.tags != null) {
+            requiredTags = new int[query.tags.size()];
+            int i = 0;
+            for (String label : query.tags) {
+                Tag tag = tagsByLabel.get(label.trim());
+                if (tag == null) return new Page(Collections.<Article>emptyList(), 0, query);
+                requiredTags[i++] = tag.id;
+            }
+        }
+
+        String term = query.term != null ? query.term.toLowerCase(Locale.ROOT) : null;
+        long since = query.since * 1000;
+
+        int from = (query.page - 1) * query.perPage;
+
+        if (!"updated".equals(query.sort) && !"archived".equals(query.sort)) {
+            // "created" is the ID order: only the requested page is collected
+            List<Article> items = new ArrayList<>();
+            int total = 0;
+            for (int i = 0; i < articles.size(); i++) {
+                StoredArticle article = articles.get(query.ascending ? i : articles.size() - 1 - i);
+                if (!matches(article, query, requiredTags, term, since)) continue;
+
+                if (total >= from && total < from + query.perPage) items.add(toArticle(article, query.full));
+                total++;
+            }
+            return new Page(items, total, query);
+        }
+
+        List<StoredArticle> matched = new ArrayList<>();
+        for (StoredArticle article : articles) {
+            if (matches(article, query, requiredTags, term, since)) matched.add(article);
+        }
+
+        if ("updated".equals(query.sort)) {
+            Collections.sort(matched, new Comparator<StoredArticle>() {
+                @Override
+                public int compare(StoredArticle o1, StoredArticle o2) {
+                    int result = Long.compare(o1.updatedAt, o2.updatedAt);
+                    return result != 0 ? result : Integer.compare(o1.id, o2.id);
+                }
+            });
+        } else if ("archived".equals(query.sort)) {
+            Collections.sort(matched, new Comparator<StoredArticle>() {
+                @Override
+                public int compare(StoredArticle o1, StoredArticle o2) {
+                    int result = Long.compare(o1.archivedAt, o2.archivedAt);
+                    return result != 0 ? result : Integer.compare(o1.id, o2.id);
+                }
+            });
+        }
+
+        if (!query.ascending) Collections.reverse(matched);
+
+        List<Article> items = new ArrayList<>();
+        for (int i = from; i < matched.size() && i < from + query.perPage; i++) {
+            items.add(toArticle(matched.get(i), query.full));
+        }
+
+        return new Page(items, matched.size(), query);
+    }
+
+    private boolean matches(StoredArticle article, ListQuery query, int[] requiredTags, String term, long since) {
+        if (article == null) return false;
+        if (query.archive != null && article.archived != query.archive) return false;
+        if (query.starred != null && article.starred != query.starred) return false;
+        if (query.isPublic != null && Boolean.TRUE.equals(article.isPublic) != query.isPublic) return false;
+        if (since > 0 && article.updatedAt < since) return false;
+        if (requiredTags != null && !hasTags(article, requiredTags)) return false;
+
+        return term == null || getTitle(article).toLowerCase(Locale.ROOT).contains(term)
+                || getUrl(article).toLowerCase(Locale.ROOT).contains(term);
+    }
+
+    synchronized Integer findByUrl(String url) {
+        Integer id = urlIndex.get(url);
+        if (id != null) return id;
+
+        // the generated URLs are not indexed
+        int index = url.lastIndexOf("/articles/");
+        if (index == -1) return null;
+        try {
+            StoredArticle article = get(Integer.parseInt(url.substring(index + "/articles/".length())));
+            return article != null && article.url == null && getUrl(article).equals(url) ? article.id : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    synchronized Integer findByHash(String hash) {
+        if (hashIndex == null) {
+            hashIndex = new HashMap<>();
+            for (StoredArticle article : articles) {
+                if (article != null) hashIndex.put(sha1Hex(getUrl(article)), article.id);
+            }
+        }
+        return hashIndex.get(hash);
+    }
+
+    synchronized StoredArticle add(Map<String, String> fields) {
+        String url = fields.get("url");
+        Integer existing = findByUrl(url);
+        if (existing != null) return get(existing);
+
+        StoredArticle article = new StoredArticle(articles.size() + 1);
+        article.createdAt = article.updatedAt = now();
+        article.url = url;
+        article.givenUrl = url;
+        article.title = url;
+
+        articles.add(article);
+        size++;
+        urlIndex.put(url, article.id);
+        if (hashIndex != null) hashIndex.put(sha1Hex(url), article.id);
+
+        modify(article, fields);
+        return article;
+    }
+
+    synchronized void modify(StoredArticle article, Map<String, String> fields) {
+        long now = now();
+
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            String value = field.getValue();
+            switch (field.getKey()) {
+                case "title":
+                    article.title = value;
+                    break;
+                case "content":
+                    article.content = value;
+                    break;
+                case "language":
+                    article.language = value;
+                    break;
+                case "preview_picture":
+                    article.previewPicture = value;
+                    break;
+                case "origin_url":
+                    article.originUrl = value;
+                    break;
+                case "authors":
+                    article.authors = Arrays.asList(value.split(","));
+                    break;
+                case "published_at":
+                    article.publishedAt = Long.parseLong(value) * 1000;
+                    break;
+                case "public":
+                    article.isPublic = "1".equals(value);
+                    if (article.isPublic && article.publicUid == null) {
+                        article.publicUid = UUID.randomUUID().toString().replace("-", "");
+                    }
+                    break;
+                case "archive":
+                    boolean archived = "1".equals(value);
+                    if (archived != article.archived) article.archivedAt = archived ? now : 0;
+                    article.archived = archived;
+                    break;
+                case "starred":
+                    boolean starred = "1".equals(value);
+                    if (starred != article.starred) article.starredAt = starred ? now : 0;
+                    article.starred = starred;
+                    break;
+                case "tags":
+                    addTags(article, value);
+                    break;
+            }
+        }
+
+        article.updatedAt = now;
+    }
+
+    synchronized void touch(StoredArticle article) {
+        article.updatedAt = now();
+    }
+
+    synchronized Article delete(int id) {
+        StoredArticle article = get(id);
+        if (article == null) return null;
+
+        Article result = toArticle(article, true);
+
+        articles.set(id - 1, null);
+        size--;
+        urlIndex.remove(getUrl(article));
+        if (hashIndex != null) hashIndex.remove(sha1Hex(getUrl(article)));
+
+        List<Annotation> list = articleAnnotations.remove(id);
+        if (list != null) {
+            for (Annotation annotation : list) {
+                annotations.remove(annotation.id);
+                annotationArticles.remove(annotation.id);
+            }
+        }
+
+        return result;
+    }
+
+    synchronized void addTags(StoredArticle article, String labels) {
+        for (String label : labels.split(",")) {
+            label = label.trim();
+            if (!label.isEmpty()) article.addTag(getOrCreateTag(label).id);
+        }
+        touch(article);
+    }
+
+    synchronized List<Tag> getTags(StoredArticle article) {
+        List<Tag> result = new ArrayList<>();
+        for (int tagId : article.tagIds) {
+            Tag tag = tags.get(tagId);
+            if (tag != null) result.add(copy(tag));
+        }
+        return result;
+    }
+
+    synchronized Tag getTag(int tagId) {
+        return tags.get(tagId);
+    }
+
+    synchronized Tag getTag(String label) {
+        return tagsByLabel.get(label);
+    }
+
+    /**
+     * Removes the tag from all articles and deletes it.
+     */
+    synchronized Tag deleteTag(Tag tag) {
+        for (StoredArticle article : articles) {
+            if (article != null && article.removeTag(tag.id)) touch(article);
+        }
+        tags.remove(tag.id);
+        tagsByLabel.remove(tag.label);
+
+        return copy(tag);
+    }
+
+    synchronized List<Annotation> getAnnotations(int articleId) {
+        List<Annotation> list = articleAnnotations.get(articleId);
+        return list != null ? new ArrayList<>(list) : new ArrayList<Annotation>();
+    }
+
+    synchronized Annotation addAnnotation(int articleId, String text, String quote, List<Annotation.Range> ranges) {
+        Annotation annotation = new Annotation();
+        annotation.id = ++lastAnnotationId;
+        annotation.annotatorSchemaVersion = "v1.0";
+        annotation.text = text;
+        annotation.quote = quote;
+        annotation.ranges = ranges;
+        annotation.createdAt = annotation.updatedAt = new Date(now());
+
+        annotations.put(annotation.id, annotation);
+        annotationArticles.put(annotation.id, articleId);
+
+        List<Annotation> list = articleAnnotations.get(articleId);
+        if (list == null) articleAnnotations.put(articleId, list = new ArrayList<>());
+        list.add(annotation);
+
+        return annotation;
+    }
+
+    synchronized Annotation updateAnnotation(int annotationId, String text) {
+        Annotation annotation = annotations.get(annotationId);
+        if (annotation == null) return null;
+
+        annotation.text = text;
+        annotation.updatedAt = new Date(now());
+        return annotation;
+    }
+
+    synchronized Annotation deleteAnnotation(int annotationId) {
+        Annotation annotation = annotations.remove(annotationId);
+        if (annotation == null) return null;
+
+        Integer articleId = annotationArticles.remove(annotationId);
+        List<Annotation> list = articleAnnotations.get(articleId);
+        if (list != null) list.remove(annotation);
+
+        return annotation;
+    }
+
+    private Tag getOrCreateTag(String label) {
+        Tag tag = tagsByLabel.get(label);
+        if (tag == null) {
+            tag = new Tag();
+            tag.id = ++lastTagId;
+            tag.label = label;
+            tag.slug = label.toLowerCase(Locale.ROOT).replace(' ', '-');
+
+            tags.put(tag.id, tag);
+            tagsByLabel.put(label, tag);
+        }
+        return tag;
+    }
+
+    private boolean hasTags(StoredArticle article, int[] tagIds) {
+        for (int tagId : tagIds) {
+            if (!article.hasTag(tagId)) return false;
+        }
+        return true;
+    }
+
+    private Article toArticle(StoredArticle stored, boolean withContent) {
+        Article article = new Article();
+
+        article.id = stored.id;
+        article.url = getUrl(stored);
+        article.hashedUrl = sha1Hex(article.url);
+        article.givenUrl = stored.givenUrl != null ? stored.givenUrl : article.url;
+        article.hashedGivenUrl = sha1Hex(article.givenUrl);
+        article.title = getTitle(stored);
+        if (withContent) article.content = getContent(stored);
+        article.archived = stored.archived;
+        article.archivedAt = toDate(stored.archivedAt);
+        article.starred = stored.starred;
+        article.starredAt = toDate(stored.starredAt);
+        article.tags = getTags(stored);
+        article.createdAt = toDate(stored.createdAt);
+        article.updatedAt = toDate(stored.updatedAt);
+        article.mimetype = "text/html";
+        article.language = stored.language != null ? stored.language : "en";
+        article.readingTime = (stored.content != null ? stored.content.split(" ").length : contentWords) / 200;
+        article.domainName = getDomain(article.url);
+        article.previewPicture = stored.previewPicture;
+        article.originUrl = stored.originUrl;
+        article.publishedAt = toDate(stored.publishedAt);
+        article.authors = stored.authors;
+        article.isPublic = stored.isPublic != null ? stored.isPublic : false;
+        article.publicUid = stored.publicUid;
+
+        List<Annotation> annotations = articleAnnotations.get(stored.id);
+        article.annotations = annotations != null ? new ArrayList<>(annotations) : new ArrayList<Annotation>();
+
+        return article;
+    }
+
+    private String getUrl(StoredArticle article) {
+        if (article.url != null) return article.url;
+
+        return "https://" + DOMAINS[article.id % DOMAINS.length] + "/articles/" + article.id;
+    }
+
+    private String getTitle(StoredArticle article) {
+        if (article.title != null) return article.title;
+
+        Random random = new Random(seed * 31 + article.id);
+        StringBuilder sb = new StringBuilder();
+        int words = 3 + random.nextInt(6);
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i == 0) word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            if (i > 0) sb.append(' ');
+            sb.append(word);
+        }
+        return sb.toString();
+    }
+
+    private String getContent(StoredArticle article) {
+        if (article.content != null) return article.content;
+
+        Random random = new Random(seed * 37 + article.id);
+        StringBuilder sb = new StringBuilder(contentWords * 8);
+        sb.append("<p>");
+        for (int i = 0; i < contentWords; i++) {
+            if (i > 0) sb.append(i % 80 == 0 ? "</p>\n<p>" : " ");
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        sb.append("</p>");
+        return sb.toString();
+    }
+
+    private static String getDomain(String url) {
+        int start = url.indexOf("://");
+        start = start != -1 ? start + 3 : 0;
+        int end = url.indexOf('/', start);
+        return end != -1 ? url.substring(start, end) : url.substring(start);
+    }
+
+    private static Date toDate(long time) {
+        return time != 0 ? new Date(time) : null;
+    }
+
+    private static Tag copy(Tag tag) {
+        Tag copy = new Tag();
+        copy.id = tag.id;
+        copy.label = tag.label;
+        copy.slug = tag.slug;
+        return copy;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    static String sha1Hex(String s) {
+        return ByteString.encodeString(s, UTF_8).sha1().hex();
+    }
+
+    /**
+     * The parameters of a list or search request.
+     */
+    static class ListQuery {
+        Boolean archive;
+        Boolean starred;
+        Boolean isPublic;
+        String sort = "created";
+        boolean ascending;
+        boolean full = true;
+        List<String> tags;
+        long since;
+        String term;
+        int page = 1;
+        int perPage = 30;
+    }
+
+    /**
+     * A page of a list or search result.
+     */
+    static class Page {
+        final List<Article> items;
+        final int total;
+        final int page;
+        final int perPage;
+
+        Page(List<Article> items, int total, ListQuery query) {
+            this.items = items;
+            this.total = total;
+            this.page = query.page;
+            this.perPage = query.perPage;
+        }
+
+        int getPages() {
+            return Math.max(1, (total + perPage - 1) / perPage);
+        }
+    }
+
+}
@@ -0,0 +1,346 @@
+package wallabag.apiwrapper.testing;
+
+import okhttp3.mockwebserver.MockWebServer;
+import wallabag.apiwrapper.BasicParameterHandler;
+import wallabag.apiwrapper.ParameterHandler;
+
+import javax.net.ServerSocketFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@code FakeWallabagServer} class is an embeddable in-memory stand-in for a wallabag server
+ * for tests and benchmarks.
+ * <p>The server implements the API used by {@code WallabagService}: article listing with all filters,
+ * search (by titles and URLs), "exists" by URLs and hashes, adding, modifying, reloading,
+ * deleting and exporting articles, tags, annotations, bulk list operations,
+ * OAuth token and refresh token grants (with token expiry), version and info.
+ * The data is kept in a {@link FakeDataset}.
+ * <p>Latency and errors may be injected with {@link #setLatency(long, long, TimeUnit)},
+ * {@link #setSlowResponses(double, long, TimeUnit)}, {@link #setErrors(double, int)}
+ * and {@link #setDisconnects(double)}.
+ * <p>Example:
+ * <pre>{@code
+ * FakeWallabagServer server = new FakeWallabagServer(FakeDataset.generate(10000, 42));
+ * server.start();
+ * WallabagService service = WallabagService.instance(server.getUrl(), server.parameterHandler());
+ * // ...
+ * server.close();
+ * }</pre>
+ * <p>This class is thread safe.
+ */
+public class FakeWallabagServer implements Closeable {
+
+    /**
+     * The default client ID.
+     */
+    public static final String DEFAULT_CLIENT_ID = "client-id";
+
+    /**
+     * The default client secret.
+     */
+    public static final String DEFAULT_CLIENT_SECRET = "client-secret";
+
+    /**
+     * The default username.
+     */
+    public static final String DEFAULT_USERNAME = "wallabag";
+
+    /**
+     * The default password.
+     */
+    public static final String DEFAULT_PASSWORD = "wallabag";
+
+    /**
+     * The default server version.
+     */
+    public static final String DEFAULT_VERSION = "2.4.0";
+
+    // MockWebServer logs every request at the INFO level, which is too slow for load tests;
+    // the reference keeps the configured logger from being garbage collected
+    private static final Logger MOCK_WEB_SERVER_LOGGER = Logger.getLogger(MockWebServer.class.getName());
+
+    static {
+        MOCK_WEB_SERVER_LOGGER.setLevel(Level.WARNING);
+    }
+
+    private final FakeDataset dataset;
+    private final MockWebServer server = new MockWebServer();
+    private final RequestHandler requestHandler;
+
+    private final ConcurrentMap<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+    volatile String clientId = DEFAULT_CLIENT_ID;
+    volatile String clientSecret = DEFAULT_CLIENT_SECRET;
+    volatile String username = DEFAULT_USERNAME;
+    volatile String password = DEFAULT_PASSWORD;
+    volatile String version = DEFAULT_VERSION;
+
+    volatile long tokenLifetimeMillis = TimeUnit.HOURS.toMillis(1);
+
+    volatile long minLatencyMillis;
+    volatile long maxLatencyMillis;
+    volatile double slowProbability;
+    volatile long slowDelayMillis;
+    volatile double errorProbability;
+    volatile int errorCode = 503;
+    volatile double disconnectProbability;
+
+    /**
+     * Creates a server with an empty dataset.
+     */
+    public FakeWallabagServer() {
+        this(new FakeDataset());
+    }
+
+    /**
+     * Creates a server with the specified dataset.
+     *
+     * @param dataset the dataset to serve
+     */
+    public FakeWallabagServer(FakeDataset dataset) {
+        if (dataset == null) throw new NullPointerException("dataset is null");
+
+        this.dataset = dataset;
+        this.requestHandler = new RequestHandler(this, dataset);
+        server.setDispatcher(requestHandler);
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+    }
+
+    /**
+     * Starts the server on a random port.
+     *
+     * @throws IOException if the server could not be started
+     */
+    public void start() throws IOException {
+        server.start();
+    }
+
+    /**
+     * Returns the base URL to pass to {@code WallabagService}.
+     *
+     * @return the base URL of the server
+     */
+    public String getUrl() {
+        return server.url("/").toString();
+    }
+
+    /**
+     * Returns a new {@link ParameterHandler} with the credentials accepted by this server.
+     *
+     * @return a new {@link ParameterHandler}
+     */
+    public ParameterHandler parameterHandler() {
+        return new BasicParameterHandler(username, password, clientId, clientSecret);
+    }
+
+    /**
+     * Returns the dataset served by this server.
+     *
+     * @return the dataset
+     */
+    public FakeDataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Sets the credentials accepted by this server.
+     *
+     * @param clientId     the client ID
+     * @param clientSecret the client secret
+     * @param username     the username
+     * @param password     the password
+     */
+    public void setCredentials(String clientId, String clientSecret, String username, String password) {
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Sets the version reported by this server. Defaults to {@link #DEFAULT_VERSION}.
+     *
+     * @param version the version
+     */
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Sets the lifetime of the issued access tokens. Defaults to one hour.
+     *
+     * @param lifetime the lifetime of the tokens
+     * @param timeUnit the {@code TimeUnit} of the {@code lifetime}
+     */
+    public void setTokenLifetime(long lifetime, TimeUnit timeUnit) {
+        this.tokenLifetimeMillis = timeUnit.toMillis(lifetime);
+    }
+
+    /**
+     * Expires all issued access tokens (the refresh tokens stay valid).
+     */
+    public void expireTokens() {
+        requestHandler.expireTokens();
+    }
+
+    /**
+     * Sets the range of the latency added to every response. No latency is added by default.
+     *
+     * @param min      the minimum latency
+     * @param max      the maximum latency
+     * @param timeUnit the {@code TimeUnit} of the latencies
+     * @throws IllegalArgumentException if {@code min < 0} or {@code max < min}
+     */
+    public void setLatency(long min, long max, TimeUnit timeUnit) {
+        if (min < 0 || max < min) throw new IllegalArgumentException("Invalid latency range: " + min + "-" + max);
+
+        this.minLatencyMillis = timeUnit.toMillis(min);
+        this.maxLatencyMillis = timeUnit.toMillis(max);
+    }
+
+    /**
+     * Makes a fraction of the API responses slow, e.g. to simulate tail latency.
+     *
+     * @param probability the probability of a slow response, from {@code 0} to {@code 1}
+     * @param delay       the additional delay of a slow response
+     * @param timeUnit    the {@code TimeUnit} of the {@code delay}
+     */
+    public void setSlowResponses(double probability, long delay, TimeUnit timeUnit) {
+        this.slowProbability = probability;
+        this.slowDelayMillis = timeUnit.toMillis(delay);
+    }
+
+    /**
+     * Makes a fraction of the API requests fail with the specified HTTP code.
+     *
+     * @param probability the probability of an error, from {@code 0} to {@code 1}
+     * @param code        the HTTP code of the error responses, e.g. {@code 503}
+     */
+    public void setErrors(double probability, int code) {
+        this.errorProbability = probability;
+        this.errorCode = code;
+    }
+
+    /**
+     * Makes the server drop the connection without a response for a fraction of the API requests.
+     *
+     * @param probability the probability of a disconnect, from {@code 0} to {@code 1}
+     */
+    public void setDisconnects(double probability) {
+        this.disconnectProbability = probability;
+    }
+
+    /**
+     * Returns the number of the handled requests per endpoint (e.g. {@code "GET api/entries/{id}.json"}).
+     *
+     * @return a new sorted map of endpoints to the numbers of requests
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : requestCounts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total number of the handled requests.
+     *
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        long count = 0;
+        for (AtomicLong value : requestCounts.values()) count += value.get();
+        return count;
+    }
+
+    /**
+     * Resets the request counters.
+     */
+    public void resetRequestCounts() {
+        requestCounts.clear();
+    }
+
+    /**
+     * Disables Nagle's algorithm on the accepted sockets: MockWebServer writes the headers and the body separately,
+     * which otherwise adds a delayed ACK timeout (about 40 ms) to the responses.
+     */
+    private static class NoDelayServerSocket extends ServerSocket {
+
+        NoDelayServerSocket() throws IOException {}
+
+        @Override
+        public Socket accept() throws IOException {
+            Socket socket = super.accept();
+            socket.setTcpNoDelay(true);
+            return socket;
+        }
+
+    }
+
+    private static class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new NoDelayServerSocket();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return createServerSocket(port, 0, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return createServerSocket(port, backlog, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            ServerSocket serverSocket = new NoDelayServerSocket();
+            try {
+                // the default backlog is used if backlog < 1, like in the ServerSocket constructors
+                serverSocket.bind(new InetSocketAddress(address, port), backlog);
+            } catch (IOException e) {
+                serverSocket.close();
+                throw e;
+            }
+            return serverSocket;
+        }
+
+    }
+
+    void countRequest(String endpoint) {
+        AtomicLong counter = requestCounts.get(endpoint);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = requestCounts.putIfAbsent(endpoint, newCounter);
+            if (counter == null) counter = newCounter;
+        }
+        counter.incrementAndGet();
+    }
+
+    /**
+     * Shuts the server down.
+     *
+     * @throws IOException if the server could not be shut down
+     */
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+}
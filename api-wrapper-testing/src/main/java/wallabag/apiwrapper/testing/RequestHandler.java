@@ -0,0 +1,506 @@
+package wallabag.apiwrapper.testing;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.models.*;
+import wallabag.apiwrapper.models.adapters.EntryReferenceAdapter;
+import wallabag.apiwrapper.models.adapters.ModelJsonAdapters;
+import wallabag.apiwrapper.models.adapters.NumericBooleanAdapter;
+import wallabag.apiwrapper.models.adapters.Rfc3339DateAdapter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Handles the requests of a {@link FakeWallabagServer}.
+ */
+class RequestHandler extends Dispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestHandler.class);
+
+    private static final Pattern ENTRY = Pattern.compile("/api/entries/(\\d+)\\.json");
+    private static final Pattern ENTRY_RELOAD = Pattern.compile("/api/entries/(\\d+)/reload\\.json");
+    private static final Pattern ENTRY_EXPORT = Pattern.compile("/api/entries/(\\d+)/export\\.(\\w+)");
+    private static final Pattern ENTRY_TAGS = Pattern.compile("/api/entries/(\\d+)/tags\\.json");
+    private static final Pattern ENTRY_TAG = Pattern.compile("/api/entries/(\\d+)/tags/(\\d+)\\.json");
+    private static final Pattern TAG = Pattern.compile("/api/tags/(\\d+)\\.json");
+    private static final Pattern ANNOTATIONS = Pattern.compile("/api/annotations/(\\d+)\\.json");
+
+    private static final String JSON = "application/json";
+
+    private final FakeWallabagServer server;
+    private final FakeDataset dataset;
+
+    private final Map<String, Long> accessTokens = new ConcurrentHashMap<>();
+    private final Set<String> refreshTokens = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final Moshi moshi = new Moshi.Builder()
+            .add(new ModelJsonAdapters.Factory())
+            .add(new NumericBooleanAdapter())
+            .add(new EntryReferenceAdapter())
+            .add(Date.class, new Rfc3339DateAdapter().nullSafe())
+            .build();
+
+    private final JsonAdapter<Object> genericAdapter = moshi.adapter(Object.class);
+
+    RequestHandler(FakeWallabagServer server, FakeDataset dataset) {
+        this.server = server;
+        this.dataset = dataset;
+    }
+
+    void expireTokens() {
+        accessTokens.clear();
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        HttpUrl url = request.getRequestUrl();
+        String method = request.getMethod();
+        String path = url.encodedPath();
+
+        MockResponse response;
+        try {
+            response = handle(request, method, path, url);
+        } catch (Exception e) {
+            LOG.warn("dispatch() exception handling {} {}", method, path, e);
+            response = new MockResponse().setResponseCode(500).setBody(e.toString());
+        }
+
+        return addLatency(response, !path.startsWith("/oauth/"));
+    }
+
+    private MockResponse handle(RecordedRequest request, String method, String path, HttpUrl url)
+            throws IOException {
+        if ("POST".equals(method) && "/oauth/v2/token".equals(path)) {
+            server.countRequest("POST oauth/v2/token");
+            return token(readForm(request));
+        }
+        if ("GET".equals(method) && "/api/version.json".equals(path)) {
+            server.countRequest("GET api/version.json");
+            return json("\"" + server.version + "\"");
+        }
+        if ("GET".equals(method) && "/api/info.json".equals(path)) {
+            server.countRequest("GET api/info.json");
+            Info info = new Info();
+            info.appname = "wallabag";
+            info.version = server.version;
+            info.registrationAllowed = false;
+            return json(info, Info.class);
+        }
+
+        String endpoint = method + " " + normalize(path);
+        server.countRequest(endpoint);
+
+        if (!isAuthorized(request.getHeader("Authorization"))) {
+            return new MockResponse().setResponseCode(401).addHeader("Content-Type", JSON).setBody(
+                    "{\"error\":\"invalid_grant\",\"error_description\":\"The access token provided is invalid.\"}");
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < server.disconnectProbability) {
+            return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+        }
+        if (random.nextDouble() < server.errorProbability) {
+            return new MockResponse().setResponseCode(server.errorCode).setBody("Injected error");
+        }
+
+        Matcher matcher;
+        switch (endpoint) {
+            case "GET api/entries.json":
+                return json(list(url, null), Articles.class);
+            case "GET api/search.json":
+                return json(list(url, url.queryParameter("term")), Articles.class);
+            case "POST api/entries.json": {
+                Map<String, String> form = readForm(request);
+                if (form.get("url") == null) return error(400, "url is required");
+                StoredArticle article = dataset.add(form);
+                return json(dataset.getArticle(article.id, true), Article.class);
+            }
+            case "GET api/entries/exists.json":
+                return exists(url);
+            case "POST api/entries/lists.json":
+                return addByList(url.queryParameter("urls"));
+            case "DELETE api/entries/list.json":
+                return deleteByList(url.queryParameter("urls"));
+            case "POST api/entries/tags/lists.json":
+                return tagsByList(url.queryParameter("list"), true);
+            case "DELETE api/entries/tags/list.json":
+                return tagsByList(url.queryParameter("list"), false);
+            case "GET api/tags.json":
+                return json(dataset.getTags(), Types.newParameterizedType(List.class, Tag.class));
+            case "DELETE api/tag/label.json": {
+                Tag tag = dataset.getTag(url.queryParameter("tag"));
+                return tag != null ? json(dataset.deleteTag(tag), Tag.class) : notFound();
+            }
+            case "DELETE api/tags/label.json": {
+                List<Tag> deleted = new ArrayList<>();
+                for (String label : url.queryParameter("tags").split(",")) {
+                    Tag tag = dataset.getTag(label.trim());
+                    if (tag != null) deleted.add(dataset.deleteTag(tag));
+                }
+                return json(deleted, Types.newParameterizedType(List.class, Tag.class));
+            }
+        }
+
+        if ((matcher = ENTRY.matcher(path)).matches()) {
+            int id = Integer.parseInt(matcher.group(1));
+            StoredArticle article = dataset.get(id);
+            if (article == null) return notFound();
+
+            switch (method) {
+                case "GET":
+                    return json(dataset.getArticle(id, true), Article.class);
+                case "PATCH":
+                    dataset.modify(article, readForm(request));
+                    return json(dataset.getArticle(id, true), Article.class);
+                case "DELETE":
+                    Article deleted = dataset.delete(id);
+                    if ("id".equals(url.queryParameter("expect"))) return json("{\"id\":" + id + "}");
+                    return json(deleted, Article.class);
+            }
+        } else if ((matcher = ENTRY_RELOAD.matcher(path)).matches() && "PATCH".equals(method)) {
+            StoredArticle article = dataset.get(Integer.parseInt(matcher.group(1)));
+            if (article == null) return notFound();
+
+            dataset.touch(article);
+            return json(dataset.getArticle(article.id, true), Article.class);
+        } else if ((matcher = ENTRY_EXPORT.matcher(path)).matches() && "GET".equals(method)) {
+            Article article = dataset.getArticle(Integer.parseInt(matcher.group(1)), true);
+            if (article == null) return notFound();
+
+            return export(article, matcher.group(2));
+        } else if ((matcher = ENTRY_TAGS.matcher(path)).matches()) {
+            StoredArticle article = dataset.get(Integer.parseInt(matcher.group(1)));
+            if (article == null) return notFound();
+
+            switch (method) {
+                case "GET":
+                    return json(dataset.getTags(article), Types.newParameterizedType(List.class, Tag.class));
+                case "POST":
+                    String tags = readForm(request).get("tags");
+                    if (tags != null) dataset.addTags(article, tags);
+                    return json(dataset.getArticle(article.id, true), Article.class);
+            }
+        } else if ((matcher = ENTRY_TAG.matcher(path)).matches() && "DELETE".equals(method)) {
+            StoredArticle article = dataset.get(Integer.parseInt(matcher.group(1)));
+            if (article == null) return notFound();
+
+            if (article.removeTag(Integer.parseInt(matcher.group(2)))) dataset.touch(article);
+            return json(dataset.getArticle(article.id, true), Article.class);
+        } else if ((matcher = TAG.matcher(path)).matches() && "DELETE".equals(method)) {
+            Tag tag = dataset.getTag(Integer.parseInt(matcher.group(1)));
+            return tag != null ? json(dataset.deleteTag(tag), Tag.class) : notFound();
+        } else if ((matcher = ANNOTATIONS.matcher(path)).matches()) {
+            return annotations(method, Integer.parseInt(matcher.group(1)), request);
+        }
+
+        return notFound();
+    }
+
+    private MockResponse token(Map<String, String> form) {
+        if (!server.clientId.equals(form.get("client_id"))
+                || !server.clientSecret.equals(form.get("client_secret"))) {
+            return error(400, "{\"error\":\"invalid_client\"}");
+        }
+
+        String grantType = form.get("grant_type");
+        if ("refresh_token".equals(grantType)) {
+            if (!refreshTokens.remove(form.get("refresh_token"))) {
+                return error(400, "{\"error\":\"invalid_grant\",\"error_description\":\"Invalid refresh token\"}");
+            }
+        } else if ("password".equals(grantType)) {
+            if (!server.username.equals(form.get("username")) || !server.password.equals(form.get("password"))) {
+                return error(400, "{\"error\":\"invalid_grant\",\"error_description\":\"Invalid credentials\"}");
+            }
+        } else {
+            return error(400, "{\"error\":\"unsupported_grant_type\"}");
+        }
+
+        String accessToken = UUID.randomUUID().toString();
+        String refreshToken = UUID.randomUUID().toString();
+        long lifetime = server.tokenLifetimeMillis;
+
+        accessTokens.put(accessToken, System.currentTimeMillis() + lifetime);
+        refreshTokens.add(refreshToken);
+
+        return json(new TokenResponse(accessToken, (int) TimeUnit.MILLISECONDS.toSeconds(lifetime),
+                refreshToken, null, "bearer"), TokenResponse.class);
+    }
+
+    private boolean isAuthorized(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) return false;
+
+        Long expiresAt = accessTokens.get(authorization.substring("Bearer ".length()));
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    private Articles list(HttpUrl url, String term) {
+        FakeDataset.ListQuery query = new FakeDataset.ListQuery();
+        query.archive = parseBoolean(url.queryParameter("archive"));
+        query.starred = parseBoolean(url.queryParameter("starred"));
+        query.isPublic = parseBoolean(url.queryParameter("public"));
+        if (url.queryParameter("sort") != null) query.sort = url.queryParameter("sort");
+        query.ascending = "asc".equals(url.queryParameter("order"));
+        query.full = !"metadata".equals(url.queryParameter("detail"));
+        String tags = url.queryParameter("tags");
+        if (tags != null && !tags.isEmpty()) query.tags = Arrays.asList(tags.split(","));
+        if (url.queryParameter("since") != null) query.since = Long.parseLong(url.queryParameter("since"));
+        query.term = term;
+        if (url.queryParameter("page") != null) query.page = Integer.parseInt(url.queryParameter("page"));
+        if (url.queryParameter("perPage") != null) query.perPage = Integer.parseInt(url.queryParameter("perPage"));
+
+        FakeDataset.Page page = dataset.list(query);
+        if (query.page > page.getPages()) return null;
+
+        Articles articles = new Articles();
+        articles.page = page.page;
+        articles.limit = page.perPage;
+        articles.pages = page.getPages();
+        articles.total = page.total;
+        articles.embedded = new Articles.Embedded();
+        articles.embedded.items = page.items;
+        return articles;
+    }
+
+    private MockResponse exists(HttpUrl url) {
+        boolean returnId = "1".equals(url.queryParameter("return_id"));
+
+        List<String> urls = url.queryParameterValues("urls[]");
+        List<String> hashes = url.queryParameterValues("hashed_urls[]");
+        if (!urls.isEmpty() || !hashes.isEmpty()) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (String u : urls) result.put(u, existsValue(dataset.findByUrl(u), returnId));
+            for (String h : hashes) result.put(h, existsValue(dataset.findByHash(h), returnId));
+            return json(result, Types.newParameterizedType(Map.class, String.class, Object.class), true);
+        }
+
+        String single = url.queryParameter("url");
+        Integer id = single != null ? dataset.findByUrl(single) : null;
+        if (single == null && url.queryParameter("hashed_url") != null) {
+            id = dataset.findByHash(url.queryParameter("hashed_url"));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("exists", existsValue(id, returnId));
+        return json(result, Types.newParameterizedType(Map.class, String.class, Object.class), true);
+    }
+
+    private static Object existsValue(Integer id, boolean returnId) {
+        return returnId ? id : (Object) (id != null);
+    }
+
+    private MockResponse addByList(String json) throws IOException {
+        List<ListActionResponse> result = new ArrayList<>();
+        for (Object url : (List<?>) genericAdapter.fromJson(json)) {
+            Map<String, String> form = new HashMap<>();
+            form.put("url", (String) url);
+
+            ListActionResponse item = new ListActionResponse();
+            item.url = (String) url;
+            item.entry = dataset.add(form).id;
+            result.add(item);
+        }
+        return json(result, Types.newParameterizedType(List.class, ListActionResponse.class));
+    }
+
+    private MockResponse deleteByList(String json) throws IOException {
+        List<ListActionResponse> result = new ArrayList<>();
+        for (Object url : (List<?>) genericAdapter.fromJson(json)) {
+            ListActionResponse item = new ListActionResponse();
+            item.url = (String) url;
+            Integer id = dataset.findByUrl(item.url);
+            if (id != null) {
+                dataset.delete(id);
+                item.entry = id;
+            }
+            result.add(item);
+        }
+        return json(result, Types.newParameterizedType(List.class, ListActionResponse.class));
+    }
+
+    private MockResponse tagsByList(String json, boolean add) throws IOException {
+        List<ListActionResponse> result = new ArrayList<>();
+        for (Object element : (List<?>) genericAdapter.fromJson(json)) {
+            Map<?, ?> map = (Map<?, ?>) element;
+
+            ListActionResponse item = new ListActionResponse();
+            item.url = (String) map.get("url");
+            Integer id = dataset.findByUrl(item.url);
+            if (id != null) {
+                StoredArticle article = dataset.get(id);
+                String labels = (String) map.get("tags");
+                if (add) {
+                    dataset.addTags(article, labels);
+                } else {
+                    for (String label : labels.split(",")) {
+                        Tag tag = dataset.getTag(label.trim());
+                        if (tag != null) article.removeTag(tag.id);
+                    }
+                    dataset.touch(article);
+                }
+                item.entry = id;
+            }
+            result.add(item);
+        }
+        return json(result, Types.newParameterizedType(List.class, ListActionResponse.class));
+    }
+
+    private MockResponse export(Article article, String format) {
+        String content = article.content != null ? article.content : "";
+        String text = content.replaceAll("<[^>]+>", "");
+
+        switch (format) {
+            case "json":
+                return json(article, Article.class);
+            case "xml":
+                return body("application/xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<entries><entry><id>"
+                        + article.id + "</id><title><![CDATA[" + article.title + "]]></title><url>"
+                        + article.url + "</url><content><![CDATA[" + content + "]]></content></entry></entries>");
+            case "txt":
+                return body("text/plain; charset=utf-8", article.title + "\n\n" + text);
+            case "csv":
+                return body("text/csv; charset=utf-8", "Title;URL;Content\n\"" + article.title + "\";\""
+                        + article.url + "\";\"" + text.replace("\"", "\"\"") + "\"\n");
+            case "html":
+                return body("text/html; charset=utf-8", "<html><head><title>" + article.title
+                        + "</title></head><body><h1>" + article.title + "</h1>" + content + "</body></html>");
+            case "pdf":
+                return body("application/pdf", "%PDF-1.4\n% fake document\n" + text + "\n%%EOF\n");
+            case "epub":
+                return body("application/epub+zip", "PK fake epub\n" + text);
+            case "mobi":
+                return body("application/x-mobipocket-ebook", "BOOKMOBI fake mobi\n" + text);
+            default:
+                return notFound();
+        }
+    }
+
+    private MockResponse annotations(String method, int id, RecordedRequest request) throws IOException {
+        switch (method) {
+            case "GET": {
+                if (dataset.get(id) == null) return notFound();
+
+                Annotations annotations = new Annotations();
+                annotations.rows = dataset.getAnnotations(id);
+                annotations.total = annotations.rows.size();
+                return json(annotations, Annotations.class);
+            }
+            case "POST": {
+                if (dataset.get(id) == null) return notFound();
+
+                Map<?, ?> body = (Map<?, ?>) genericAdapter.fromJson(request.getBody().readUtf8());
+                List<Annotation.Range> ranges = new ArrayList<>();
+                if (body.get("ranges") instanceof List) {
+                    for (Object element : (List<?>) body.get("ranges")) {
+                        Map<?, ?> map = (Map<?, ?>) element;
+                        ranges.add(new Annotation.Range((String) map.get("start"), (String) map.get("end"),
+                                toLong(map.get("startOffset")), toLong(map.get("endOffset"))));
+                    }
+                }
+                return json(dataset.addAnnotation(id, (String) body.get("text"),
+                        (String) body.get("quote"), ranges), Annotation.class);
+            }
+            case "PUT": {
+                Map<?, ?> body = (Map<?, ?>) genericAdapter.fromJson(request.getBody().readUtf8());
+                Annotation annotation = dataset.updateAnnotation(id, (String) body.get("text"));
+                return annotation != null ? json(annotation, Annotation.class) : notFound();
+            }
+            case "DELETE": {
+                Annotation annotation = dataset.deleteAnnotation(id);
+                return annotation != null ? json(annotation, Annotation.class) : notFound();
+            }
+            default:
+                return notFound();
+        }
+    }
+
+    private MockResponse addLatency(MockResponse response, boolean api) {
+        long delay = server.minLatencyMillis;
+        long spread = server.maxLatencyMillis - delay;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (spread > 0) delay += random.nextLong(spread + 1);
+        if (api && server.slowProbability > 0 && random.nextDouble() < server.slowProbability) {
+            delay += server.slowDelayMillis;
+        }
+
+        return delay > 0 ? response.setHeadersDelay(delay, TimeUnit.MILLISECONDS) : response;
+    }
+
+    private static Map<String, String> readForm(RecordedRequest request) throws IOException {
+        Buffer body = request.getBody();
+        if ("gzip".equals(request.getHeader("Content-Encoding"))) {
+            Buffer decoded = new Buffer();
+            decoded.writeAll(Okio.buffer(new GzipSource(body)));
+            body = decoded;
+        }
+
+        Map<String, String> form = new HashMap<>();
+        HttpUrl parsed = HttpUrl.get("http://localhost/?" + body.readUtf8());
+        for (String name : parsed.queryParameterNames()) {
+            form.put(name, parsed.queryParameter(name));
+        }
+        return form;
+    }
+
+    private static Boolean parseBoolean(String value) {
+        return value != null ? "1".equals(value) : null;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    /**
+     * Returns the path with the IDs replaced by placeholders.
+     */
+    private static String normalize(String path) {
+        return path.substring(1).replaceAll("/\\d+", "/{id}");
+    }
+
+    private <T> MockResponse json(T value, Type type) {
+        return json(value, type, false);
+    }
+
+    private <T> MockResponse json(T value, Type type, boolean serializeNulls) {
+        if (value == null) return notFound();
+
+        JsonAdapter<T> adapter = moshi.adapter(type);
+        if (serializeNulls) adapter = adapter.serializeNulls();
+        return json(adapter.toJson(value));
+    }
+
+    private static MockResponse json(String body) {
+        return body(JSON, body);
+    }
+
+    private static MockResponse body(String contentType, String body) {
+        return new MockResponse().addHeader("Content-Type", contentType).setBody(body);
+    }
+
+    private static MockResponse error(int code, String body) {
+        return new MockResponse().setResponseCode(code).addHeader("Content-Type", JSON).setBody(body);
+    }
+
+    private static MockResponse notFound() {
+        return error(404, "{\"error\":{\"code\":404,\"message\":\"Not Found\"}}");
+    }
+
+}
@@ -0,0 +1,69 @@
+package wallabag.apiwrapper.testing;
+
+import java.util.List;
+
+/**
+ * An article stored in a {@link FakeDataset}.
+ * <p>The fields of the generated articles that are {@code null} are generated on demand from the ID,
+ * so large datasets don't take much memory.
+ */
+class StoredArticle {
+
+    final int id;
+
+    String url;
+    String givenUrl;
+    String title;
+    String content;
+    String language;
+    String previewPicture;
+    String originUrl;
+    List<String> authors;
+    Boolean isPublic;
+    String publicUid;
+
+    boolean archived;
+    boolean starred;
+
+    long createdAt;
+    long updatedAt;
+    long archivedAt;
+    long starredAt;
+    long publishedAt;
+
+    int[] tagIds = new int[0];
+
+    StoredArticle(int id) {
+        this.id = id;
+    }
+
+    boolean hasTag(int tagId) {
+        for (int id : tagIds) {
+            if (id == tagId) return true;
+        }
+        return false;
+    }
+
+    boolean addTag(int tagId) {
+        if (hasTag(tagId)) return false;
+
+        int[] tagIds = new int[this.tagIds.length + 1];
+        System.arraycopy(this.tagIds, 0, tagIds, 0, this.tagIds.length);
+        tagIds[this.tagIds.length] = tagId;
+        this.tagIds = tagIds;
+        return true;
+    }
+
+    boolean removeTag(int tagId) {
+        if (!hasTag(tagId)) return false;
+
+        int[] tagIds = new int[this.tagIds.length - 1];
+        int i = 0;
+        for (int id : this.tagIds) {
+            if (id != tagId) tagIds[i++] = id;
+        }
+        this.tagIds = tagIds;
+        return true;
+    }
+
+}
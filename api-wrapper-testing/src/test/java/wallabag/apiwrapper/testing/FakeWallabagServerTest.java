@@ -0,0 +1,152 @@
+package wallabag.apiwrapper.testing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import wallabag.apiwrapper.ArticleIterator;
+import wallabag.apiwrapper.NotFoundPolicy;
+import wallabag.apiwrapper.WallabagService;
+import wallabag.apiwrapper.exceptions.NotFoundException;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Articles;
+import wallabag.apiwrapper.models.Tag;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class FakeWallabagServerTest {
+
+    private static final int ARTICLES = 250;
+
+    private FakeWallabagServer server;
+    private FakeDataset dataset;
+    private WallabagService service;
+
+    @Before
+    public void setUp() throws Exception {
+        dataset = FakeDataset.generate(ARTICLES, 42, 20);
+        server = new FakeWallabagServer(dataset);
+        server.start();
+        service = WallabagService.instance(server.getUrl(), server.parameterHandler());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void paging() throws Exception {
+        Articles articles = service.getArticlesBuilder().perPage(30).page(2).execute();
+
+        assertEquals(ARTICLES, articles.total);
+        assertEquals(9, articles.pages);
+        assertEquals(2, articles.page);
+        assertEquals(30, articles.embedded.items.size());
+
+        assertNull(service.getArticlesBuilder().perPage(30).page(10).execute());
+    }
+
+    @Test
+    public void iteratingReturnsAllArticlesOnce() throws Exception {
+        Set<Integer> ids = new HashSet<>();
+        ArticleIterator iterator = service.getArticlesBuilder().perPage(40).articleIterator();
+        while (iterator.hasNext()) {
+            assertTrue(ids.add(iterator.next().id));
+        }
+
+        assertEquals(ARTICLES, ids.size());
+        assertEquals(Long.valueOf(7), server.getRequestCounts().get("GET api/entries.json"));
+    }
+
+    @Test
+    public void archiveAndStarredFilters() throws Exception {
+        int archived = 0, starredUnread = 0;
+        for (int id = 1; id <= ARTICLES; id++) {
+            Article article = dataset.getArticle(id);
+            if (article.archived) archived++;
+            if (article.starred && !article.archived) starredUnread++;
+        }
+
+        assertEquals(archived, service.getArticlesBuilder().archive(true).execute().total);
+
+        List<Article> items = service.getArticlesBuilder().archive(false).starred(true).perPage(ARTICLES)
+                .execute().embedded.items;
+        assertEquals(starredUnread, items.size());
+        for (Article article : items) {
+            assertTrue(article.starred);
+            assertFalse(article.archived);
+        }
+    }
+
+    @Test
+    public void tagFilter() throws Exception {
+        String label = dataset.getTags().get(0).label;
+
+        int expected = 0;
+        for (int id = 1; id <= ARTICLES; id++) {
+            if (hasTag(dataset.getArticle(id), label)) expected++;
+        }
+
+        List<Article> items = service.getArticlesBuilder().tag(label).perPage(ARTICLES).execute().embedded.items;
+        assertEquals(expected, items.size());
+        for (Article article : items) {
+            assertTrue(hasTag(article, label));
+        }
+
+        assertEquals(0, service.getArticlesBuilder().tag("no-such-tag").execute().total);
+    }
+
+    @Test
+    public void exists() throws Exception {
+        String url = dataset.getArticleUrl(5);
+
+        assertTrue(service.articleExists(url));
+        assertEquals(Integer.valueOf(5), service.articleExistsWithId(url));
+        assertFalse(service.articleExists("https://example.com/missing"));
+        assertNull(service.articleExistsWithId("https://example.com/missing"));
+
+        Map<String, Boolean> result = service.articlesExistByUrls(
+                Arrays.asList(url, dataset.getArticleUrl(7), "https://example.com/missing"));
+        assertEquals(Boolean.TRUE, result.get(url));
+        assertEquals(Boolean.TRUE, result.get(dataset.getArticleUrl(7)));
+        assertEquals(Boolean.FALSE, result.get("https://example.com/missing"));
+    }
+
+    @Test
+    public void notFound() throws Exception {
+        assertNull(service.getArticle(ARTICLES + 1, NotFoundPolicy.DEFAULT_VALUE));
+
+        try {
+            service.getArticle(ARTICLES + 1, NotFoundPolicy.THROW);
+            fail("NotFoundException expected");
+        } catch (NotFoundException expected) {
+        }
+    }
+
+    @Test
+    public void expiredTokenIsRefreshed() throws Exception {
+        assertEquals(1, service.getArticle(1).id);
+        assertEquals(Long.valueOf(1), server.getRequestCounts().get("POST oauth/v2/token"));
+
+        server.expireTokens();
+
+        assertEquals(2, service.getArticle(2).id);
+        assertEquals(Long.valueOf(2), server.getRequestCounts().get("POST oauth/v2/token"));
+        assertEquals(Long.valueOf(3), server.getRequestCounts().get("GET api/entries/{id}.json"));
+
+        assertEquals(3, service.getArticle(3).id);
+        assertEquals(Long.valueOf(2), server.getRequestCounts().get("POST oauth/v2/token"));
+    }
+
+    private static boolean hasTag(Article article, String label) {
+        if (article.tags == null) return false;
+
+        for (Tag tag : article.tags) {
+            if (label.equals(tag.label)) return true;
+        }
+        return false;
+    }
+
+}
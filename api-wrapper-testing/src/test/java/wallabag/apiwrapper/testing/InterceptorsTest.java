@@ -0,0 +1,257 @@
+package wallabag.apiwrapper.testing;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import wallabag.apiwrapper.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class InterceptorsTest {
+
+    private FakeWallabagServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeWallabagServer(FakeDataset.generate(100, 42, 20));
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void retryInterceptorRecoversFromOverload() throws Exception {
+        WallabagService service = service(new OkHttpClient.Builder()
+                .addInterceptor(new RetryInterceptor(10, 1, 5, TimeUnit.MILLISECONDS))
+                .build());
+        service.getArticle(1); // gets the token
+
+        server.setErrors(0.3, 503);
+        server.resetRequestCounts();
+
+        for (int id = 1; id <= 50; id++) {
+            assertEquals(id, service.getArticle(id).id);
+        }
+
+        assertTrue(server.getRequestCounts().get("GET api/entries/{id}.json") > 50);
+    }
+
+    @Test
+    public void concurrencyLimitInterceptorPassesConcurrentRequests() throws Exception {
+        final WallabagService service = service(new OkHttpClient.Builder()
+                .addInterceptor(new ConcurrencyLimitInterceptor(2, 4))
+                .build());
+        service.getArticle(1);
+
+        server.setLatency(1, 5, TimeUnit.MILLISECONDS);
+
+        List<Integer> ids = runConcurrently(8, 40, service);
+
+        assertEquals(40, ids.size());
+        int limit = ConcurrencyLimitInterceptor.getCurrentLimit(okhttp3.HttpUrl.get(server.getUrl()));
+        assertTrue("limit: " + limit, limit >= 1 && limit <= 4);
+    }
+
+    @Test
+    public void hedgingInterceptorSendsHedgesForSlowResponses() throws Exception {
+        HedgingInterceptor hedging = new HedgingInterceptor(0.9, 1, 1, TimeUnit.MILLISECONDS);
+        WallabagService service = service(new OkHttpClient.Builder().addInterceptor(hedging).build());
+
+        server.setLatency(1, 2, TimeUnit.MILLISECONDS);
+        server.setSlowResponses(0.1, 500, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals(1 + i % 100, service.getArticle(1 + i % 100).id);
+        }
+
+        assertEquals(200, hedging.getRequestCount());
+        assertTrue(hedging.getCurrentDelayMillis() > 0);
+        assertTrue(hedging.getHedgeCount() > 0);
+        assertTrue(hedging.getHedgeWinCount() > 0);
+
+        service.exportArticle(1, WallabagService.ResponseFormat.JSON).close();
+        assertEquals(200, hedging.getRequestCount());
+
+        hedging.shutdown();
+        assertEquals(1, service.getArticle(1).id);
+        assertEquals(200, hedging.getRequestCount());
+    }
+
+    @Test(timeout = 60000)
+    public void hedgingInterceptorDoesNotDeadlockBehindLimiter() throws Exception {
+        HedgingInterceptor hedging = new HedgingInterceptor(0.5, 1, 1, TimeUnit.MILLISECONDS);
+        WallabagService service = service(new OkHttpClient.Builder()
+                .addInterceptor(new ConcurrencyLimitInterceptor(1, 1))
+                .addInterceptor(hedging)
+                .build());
+
+        server.setLatency(1, 2, TimeUnit.MILLISECONDS);
+        server.setSlowResponses(0.2, 100, TimeUnit.MILLISECONDS);
+        server.setDisconnects(0.05);
+
+        int succeeded = 0;
+        for (int i = 0; i < 100; i++) {
+            try {
+                service.getArticle(1);
+                succeeded++;
+            } catch (IOException ignored) {
+                // injected disconnects
+            }
+        }
+
+        assertTrue(succeeded > 0);
+        assertTrue(hedging.getHedgeCount() > 0);
+    }
+
+    @Test
+    public void prioritySchedulingInterceptorUsesBuilderAndThreadPriorities() throws Exception {
+        PrioritySchedulingInterceptor scheduling = new PrioritySchedulingInterceptor();
+        final AtomicReference<RequestPriority> seen = new AtomicReference<>();
+        WallabagService service = service(new OkHttpClient.Builder()
+                .addInterceptor(scheduling)
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        seen.set(chain.request().tag(RequestPriority.class));
+                        return chain.proceed(chain.request());
+                    }
+                })
+                .build());
+
+        service.getArticlesBuilder().priority(RequestPriority.BULK).execute();
+        assertEquals(RequestPriority.BULK, seen.get());
+
+        RequestPriority previous = RequestPriority.setCurrent(RequestPriority.INTERACTIVE);
+        try {
+            service.getArticle(1);
+            assertEquals(RequestPriority.INTERACTIVE, seen.get());
+
+            // the explicit priority takes precedence
+            service.getArticlesBuilder().priority(RequestPriority.BULK).execute();
+            assertEquals(RequestPriority.BULK, seen.get());
+            assertEquals(RequestPriority.INTERACTIVE, RequestPriority.getCurrent());
+        } finally {
+            RequestPriority.setCurrent(previous);
+        }
+
+        for (RequestPriority priority : RequestPriority.values()) {
+            assertEquals(0, scheduling.getInFlight(priority));
+            assertEquals(0, scheduling.getQueued(priority));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void prioritySchedulingInterceptorSchedulesHostsSeparately() throws Exception {
+        PrioritySchedulingInterceptor scheduling = new PrioritySchedulingInterceptor(
+                1, 1, 1, PrioritySchedulingInterceptor.DEFAULT_AGING_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(scheduling).build();
+
+        FakeWallabagServer other = new FakeWallabagServer(FakeDataset.generate(10, 1, 20));
+        other.start();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final WallabagService slowService = service(client);
+            WallabagService otherService = WallabagService.instance(
+                    other.getUrl(), other.parameterHandler(), client, null);
+            slowService.getArticle(1);
+            otherService.getArticle(1);
+
+            server.setLatency(2, 2, TimeUnit.SECONDS);
+            Future<Integer> slow = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return slowService.getArticle(2).id;
+                }
+            });
+
+            while (scheduling.getInFlight(RequestPriority.NORMAL) == 0) Thread.sleep(10);
+
+            // the slot of the other host is free
+            assertEquals(2, otherService.getArticle(2).id);
+            assertFalse(slow.isDone());
+
+            assertEquals(Integer.valueOf(2), slow.get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+            other.close();
+        }
+    }
+
+    @Test
+    public void fairSchedulingInterceptorServesAllTenants() throws Exception {
+        FairSchedulingInterceptor scheduling = new FairSchedulingInterceptor(2, 1);
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(scheduling).build();
+
+        WallabagService first = service(client);
+        first.setTenantId("first");
+        WallabagService second = service(client);
+        second.setTenantId("second");
+
+        server.setLatency(1, 5, TimeUnit.MILLISECONDS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Integer>> firstIds = submit(executor, first);
+            Future<List<Integer>> secondIds = submit(executor, second);
+
+            assertEquals(30, firstIds.get(30, TimeUnit.SECONDS).size());
+            assertEquals(30, secondIds.get(30, TimeUnit.SECONDS).size());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, scheduling.getInFlight("first"));
+        assertEquals(0, scheduling.getQueueDepth("second"));
+    }
+
+    private WallabagService service(OkHttpClient client) {
+        return WallabagService.instance(server.getUrl(), server.parameterHandler(), client, null);
+    }
+
+    private static Future<List<Integer>> submit(ExecutorService executor, final WallabagService service) {
+        return executor.submit(new Callable<List<Integer>>() {
+            @Override
+            public List<Integer> call() throws Exception {
+                return runConcurrently(4, 30, service);
+            }
+        });
+    }
+
+    private static List<Integer> runConcurrently(int threads, int requests, final WallabagService service)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                final int id = 1 + i % 100;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return service.getArticle(id).id;
+                    }
+                }));
+            }
+
+            List<Integer> ids = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                ids.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return ids;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package wallabag.apiwrapper.testing;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+import org.junit.Test;
+import wallabag.apiwrapper.models.*;
+import wallabag.apiwrapper.models.adapters.EntryReferenceAdapter;
+import wallabag.apiwrapper.models.adapters.ModelJsonAdapters;
+import wallabag.apiwrapper.models.adapters.NumericBooleanAdapter;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link ModelJsonAdapters} with the reflective Moshi adapters.
+ */
+public class ModelJsonAdaptersTest {
+
+    private static final Moshi REFLECTIVE = new Moshi.Builder()
+            .add(new NumericBooleanAdapter())
+            .add(new EntryReferenceAdapter())
+            .add(Date.class, new Rfc3339DateJsonAdapter().nullSafe())
+            .build();
+
+    private static final Moshi GENERATED = REFLECTIVE.newBuilder()
+            .add(new ModelJsonAdapters.Factory())
+            .build();
+
+    private static final String[] VALUES = {
+            "null", "1", "0", "-7", "1.5", "99999999999", "true", "false", "\"1\"", "\"x\"",
+            "\"2020-01-02T03:04:05+0100\"", "[]", "[null]", "[\"a\",null]", "{}", "{\"href\":\"h\"}",
+            "{\"items\":[]}", "[{\"id\":1,\"label\":\"l\",\"slug\":\"s\"},null]",
+            "[{\"start\":\"a\",\"end\":\"b\",\"startOffset\":1,\"endOffset\":2}]"
+    };
+
+    private static final Map<Type, String[]> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put(Article.class, new String[]{"id", "url", "hashed_url", "given_url", "hashed_given_url",
+                "title", "content", "is_archived", "archived_at", "is_starred", "starred_at", "tags",
+                "created_at", "updated_at", "annotations", "mimetype", "language", "reading_time",
+                "domain_name", "preview_picture", "origin_url", "published_at", "published_by",
+                "is_public", "uid", "_links", "unknown"});
+        FIELDS.put(Articles.class, new String[]{"page", "limit", "pages", "total", "_links", "_embedded", "unknown"});
+        FIELDS.put(Articles.Embedded.class, new String[]{"items", "unknown"});
+        FIELDS.put(Links.class, new String[]{"self", "first", "last", "next", "unknown"});
+        FIELDS.put(Links.Link.class, new String[]{"href", "unknown"});
+        FIELDS.put(Tag.class, new String[]{"id", "label", "slug", "unknown"});
+        FIELDS.put(Annotation.class, new String[]{"id", "annotator_schema_version", "text", "created_at",
+                "updated_at", "quote", "ranges", "unknown"});
+        FIELDS.put(Annotation.Range.class, new String[]{"start", "end", "startOffset", "endOffset", "unknown"});
+        FIELDS.put(Annotations.class, new String[]{"total", "rows", "unknown"});
+        FIELDS.put(DeleteWithIdResponse.class, new String[]{"id", "unknown"});
+        FIELDS.put(ExistsResponse.class, new String[]{"exists", "unknown"});
+        FIELDS.put(ExistsWithIdResponse.class, new String[]{"exists", "id", "unknown"});
+        FIELDS.put(Info.class, new String[]{"appname", "version", "allowed_registration", "unknown"});
+        FIELDS.put(ListActionResponse.class, new String[]{"url", "entry", "unknown"});
+        FIELDS.put(TokenResponse.class, new String[]{"access_token", "expires_in", "refresh_token",
+                "scope", "token_type", "unknown"});
+    }
+
+    @Test
+    public void singleFields() throws Exception {
+        for (Map.Entry<Type, String[]> entry : FIELDS.entrySet()) {
+            compare(entry.getKey(), "null");
+            compare(entry.getKey(), "{}");
+            compare(entry.getKey(), "[]");
+
+            for (String name : entry.getValue()) {
+                for (String value : VALUES) {
+                    compare(entry.getKey(), "{\"" + name + "\":" + value + "}");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void randomObjects() throws Exception {
+        Random random = new Random(1);
+
+        for (Map.Entry<Type, String[]> entry : FIELDS.entrySet()) {
+            String[] names = entry.getValue();
+
+            for (int i = 0; i < 500; i++) {
+                StringBuilder json = new StringBuilder("{");
+                int count = random.nextInt(names.length + 3); // duplicate names included
+                for (int j = 0; j < count; j++) {
+                    if (j > 0) json.append(',');
+                    json.append('"').append(names[random.nextInt(names.length)]).append("\":")
+                            .append(VALUES[random.nextInt(VALUES.length)]);
+                }
+                compare(entry.getKey(), json.append('}').toString());
+            }
+        }
+    }
+
+    @Test
+    public void generatedDataset() throws Exception {
+        FakeDataset dataset = FakeDataset.generate(100, 7);
+
+        JsonAdapter<Article> articleAdapter = REFLECTIVE.adapter(Article.class);
+        for (int id = 1; id <= 100; id++) {
+            compare(Article.class, articleAdapter.toJson(dataset.getArticle(id)));
+        }
+
+        Type tagList = Types.newParameterizedType(List.class, Tag.class);
+        compare(tagList, REFLECTIVE.adapter(tagList).toJson(dataset.getTags()));
+    }
+
+    /**
+     * Decodes the {@code json} with both adapters and compares the results (or the exception types),
+     * then encodes the decoded value with both adapters and compares the output.
+     */
+    private static void compare(Type type, String json) throws Exception {
+        JsonAdapter<Object> reflective = REFLECTIVE.adapter(type);
+        JsonAdapter<Object> generated = GENERATED.adapter(type);
+
+        Object expected;
+        try {
+            expected = reflective.fromJson(json);
+        } catch (Exception e) {
+            try {
+                generated.fromJson(json);
+            } catch (Exception ge) {
+                // the messages differ: the reflective adapters wrap the exceptions
+                Class<?> expectedClass = e.getClass();
+                // the reflective adapters fail to set a null to a primitive field
+                if (expectedClass == IllegalArgumentException.class) expectedClass = JsonDataException.class;
+
+                assertEquals(json, expectedClass, ge.getClass());
+                return;
+            }
+            throw new AssertionError("Exception expected for " + json, e);
+        }
+
+        // the decoded values are compared by their complete JSON representation
+        JsonAdapter<Object> reference = reflective.serializeNulls();
+        assertEquals(json, reference.toJson(expected), reference.toJson(generated.fromJson(json)));
+
+        assertEquals(json, reflective.toJson(expected), generated.toJson(expected));
+        assertEquals(json, reflective.serializeNulls().toJson(expected), generated.serializeNulls().toJson(expected));
+    }
+
+}
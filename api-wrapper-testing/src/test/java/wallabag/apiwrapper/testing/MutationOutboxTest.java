@@ -0,0 +1,110 @@
+package wallabag.apiwrapper.testing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import wallabag.apiwrapper.MutationOutbox;
+import wallabag.apiwrapper.WallabagService;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MutationOutboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FakeWallabagServer server;
+    private FakeDataset dataset;
+    private WallabagService service;
+
+    @Before
+    public void setUp() throws Exception {
+        dataset = FakeDataset.generate(20, 42, 20);
+        server = new FakeWallabagServer(dataset);
+        server.start();
+        service = WallabagService.instance(server.getUrl(), server.parameterHandler());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void deletedArticleIsAddedAgain() throws Exception {
+        String url = dataset.getArticleUrl(5);
+
+        MutationOutbox outbox = service.mutationOutbox(folder.newFile());
+        try {
+            outbox.deleteArticle(5);
+            outbox.addArticle(service.addArticleBuilder(url));
+
+            assertTrue(outbox.awaitDrained(10, TimeUnit.SECONDS));
+        } finally {
+            outbox.close();
+        }
+
+        assertNull(dataset.getArticle(5));
+        assertTrue(service.articleExists(url));
+    }
+
+    @Test
+    public void consecutiveAdditionsAreSentAsList() throws Exception {
+        MutationOutbox outbox = service.mutationOutbox(folder.newFile());
+        try {
+            outbox.addArticle(service.addArticleBuilder(dataset.getArticleUrl(1)));
+            for (int i = 0; i < 5; i++) {
+                outbox.addArticle(service.addArticleBuilder("https://example.com/new/" + i));
+            }
+            outbox.addArticle(service.addArticleBuilder("https://example.com/starred").starred(true));
+
+            assertTrue(outbox.awaitDrained(10, TimeUnit.SECONDS));
+        } finally {
+            outbox.close();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(service.articleExists("https://example.com/new/" + i));
+        }
+        assertTrue(service.articleExists("https://example.com/starred"));
+
+        assertEquals(Long.valueOf(1), server.getRequestCounts().get("POST api/entries/lists.json"));
+        assertEquals(Long.valueOf(1), server.getRequestCounts().get("POST api/entries.json"));
+    }
+
+    @Test
+    public void interruptedCompactionIsRecovered() throws Exception {
+        File file = folder.newFile();
+
+        server.setErrors(1, 503);
+        MutationOutbox outbox = service.mutationOutbox(file);
+        try {
+            outbox.deleteArticle(3);
+            outbox.deleteArticle(4);
+        } finally {
+            outbox.close();
+        }
+
+        // the state after the old log was deleted, but the compacted one wasn't renamed
+        assertTrue(file.renameTo(new File(file.getPath() + ".tmp")));
+
+        server.setErrors(0, 503);
+        outbox = service.mutationOutbox(file);
+        try {
+            assertEquals(2, outbox.getPendingCount());
+            assertTrue(outbox.awaitDrained(10, TimeUnit.SECONDS));
+        } finally {
+            outbox.close();
+        }
+
+        assertNull(dataset.getArticle(3));
+        assertNull(dataset.getArticle(4));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+}
@@ -0,0 +1,119 @@
+package wallabag.apiwrapper.testing;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+import org.junit.Test;
+import wallabag.apiwrapper.models.adapters.Rfc3339DateAdapter;
+
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares {@link Rfc3339DateAdapter} with {@link Rfc3339DateJsonAdapter}.
+ */
+public class Rfc3339DateAdapterTest {
+
+    private static final JsonAdapter<Date> REFERENCE = new Rfc3339DateJsonAdapter();
+    private static final JsonAdapter<Date> ADAPTER = new Rfc3339DateAdapter();
+
+    private static final String[] OFFSETS = {
+            "Z", "z", "", "+0100", "+01:00", "-0530", "-05:30", "+0000", "+00:00", "-0000", "-00:00",
+            "+2359", "+2400", "+24:00", "+01:60", "+0160", "+01", "+1:00", "+01:00:00", "Zx"
+    };
+
+    private static final String[] FRACTIONS = {
+            "", ".1", ".12", ".123", ".1234", ".123456789", ".", ".x"
+    };
+
+    @Test
+    public void edgeCases() throws Exception {
+        String[] values = {
+                "2020-01-31T12:34:56+0100",
+                "2020-01-31T12:34:56-00:00", // unknown local offset
+                "2020-01-31T12:34:56-0000",
+                "2020-01-31T12:34:56+2400",
+                "2020-01-31T12:34:56+01:60",
+                "2020-01-31T12:34:56+0199",
+                "2016-12-31T23:59:60Z", // leap second
+                "2020-01-31T12:34:61Z",
+                "2020-01-31T12:60:00Z",
+                "2020-01-31T24:00:00Z",
+                "1582-10-10T00:00:00Z", // the Julian calendar
+                "1582-10-15T00:00:00Z",
+                "1583-01-01T00:00:00Z",
+                "0001-01-01T00:00:00Z",
+                "9999-12-31T23:59:59.999Z",
+                "2020-01-31T12:34:56.Z",
+                "2020-01-31T12:34:56.+0100",
+                "2020-02-29T00:00:00Z",
+                "2019-02-29T00:00:00Z",
+                "2100-02-29T00:00:00Z",
+                "2000-02-29T00:00:00Z",
+                "2020-02-30T00:00:00Z",
+                "2020-13-01T00:00:00Z",
+                "2020-00-01T00:00:00Z",
+                "2020-01-00T00:00:00Z",
+                "2020-01-31",
+                "2020-01-31T12:34Z",
+                "2020-01-31T12:34:56",
+                "2020-01-31 12:34:56Z",
+                "2020-1-31T12:34:56Z",
+                "20200131T123456Z",
+                "",
+                "x"
+        };
+
+        for (String value : values) {
+            compare(value);
+        }
+    }
+
+    @Test
+    public void randomDates() throws Exception {
+        Random random = new Random(3);
+
+        for (int i = 0; i < 20000; i++) {
+            int year = random.nextBoolean() ? 1500 + random.nextInt(600) : random.nextInt(10000);
+            String value = String.format("%04d-%02d-%02dT%02d:%02d:%02d", year,
+                    random.nextInt(14), random.nextInt(33), random.nextInt(26), random.nextInt(62), random.nextInt(63))
+                    + FRACTIONS[random.nextInt(FRACTIONS.length)] + OFFSETS[random.nextInt(OFFSETS.length)];
+
+            compare(value);
+        }
+    }
+
+    /**
+     * Decodes the {@code value} with both adapters and compares the results (or the exception types),
+     * then encodes the result with both adapters.
+     */
+    private static void compare(String value) throws Exception {
+        String json = "\"" + value + "\"";
+
+        Date expected;
+        try {
+            expected = REFERENCE.fromJson(json);
+        } catch (JsonDataException e) {
+            try {
+                ADAPTER.fromJson(json);
+                fail("JsonDataException expected for " + value);
+            } catch (JsonDataException expectedException) {
+            }
+
+            try {
+                Rfc3339DateAdapter.parseMillis(value);
+                fail("JsonDataException expected for " + value);
+            } catch (JsonDataException expectedException) {
+            }
+            return;
+        }
+
+        assertEquals(value, expected, ADAPTER.fromJson(json));
+        assertEquals(value, expected.getTime(), Rfc3339DateAdapter.parseMillis(value));
+
+        assertEquals(value, REFERENCE.toJson(expected), ADAPTER.toJson(expected));
+    }
+
+}
@@ -1,11 +1,17 @@
 package wallabag.apiwrapper;
 
 import okhttp3.FormBody;
+import okhttp3.RequestBody;
+import okio.Okio;
+import okio.Source;
 import wallabag.apiwrapper.models.Article;
 
+import java.io.*;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 
 import static wallabag.apiwrapper.Utils.*;
@@ -14,6 +20,7 @@ abstract class AbstractArticleBuilder<T extends AbstractArticleBuilder<T>> exten
 
     protected String title;
     protected String content;
+    protected StreamingFormBody.ContentSource contentSource;
     protected String language;
     protected String previewPicture;
     protected Boolean starred;
@@ -22,6 +29,7 @@ abstract class AbstractArticleBuilder<T extends AbstractArticleBuilder<T>> exten
     protected List<String> authors;
     protected Boolean isPublic;
     protected String originUrl;
+    protected boolean gzipRequest;
 
     /**
      * Sets the article title to this builder, returns the builder.
@@ -44,6 +52,99 @@ abstract class AbstractArticleBuilder<T extends AbstractArticleBuilder<T>> exten
      */
     public T content(String content) {
         this.content = content;
+        this.contentSource = null;
+        return self();
+    }
+
+    /**
+     * Sets the article content to be read from the {@code reader}, returns this builder.
+     * <p>The content is streamed and form-encoded on the fly when the request is performed,
+     * so it is never held in memory as a whole. The reader is closed after the request body is written.
+     * <p>The content can only be sent once: if the request has to be repeated
+     * (e.g. after an access token refresh), it fails with an {@code IOException}.
+     * Use {@link #content(File)} if that is a concern.
+     *
+     * @param reader the {@code Reader} to read the content from
+     * @return this builder
+     * @throws NullPointerException if the {@code reader} is {@code null}
+     * @see #gzipRequest(boolean)
+     */
+    public T content(Reader reader) {
+        return contentSource(StreamingFormBody.of(nonNullValue(reader, "reader")));
+    }
+
+    /**
+     * Sets the article content to be read from the {@code inputStream} in UTF-8, returns this builder.
+     * <p>See {@link #content(Reader)} for details.
+     *
+     * @param inputStream the {@code InputStream} to read the content from
+     * @return this builder
+     * @throws NullPointerException if the {@code inputStream} is {@code null}
+     */
+    public T content(InputStream inputStream) {
+        return content(Okio.source(nonNullValue(inputStream, "inputStream")));
+    }
+
+    /**
+     * Sets the article content to be read from the {@code inputStream} in the specified {@code charset},
+     * returns this builder.
+     * <p>See {@link #content(Reader)} for details.
+     *
+     * @param inputStream the {@code InputStream} to read the content from
+     * @param charset     the charset of the content
+     * @return this builder
+     * @throws NullPointerException if the {@code inputStream} or the {@code charset} is {@code null}
+     */
+    public T content(InputStream inputStream, Charset charset) {
+        nonNullValue(inputStream, "inputStream");
+        nonNullValue(charset, "charset");
+        return content(new InputStreamReader(inputStream, charset));
+    }
+
+    /**
+     * Sets the article content to be read from the {@code file} in UTF-8, returns this builder.
+     * <p>The content is streamed the same way as in {@link #content(Reader)},
+     * but the file is opened anew every time the request body is written,
+     * so the request can be repeated.
+     *
+     * @param file the {@code File} to read the content from
+     * @return this builder
+     * @throws NullPointerException if the {@code file} is {@code null}
+     */
+    public T content(File file) {
+        return contentSource(StreamingFormBody.of(nonNullValue(file, "file")));
+    }
+
+    /**
+     * Sets the article content to be read from the {@code source} in UTF-8, returns this builder.
+     * <p>See {@link #content(Reader)} for details.
+     *
+     * @param source the Okio {@code Source} to read the content from
+     * @return this builder
+     * @throws NullPointerException if the {@code source} is {@code null}
+     */
+    public T content(Source source) {
+        return contentSource(StreamingFormBody.of(nonNullValue(source, "source")));
+    }
+
+    private T contentSource(StreamingFormBody.ContentSource contentSource) {
+        this.contentSource = contentSource;
+        this.content = null;
+        return self();
+    }
+
+    /**
+     * Sets whether the request body should be compressed with gzip, returns this builder.
+     * <p>Useful for large content (see {@link #content(Reader)}).
+     * The server (or a reverse proxy in front of it) must be configured to accept
+     * gzip-encoded request bodies ({@code Content-Encoding: gzip}), wallabag doesn't do it by itself.
+     * <p>Defaults to {@code false}.
+     *
+     * @param gzipRequest {@code true} to compress the request body
+     * @return this builder
+     */
+    public T gzipRequest(boolean gzipRequest) {
+        this.gzipRequest = gzipRequest;
         return self();
     }
 
@@ -212,8 +313,81 @@ abstract class AbstractArticleBuilder<T extends AbstractArticleBuilder<T>> exten
         return bodyBuilder;
     }
 
+    /**
+     * Returns {@code true} if any parameter that would be passed in the request is set.
+     *
+     * @return {@code true} if there are any changes
+     */
+    protected boolean hasChanges() {
+        return contentSource != null || populateFormBodyBuilder(new FormBody.Builder()).build().size() > 0;
+    }
+
+    /**
+     * Builds the request body from the parameters populated into the {@code bodyBuilder},
+     * with the streamed content (if set) and compression (if enabled).
+     *
+     * @param bodyBuilder the builder with the parameters that are not populated by this class
+     * @return the request body
+     */
+    protected RequestBody buildRequestBody(FormBody.Builder bodyBuilder) {
+        FormBody formBody = populateFormBodyBuilder(bodyBuilder).build();
+
+        RequestBody body = contentSource != null
+                ? new StreamingFormBody(formBody, "content", contentSource) : formBody;
+
+        return gzipRequest ? new StreamingFormBody.GzipRequestBody(body) : body;
+    }
+
+    protected String getContentEncoding() {
+        return gzipRequest ? "gzip" : null;
+    }
+
+    /**
+     * Returns the parameters as they would be passed in the request,
+     * with the streamed content (if set) read into a {@code String}.
+     *
+     * @param bodyBuilder the builder with the parameters that are not populated by this class
+     * @return the populated builder
+     * @throws IOException if the streamed content could not be read
+     */
+    protected FormBody.Builder populateFormBodyBuilderWithContent(FormBody.Builder bodyBuilder) throws IOException {
+        populateFormBodyBuilder(bodyBuilder);
+        if (contentSource != null) addParameter(bodyBuilder, "content", contentSource.readString());
+        return bodyBuilder;
+    }
+
     protected void addParameter(FormBody.Builder bodyBuilder, String paramName, String paramValue) {
         if (!isEmpty(paramValue)) bodyBuilder.add(paramName, paramValue);
     }
 
+    /**
+     * Copies the parameters set in the {@code other} builder to this builder.
+     * <p>Only the parameters that would be passed in the request
+     * (see {@link #populateFormBodyBuilder(FormBody.Builder)}) are copied,
+     * so the result is equivalent to sending this builder's request followed by the {@code other}'s one:
+     * the values from the {@code other} builder win, tags and authors are replaced as a whole.
+     *
+     * @param other the builder to copy the parameters from
+     */
+    protected void mergeFrom(AbstractArticleBuilder<?> other) {
+        if (!isEmpty(other.title)) title = other.title;
+        if (!isEmpty(other.content)) {
+            content = other.content;
+            contentSource = null;
+        } else if (other.contentSource != null) {
+            contentSource = other.contentSource;
+            content = null;
+        }
+        if (!isEmpty(other.language)) language = other.language;
+        if (!isEmpty(other.previewPicture)) previewPicture = other.previewPicture;
+        if (other.starred != null) starred = other.starred;
+        if (other.archive != null) archive = other.archive;
+        if (other.publishedAt != null) publishedAt = other.publishedAt;
+        if (other.authors != null && !other.authors.isEmpty()) authors = new ArrayList<>(other.authors);
+        if (other.tags != null && !other.tags.isEmpty()) tags = new HashSet<>(other.tags);
+        if (other.isPublic != null) isPublic = other.isPublic;
+        if (!isEmpty(other.originUrl)) originUrl = other.originUrl;
+        if (other.gzipRequest) gzipRequest = true;
+    }
+
 }
@@ -0,0 +1,307 @@
+package wallabag.apiwrapper;
+
+import com.squareup.moshi.JsonWriter;
+import okhttp3.HttpUrl;
+import okio.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.ListActionResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+abstract class AbstractBulkBuilder<T extends AbstractBulkBuilder<T>> {
+
+    interface BatchTask<B> {
+        void run(B batch) throws Exception;
+
+        void failed(B batch, Exception e);
+    }
+
+    interface ItemLength<I> {
+        int get(I item);
+    }
+
+    interface ListCall {
+        List<ListActionResponse> execute(String list) throws IOException, UnsuccessfulResponseException;
+    }
+
+    abstract static class ListItem {
+        final String url;
+        int articleID = -1;
+
+        String json;
+        int encodedLength;
+
+        ListItem(String url) {
+            this.url = url;
+        }
+
+        abstract void writeJson(JsonWriter writer) throws IOException;
+
+        String toJson() {
+            Buffer buffer = new Buffer();
+            try {
+                JsonWriter writer = JsonWriter.of(buffer);
+                writeJson(writer);
+                writer.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Unexpected exception while writing to a buffer", e);
+            }
+            return buffer.readUtf8();
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractBulkBuilder.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    protected final WallabagService wallabagService;
+
+    protected int batchSize = 10;
+    protected int maxQueryLength = 3990;
+    protected int concurrency = 4;
+    protected ExecutorService executorService;
+
+    @SuppressWarnings("ConstantConditions") // constant URL
+    private final HttpUrl.Builder urlBuilder = HttpUrl.parse("https://a").newBuilder();
+
+    AbstractBulkBuilder(WallabagService wallabagService) {
+        this.wallabagService = wallabagService;
+    }
+
+    protected abstract T self();
+
+    /**
+     * Sets the maximum number of articles per request, returns this builder.
+     * <p>The server limits the number of articles in list-based requests
+     * (the {@code wallabag_core.api_limit_mass_actions} server parameter),
+     * exceeding the limit results in a {@code HTTP 400} response.
+     * <p>Defaults to {@code 10} (the server's default value).
+     *
+     * @param batchSize the maximum number of articles per request
+     * @return this builder
+     * @throws IllegalArgumentException if {@code batchSize <= 0}
+     */
+    public T batchSize(int batchSize) {
+        this.batchSize = positiveNumber(batchSize, "batchSize");
+        return self();
+    }
+
+    /**
+     * Sets the maximum length of the request URL, returns this builder.
+     * <p>List-based API methods accept the list as a query parameter, which total length is limited
+     * (the limit depends on the web server configuration).
+     * Batches are split so the request URLs don't exceed that length.
+     * <p>Defaults to {@code 3990}.
+     *
+     * @param maxQueryLength the maximum length of the request URL
+     * @return this builder
+     * @throws IllegalArgumentException if {@code maxQueryLength <= 0}
+     */
+    public T maxQueryLength(int maxQueryLength) {
+        this.maxQueryLength = positiveNumber(maxQueryLength, "maxQueryLength");
+        return self();
+    }
+
+    /**
+     * Sets the maximum number of requests performed simultaneously, returns this builder.
+     * <p>Defaults to {@code 4}.
+     *
+     * @param concurrency the maximum number of simultaneous requests
+     * @return this builder
+     * @throws IllegalArgumentException if {@code concurrency <= 0}
+     */
+    public T concurrency(int concurrency) {
+        this.concurrency = positiveNumber(concurrency, "concurrency");
+        return self();
+    }
+
+    /**
+     * Sets the {@code ExecutorService} to perform the requests on, returns this builder.
+     * <p>If no {@code ExecutorService} is set (or {@code null} is set),
+     * a temporary thread pool is created for each execution.
+     * The calling thread is used if the {@link #concurrency(int)} is {@code 1}.
+     *
+     * @param executorService the {@code ExecutorService} to use, {@code null}able
+     * @return this builder
+     */
+    public T executor(ExecutorService executorService) {
+        this.executorService = executorService;
+        return self();
+    }
+
+    protected int calculateParameterLength(String value) {
+        urlBuilder.query(null);
+
+        String query = urlBuilder
+                .addQueryParameter("a", value)
+                .build()
+                .encodedQuery();
+
+        @SuppressWarnings("ConstantConditions") // always non-empty query
+        int length = query.length() - 2; // "a="
+
+        return length;
+    }
+
+    protected <I> List<List<I>> splitIntoBatches(List<I> items, int baseLength, int delimiterLength,
+                                                 ItemLength<I> itemLength) {
+        List<List<I>> batches = new ArrayList<>();
+
+        List<I> batch = new ArrayList<>();
+        int length = baseLength;
+        for (I item : items) {
+            int currentItemLength = itemLength.get(item) + (batch.isEmpty() ? 0 : delimiterLength);
+
+            if (!batch.isEmpty() && (batch.size() >= batchSize || length + currentItemLength > maxQueryLength)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                length = baseLength;
+                currentItemLength = itemLength.get(item);
+            }
+
+            // a single item exceeding the limit is still sent on its own
+            batch.add(item);
+            length += currentItemLength;
+        }
+        if (!batch.isEmpty()) batches.add(batch);
+
+        return batches;
+    }
+
+    protected <I extends ListItem> void executeLists(List<I> itemList, String path, final ListCall call,
+                                                     final BulkOperationResult result) throws InterruptedIOException {
+        for (I item : itemList) {
+            if (item.json == null) {
+                item.json = item.toJson();
+                item.encodedLength = calculateParameterLength(item.json);
+            }
+        }
+
+        int baseLength = wallabagService.getApiBaseURL().length()
+                + path.length()
+                + calculateParameterLength("[]");
+        int delimiterLength = calculateParameterLength(",");
+
+        List<List<I>> batches = splitIntoBatches(itemList, baseLength, delimiterLength,
+                new ItemLength<I>() {
+                    @Override
+                    public int get(I item) {
+                        return item.encodedLength;
+                    }
+                });
+
+        LOG.debug("executeLists() {} articles in {} batches", itemList.size(), batches.size());
+
+        runBatches(batches, new BatchTask<List<I>>() {
+            @Override
+            public void run(List<I> batch) throws Exception {
+                StringBuilder list = new StringBuilder("[");
+                for (I item : batch) {
+                    if (list.length() > 1) list.append(',');
+                    list.append(item.json);
+                }
+                list.append(']');
+
+                processListResponses(batch, call.execute(list.toString()), result);
+            }
+
+            @Override
+            public void failed(List<I> batch, Exception e) {
+                for (I item : batch) {
+                    result.failed(item.url, e);
+                }
+            }
+        });
+    }
+
+    private void processListResponses(List<? extends ListItem> batch, List<ListActionResponse> responses,
+                                      BulkOperationResult result) {
+        Map<String, ListActionResponse> responseMap = new HashMap<>(responses.size());
+        for (ListActionResponse response : responses) {
+            if (response != null && response.url != null) responseMap.put(response.url, response);
+        }
+
+        for (ListItem item : batch) {
+            ListActionResponse response = responseMap.get(item.url);
+            if (response == null) {
+                LOG.warn("processListResponses() no result for {}", item.url);
+                result.failed(item.url, new UnsuccessfulResponseException(200, "No result for the URL", null));
+            } else if (response.entry == null) {
+                result.notFound(item.url);
+            } else {
+                result.processed(item.url, response.entry != 0 ? response.entry : item.articleID);
+            }
+        }
+    }
+
+    protected <B> void runBatches(List<B> batches, final BatchTask<B> task) throws InterruptedIOException {
+        if (batches.isEmpty()) return;
+
+        final Queue<B> queue = new ConcurrentLinkedQueue<>(batches);
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                B batch;
+                while (!Thread.currentThread().isInterrupted() && (batch = queue.poll()) != null) {
+                    try {
+                        task.run(batch);
+                    } catch (Exception e) {
+                        LOG.debug("runBatches() batch failed", e);
+                        task.failed(batch, e);
+                    }
+                }
+            }
+        };
+
+        int workers = Math.min(concurrency, batches.size());
+        if (workers == 1) {
+            worker.run();
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException();
+            return;
+        }
+
+        ExecutorService executor = executorService;
+        boolean temporaryExecutor = executor == null;
+        if (temporaryExecutor) {
+            executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "wallabag-bulk-" + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        List<Future<?>> futures = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(worker));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bulk requests");
+        } catch (ExecutionException e) {
+            // the worker catches exceptions, so this is an Error
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (temporaryExecutor) executor.shutdownNow();
+        }
+    }
+
+}
@@ -6,7 +6,9 @@ import retrofit2.Call;
 import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
 import wallabag.apiwrapper.models.Article;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 
 import static wallabag.apiwrapper.Utils.nonEmptyString;
 
@@ -36,6 +38,7 @@ public class AddArticleBuilder extends AbstractArticleBuilder<AddArticleBuilder>
      * <p>Since 2.3 server supports adding articles with {@link #content(String)} provided directly
      * (without server-side fetching). In this case it is better to also provide {@link #title(String)}
      * otherwise it will be derived from the URL. See {@link CompatibilityHelper#isAddArticleWithContentSupported(String)}.
+     * <p>Large content can be streamed with {@link #content(Reader)}, {@link #content(File)} and similar methods.
      */
     @Override
     public AddArticleBuilder content(String content) {
@@ -46,7 +49,7 @@ public class AddArticleBuilder extends AbstractArticleBuilder<AddArticleBuilder>
         FormBody.Builder bodyBuilder = new FormBody.Builder()
                 .add("url", url);
 
-        return populateFormBodyBuilder(bodyBuilder).build();
+        return buildRequestBody(bodyBuilder);
     }
 
     /**
@@ -56,7 +59,7 @@ public class AddArticleBuilder extends AbstractArticleBuilder<AddArticleBuilder>
      * @return a {@link Call} that is represented by this builder
      */
     public Call<Article> buildCall() {
-        return wallabagService.addArticleCall(build());
+        return wallabagService.addArticleCall(build(), getContentEncoding());
     }
 
     /**
@@ -70,7 +73,7 @@ public class AddArticleBuilder extends AbstractArticleBuilder<AddArticleBuilder>
      * @throws UnsuccessfulResponseException in case of known wallabag-specific errors
      */
     public Article execute() throws IOException, UnsuccessfulResponseException {
-        return wallabagService.addArticle(build());
+        return wallabagService.addArticle(build(), getContentEncoding());
     }
 
 }
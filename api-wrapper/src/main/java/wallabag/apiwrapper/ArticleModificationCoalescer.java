@@ -0,0 +1,248 @@
+package wallabag.apiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+
+/**
+ * The {@code ArticleModificationCoalescer} class merges bursts of modifications of the same article
+ * into a single request.
+ * <p>A modification submitted with {@link #submit(ModifyArticleBuilder)} is not sent right away:
+ * it is held for a short time window (specified during the creation), and all the modifications
+ * of the same article submitted during that window are merged into a single {@code PATCH} request.
+ * The parameters are merged as if the requests were sent one after another:
+ * for every parameter the last provided value wins, tags and authors are replaced as a whole
+ * (see {@link ModifyArticleBuilder#tag(String)}).
+ * <p>Every submission gets its own {@link Future}; the futures of the submissions merged into the same request
+ * complete with the {@link Article} returned by the server (or {@code null} if the article was not found,
+ * depending on the {@link NotFoundPolicy}). If the request fails, {@link Future#get()} throws
+ * {@link ExecutionException} with the cause being the original {@code IOException}
+ * or {@link UnsuccessfulResponseException}.
+ * <p>Cancelling a future only detaches its submission: if the request is not being sent yet,
+ * the parameters of the cancelled submission are left out of the merged request,
+ * and the request is not sent at all if all its submissions are cancelled.
+ * A request that is already being sent is not interrupted.
+ * <p>The requests are performed one at a time by a background thread owned by this object,
+ * so the modifications of the same article are always applied in the submission order.
+ * Call {@link #shutdown()} when the object is no longer needed.
+ * <p>This class is thread safe.
+ */
+public class ArticleModificationCoalescer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleModificationCoalescer.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    // completed by the PendingModification
+    private class Submission extends CompletableFuture<Article> {
+
+        final PendingModification pending;
+        final ModifyArticleBuilder builder;
+
+        Submission(PendingModification pending, ModifyArticleBuilder builder) {
+            this.pending = pending;
+            this.builder = new ModifyArticleBuilder(wallabagService, builder.id);
+            this.builder.mergeFrom(builder);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (!super.cancel(false)) return false;
+
+            pending.detach(this);
+            return true;
+        }
+
+    }
+
+    private class PendingModification implements Runnable {
+
+        final int articleID;
+        final List<Submission> submissions = new ArrayList<>(); // guarded by lock
+
+        ScheduledFuture<?> scheduledFuture;
+        boolean sending;
+
+        PendingModification(int articleID) {
+            this.articleID = articleID;
+        }
+
+        void detach(Submission submission) {
+            synchronized (lock) {
+                if (sending) return; // already merged into the request
+
+                submissions.remove(submission);
+                if (submissions.isEmpty()) {
+                    if (pendingModifications.get(articleID) == this) pendingModifications.remove(articleID);
+                    scheduledFuture.cancel(false);
+
+                    LOG.debug("detach() all submissions for article {} are cancelled", articleID);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Submission> active = new ArrayList<>();
+            synchronized (lock) {
+                if (sending) return;
+                sending = true;
+
+                // later submissions go to a new request
+                if (pendingModifications.get(articleID) == this) pendingModifications.remove(articleID);
+
+                for (Submission submission : submissions) {
+                    if (!submission.isCancelled()) active.add(submission);
+                }
+            }
+
+            if (active.isEmpty()) return;
+
+            ModifyArticleBuilder mergedBuilder = new ModifyArticleBuilder(wallabagService, articleID);
+            for (Submission submission : active) mergedBuilder.mergeFrom(submission.builder);
+
+            LOG.debug("run() sending modification of article {} merged from {} submissions",
+                    articleID, active.size());
+
+            try {
+                Article article = mergedBuilder.execute(notFoundPolicy);
+                for (Submission submission : active) submission.complete(article);
+            } catch (Throwable t) {
+                for (Submission submission : active) submission.completeExceptionally(t);
+            }
+        }
+
+    }
+
+    private final WallabagService wallabagService;
+    private final long delay;
+    private final TimeUnit timeUnit;
+    private final NotFoundPolicy notFoundPolicy;
+
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private final Map<Integer, PendingModification> pendingModifications = new HashMap<>();
+    private boolean shutdown;
+
+    ArticleModificationCoalescer(WallabagService wallabagService, long delay, TimeUnit timeUnit,
+                                 NotFoundPolicy notFoundPolicy) {
+        if (delay < 0) throw new IllegalArgumentException("delay is less than zero: " + delay);
+
+        this.wallabagService = wallabagService;
+        this.delay = delay;
+        this.timeUnit = nonNullValue(timeUnit, "timeUnit");
+        this.notFoundPolicy = nonNullValue(notFoundPolicy, "notFoundPolicy");
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "wallabag-modification-coalescer-"
+                        + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Submits the modification represented by the {@code builder} for the delayed execution,
+     * returns a {@link Future} for the (possibly merged) request.
+     * <p>Cancelling the returned future detaches this submission from the merged request
+     * (see the class description).
+     * <p>The parameters of the {@code builder} are copied during this call,
+     * so the builder may be reused or discarded afterwards.
+     *
+     * @param builder the {@link ModifyArticleBuilder} with the modification to submit
+     * @return a {@link Future} that completes with the modified {@link Article}
+     * or {@code null} if the article was not found (depends on the {@link NotFoundPolicy})
+     * @throws NullPointerException  if the {@code builder} is {@code null}
+     * @throws IllegalStateException if this coalescer was shut down
+     */
+    public Future<Article> submit(ModifyArticleBuilder builder) {
+        nonNullValue(builder, "builder");
+
+        synchronized (lock) {
+            if (shutdown) throw new IllegalStateException("The coalescer is shut down");
+
+            PendingModification pending = pendingModifications.get(builder.id);
+            if (pending == null) {
+                pending = new PendingModification(builder.id);
+                pendingModifications.put(builder.id, pending);
+                pending.scheduledFuture = executor.schedule(pending, delay, timeUnit);
+            }
+
+            Submission submission = new Submission(pending, builder);
+            pending.submissions.add(submission);
+
+            return submission;
+        }
+    }
+
+    /**
+     * Returns the number of articles with modifications waiting to be sent.
+     *
+     * @return the number of articles with pending modifications
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pendingModifications.size();
+        }
+    }
+
+    /**
+     * Sends all the pending modifications without waiting for their time windows to end.
+     * <p>This method does not wait for the requests to complete.
+     */
+    public void flush() {
+        List<PendingModification> pendingList;
+        synchronized (lock) {
+            pendingList = new ArrayList<>(pendingModifications.values());
+        }
+
+        for (PendingModification pending : pendingList) {
+            // if the cancellation failed, the modification is already being sent
+            if (pending.scheduledFuture.cancel(false)) {
+                executor.execute(pending);
+            }
+        }
+    }
+
+    /**
+     * Sends all the pending modifications ({@link #flush()}) and stops accepting new ones.
+     * The background thread is terminated after all the requests are performed.
+     * <p>This method does not wait for the requests to complete.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+        }
+
+        flush();
+        executor.shutdown();
+    }
+
+    /**
+     * Blocks until all the requests are performed after a {@link #shutdown()} request,
+     * or the timeout occurs, or the current thread is interrupted, whichever happens first.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the time unit of the {@code timeout} argument
+     * @return {@code true} if all the requests were performed and {@code false} if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+}
@@ -0,0 +1,563 @@
+package wallabag.apiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Annotation;
+import wallabag.apiwrapper.models.Annotations;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Tag;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code ArticleSideIndex} class keeps the tags and annotations of recently seen articles,
+ * so they can be looked up without the per-article {@link WallabagService#getTags(int)}
+ * and {@link WallabagService#getAnnotations(int)} requests.
+ * <p>The index is populated from every {@link Article} decoded by the {@link WallabagService} it belongs to
+ * (including every page listed with {@link ArticlesQueryBuilder}), and from the responses of
+ * {@link WallabagService#getTags(int)} and {@link WallabagService#getAnnotations(int)}.
+ * The article data is only replaced by the data with the same or newer {@link Article#updatedAt},
+ * modifications performed through the same {@code WallabagService} (tag, annotation and article changes,
+ * article deletion) are applied to the index.
+ * The changes made by other clients are only reflected after the article is received again.
+ * <p>The index holds up to {@value #MAX_ENTRIES} articles, the least recently used ones are evicted.
+ * <p>The {@code get*} methods serve the indexed data and request the missing data from the server
+ * (the {@code Collection} variants do it concurrently, see {@link #setExecutor(ExecutorService)});
+ * the {@code getCached*} methods never perform requests.
+ * <p>The returned lists are unmodifiable and shared, the contained objects must not be modified.
+ * <p>This class is thread safe.
+ */
+public class ArticleSideIndex {
+
+    /**
+     * The maximum number of articles kept in the index.
+     */
+    public static final int MAX_ENTRIES = 10000;
+
+    /**
+     * The default maximum number of simultaneous requests for the missing data.
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleSideIndex.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static class IndexEntry {
+
+        final Date updatedAt;
+        final List<Tag> tags;
+        final List<Annotation> annotations;
+
+        IndexEntry(Date updatedAt, List<Tag> tags, List<Annotation> annotations) {
+            this.updatedAt = updatedAt;
+            this.tags = tags;
+            this.annotations = annotations;
+        }
+
+    }
+
+    private static class EntryMap extends LinkedHashMap<Integer, IndexEntry> {
+
+        private static final long serialVersionUID = 1L;
+
+        EntryMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, IndexEntry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+
+    }
+
+    private interface Fetcher<T> {
+        T fetch(int articleID) throws IOException, UnsuccessfulResponseException;
+    }
+
+    private final WallabagService wallabagService;
+
+    // access-ordered: the eldest entry is the least recently used
+    private final Map<Integer, IndexEntry> entries = new EntryMap();
+
+    private volatile ExecutorService executorService;
+
+    final ResponseObserver observer = new ResponseObserver() {
+        @Override
+        void articleReceived(Article article) {
+            put(article);
+        }
+
+        @Override
+        void articleDeleted(int articleID) {
+            invalidate(articleID);
+        }
+
+        @Override
+        void articleTagsReceived(int articleID, List<Tag> tags) {
+            update(articleID, copy(tags), null);
+        }
+
+        @Override
+        void tagsDeleted(List<Tag> tags) {
+            removeTags(tags);
+        }
+
+        @Override
+        void articleAnnotationsReceived(int articleID, List<Annotation> annotations) {
+            update(articleID, null, annotations != null
+                    ? copy(annotations) : Collections.<Annotation>emptyList());
+        }
+
+        @Override
+        void annotationAdded(int articleID, Annotation annotation) {
+            addAnnotation(articleID, annotation);
+        }
+
+        @Override
+        void annotationUpdated(Annotation annotation) {
+            replaceAnnotation(annotation.id, annotation);
+        }
+
+        @Override
+        void annotationDeleted(int annotationID) {
+            replaceAnnotation(annotationID, null);
+        }
+    };
+
+    ArticleSideIndex(WallabagService wallabagService) {
+        this.wallabagService = wallabagService;
+    }
+
+    /**
+     * Sets the {@code ExecutorService} to perform the concurrent requests
+     * of the {@code Collection} variants of the {@code get*} methods on.
+     * <p>If no {@code ExecutorService} is set (or {@code null} is set),
+     * a temporary thread pool is created for each call that needs more than one request.
+     * The {@code concurrency} limit of the calls is respected in both cases.
+     *
+     * @param executorService the {@code ExecutorService} to use, {@code null}able
+     */
+    public void setExecutor(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Returns the indexed tags of the article or {@code null} if they are not indexed.
+     *
+     * @param articleID the ID of the article
+     * @return a {@code List} of {@link Tag}s or {@code null}
+     */
+    public List<Tag> getCachedTags(int articleID) {
+        synchronized (entries) {
+            IndexEntry entry = entries.get(articleID);
+            return entry != null ? entry.tags : null;
+        }
+    }
+
+    /**
+     * Returns the indexed annotations of the article or {@code null} if they are not indexed.
+     *
+     * @param articleID the ID of the article
+     * @return a {@code List} of {@link Annotation}s or {@code null}
+     */
+    public List<Annotation> getCachedAnnotations(int articleID) {
+        synchronized (entries) {
+            IndexEntry entry = entries.get(articleID);
+            return entry != null ? entry.annotations : null;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the index has the data of the article received with
+     * the {@code updatedAt} or a newer one.
+     *
+     * @param articleID the ID of the article
+     * @param updatedAt the {@link Article#updatedAt} the data must be at least as recent as
+     * @return {@code true} if the indexed data is up to date
+     * @throws NullPointerException if the {@code updatedAt} is {@code null}
+     */
+    public boolean isUpToDate(int articleID, Date updatedAt) {
+        nonNullValue(updatedAt, "updatedAt");
+
+        synchronized (entries) {
+            IndexEntry entry = entries.get(articleID);
+            return entry != null && entry.updatedAt != null && !entry.updatedAt.before(updatedAt);
+        }
+    }
+
+    /**
+     * Returns the tags of the article from the index or, if they are not indexed,
+     * from the server (see {@link WallabagService#getTags(int)}).
+     *
+     * @param articleID the ID of the article
+     * @return a {@code List} of {@link Tag}s or {@code null} if the article was not found
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public List<Tag> getTags(int articleID) throws IOException, UnsuccessfulResponseException {
+        List<Tag> tags = getCachedTags(articleID);
+        if (tags != null) return tags;
+
+        return copy(wallabagService.getTags(articleID));
+    }
+
+    /**
+     * Returns the annotations of the article from the index or, if they are not indexed,
+     * from the server (see {@link WallabagService#getAnnotations(int)}).
+     *
+     * @param articleID the ID of the article
+     * @return a {@code List} of {@link Annotation}s or {@code null} if the article was not found
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public List<Annotation> getAnnotations(int articleID) throws IOException, UnsuccessfulResponseException {
+        List<Annotation> annotations = getCachedAnnotations(articleID);
+        if (annotations != null) return annotations;
+
+        return rows(wallabagService.getAnnotations(articleID));
+    }
+
+    /**
+     * Returns the tags of the articles, requesting the ones that are not indexed concurrently
+     * with {@value #DEFAULT_CONCURRENCY} simultaneous requests.
+     * <p>See {@link #getTags(Collection, int)}.
+     *
+     * @param articleIDs the IDs of the articles
+     * @return a {@code Map} of article IDs to {@code List}s of {@link Tag}s
+     * @throws IOException                   in case of network errors or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NullPointerException          if the {@code articleIDs} or any of its elements is {@code null}
+     */
+    public Map<Integer, List<Tag>> getTags(Collection<Integer> articleIDs)
+            throws IOException, UnsuccessfulResponseException {
+        return getTags(articleIDs, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Returns the tags of the articles, requesting the ones that are not indexed concurrently.
+     * <p>The articles that were not found are absent from the returned {@code Map}.
+     * If any of the requests fails, the first exception is thrown after all requests are finished
+     * (the received data is indexed anyway).
+     *
+     * @param articleIDs  the IDs of the articles
+     * @param concurrency the maximum number of simultaneous requests
+     * @return a {@code Map} of article IDs to {@code List}s of {@link Tag}s
+     * @throws IOException                   in case of network errors or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NullPointerException          if the {@code articleIDs} or any of its elements is {@code null}
+     * @throws IllegalArgumentException      if {@code concurrency <= 0}
+     */
+    public Map<Integer, List<Tag>> getTags(Collection<Integer> articleIDs, int concurrency)
+            throws IOException, UnsuccessfulResponseException {
+        return getAll(articleIDs, concurrency, new Fetcher<List<Tag>>() {
+            @Override
+            public List<Tag> fetch(int articleID) {
+                return getCachedTags(articleID);
+            }
+        }, new Fetcher<List<Tag>>() {
+            @Override
+            public List<Tag> fetch(int articleID) throws IOException, UnsuccessfulResponseException {
+                return copy(wallabagService.getTags(articleID, NotFoundPolicy.DEFAULT_VALUE));
+            }
+        });
+    }
+
+    /**
+     * Returns the annotations of the articles, requesting the ones that are not indexed concurrently
+     * with {@value #DEFAULT_CONCURRENCY} simultaneous requests.
+     * <p>See {@link #getAnnotations(Collection, int)}.
+     *
+     * @param articleIDs the IDs of the articles
+     * @return a {@code Map} of article IDs to {@code List}s of {@link Annotation}s
+     * @throws IOException                   in case of network errors or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NullPointerException          if the {@code articleIDs} or any of its elements is {@code null}
+     */
+    public Map<Integer, List<Annotation>> getAnnotations(Collection<Integer> articleIDs)
+            throws IOException, UnsuccessfulResponseException {
+        return getAnnotations(articleIDs, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Returns the annotations of the articles, requesting the ones that are not indexed concurrently.
+     * <p>The articles that were not found are absent from the returned {@code Map}.
+     * If any of the requests fails, the first exception is thrown after all requests are finished
+     * (the received data is indexed anyway).
+     *
+     * @param articleIDs  the IDs of the articles
+     * @param concurrency the maximum number of simultaneous requests
+     * @return a {@code Map} of article IDs to {@code List}s of {@link Annotation}s
+     * @throws IOException                   in case of network errors or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NullPointerException          if the {@code articleIDs} or any of its elements is {@code null}
+     * @throws IllegalArgumentException      if {@code concurrency <= 0}
+     */
+    public Map<Integer, List<Annotation>> getAnnotations(Collection<Integer> articleIDs, int concurrency)
+            throws IOException, UnsuccessfulResponseException {
+        return getAll(articleIDs, concurrency, new Fetcher<List<Annotation>>() {
+            @Override
+            public List<Annotation> fetch(int articleID) {
+                return getCachedAnnotations(articleID);
+            }
+        }, new Fetcher<List<Annotation>>() {
+            @Override
+            public List<Annotation> fetch(int articleID) throws IOException, UnsuccessfulResponseException {
+                return rows(wallabagService.getAnnotations(articleID, NotFoundPolicy.DEFAULT_VALUE));
+            }
+        });
+    }
+
+    /**
+     * Removes the data of the article from the index.
+     *
+     * @param articleID the ID of the article
+     */
+    public void invalidate(int articleID) {
+        synchronized (entries) {
+            entries.remove(articleID);
+        }
+    }
+
+    /**
+     * Removes all data from the index.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of indexed articles.
+     *
+     * @return the number of indexed articles
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private <T> Map<Integer, T> getAll(Collection<Integer> articleIDs, int concurrency,
+                                       Fetcher<T> cached, final Fetcher<T> remote)
+            throws IOException, UnsuccessfulResponseException {
+        nonNullValue(articleIDs, "articleIDs");
+        positiveNumber(concurrency, "concurrency");
+
+        Map<Integer, T> result = new LinkedHashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (Integer articleID : articleIDs) {
+            nonNullValue(articleID, "articleID");
+            if (result.containsKey(articleID) || missing.contains(articleID)) continue;
+
+            T value = cached.fetch(articleID);
+            if (value != null) {
+                result.put(articleID, value);
+            } else {
+                missing.add(articleID);
+            }
+        }
+
+        LOG.debug("getAll() {} indexed, {} missing", result.size(), missing.size());
+
+        if (missing.isEmpty()) return result;
+
+        if (missing.size() == 1) {
+            Integer articleID = missing.iterator().next();
+            T value = remote.fetch(articleID);
+            if (value != null) result.put(articleID, value);
+            return result;
+        }
+
+        final int threads = Math.min(concurrency, missing.size());
+
+        ExecutorService executor = executorService;
+        boolean temporaryExecutor = executor == null;
+        if (temporaryExecutor) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "wallabag-side-index-" + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        final List<Integer> ids = new ArrayList<>(missing);
+        final List<T> values = new ArrayList<>(Collections.<T>nCopies(ids.size(), null));
+        final List<Exception> exceptions = new ArrayList<>(Collections.<Exception>nCopies(ids.size(), null));
+        final AtomicInteger next = new AtomicInteger();
+
+        // a shared executor may have more threads: the workers take the IDs one by one
+        List<Future<?>> workers = new ArrayList<>(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        int index;
+                        while ((index = next.getAndIncrement()) < ids.size()) {
+                            if (Thread.currentThread().isInterrupted()) return;
+
+                            try {
+                                T value = remote.fetch(ids.get(index));
+                                synchronized (values) {
+                                    values.set(index, value);
+                                }
+                            } catch (Exception e) {
+                                synchronized (values) {
+                                    exceptions.set(index, e);
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    // the workers catch exceptions, so it's an Error
+                    throw (Error) e.getCause();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching article data");
+        } finally {
+            if (temporaryExecutor) {
+                executor.shutdownNow();
+            } else {
+                for (Future<?> worker : workers) worker.cancel(true);
+            }
+        }
+
+        Exception exception = null;
+        synchronized (values) {
+            for (int i = 0; i < ids.size(); i++) {
+                if (values.get(i) != null) result.put(ids.get(i), values.get(i));
+                if (exception == null) exception = exceptions.get(i);
+            }
+        }
+
+        if (exception instanceof IOException) throw (IOException) exception;
+        if (exception instanceof UnsuccessfulResponseException) throw (UnsuccessfulResponseException) exception;
+        if (exception instanceof RuntimeException) throw (RuntimeException) exception;
+
+        return result;
+    }
+
+    private void put(Article article) {
+        synchronized (entries) {
+            IndexEntry entry = entries.get(article.id);
+
+            List<Tag> tags = article.tags != null ? copy(article.tags) : null;
+            List<Annotation> annotations = article.annotations != null ? copy(article.annotations) : null;
+
+            if (entry != null && entry.updatedAt != null && article.updatedAt != null) {
+                int comparison = article.updatedAt.compareTo(entry.updatedAt);
+                if (comparison < 0) return; // older data
+
+                if (comparison == 0) {
+                    // the same version, keep the data missing from the received article
+                    if (tags == null) tags = entry.tags;
+                    if (annotations == null) annotations = entry.annotations;
+                }
+            }
+
+            entries.put(article.id, new IndexEntry(article.updatedAt, tags, annotations));
+        }
+    }
+
+    private void update(int articleID, List<Tag> tags, List<Annotation> annotations) {
+        synchronized (entries) {
+            IndexEntry entry = entries.get(articleID);
+            if (entry == null) {
+                entries.put(articleID, new IndexEntry(null, tags, annotations));
+            } else {
+                entries.put(articleID, new IndexEntry(entry.updatedAt,
+                        tags != null ? tags : entry.tags,
+                        annotations != null ? annotations : entry.annotations));
+            }
+        }
+    }
+
+    private void removeTags(List<Tag> tags) {
+        Set<Integer> ids = new HashSet<>();
+        for (Tag tag : tags) ids.add(tag.id);
+
+        synchronized (entries) {
+            for (Map.Entry<Integer, IndexEntry> mapEntry : entries.entrySet()) {
+                IndexEntry entry = mapEntry.getValue();
+                if (entry.tags == null) continue;
+
+                List<Tag> remaining = new ArrayList<>(entry.tags.size());
+                for (Tag tag : entry.tags) {
+                    if (!ids.contains(tag.id)) remaining.add(tag);
+                }
+
+                if (remaining.size() != entry.tags.size()) {
+                    mapEntry.setValue(new IndexEntry(entry.updatedAt,
+                            Collections.unmodifiableList(remaining), entry.annotations));
+                }
+            }
+        }
+    }
+
+    private void addAnnotation(int articleID, Annotation annotation) {
+        synchronized (entries) {
+            IndexEntry entry = entries.get(articleID);
+            if (entry == null || entry.annotations == null) return;
+
+            List<Annotation> annotations = new ArrayList<>(entry.annotations);
+            annotations.add(annotation);
+            entries.put(articleID, new IndexEntry(entry.updatedAt, entry.tags,
+                    Collections.unmodifiableList(annotations)));
+        }
+    }
+
+    private void replaceAnnotation(int annotationID, Annotation replacement) {
+        synchronized (entries) {
+            for (Map.Entry<Integer, IndexEntry> mapEntry : entries.entrySet()) {
+                IndexEntry entry = mapEntry.getValue();
+                if (entry.annotations == null) continue;
+
+                for (int i = 0; i < entry.annotations.size(); i++) {
+                    if (entry.annotations.get(i).id != annotationID) continue;
+
+                    List<Annotation> annotations = new ArrayList<>(entry.annotations);
+                    if (replacement != null) {
+                        annotations.set(i, replacement);
+                    } else {
+                        annotations.remove(i);
+                    }
+                    mapEntry.setValue(new IndexEntry(entry.updatedAt, entry.tags,
+                            Collections.unmodifiableList(annotations)));
+                    return;
+                }
+            }
+        }
+    }
+
+    private static List<Annotation> rows(Annotations annotations) {
+        if (annotations == null) return null;
+        return annotations.rows != null ? copy(annotations.rows) : Collections.<Annotation>emptyList();
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        return list != null ? Collections.unmodifiableList(new ArrayList<>(list)) : null;
+    }
+
+}
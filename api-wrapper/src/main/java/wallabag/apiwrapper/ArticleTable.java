@@ -0,0 +1,802 @@
+package wallabag.apiwrapper;
+
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Tag;
+
+import java.io.IOException;
+import java.util.*;
+
+import static wallabag.apiwrapper.Utils.nonEmptyString;
+import static wallabag.apiwrapper.Utils.nonNullValue;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code ArticleTable} class is a compact in-memory store of article metadata
+ * for local filtering and ranking of large libraries.
+ * <p>The articles are stored as columns (a row per article) instead of {@link Article} objects:
+ * the IDs and the reading times are {@code int} arrays, the dates are {@code long} arrays
+ * (milliseconds since the epoch, {@link #NO_DATE} for missing dates),
+ * the flags and the tags are bitmaps (a bitmap of rows per flag and per tag),
+ * the domain names, languages and media types are dictionary-encoded.
+ * The URLs and titles are stored as is. The content, the annotations and the other fields are not stored.
+ * <p>The table is filled with {@link #add(Article)} or {@link #addAll(ArticleIterator)}:
+ * an article with an already stored ID replaces the stored data.
+ * The rows of {@linkplain #remove(int) removed} articles are not reused until an article with the same ID is added.
+ * <p>The stored articles are queried with {@link #filter()}; the rows returned by {@link Filter#rows()}
+ * (or {@link #getRow(int)}) are used with the column getters (like {@link #getCreatedAt(int)}).
+ * <p>The returned {@link Tag} objects are shared and must not be modified.
+ * <p>This class is thread safe.
+ */
+public class ArticleTable {
+
+    /**
+     * The value of the date columns for missing dates.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final int NO_ROW = -1;
+    private static final int NO_VALUE = -1;
+    private static final int UNKNOWN_VALUE = -2;
+
+    private static class Dictionary {
+
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) return NO_VALUE;
+
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code != null ? code : UNKNOWN_VALUE;
+        }
+
+        String decode(int code) {
+            return code >= 0 ? values.get(code) : null;
+        }
+
+    }
+
+    private int rowCount;
+    private int size;
+
+    // ID -> row, open addressing with linear probing; the IDs are positive, 0 marks empty slots
+    private int[] slotIDs = new int[INITIAL_CAPACITY * 2];
+    private int[] slotRows = new int[INITIAL_CAPACITY * 2];
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private long[] updatedAt = new long[INITIAL_CAPACITY];
+    private long[] archivedAt = new long[INITIAL_CAPACITY];
+    private long[] starredAt = new long[INITIAL_CAPACITY];
+    private long[] publishedAt = new long[INITIAL_CAPACITY];
+    private int[] readingTimes = new int[INITIAL_CAPACITY];
+    private int[] domains = new int[INITIAL_CAPACITY];
+    private int[] languages = new int[INITIAL_CAPACITY];
+    private int[] mimetypes = new int[INITIAL_CAPACITY];
+    private String[] urls = new String[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+
+    private final BitSet live = new BitSet();
+    private final BitSet archived = new BitSet();
+    private final BitSet starred = new BitSet();
+    private final BitSet isPublic = new BitSet();
+
+    private final Dictionary domainDictionary = new Dictionary();
+    private final Dictionary languageDictionary = new Dictionary();
+    private final Dictionary mimetypeDictionary = new Dictionary();
+
+    private final List<Tag> tags = new ArrayList<>();
+    private final List<BitSet> tagRows = new ArrayList<>();
+    private final Map<Integer, Integer> tagIndexesByID = new HashMap<>();
+    private final Map<String, Integer> tagIndexesByLabel = new HashMap<>();
+
+    /**
+     * Adds the article to the table, replacing the stored data of the article with the same ID.
+     *
+     * @param article the article to add
+     * @throws NullPointerException     if the {@code article} is {@code null}
+     * @throws IllegalArgumentException if the {@link Article#id} is not positive
+     */
+    public synchronized void add(Article article) {
+        nonNullValue(article, "article");
+        positiveNumber(article.id, "article.id");
+
+        int row = findRow(article.id);
+        if (row == NO_ROW) {
+            row = rowCount++;
+            ensureCapacity(rowCount);
+            putRow(article.id, row);
+        } else {
+            clearTags(row);
+        }
+        if (!live.get(row)) {
+            live.set(row);
+            size++;
+        }
+
+        ids[row] = article.id;
+        createdAt[row] = millis(article.createdAt);
+        updatedAt[row] = millis(article.updatedAt);
+        archivedAt[row] = millis(article.archivedAt);
+        starredAt[row] = millis(article.starredAt);
+        publishedAt[row] = millis(article.publishedAt);
+        readingTimes[row] = article.readingTime;
+        domains[row] = domainDictionary.encode(article.domainName);
+        languages[row] = languageDictionary.encode(article.language);
+        mimetypes[row] = mimetypeDictionary.encode(article.mimetype);
+        urls[row] = article.url;
+        titles[row] = article.title;
+
+        archived.set(row, article.archived);
+        starred.set(row, article.starred);
+        isPublic.set(row, Boolean.TRUE.equals(article.isPublic));
+
+        if (article.tags != null) {
+            for (Tag tag : article.tags) {
+                if (tag != null) tagRows.get(getTagIndex(tag)).set(row);
+            }
+        }
+    }
+
+    /**
+     * Adds all remaining articles of the iterator to the table (see {@link #add(Article)}).
+     * <p>The table is not locked during the iteration, the articles are added as they are received.
+     *
+     * @param iterator the iterator to add the articles of
+     * @return the number of added articles
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException in case of known wallabag-specific errors
+     * @throws NullPointerException          if the {@code iterator} is {@code null}
+     */
+    public int addAll(ArticleIterator iterator) throws IOException, UnsuccessfulResponseException {
+        nonNullValue(iterator, "iterator");
+
+        int count = 0;
+        while (iterator.hasNext()) {
+            add(iterator.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes the article with the specified ID.
+     *
+     * @param articleID the ID of the article to remove
+     * @return {@code true} if the article was stored in the table
+     */
+    public synchronized boolean remove(int articleID) {
+        int row = findRow(articleID);
+        if (row == NO_ROW || !live.get(row)) return false;
+
+        live.clear(row);
+        archived.clear(row);
+        starred.clear(row);
+        isPublic.clear(row);
+        clearTags(row);
+        urls[row] = null;
+        titles[row] = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of stored articles.
+     *
+     * @return the number of stored articles
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the row of the article with the specified ID.
+     *
+     * @param articleID the article ID
+     * @return the row of the article, or {@code -1} if the article is not stored
+     */
+    public synchronized int getRow(int articleID) {
+        int row = findRow(articleID);
+        return row != NO_ROW && live.get(row) ? row : NO_ROW;
+    }
+
+    /**
+     * Returns a new {@link Filter} for the stored articles.
+     *
+     * @return a new {@link Filter}
+     */
+    public Filter filter() {
+        return new Filter();
+    }
+
+    /**
+     * Returns the article ID of the row.
+     *
+     * @param row the row
+     * @return the article ID
+     */
+    public synchronized int getID(int row) {
+        checkRow(row);
+        return ids[row];
+    }
+
+    /**
+     * Returns {@link Article#createdAt} of the row in milliseconds since the epoch.
+     *
+     * @param row the row
+     * @return the creation date or {@link #NO_DATE}
+     */
+    public synchronized long getCreatedAt(int row) {
+        checkRow(row);
+        return createdAt[row];
+    }
+
+    /**
+     * Returns {@link Article#updatedAt} of the row in milliseconds since the epoch.
+     *
+     * @param row the row
+     * @return the date of the last change or {@link #NO_DATE}
+     */
+    public synchronized long getUpdatedAt(int row) {
+        checkRow(row);
+        return updatedAt[row];
+    }
+
+    /**
+     * Returns {@link Article#archivedAt} of the row in milliseconds since the epoch.
+     *
+     * @param row the row
+     * @return the date of the "archived" change or {@link #NO_DATE}
+     */
+    public synchronized long getArchivedAt(int row) {
+        checkRow(row);
+        return archivedAt[row];
+    }
+
+    /**
+     * Returns {@link Article#starredAt} of the row in milliseconds since the epoch.
+     *
+     * @param row the row
+     * @return the date of the "starred" change or {@link #NO_DATE}
+     */
+    public synchronized long getStarredAt(int row) {
+        checkRow(row);
+        return starredAt[row];
+    }
+
+    /**
+     * Returns {@link Article#publishedAt} of the row in milliseconds since the epoch.
+     *
+     * @param row the row
+     * @return the publication date or {@link #NO_DATE}
+     */
+    public synchronized long getPublishedAt(int row) {
+        checkRow(row);
+        return publishedAt[row];
+    }
+
+    /**
+     * Returns {@link Article#readingTime} of the row.
+     *
+     * @param row the row
+     * @return the reading time in minutes
+     */
+    public synchronized int getReadingTime(int row) {
+        checkRow(row);
+        return readingTimes[row];
+    }
+
+    /**
+     * Returns {@link Article#archived} of the row.
+     *
+     * @param row the row
+     * @return the "archived" flag
+     */
+    public synchronized boolean isArchived(int row) {
+        checkRow(row);
+        return archived.get(row);
+    }
+
+    /**
+     * Returns {@link Article#starred} of the row.
+     *
+     * @param row the row
+     * @return the "starred" flag
+     */
+    public synchronized boolean isStarred(int row) {
+        checkRow(row);
+        return starred.get(row);
+    }
+
+    /**
+     * Returns {@code true} if {@link Article#isPublic} of the row is {@code true}.
+     *
+     * @param row the row
+     * @return the "public" flag
+     */
+    public synchronized boolean isPublic(int row) {
+        checkRow(row);
+        return isPublic.get(row);
+    }
+
+    /**
+     * Returns {@link Article#domainName} of the row.
+     *
+     * @param row the row
+     * @return the domain name, {@code null}able
+     */
+    public synchronized String getDomainName(int row) {
+        checkRow(row);
+        return domainDictionary.decode(domains[row]);
+    }
+
+    /**
+     * Returns {@link Article#language} of the row.
+     *
+     * @param row the row
+     * @return the language, {@code null}able
+     */
+    public synchronized String getLanguage(int row) {
+        checkRow(row);
+        return languageDictionary.decode(languages[row]);
+    }
+
+    /**
+     * Returns {@link Article#mimetype} of the row.
+     *
+     * @param row the row
+     * @return the media type, {@code null}able
+     */
+    public synchronized String getMimetype(int row) {
+        checkRow(row);
+        return mimetypeDictionary.decode(mimetypes[row]);
+    }
+
+    /**
+     * Returns {@link Article#url} of the row.
+     *
+     * @param row the row
+     * @return the URL
+     */
+    public synchronized String getUrl(int row) {
+        checkRow(row);
+        return urls[row];
+    }
+
+    /**
+     * Returns {@link Article#title} of the row.
+     *
+     * @param row the row
+     * @return the title
+     */
+    public synchronized String getTitle(int row) {
+        checkRow(row);
+        return titles[row];
+    }
+
+    /**
+     * Returns the tags of the row (in the order the tags were first added to the table).
+     *
+     * @param row the row
+     * @return a new list of the shared {@link Tag} objects
+     */
+    public synchronized List<Tag> getTags(int row) {
+        checkRow(row);
+
+        List<Tag> result = new ArrayList<>();
+        for (int i = 0; i < tagRows.size(); i++) {
+            if (tagRows.get(i).get(row)) result.add(tags.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new {@link Article} with the stored data of the row
+     * (the fields that are not stored are left unset).
+     *
+     * @param row the row
+     * @return a new {@link Article}
+     */
+    public synchronized Article getArticle(int row) {
+        checkRow(row);
+
+        Article article = new Article();
+        article.id = ids[row];
+        article.url = urls[row];
+        article.title = titles[row];
+        article.archived = archived.get(row);
+        article.archivedAt = date(archivedAt[row]);
+        article.starred = starred.get(row);
+        article.starredAt = date(starredAt[row]);
+        article.tags = getTags(row);
+        article.createdAt = date(createdAt[row]);
+        article.updatedAt = date(updatedAt[row]);
+        article.mimetype = mimetypeDictionary.decode(mimetypes[row]);
+        article.language = languageDictionary.decode(languages[row]);
+        article.readingTime = readingTimes[row];
+        article.domainName = domainDictionary.decode(domains[row]);
+        article.publishedAt = date(publishedAt[row]);
+        article.isPublic = isPublic.get(row);
+        return article;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount || !live.get(row)) {
+            throw new IllegalArgumentException("Not a row of a stored article: " + row);
+        }
+    }
+
+    private int getTagIndex(Tag tag) {
+        Integer index = tagIndexesByID.get(tag.id);
+        if (index == null) {
+            index = tags.size();
+            tags.add(copy(tag));
+            tagRows.add(new BitSet());
+            tagIndexesByID.put(tag.id, index);
+            if (tag.label != null) tagIndexesByLabel.put(tag.label, index);
+        } else {
+            Tag stored = tags.get(index);
+            if (stored.label == null ? tag.label != null : !stored.label.equals(tag.label)) {
+                // renamed
+                if (stored.label != null) tagIndexesByLabel.remove(stored.label);
+                if (tag.label != null) tagIndexesByLabel.put(tag.label, index);
+                tags.set(index, copy(tag));
+            }
+        }
+        return index;
+    }
+
+    private void clearTags(int row) {
+        for (BitSet rows : tagRows) rows.clear(row);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        createdAt = Arrays.copyOf(createdAt, newCapacity);
+        updatedAt = Arrays.copyOf(updatedAt, newCapacity);
+        archivedAt = Arrays.copyOf(archivedAt, newCapacity);
+        starredAt = Arrays.copyOf(starredAt, newCapacity);
+        publishedAt = Arrays.copyOf(publishedAt, newCapacity);
+        readingTimes = Arrays.copyOf(readingTimes, newCapacity);
+        domains = Arrays.copyOf(domains, newCapacity);
+        languages = Arrays.copyOf(languages, newCapacity);
+        mimetypes = Arrays.copyOf(mimetypes, newCapacity);
+        urls = Arrays.copyOf(urls, newCapacity);
+        titles = Arrays.copyOf(titles, newCapacity);
+    }
+
+    private int findRow(int id) {
+        if (id <= 0) return NO_ROW;
+
+        int mask = slotIDs.length - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            int slotID = slotIDs[slot];
+            if (slotID == id) return slotRows[slot];
+            if (slotID == 0) return NO_ROW;
+        }
+    }
+
+    private void putRow(int id, int row) {
+        // the rows are never removed from the map, so the row count is the number of the entries
+        if (rowCount * 2 > slotIDs.length) {
+            int[] oldIDs = slotIDs;
+            int[] oldRows = slotRows;
+            slotIDs = new int[oldIDs.length * 2];
+            slotRows = new int[oldIDs.length * 2];
+            for (int i = 0; i < oldIDs.length; i++) {
+                if (oldIDs[i] != 0) insert(oldIDs[i], oldRows[i]);
+            }
+        }
+        insert(id, row);
+    }
+
+    private void insert(int id, int row) {
+        int mask = slotIDs.length - 1;
+        int slot = hash(id) & mask;
+        while (slotIDs[slot] != 0) slot = (slot + 1) & mask;
+        slotIDs[slot] = id;
+        slotRows[slot] = row;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static long millis(Date date) {
+        return date != null ? date.getTime() : NO_DATE;
+    }
+
+    private static Date date(long millis) {
+        return millis != NO_DATE ? new Date(millis) : null;
+    }
+
+    private static Tag copy(Tag tag) {
+        Tag copy = new Tag();
+        copy.id = tag.id;
+        copy.label = tag.label;
+        copy.slug = tag.slug;
+        return copy;
+    }
+
+    /**
+     * The {@code Filter} class selects the stored articles matching all the specified criteria.
+     * <p>The flag and tag criteria are evaluated as bitmap operations,
+     * the other criteria are evaluated by scanning the columns of the remaining rows.
+     * <p>The criteria are set with the builder-style methods; {@link #count()}, {@link #ids()} and {@link #rows()}
+     * evaluate the filter against the current content of the table and may be called repeatedly.
+     * <p>This class is not thread safe and cannot be shared between threads.
+     */
+    public class Filter {
+
+        private Boolean archive;
+        private Boolean starred;
+        private Boolean isPublic;
+        private final Set<String> tagLabels = new LinkedHashSet<>();
+        private String domainName;
+        private String language;
+        private long createdFrom = NO_DATE, createdTo = Long.MAX_VALUE;
+        private long updatedFrom = NO_DATE, updatedTo = Long.MAX_VALUE;
+        private long publishedFrom = NO_DATE, publishedTo = Long.MAX_VALUE;
+        private int minReadingTime = Integer.MIN_VALUE, maxReadingTime = Integer.MAX_VALUE;
+
+        Filter() {}
+
+        /**
+         * Sets the "archived" ("read") criterion, returns this filter.
+         * <p>{@code true} selects archived articles, {@code false} - not archived, {@code null} - all articles.
+         * Defaults to {@code null}.
+         *
+         * @param archive the "archived" criterion, {@code null}able
+         * @return this filter
+         */
+        public Filter archive(Boolean archive) {
+            this.archive = archive;
+            return this;
+        }
+
+        /**
+         * Sets the "starred" ("favorite") criterion, returns this filter.
+         * <p>{@code true} selects starred articles, {@code false} - not starred, {@code null} - all articles.
+         * Defaults to {@code null}.
+         *
+         * @param starred the "starred" criterion, {@code null}able
+         * @return this filter
+         */
+        public Filter starred(Boolean starred) {
+            this.starred = starred;
+            return this;
+        }
+
+        /**
+         * Sets the "public" criterion, returns this filter.
+         * <p>{@code true} selects public articles, {@code false} - not public, {@code null} - all articles.
+         * Defaults to {@code null}.
+         *
+         * @param isPublic the "public" criterion, {@code null}able
+         * @return this filter
+         */
+        public Filter isPublic(Boolean isPublic) {
+            this.isPublic = isPublic;
+            return this;
+        }
+
+        /**
+         * Adds a tag label the selected articles must have, returns this filter.
+         *
+         * @param tag the tag label
+         * @return this filter
+         * @throws NullPointerException     if the {@code tag} is {@code null}
+         * @throws IllegalArgumentException if the {@code tag} is an empty {@code String}
+         */
+        public Filter tag(String tag) {
+            tagLabels.add(nonEmptyString(tag, "tag"));
+            return this;
+        }
+
+        /**
+         * Adds the tag labels the selected articles must have, returns this filter.
+         *
+         * @param tags the tag labels
+         * @return this filter
+         * @throws NullPointerException     if the {@code tags} collection is {@code null} or contains a {@code null}
+         * @throws IllegalArgumentException if the {@code tags} collection contains an empty {@code String}
+         */
+        public Filter tags(Collection<String> tags) {
+            for (String tag : nonNullValue(tags, "tags")) tag(tag);
+            return this;
+        }
+
+        /**
+         * Sets the domain name of the selected articles, returns this filter.
+         *
+         * @param domainName the domain name, {@code null} for any domain
+         * @return this filter
+         */
+        public Filter domainName(String domainName) {
+            this.domainName = domainName;
+            return this;
+        }
+
+        /**
+         * Sets the language of the selected articles, returns this filter.
+         *
+         * @param language the language, {@code null} for any language
+         * @return this filter
+         */
+        public Filter language(String language) {
+            this.language = language;
+            return this;
+        }
+
+        /**
+         * Selects the articles created in the {@code [from, to)} range (milliseconds since the epoch),
+         * returns this filter.
+         *
+         * @param from the start of the range (inclusive)
+         * @param to   the end of the range (exclusive)
+         * @return this filter
+         */
+        public Filter createdBetween(long from, long to) {
+            createdFrom = from;
+            createdTo = to;
+            return this;
+        }
+
+        /**
+         * Selects the articles last changed in the {@code [from, to)} range (milliseconds since the epoch),
+         * returns this filter.
+         *
+         * @param from the start of the range (inclusive)
+         * @param to   the end of the range (exclusive)
+         * @return this filter
+         */
+        public Filter updatedBetween(long from, long to) {
+            updatedFrom = from;
+            updatedTo = to;
+            return this;
+        }
+
+        /**
+         * Selects the articles published in the {@code [from, to)} range (milliseconds since the epoch),
+         * returns this filter. The articles without the publication date are not selected.
+         *
+         * @param from the start of the range (inclusive)
+         * @param to   the end of the range (exclusive)
+         * @return this filter
+         */
+        public Filter publishedBetween(long from, long to) {
+            publishedFrom = from;
+            publishedTo = to;
+            return this;
+        }
+
+        /**
+         * Selects the articles with the reading time in the {@code [min, max]} range, returns this filter.
+         *
+         * @param min the minimum reading time in minutes
+         * @param max the maximum reading time in minutes
+         * @return this filter
+         */
+        public Filter readingTimeBetween(int min, int max) {
+            minReadingTime = min;
+            maxReadingTime = max;
+            return this;
+        }
+
+        /**
+         * Returns the number of the selected articles.
+         *
+         * @return the number of the selected articles
+         */
+        public int count() {
+            synchronized (ArticleTable.this) {
+                BitSet matches = evaluate();
+                return matches.cardinality();
+            }
+        }
+
+        /**
+         * Returns the IDs of the selected articles (in the order the articles were first added).
+         *
+         * @return a new array of the article IDs
+         */
+        public int[] ids() {
+            synchronized (ArticleTable.this) {
+                int[] result = rows();
+                for (int i = 0; i < result.length; i++) result[i] = ArticleTable.this.ids[result[i]];
+                return result;
+            }
+        }
+
+        /**
+         * Returns the rows of the selected articles (in the order the articles were first added).
+         * The rows stay valid until the articles are removed.
+         *
+         * @return a new array of the rows
+         */
+        public int[] rows() {
+            synchronized (ArticleTable.this) {
+                BitSet matches = evaluate();
+                int[] result = new int[matches.cardinality()];
+                int i = 0;
+                for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                    result[i++] = row;
+                }
+                return result;
+            }
+        }
+
+        private BitSet evaluate() {
+            BitSet matches = (BitSet) live.clone();
+
+            applyFlag(matches, ArticleTable.this.archived, archive);
+            applyFlag(matches, ArticleTable.this.starred, starred);
+            applyFlag(matches, ArticleTable.this.isPublic, isPublic);
+
+            for (String label : tagLabels) {
+                Integer index = tagIndexesByLabel.get(label);
+                if (index == null) return new BitSet();
+                matches.and(tagRows.get(index));
+            }
+
+            int domainCode = domainName != null ? domainDictionary.find(domainName) : NO_VALUE;
+            int languageCode = language != null ? languageDictionary.find(language) : NO_VALUE;
+            if (domainCode == UNKNOWN_VALUE || languageCode == UNKNOWN_VALUE) return new BitSet();
+
+            boolean checkCreated = createdFrom != NO_DATE || createdTo != Long.MAX_VALUE;
+            boolean checkUpdated = updatedFrom != NO_DATE || updatedTo != Long.MAX_VALUE;
+            boolean checkPublished = publishedFrom != NO_DATE || publishedTo != Long.MAX_VALUE;
+            boolean checkReadingTime = minReadingTime != Integer.MIN_VALUE || maxReadingTime != Integer.MAX_VALUE;
+            if (domainName == null && language == null
+                    && !checkCreated && !checkUpdated && !checkPublished && !checkReadingTime) {
+                return matches;
+            }
+
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                if ((domainName != null && domains[row] != domainCode)
+                        || (language != null && languages[row] != languageCode)
+                        || (checkCreated && !inRange(createdAt[row], createdFrom, createdTo))
+                        || (checkUpdated && !inRange(updatedAt[row], updatedFrom, updatedTo))
+                        || (checkPublished && !inRange(publishedAt[row], publishedFrom, publishedTo))
+                        || (checkReadingTime
+                        && (readingTimes[row] < minReadingTime || readingTimes[row] > maxReadingTime))) {
+                    matches.clear(row);
+                }
+            }
+            return matches;
+        }
+
+        private void applyFlag(BitSet matches, BitSet flag, Boolean value) {
+            if (value == null) return;
+
+            if (value) {
+                matches.and(flag);
+            } else {
+                matches.andNot(flag);
+            }
+        }
+
+        private boolean inRange(long value, long from, long to) {
+            return value != NO_DATE && value >= from && value < to;
+        }
+
+    }
+
+}
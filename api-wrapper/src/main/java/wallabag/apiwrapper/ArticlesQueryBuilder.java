@@ -268,7 +268,7 @@ public class ArticlesQueryBuilder extends GenericPaginatingQueryBuilder<Articles
 
     @Override
     public Call<Articles> buildCall() {
-        return wallabagService.getArticlesCall(build());
+        return wallabagService.getArticlesCall(build(), priority);
     }
 
     /**
@@ -279,7 +279,7 @@ public class ArticlesQueryBuilder extends GenericPaginatingQueryBuilder<Articles
      */
     @Override
     public Articles execute(NotFoundPolicy notFoundPolicy) throws IOException, UnsuccessfulResponseException {
-        return wallabagService.getArticles(build(), notFoundPolicy);
+        return wallabagService.getArticles(build(), priority, notFoundPolicy);
     }
 
     @Override
@@ -49,7 +49,7 @@ public class ArticlesSearchBuilder extends GenericPaginatingQueryBuilder<Article
 
     @Override
     public Call<Articles> buildCall() {
-        return wallabagService.searchCall(build());
+        return wallabagService.searchCall(build(), priority);
     }
 
     /**
@@ -60,7 +60,7 @@ public class ArticlesSearchBuilder extends GenericPaginatingQueryBuilder<Article
      */
     @Override
     public Articles execute(NotFoundPolicy notFoundPolicy) throws IOException, UnsuccessfulResponseException {
-        return wallabagService.search(build(), notFoundPolicy);
+        return wallabagService.search(build(), priority, notFoundPolicy);
     }
 
     @Override
@@ -0,0 +1,210 @@
+package wallabag.apiwrapper;
+
+import com.squareup.moshi.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.exceptions.NotFoundException;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.ListActionResponse;
+
+import java.io.IOException;
+import java.util.*;
+
+import static wallabag.apiwrapper.Utils.nonEmptyString;
+import static wallabag.apiwrapper.Utils.nonNullValue;
+
+/**
+ * The {@code BulkArticlesBuilder} class represents a builder for adding or deleting
+ * multiple articles at once.
+ * <p>Since 2.2.0 the server supports list-based ("mass") article operations
+ * ({@link CompatibilityHelper#isAddArticlesSupported(String)},
+ * {@link CompatibilityHelper#isDeleteArticlesSupported(String)}).
+ * The builder splits the added articles into batches
+ * (see {@link #batchSize(int)} and {@link #maxQueryLength(int)})
+ * and performs the requests concurrently (see {@link #concurrency(int)}).
+ * <p>If the server doesn't support list-based operations, the builder falls back to per-article requests
+ * ({@link WallabagService#addArticle(String)}, {@link WallabagService#deleteArticle(int, NotFoundPolicy)}).
+ * Per-article deletion requires article IDs: the articles added with {@link #addUrl(String)} fail in this case.
+ * <p>Adding articles by list doesn't allow to specify any article properties except for URLs,
+ * use {@link AddArticleBuilder} if you need that.
+ * <p>Objects of this class can be reused for making queries with different parameters.
+ * <p>This class is not thread safe and cannot be shared between threads.
+ */
+public class BulkArticlesBuilder extends AbstractBulkBuilder<BulkArticlesBuilder> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkArticlesBuilder.class);
+
+    private static final String ADD_PATH = "api/entries/lists.json?urls=";
+    private static final String DELETE_PATH = "api/entries/list.json?urls=";
+
+    private static class Item extends ListItem {
+        Item(String url) {
+            super(url);
+        }
+
+        @Override
+        void writeJson(JsonWriter writer) throws IOException {
+            writer.value(url);
+        }
+    }
+
+    private final boolean delete;
+
+    private final Map<String, Item> items = new LinkedHashMap<>();
+
+    BulkArticlesBuilder(WallabagService wallabagService, boolean delete) {
+        super(wallabagService);
+        this.delete = delete;
+    }
+
+    @Override
+    protected BulkArticlesBuilder self() {
+        return this;
+    }
+
+    /**
+     * Adds an article specified by the {@code url} to this builder, returns the builder.
+     * <p>The articles added using this method can't be deleted by the per-article fallback.
+     *
+     * @param url the URL of the article ({@link Article#url})
+     * @return this builder
+     * @throws NullPointerException     if the {@code url} is {@code null}
+     * @throws IllegalArgumentException if the {@code url} is an empty {@code String}
+     */
+    public BulkArticlesBuilder addUrl(String url) {
+        getItem(nonEmptyString(url, "url"));
+        return this;
+    }
+
+    /**
+     * Adds the URLs to this builder, returns the builder.
+     * <p>See {@link #addUrl(String)}.
+     *
+     * @param urls the URLs of the articles
+     * @return this builder
+     * @throws NullPointerException     if the {@code urls} or any of its elements is {@code null}
+     * @throws IllegalArgumentException if any of the {@code urls} is an empty {@code String}
+     */
+    public BulkArticlesBuilder addUrls(Collection<String> urls) {
+        nonNullValue(urls, "urls");
+
+        for (String url : urls) {
+            addUrl(url);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the {@code article} to this builder, returns the builder.
+     * <p>Only {@link Article#url} and {@link Article#id} are used.
+     *
+     * @param article the article
+     * @return this builder
+     * @throws NullPointerException     if the {@code article} or its {@code url} is {@code null}
+     * @throws IllegalArgumentException if the article {@code url} is an empty {@code String}
+     */
+    public BulkArticlesBuilder addArticle(Article article) {
+        nonNullValue(article, "article");
+
+        getItem(nonEmptyString(article.url, "article.url")).articleID = article.id;
+        return this;
+    }
+
+    private Item getItem(String url) {
+        Item item = items.get(url);
+        if (item == null) {
+            item = new Item(url);
+            items.put(url, item);
+        }
+        return item;
+    }
+
+    /**
+     * Resets the articles that were previously added to this builder, returns the builder.
+     *
+     * @return this builder
+     */
+    public BulkArticlesBuilder reset() {
+        items.clear();
+        return this;
+    }
+
+    /**
+     * Performs the operation and returns a {@link BulkOperationResult} with per-article results.
+     * <p>For the add operation the articles that were added (or already existed) are reported as processed,
+     * the articles the server failed to add are reported as not found.
+     * <p>This method does auto-detection of the list-based operations support
+     * based on the result of {@link WallabagService#getCachedVersion()}.
+     * <p>Exceptions during the requests are not thrown, but reported in the result.
+     *
+     * @return a {@link BulkOperationResult} with the results
+     * @throws IOException                   in case of network errors during the support detection
+     *                                       or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     *                                       during the support detection
+     */
+    public BulkOperationResult execute() throws IOException, UnsuccessfulResponseException {
+        BulkOperationResult result = new BulkOperationResult();
+        if (items.isEmpty()) return result;
+
+        List<Item> itemList = new ArrayList<>(items.values());
+
+        boolean listSupported = delete
+                ? CompatibilityHelper.isDeleteArticlesSupported(wallabagService)
+                : CompatibilityHelper.isAddArticlesSupported(wallabagService);
+
+        if (listSupported) {
+            executeLists(itemList, result);
+        } else {
+            LOG.info("execute() list operations are not supported, falling back to per-article requests");
+            executeOneByOne(itemList, result);
+        }
+
+        return result;
+    }
+
+    private void executeLists(List<Item> itemList, BulkOperationResult result) throws IOException {
+        executeLists(itemList, delete ? DELETE_PATH : ADD_PATH, new ListCall() {
+            @Override
+            public List<ListActionResponse> execute(String list) throws IOException, UnsuccessfulResponseException {
+                return delete
+                        ? wallabagService.deleteArticlesByList(list)
+                        : wallabagService.addArticlesByList(list);
+            }
+        }, result);
+    }
+
+    private void executeOneByOne(List<Item> itemList, final BulkOperationResult result) throws IOException {
+        runBatches(itemList, new BatchTask<Item>() {
+            @Override
+            public void run(Item item) throws Exception {
+                if (delete) {
+                    if (item.articleID < 0) {
+                        result.failed(item.url, new UnsupportedOperationException(
+                                "List operations are not supported by the server and the article ID is unknown"));
+                        return;
+                    }
+
+                    try {
+                        wallabagService.deleteArticle(item.articleID, NotFoundPolicy.THROW);
+                    } catch (NotFoundException nfe) {
+                        LOG.debug("executeOneByOne() NFE for {}", item.url, nfe);
+                        result.notFound(item.url);
+                        return;
+                    }
+
+                    result.processed(item.url, item.articleID);
+                } else {
+                    result.processed(item.url, wallabagService.addArticle(item.url).id);
+                }
+            }
+
+            @Override
+            public void failed(Item item, Exception e) {
+                result.failed(item.url, e);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,170 @@
+package wallabag.apiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+
+import java.io.IOException;
+import java.util.*;
+
+import static wallabag.apiwrapper.Utils.nonEmptyString;
+import static wallabag.apiwrapper.Utils.nonNullValue;
+
+/**
+ * The {@code BulkExistsBuilder} class represents a builder for checking the existence of
+ * a large number of articles.
+ * <p>The URLs are split into batches the same way as in {@link BatchExistQueryBuilder}
+ * (see {@link #maxQueryLength(int)}) and the batches are checked concurrently (see {@link #concurrency(int)}).
+ * The server doesn't limit the number of URLs in an "exists" request,
+ * so the {@link #batchSize(int)} is not limited by default.
+ * <p>The existing articles are reported as processed (with their IDs if the server supports
+ * {@link CompatibilityHelper#isArticleExistsWithIdSupported(String)}, 0 otherwise),
+ * the missing ones are reported as not found.
+ * <p>Objects of this class can be reused for making queries with different parameters.
+ * <p>This class is not thread safe and cannot be shared between threads.
+ */
+public class BulkExistsBuilder extends AbstractBulkBuilder<BulkExistsBuilder> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkExistsBuilder.class);
+
+    private final Set<String> urls = new LinkedHashSet<>();
+
+    BulkExistsBuilder(WallabagService wallabagService) {
+        super(wallabagService);
+        batchSize = Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected BulkExistsBuilder self() {
+        return this;
+    }
+
+    /**
+     * Adds the {@code url} to this builder, returns the builder.
+     *
+     * @param url the URL to check
+     * @return this builder
+     * @throws NullPointerException     if the {@code url} is {@code null}
+     * @throws IllegalArgumentException if the {@code url} is an empty {@code String}
+     */
+    public BulkExistsBuilder addUrl(String url) {
+        urls.add(nonEmptyString(url, "url"));
+        return this;
+    }
+
+    /**
+     * Adds the {@code urls} to this builder, returns the builder.
+     *
+     * @param urls the URLs to check
+     * @return this builder
+     * @throws NullPointerException     if the {@code urls} or any of its elements is {@code null}
+     * @throws IllegalArgumentException if any of the {@code urls} is an empty {@code String}
+     */
+    public BulkExistsBuilder addUrls(Collection<String> urls) {
+        nonNullValue(urls, "urls");
+
+        for (String url : urls) {
+            addUrl(url);
+        }
+        return this;
+    }
+
+    /**
+     * Resets the URLs that were previously added to this builder, returns the builder.
+     *
+     * @return this builder
+     */
+    public BulkExistsBuilder reset() {
+        urls.clear();
+        return this;
+    }
+
+    /**
+     * Performs the requests and returns a {@link BulkOperationResult} with per-URL results.
+     * <p>Exceptions during the requests are not thrown, but reported in the result.
+     *
+     * @return a {@link BulkOperationResult} with the results
+     * @throws IOException                   in case of network errors during the support detection
+     *                                       or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     *                                       during the support detection
+     */
+    public BulkOperationResult execute() throws IOException, UnsuccessfulResponseException {
+        final BulkOperationResult result = new BulkOperationResult();
+        if (urls.isEmpty()) return result;
+
+        final boolean withId = CompatibilityHelper.isArticleExistsWithIdSupported(wallabagService);
+
+        List<List<String>> batches = splitIntoBatches();
+
+        LOG.debug("execute() {} URLs in {} batches", urls.size(), batches.size());
+
+        runBatches(batches, new BatchTask<List<String>>() {
+            @Override
+            public void run(List<String> batch) throws Exception {
+                // the batch is already split, the builder is only used for hashing and remapping
+                BatchExistQueryBuilder builder = new BatchExistQueryBuilder(wallabagService, Integer.MAX_VALUE);
+                for (String url : batch) {
+                    builder.addUrl(url);
+                }
+
+                if (withId) {
+                    Map<String, Integer> response = builder.executeWithId();
+                    for (String url : batch) {
+                        Integer id = response.get(url);
+                        if (id != null) {
+                            result.processed(url, id);
+                        } else {
+                            result.notFound(url);
+                        }
+                    }
+                } else {
+                    Map<String, Boolean> response = builder.execute();
+                    for (String url : batch) {
+                        if (Boolean.TRUE.equals(response.get(url))) {
+                            result.processed(url, 0);
+                        } else {
+                            result.notFound(url);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void failed(List<String> batch, Exception e) {
+                for (String url : batch) {
+                    result.failed(url, e);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    private List<List<String>> splitIntoBatches() {
+        List<List<String>> batches = new ArrayList<>();
+
+        BatchExistQueryBuilder builder = new BatchExistQueryBuilder(wallabagService, maxQueryLength);
+        List<String> batch = new ArrayList<>();
+        for (String url : urls) {
+            if (batch.size() >= batchSize || !builder.addUrl(url)) {
+                if (!batch.isEmpty()) {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                }
+
+                builder.reset();
+                if (!builder.addUrl(url)) {
+                    // a single URL exceeding the limit is still sent on its own
+                    batches.add(Collections.singletonList(url));
+                    continue;
+                }
+            }
+            batch.add(url);
+        }
+        if (!batch.isEmpty()) batches.add(batch);
+
+        return batches;
+    }
+
+}
@@ -0,0 +1,645 @@
+package wallabag.apiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.WallabagService.ResponseFormat;
+import wallabag.apiwrapper.exceptions.NotFoundException;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static wallabag.apiwrapper.Utils.*;
+
+/**
+ * The {@code BulkExporter} class represents a builder for exporting many articles in one or more
+ * {@link ResponseFormat}s to a directory or to a ZIP stream.
+ * <p>The articles are either listed with an {@link ArticlesQueryBuilder} (see {@link #articles(ArticlesQueryBuilder)})
+ * or specified by their IDs (see {@link #articleIds(Collection)}).
+ * The exports are downloaded concurrently (see {@link #concurrency(int)}) while the listing continues,
+ * each export is streamed without being held in memory.
+ * <p>Every completed export is recorded in a manifest file (see {@link #manifest(File)}),
+ * so an interrupted run can be resumed by executing the same export again:
+ * the exports recorded in the manifest are skipped if the article was not updated since
+ * (the {@link Article#updatedAt} is only known for the listed articles;
+ * the articles specified by IDs are skipped if they were exported at all).
+ * <p>Example:
+ * <pre>{@code
+ * BulkExporter.Result result = wallabagService.bulkExporter()
+ *         .articles(wallabagService.getArticlesBuilder())
+ *         .format(WallabagService.ResponseFormat.EPUB)
+ *         .toDirectory(new File("backup"))
+ *         .execute();
+ * }</pre>
+ * <p>Objects of this class can be reused for making exports with different parameters.
+ * <p>This class is not thread safe and cannot be shared between threads.
+ */
+public class BulkExporter {
+
+    /**
+     * The {@code ProgressListener} interface is used to receive progress updates.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called when an export completes or is skipped.
+         * <p>The calls are made from different threads, but never concurrently.
+         *
+         * @param progress the current progress
+         */
+        void onProgress(Progress progress);
+
+    }
+
+    /**
+     * The {@code Progress} class represents a snapshot of the execution progress.
+     * <p>The counts are per export: an article exported in two formats is counted twice.
+     */
+    public static class Progress {
+
+        private final int exported;
+        private final int skipped;
+        private final int notFound;
+        private final int failed;
+        private final long bytes;
+        private final long elapsedMillis;
+
+        Progress(int exported, int skipped, int notFound, int failed, long bytes, long elapsedMillis) {
+            this.exported = exported;
+            this.skipped = skipped;
+            this.notFound = notFound;
+            this.failed = failed;
+            this.bytes = bytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Returns the number of completed exports.
+         *
+         * @return the number of completed exports
+         */
+        public int getExported() {
+            return exported;
+        }
+
+        /**
+         * Returns the number of exports skipped because they are up to date according to the manifest.
+         *
+         * @return the number of skipped exports
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Returns the number of exports for which the article was not found.
+         *
+         * @return the number of not found exports
+         */
+        public int getNotFound() {
+            return notFound;
+        }
+
+        /**
+         * Returns the number of failed exports.
+         *
+         * @return the number of failed exports
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * Returns the number of bytes of the completed exports.
+         *
+         * @return the number of exported bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Returns the number of milliseconds passed since the execution start.
+         *
+         * @return the elapsed time in milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Returns the number of completed export requests per second.
+         *
+         * @return the number of completed export requests per second
+         */
+        public double getThroughput() {
+            return elapsedMillis > 0 ? (exported + notFound + failed) * 1000.0 / elapsedMillis : 0;
+        }
+
+        /**
+         * Returns the number of exported bytes per second.
+         *
+         * @return the number of exported bytes per second
+         */
+        public double getBytesPerSecond() {
+            return elapsedMillis > 0 ? bytes * 1000.0 / elapsedMillis : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Progress{" +
+                    "exported=" + exported +
+                    ", skipped=" + skipped +
+                    ", notFound=" + notFound +
+                    ", failed=" + failed +
+                    ", bytes=" + bytes +
+                    ", elapsedMillis=" + elapsedMillis +
+                    '}';
+        }
+
+    }
+
+    /**
+     * The {@code Result} class holds the results of an execution.
+     */
+    public static class Result {
+
+        private final Progress progress;
+        private final Map<String, Exception> failed;
+
+        Result(Progress progress, Map<String, Exception> failed) {
+            this.progress = progress;
+            this.failed = Collections.unmodifiableMap(failed);
+        }
+
+        /**
+         * Returns the final {@link Progress}.
+         *
+         * @return the final {@link Progress}
+         */
+        public Progress getProgress() {
+            return progress;
+        }
+
+        /**
+         * Returns a {@code Map} of failed exports.
+         * The key is the export name (like {@code 123.epub}) and the value is the exception.
+         *
+         * @return a {@code Map} of failed exports
+         */
+        public Map<String, Exception> getFailed() {
+            return failed;
+        }
+
+        /**
+         * Returns {@code true} if there were no failures (not found articles are not considered failures).
+         *
+         * @return {@code true} if there were no failures
+         */
+        public boolean isSuccessful() {
+            return failed.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "progress=" + progress +
+                    ", failed=" + failed.size() +
+                    '}';
+        }
+
+    }
+
+    /**
+     * The name of the manifest file created in the target directory by default.
+     */
+    public static final String DEFAULT_MANIFEST_NAME = ".export-manifest";
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkExporter.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    protected final WallabagService wallabagService;
+
+    protected ArticlesQueryBuilder queryBuilder;
+    protected List<Integer> articleIds;
+    protected final Set<ResponseFormat> formats = EnumSet.noneOf(ResponseFormat.class);
+    protected File directory;
+    protected OutputStream zipOutputStream;
+    protected File manifestFile;
+    protected File tempDirectory;
+    protected int concurrency = 4;
+    protected ExecutorService executorService;
+    protected ProgressListener progressListener;
+    protected RequestPriority priority = RequestPriority.BULK;
+
+    BulkExporter(WallabagService wallabagService) {
+        this.wallabagService = wallabagService;
+    }
+
+    /**
+     * Sets the query listing the articles to export, returns this builder.
+     * Replaces the {@link #articleIds(Collection)} if they were set.
+     * <p>The query is copied, further changes to the {@code queryBuilder} don't affect this builder.
+     *
+     * @param queryBuilder the query listing the articles to export
+     * @return this builder
+     * @throws NullPointerException if the {@code queryBuilder} is {@code null}
+     */
+    public BulkExporter articles(ArticlesQueryBuilder queryBuilder) {
+        this.queryBuilder = nonNullValue(queryBuilder, "queryBuilder").copy()
+                .detailLevel(ArticlesQueryBuilder.DetailLevel.METADATA);
+        this.articleIds = null;
+        return this;
+    }
+
+    /**
+     * Sets the IDs of the articles to export, returns this builder.
+     * Replaces the {@link #articles(ArticlesQueryBuilder)} query if it was set.
+     *
+     * @param articleIds the IDs of the articles to export
+     * @return this builder
+     * @throws NullPointerException     if the {@code articleIds} or any of its elements is {@code null}
+     * @throws IllegalArgumentException if any of the {@code articleIds} is negative
+     */
+    public BulkExporter articleIds(Collection<Integer> articleIds) {
+        nonNullValue(articleIds, "articleIds");
+
+        List<Integer> ids = new ArrayList<>(articleIds.size());
+        for (Integer id : articleIds) {
+            ids.add(nonNegativeNumber(nonNullValue(id, "articleID"), "articleID"));
+        }
+
+        this.articleIds = ids;
+        this.queryBuilder = null;
+        return this;
+    }
+
+    /**
+     * Adds the {@code format} to export the articles in, returns this builder.
+     *
+     * @param format the format to export the articles in
+     * @return this builder
+     * @throws NullPointerException if the {@code format} is {@code null}
+     */
+    public BulkExporter format(ResponseFormat format) {
+        formats.add(nonNullValue(format, "format"));
+        return this;
+    }
+
+    /**
+     * Adds the {@code formats} to export the articles in, returns this builder.
+     *
+     * @param formats the formats to export the articles in
+     * @return this builder
+     * @throws NullPointerException if the {@code formats} or any of its elements is {@code null}
+     */
+    public BulkExporter formats(Collection<ResponseFormat> formats) {
+        nonNullValue(formats, "formats");
+
+        for (ResponseFormat format : formats) {
+            format(format);
+        }
+        return this;
+    }
+
+    /**
+     * Resets the formats that were previously added to this builder, returns the builder.
+     *
+     * @return this builder
+     */
+    public BulkExporter resetFormats() {
+        formats.clear();
+        return this;
+    }
+
+    /**
+     * Sets the directory to write the exports to, returns this builder.
+     * Replaces the {@link #toZip(OutputStream)} target if it was set.
+     * <p>The exports are named {@code <article ID>.<format>} (e.g. {@code 123.epub}).
+     * Each file is written atomically (see
+     * {@link WallabagService#exportArticleTo(int, ResponseFormat, File, String, NotFoundPolicy)}).
+     * <p>If no {@link #manifest(File)} is set, the {@value #DEFAULT_MANIFEST_NAME} file in the directory is used.
+     *
+     * @param directory the existing directory to write the exports to
+     * @return this builder
+     * @throws NullPointerException if the {@code directory} is {@code null}
+     */
+    public BulkExporter toDirectory(File directory) {
+        this.directory = nonNullValue(directory, "directory");
+        this.zipOutputStream = null;
+        return this;
+    }
+
+    /**
+     * Sets the stream to write a ZIP archive with the exports to, returns this builder.
+     * Replaces the {@link #toDirectory(File)} target if it was set.
+     * <p>The entries are named {@code <article ID>.<format>} (e.g. {@code 123.epub}).
+     * Each export is downloaded to a temporary file (see {@link #tempDirectory(File)})
+     * before being copied into the archive, so the archive contains only complete entries.
+     * <p>The archive is finished at the end of the execution, but the stream is not closed.
+     * <p>A ZIP archive can't be appended to, so the resumed run produces an archive with
+     * only the exports missing from the {@link #manifest(File)}, which must be set explicitly.
+     *
+     * @param outputStream the stream to write the ZIP archive to
+     * @return this builder
+     * @throws NullPointerException if the {@code outputStream} is {@code null}
+     */
+    public BulkExporter toZip(OutputStream outputStream) {
+        this.zipOutputStream = nonNullValue(outputStream, "outputStream");
+        this.directory = null;
+        return this;
+    }
+
+    /**
+     * Sets the manifest file recording the completed exports, returns this builder.
+     * <p>If the manifest is not set, the directory target uses the default manifest
+     * (see {@link #toDirectory(File)}) and the ZIP target doesn't use a manifest.
+     *
+     * @param manifestFile the manifest file, created if missing, {@code null}able
+     * @return this builder
+     */
+    public BulkExporter manifest(File manifestFile) {
+        this.manifestFile = manifestFile;
+        return this;
+    }
+
+    /**
+     * Sets the directory for temporary files used by the ZIP target, returns this builder.
+     * <p>Defaults to the system temporary directory.
+     *
+     * @param tempDirectory the directory for temporary files, {@code null}able
+     * @return this builder
+     */
+    public BulkExporter tempDirectory(File tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of export requests performed simultaneously, returns this builder.
+     * <p>Defaults to {@code 4}.
+     *
+     * @param concurrency the maximum number of simultaneous requests
+     * @return this builder
+     * @throws IllegalArgumentException if {@code concurrency <= 0}
+     */
+    public BulkExporter concurrency(int concurrency) {
+        this.concurrency = positiveNumber(concurrency, "concurrency");
+        return this;
+    }
+
+    /**
+     * Sets the {@code ExecutorService} to perform the export requests on, returns this builder.
+     * <p>If no {@code ExecutorService} is set (or {@code null} is set),
+     * a temporary thread pool is created for each execution.
+     *
+     * @param executorService the {@code ExecutorService} to use, {@code null}able
+     * @return this builder
+     */
+    public BulkExporter executor(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Sets the {@link ProgressListener}, returns this builder.
+     *
+     * @param progressListener the {@link ProgressListener} to use, {@code null}able
+     * @return this builder
+     */
+    public BulkExporter progressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Sets the {@link RequestPriority} of the listing and the export requests, returns this builder.
+     * <p>Defaults to {@link RequestPriority#BULK}.
+     *
+     * @param priority the priority of the requests
+     * @return this builder
+     * @throws NullPointerException if the {@code priority} is {@code null}
+     */
+    public BulkExporter priority(RequestPriority priority) {
+        this.priority = nonNullValue(priority, "priority");
+        return this;
+    }
+
+    /**
+     * Performs the listing and the exports, returns a {@link Result}.
+     * <p>Exceptions during the export requests are not thrown, but reported in the result.
+     * Exceptions during the listing are thrown after the already started exports are finished.
+     *
+     * @return a {@link Result} with the results
+     * @throws IOException                   in case of network errors during the listing,
+     *                                       errors accessing the manifest or the ZIP stream,
+     *                                       or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     *                                       during the listing
+     * @throws IllegalStateException         if the articles, the formats or the target are not set
+     */
+    public Result execute() throws IOException, UnsuccessfulResponseException {
+        if (queryBuilder == null && articleIds == null) throw new IllegalStateException("Articles are not set");
+        if (formats.isEmpty()) throw new IllegalStateException("Formats are not set");
+        if (directory == null && zipOutputStream == null) throw new IllegalStateException("Target is not set");
+
+        File manifestFile = this.manifestFile;
+        if (manifestFile == null && directory != null) manifestFile = new File(directory, DEFAULT_MANIFEST_NAME);
+
+        ExportManifest manifest = manifestFile != null ? new ExportManifest(manifestFile) : null;
+        ZipOutputStream zip = zipOutputStream != null ? new ZipOutputStream(zipOutputStream) : null;
+
+        Execution execution = new Execution(manifest, zip);
+
+        ExecutorService executor = executorService;
+        boolean temporaryExecutor = executor == null;
+        if (temporaryExecutor) {
+            executor = Executors.newFixedThreadPool(concurrency, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "wallabag-bulk-export-" + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        try {
+            try {
+                execution.run(executor);
+            } finally {
+                execution.awaitInFlight();
+            }
+
+            if (zip != null) zip.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while performing bulk export");
+        } finally {
+            if (temporaryExecutor) executor.shutdown();
+            if (manifest != null) manifest.close();
+        }
+
+        Progress progress = execution.progress();
+        LOG.debug("execute() finished: {}", progress);
+
+        return new Result(progress, execution.failures);
+    }
+
+    private class Execution {
+
+        final ExportManifest manifest;
+        final ZipOutputStream zip;
+
+        final Map<String, Exception> failures = new ConcurrentSkipListMap<>();
+        final Semaphore permits = new Semaphore(concurrency);
+        final long startTime = System.nanoTime();
+
+        final AtomicInteger exported = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger notFound = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+
+        Execution(ExportManifest manifest, ZipOutputStream zip) {
+            this.manifest = manifest;
+            this.zip = zip;
+        }
+
+        void run(ExecutorService executor) throws IOException, UnsuccessfulResponseException, InterruptedException {
+            if (queryBuilder != null) {
+                Set<Integer> seen = new HashSet<>();
+
+                ArticleIterator iterator = queryBuilder.copy().priority(priority).articleIterator();
+                while (iterator.hasNext()) {
+                    Article article = iterator.next();
+                    if (!seen.add(article.id)) continue;
+
+                    submit(executor, article.id, article.updatedAt != null ? article.updatedAt.getTime() : -1);
+                }
+            } else {
+                for (int id : new LinkedHashSet<>(articleIds)) {
+                    submit(executor, id, -1);
+                }
+            }
+        }
+
+        void submit(ExecutorService executor, final int id, final long updatedAt) throws InterruptedException {
+            for (final ResponseFormat format : formats) {
+                if (Thread.interrupted()) throw new InterruptedException();
+
+                final String name = id + "." + format.apiValue();
+
+                if (manifest != null && manifest.isExported(id, format, updatedAt)
+                        && (directory == null || new File(directory, name).exists())) {
+                    skipped.incrementAndGet();
+                    reportProgress();
+                    continue;
+                }
+
+                permits.acquire();
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                export(id, format, updatedAt, name);
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        }
+
+        void export(int id, ResponseFormat format, long updatedAt, String name) {
+            RequestPriority previousPriority = RequestPriority.setCurrent(priority);
+            try {
+                ExportResult result;
+                if (directory != null) {
+                    result = wallabagService.exportArticleTo(id, format, new File(directory, name),
+                            null, NotFoundPolicy.THROW);
+                } else {
+                    result = exportToZip(id, format, updatedAt, name);
+                }
+
+                if (manifest != null) manifest.exported(id, format, updatedAt, result.getBytesWritten());
+
+                exported.incrementAndGet();
+                bytes.addAndGet(result.getBytesWritten());
+            } catch (NotFoundException nfe) {
+                LOG.debug("export() NFE for {}", name, nfe);
+                notFound.incrementAndGet();
+            } catch (Exception e) {
+                LOG.debug("export() failed for {}", name, e);
+                failures.put(name, e);
+                failed.incrementAndGet();
+            } finally {
+                RequestPriority.setCurrent(previousPriority);
+            }
+
+            reportProgress();
+        }
+
+        ExportResult exportToZip(int id, ResponseFormat format, long updatedAt, String name)
+                throws IOException, UnsuccessfulResponseException {
+            File temp = File.createTempFile("wallabag-export-", ".tmp", tempDirectory);
+            try {
+                ExportResult result = wallabagService.exportArticleTo(id, format, temp, null, NotFoundPolicy.THROW);
+
+                InputStream inputStream = new FileInputStream(temp);
+                try {
+                    synchronized (zip) {
+                        ZipEntry entry = new ZipEntry(name);
+                        if (updatedAt != -1) entry.setTime(updatedAt);
+
+                        zip.putNextEntry(entry);
+                        byte[] buffer = new byte[64 * 1024];
+                        int read;
+                        while ((read = inputStream.read(buffer)) != -1) {
+                            zip.write(buffer, 0, read);
+                        }
+                        zip.closeEntry();
+                    }
+                } finally {
+                    inputStream.close();
+                }
+
+                return result;
+            } finally {
+                if (!temp.delete()) LOG.warn("exportToZip() couldn't delete temporary file {}", temp);
+            }
+        }
+
+        void awaitInFlight() throws InterruptedException {
+            permits.acquire(concurrency);
+            permits.release(concurrency);
+        }
+
+        void reportProgress() {
+            if (progressListener == null) return;
+
+            synchronized (this) {
+                progressListener.onProgress(progress());
+            }
+        }
+
+        Progress progress() {
+            return new Progress(exported.get(), skipped.get(), notFound.get(), failed.get(), bytes.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+
+    }
+
+}
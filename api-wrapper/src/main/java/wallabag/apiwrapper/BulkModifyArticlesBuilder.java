@@ -0,0 +1,406 @@
+package wallabag.apiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.exceptions.NotFoundException;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code BulkModifyArticlesBuilder} class represents a builder for modifying all articles
+ * matching an {@link ArticlesQueryBuilder} query.
+ * <p>The articles are listed with {@link ArticlesQueryBuilder.DetailLevel#METADATA} on the calling thread,
+ * every article is passed to the {@link Mutation}, which populates a {@link ModifyArticleBuilder}.
+ * The modifications are performed concurrently (see {@link #concurrency(int)}) while the listing continues.
+ * <p>Modified articles may stop matching the query (e.g. archiving articles found by {@code archive(false)}),
+ * which shifts the remaining articles to the pages that have already been listed.
+ * To handle that, the listing is repeated from the page the query starts with
+ * until a pass finds no new articles (or no modifications were successful in the previous pass).
+ * Every article is processed at most once.
+ * <p>Example:
+ * <pre>{@code
+ * BulkOperationResult result = wallabagService
+ *         .bulkModifyArticlesBuilder(wallabagService.getArticlesBuilder().tag("x").archive(false))
+ *         .mutation((article, builder) -> {
+ *             if (article.createdAt.before(threshold)) builder.archive(true);
+ *         })
+ *         .execute();
+ * }</pre>
+ * <p>Objects of this class can be reused for making queries with different parameters.
+ * <p>This class is not thread safe and cannot be shared between threads.
+ */
+public class BulkModifyArticlesBuilder {
+
+    /**
+     * The {@code Mutation} interface is used to specify the modification to perform on each listed article.
+     */
+    public interface Mutation {
+
+        /**
+         * Populates the {@code builder} with the modifications for the {@code article}.
+         * The article is skipped if no modifications are set.
+         * <p>This method is called on the thread that called {@link #execute()}.
+         *
+         * @param article the listed article (without {@link Article#content})
+         * @param builder the builder to populate; must not be executed
+         */
+        void apply(Article article, ModifyArticleBuilder builder);
+
+    }
+
+    /**
+     * The {@code ProgressListener} interface is used to receive progress updates.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called when an article is listed or a modification completes.
+         * <p>The calls are made from different threads, but never concurrently.
+         *
+         * @param progress the current progress
+         */
+        void onProgress(Progress progress);
+
+    }
+
+    /**
+     * The {@code Progress} class represents a snapshot of the execution progress.
+     */
+    public static class Progress {
+
+        private final int listed;
+        private final int skipped;
+        private final int modified;
+        private final int notFound;
+        private final int failed;
+        private final long elapsedMillis;
+
+        Progress(int listed, int skipped, int modified, int notFound, int failed, long elapsedMillis) {
+            this.listed = listed;
+            this.skipped = skipped;
+            this.modified = modified;
+            this.notFound = notFound;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Returns the number of distinct articles listed so far.
+         *
+         * @return the number of listed articles
+         */
+        public int getListed() {
+            return listed;
+        }
+
+        /**
+         * Returns the number of articles for which the {@link Mutation} set no modifications.
+         *
+         * @return the number of skipped articles
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Returns the number of successfully modified articles.
+         *
+         * @return the number of modified articles
+         */
+        public int getModified() {
+            return modified;
+        }
+
+        /**
+         * Returns the number of articles that were not found when modifying.
+         *
+         * @return the number of not found articles
+         */
+        public int getNotFound() {
+            return notFound;
+        }
+
+        /**
+         * Returns the number of articles that failed to be modified.
+         *
+         * @return the number of failed articles
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * Returns the number of milliseconds passed since the execution start.
+         *
+         * @return the elapsed time in milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Returns the number of completed modification requests per second.
+         *
+         * @return the number of completed modification requests per second
+         */
+        public double getThroughput() {
+            return elapsedMillis > 0 ? (modified + notFound + failed) * 1000.0 / elapsedMillis : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Progress{" +
+                    "listed=" + listed +
+                    ", skipped=" + skipped +
+                    ", modified=" + modified +
+                    ", notFound=" + notFound +
+                    ", failed=" + failed +
+                    ", elapsedMillis=" + elapsedMillis +
+                    '}';
+        }
+
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkModifyArticlesBuilder.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    protected final WallabagService wallabagService;
+    protected final ArticlesQueryBuilder queryBuilder;
+
+    protected Mutation mutation;
+    protected int concurrency = 4;
+    protected ExecutorService executorService;
+    protected ProgressListener progressListener;
+
+    BulkModifyArticlesBuilder(WallabagService wallabagService, ArticlesQueryBuilder queryBuilder) {
+        this.wallabagService = wallabagService;
+        this.queryBuilder = nonNullValue(queryBuilder, "queryBuilder").copy()
+                .detailLevel(ArticlesQueryBuilder.DetailLevel.METADATA);
+    }
+
+    /**
+     * Sets the {@link Mutation} to apply to the listed articles, returns this builder.
+     *
+     * @param mutation the {@link Mutation} to apply
+     * @return this builder
+     * @throws NullPointerException if the {@code mutation} is {@code null}
+     */
+    public BulkModifyArticlesBuilder mutation(Mutation mutation) {
+        this.mutation = nonNullValue(mutation, "mutation");
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of modification requests performed simultaneously, returns this builder.
+     * <p>Defaults to {@code 4}.
+     *
+     * @param concurrency the maximum number of simultaneous requests
+     * @return this builder
+     * @throws IllegalArgumentException if {@code concurrency <= 0}
+     */
+    public BulkModifyArticlesBuilder concurrency(int concurrency) {
+        this.concurrency = positiveNumber(concurrency, "concurrency");
+        return this;
+    }
+
+    /**
+     * Sets the {@code ExecutorService} to perform the modification requests on, returns this builder.
+     * <p>If no {@code ExecutorService} is set (or {@code null} is set),
+     * a temporary thread pool is created for each execution.
+     *
+     * @param executorService the {@code ExecutorService} to use, {@code null}able
+     * @return this builder
+     */
+    public BulkModifyArticlesBuilder executor(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Sets the {@link ProgressListener}, returns this builder.
+     *
+     * @param progressListener the {@link ProgressListener} to use, {@code null}able
+     * @return this builder
+     */
+    public BulkModifyArticlesBuilder progressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Performs the listing and the modifications,
+     * returns a {@link BulkOperationResult} with per-article results.
+     * <p>The articles are identified by their {@link Article#url}s in the result.
+     * The skipped articles are not included in the result.
+     * <p>Exceptions during the modification requests are not thrown, but reported in the result.
+     * Exceptions during the listing are thrown after the already started modifications are finished.
+     *
+     * @return a {@link BulkOperationResult} with the results
+     * @throws IOException                   in case of network errors during the listing
+     *                                       or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     *                                       during the listing
+     * @throws IllegalStateException         if the {@link Mutation} is not set
+     */
+    public BulkOperationResult execute() throws IOException, UnsuccessfulResponseException {
+        if (mutation == null) throw new IllegalStateException("Mutation is not set");
+
+        Execution execution = new Execution();
+
+        ExecutorService executor = executorService;
+        boolean temporaryExecutor = executor == null;
+        if (temporaryExecutor) {
+            executor = Executors.newFixedThreadPool(concurrency, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "wallabag-bulk-modify-" + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        try {
+            execution.run(executor);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while performing bulk modification");
+        } finally {
+            if (temporaryExecutor) executor.shutdown();
+        }
+
+        LOG.debug("execute() finished: {}", execution.progress());
+
+        return execution.result;
+    }
+
+    private class Execution {
+
+        final BulkOperationResult result = new BulkOperationResult();
+        final Semaphore permits = new Semaphore(concurrency);
+        final long startTime = System.nanoTime();
+
+        final Set<Integer> seen = new HashSet<>();
+        final AtomicInteger listed = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger modified = new AtomicInteger();
+        final AtomicInteger notFound = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        void run(ExecutorService executor) throws IOException, UnsuccessfulResponseException, InterruptedException {
+            boolean repeat;
+            int pass = 0;
+            do {
+                pass++;
+                int modifiedBefore = modified.get();
+
+                int newArticles;
+                try {
+                    newArticles = listPass(executor);
+                } finally {
+                    awaitInFlight();
+                }
+
+                LOG.debug("run() pass {}: {} new articles", pass, newArticles);
+
+                repeat = newArticles > 0 && modified.get() > modifiedBefore;
+            } while (repeat);
+        }
+
+        int listPass(ExecutorService executor)
+                throws IOException, UnsuccessfulResponseException, InterruptedException {
+            int newArticles = 0;
+
+            ArticleIterator iterator = queryBuilder.articleIterator();
+            while (iterator.hasNext()) {
+                if (Thread.interrupted()) throw new InterruptedException();
+
+                Article article = iterator.next();
+                if (!seen.add(article.id)) continue;
+
+                newArticles++;
+                listed.incrementAndGet();
+
+                final ModifyArticleBuilder builder = wallabagService.modifyArticleBuilder(article.id);
+                mutation.apply(article, builder);
+
+                if (!builder.hasChanges()) {
+                    skipped.incrementAndGet();
+                    reportProgress();
+                    continue;
+                }
+
+                final String url = article.url;
+                final int id = article.id;
+
+                permits.acquire();
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                modify(builder, url, id);
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            return newArticles;
+        }
+
+        void modify(ModifyArticleBuilder builder, String url, int id) {
+            try {
+                builder.execute(NotFoundPolicy.THROW);
+                result.processed(url, id);
+                modified.incrementAndGet();
+            } catch (NotFoundException nfe) {
+                LOG.debug("modify() NFE for {}", id, nfe);
+                result.notFound(url);
+                notFound.incrementAndGet();
+            } catch (Exception e) {
+                LOG.debug("modify() failed for {}", id, e);
+                result.failed(url, e);
+                failed.incrementAndGet();
+            }
+
+            reportProgress();
+        }
+
+        void awaitInFlight() throws InterruptedException {
+            permits.acquire(concurrency);
+            permits.release(concurrency);
+        }
+
+        void reportProgress() {
+            if (progressListener == null) return;
+
+            synchronized (this) {
+                progressListener.onProgress(progress());
+            }
+        }
+
+        Progress progress() {
+            return new Progress(listed.get(), skipped.get(), modified.get(), notFound.get(), failed.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+
+    }
+
+}
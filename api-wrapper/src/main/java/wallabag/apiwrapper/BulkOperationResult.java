@@ -0,0 +1,80 @@
+package wallabag.apiwrapper;
+
+import java.util.*;
+
+/**
+ * The {@code BulkOperationResult} class holds per-article results of a bulk operation
+ * (like {@link BulkTagsBuilder#execute()} or {@link BulkArticlesBuilder#execute()}).
+ * <p>Articles are identified by their URLs, as they were added to the corresponding builder.
+ * Every article ends up in exactly one of the three groups: successfully processed, not found or failed.
+ * <p>This class is thread safe.
+ */
+public class BulkOperationResult {
+
+    private final Map<String, Integer> processed = new LinkedHashMap<>();
+    private final Set<String> notFound = new LinkedHashSet<>();
+    private final Map<String, Exception> failed = new LinkedHashMap<>();
+
+    BulkOperationResult() {}
+
+    synchronized void processed(String url, Integer articleID) {
+        processed.put(url, articleID != null ? articleID : 0);
+    }
+
+    synchronized void notFound(String url) {
+        notFound.add(url);
+    }
+
+    synchronized void failed(String url, Exception exception) {
+        failed.put(url, exception);
+    }
+
+    /**
+     * Returns a {@code Map} of successfully processed articles.
+     * The key is the article URL and the value is the article ID (may be 0 if the ID is unknown).
+     *
+     * @return a {@code Map} of successfully processed articles
+     */
+    public synchronized Map<String, Integer> getProcessed() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(processed));
+    }
+
+    /**
+     * Returns a {@code Set} of URLs of the articles that were not found on the server.
+     *
+     * @return a {@code Set} of URLs of the articles that were not found
+     */
+    public synchronized Set<String> getNotFound() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(notFound));
+    }
+
+    /**
+     * Returns a {@code Map} of articles that failed to be processed.
+     * The key is the article URL and the value is the exception
+     * (usually an {@code IOException} or an {@code UnsuccessfulResponseException}).
+     *
+     * @return a {@code Map} of articles that failed to be processed
+     */
+    public synchronized Map<String, Exception> getFailed() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(failed));
+    }
+
+    /**
+     * Returns {@code true} if there were no failures (not found articles are not considered failures).
+     *
+     * @return {@code true} if there were no failures
+     */
+    public synchronized boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BulkOperationResult{" +
+                "processed=" + processed.size() +
+                ", notFound=" + notFound.size() +
+                ", failed=" + failed.size() +
+                '}';
+    }
+
+}
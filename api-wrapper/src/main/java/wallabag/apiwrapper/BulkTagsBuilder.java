@@ -0,0 +1,263 @@
+package wallabag.apiwrapper;
+
+import com.squareup.moshi.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.exceptions.NotFoundException;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.ListActionResponse;
+
+import java.io.IOException;
+import java.util.*;
+
+import static wallabag.apiwrapper.Utils.*;
+
+/**
+ * The {@code BulkTagsBuilder} class represents a builder for adding tags to (or removing tags from)
+ * multiple articles at once.
+ * <p>Since 2.2.0 the server supports list-based ("mass") tag operations
+ * ({@link CompatibilityHelper#isAddTagsToArticlesSupported(String)},
+ * {@link CompatibilityHelper#isDeleteTagsFromArticlesSupported(String)}).
+ * The builder splits the added articles into batches
+ * (see {@link #batchSize(int)} and {@link #maxQueryLength(int)})
+ * and performs the requests concurrently (see {@link #concurrency(int)}).
+ * <p>If the server doesn't support list-based operations, the builder falls back to per-article requests
+ * ({@link WallabagService#addTags(int, Collection)}, {@link WallabagService#deleteTag(int, int)}),
+ * which require article IDs: the articles added with {@link #addUrl(String, Collection)} fail in this case.
+ * The per-article removal resolves the tag labels with the {@link TagDictionary}
+ * (reloaded once per execution if a label is not found); an article with a tag that doesn't exist
+ * on the server fails without any of its tags being removed.
+ * <p>The server identifies articles by {@link Article#url}.
+ * <p>Objects of this class can be reused for making queries with different parameters.
+ * <p>This class is not thread safe and cannot be shared between threads.
+ */
+public class BulkTagsBuilder extends AbstractBulkBuilder<BulkTagsBuilder> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkTagsBuilder.class);
+
+    private static final String ADD_PATH = "api/entries/tags/lists.json?list=";
+    private static final String DELETE_PATH = "api/entries/tags/list.json?list=";
+
+    private static class Item extends ListItem {
+        final Set<String> tags = new LinkedHashSet<>();
+
+        Item(String url) {
+            super(url);
+        }
+
+        @Override
+        void writeJson(JsonWriter writer) throws IOException {
+            writer.beginObject()
+                    .name("url").value(url)
+                    .name("tags").value(join(tags, ","))
+                    .endObject();
+        }
+    }
+
+    private final boolean delete;
+
+    private final Map<String, Item> items = new LinkedHashMap<>();
+
+    BulkTagsBuilder(WallabagService wallabagService, boolean delete) {
+        super(wallabagService);
+        this.delete = delete;
+    }
+
+    @Override
+    protected BulkTagsBuilder self() {
+        return this;
+    }
+
+    /**
+     * Adds an article specified by the {@code url} with the {@code tags} to this builder, returns the builder.
+     * If the article is already present in the builder, the tags are merged.
+     * <p>The articles added using this method can't be processed by the per-article fallback.
+     *
+     * @param url  the URL of the article ({@link Article#url})
+     * @param tags the tags to add to (or remove from) the article
+     * @return this builder
+     * @throws NullPointerException     if the {@code url} or the {@code tags} is {@code null}
+     * @throws IllegalArgumentException if the {@code url} is an empty {@code String}
+     *                                  or the {@code tags} is an empty {@code Collection}
+     *                                  or contains an empty {@code String}
+     */
+    public BulkTagsBuilder addUrl(String url, Collection<String> tags) {
+        getItem(nonEmptyString(url, "url"), tags);
+        return this;
+    }
+
+    /**
+     * Adds the {@code article} with the {@code tags} to this builder, returns the builder.
+     * If the article is already present in the builder, the tags are merged.
+     * <p>Only {@link Article#url} and {@link Article#id} are used.
+     *
+     * @param article the article
+     * @param tags    the tags to add to (or remove from) the article
+     * @return this builder
+     * @throws NullPointerException     if the {@code article}, its {@code url} or the {@code tags} is {@code null}
+     * @throws IllegalArgumentException if the article {@code url} is an empty {@code String}
+     *                                  or the {@code tags} is an empty {@code Collection}
+     *                                  or contains an empty {@code String}
+     */
+    public BulkTagsBuilder addArticle(Article article, Collection<String> tags) {
+        nonNullValue(article, "article");
+
+        getItem(nonEmptyString(article.url, "article.url"), tags).articleID = article.id;
+        return this;
+    }
+
+    private Item getItem(String url, Collection<String> tags) {
+        nonEmptyCollection(tags, "tags");
+        for (String tag : tags) {
+            nonEmptyString(tag, "tag");
+        }
+
+        Item item = items.get(url);
+        if (item == null) {
+            item = new Item(url);
+            items.put(url, item);
+        }
+        item.tags.addAll(tags);
+        item.json = null;
+
+        return item;
+    }
+
+    /**
+     * Resets the articles that were previously added to this builder, returns the builder.
+     *
+     * @return this builder
+     */
+    public BulkTagsBuilder reset() {
+        items.clear();
+        return this;
+    }
+
+    /**
+     * Performs the operation and returns a {@link BulkOperationResult} with per-article results.
+     * <p>This method does auto-detection of the list-based operations support
+     * based on the result of {@link WallabagService#getCachedVersion()}.
+     * <p>Exceptions during the requests are not thrown, but reported in the result.
+     *
+     * @return a {@link BulkOperationResult} with the results
+     * @throws IOException                   in case of network errors during the support detection
+     *                                       or if the current thread was interrupted
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     *                                       during the support detection
+     */
+    public BulkOperationResult execute() throws IOException, UnsuccessfulResponseException {
+        BulkOperationResult result = new BulkOperationResult();
+        if (items.isEmpty()) return result;
+
+        List<Item> itemList = new ArrayList<>(items.values());
+
+        boolean listSupported = delete
+                ? CompatibilityHelper.isDeleteTagsFromArticlesSupported(wallabagService)
+                : CompatibilityHelper.isAddTagsToArticlesSupported(wallabagService);
+
+        if (listSupported) {
+            executeLists(itemList, result);
+        } else {
+            LOG.info("execute() list operations are not supported, falling back to per-article requests");
+            executeOneByOne(itemList, result);
+        }
+
+        return result;
+    }
+
+    private void executeLists(List<Item> itemList, BulkOperationResult result) throws IOException {
+        executeLists(itemList, delete ? DELETE_PATH : ADD_PATH, new ListCall() {
+            @Override
+            public List<ListActionResponse> execute(String list) throws IOException, UnsuccessfulResponseException {
+                return delete
+                        ? wallabagService.deleteTagsFromArticlesByList(list)
+                        : wallabagService.addTagsToArticlesByList(list);
+            }
+        }, result);
+    }
+
+    private void executeOneByOne(List<Item> itemList, final BulkOperationResult result)
+            throws IOException, UnsuccessfulResponseException {
+        final TagResolver tagResolver = delete ? new TagResolver(wallabagService.getTagDictionary()) : null;
+
+        runBatches(itemList, new BatchTask<Item>() {
+            @Override
+            public void run(Item item) throws Exception {
+                if (item.articleID < 0) {
+                    result.failed(item.url, new UnsupportedOperationException(
+                            "List operations are not supported by the server and the article ID is unknown"));
+                    return;
+                }
+
+                try {
+                    if (delete) {
+                        List<Integer> tagIDs = new ArrayList<>(item.tags.size());
+                        List<String> unknownTags = new ArrayList<>();
+                        for (String tag : item.tags) {
+                            Integer tagID = tagResolver.resolve(tag);
+                            if (tagID != null) {
+                                tagIDs.add(tagID);
+                            } else {
+                                unknownTags.add(tag);
+                            }
+                        }
+
+                        if (!unknownTags.isEmpty()) {
+                            result.failed(item.url, new IllegalArgumentException(
+                                    "Tags not found on the server: " + join(unknownTags, ", ")));
+                            return;
+                        }
+
+                        for (Integer tagID : tagIDs) {
+                            wallabagService.deleteTag(item.articleID, tagID, NotFoundPolicy.THROW);
+                        }
+                    } else {
+                        wallabagService.addTags(item.articleID, item.tags, NotFoundPolicy.THROW);
+                    }
+                } catch (NotFoundException nfe) {
+                    LOG.debug("executeOneByOne() NFE for {}", item.url, nfe);
+                    result.notFound(item.url);
+                    return;
+                }
+
+                result.processed(item.url, item.articleID);
+            }
+
+            @Override
+            public void failed(Item item, Exception e) {
+                result.failed(item.url, e);
+            }
+        });
+    }
+
+    // reloads the dictionary once per execution if a label is not found
+    // (the tag may have been created after the dictionary was loaded)
+    private static class TagResolver {
+
+        private final TagDictionary tagDictionary;
+
+        private boolean reloaded;
+
+        TagResolver(TagDictionary tagDictionary) {
+            this.tagDictionary = tagDictionary;
+        }
+
+        Integer resolve(String label) throws IOException, UnsuccessfulResponseException {
+            Integer tagID = tagDictionary.resolveID(label);
+            if (tagID != null) return tagID;
+
+            synchronized (this) {
+                if (!reloaded) {
+                    LOG.debug("resolve() tag {} is unknown, reloading the tag dictionary", label);
+                    tagDictionary.load();
+                    reloaded = true;
+                }
+            }
+
+            return tagDictionary.getID(label);
+        }
+
+    }
+
+}
@@ -188,6 +188,56 @@ public class CompatibilityHelper {
         return isDeleteArticleWithIdSupported(wallabagService.getCachedVersion());
     }
 
+    /**
+     * Returns {@code true} if the server supports adding multiple articles with a single request
+     * (used by {@link WallabagService#bulkAddArticlesBuilder()}).
+     *
+     * @param serverVersion the version to check
+     * @return {@code true} if list-based article adding is supported
+     */
+    public static boolean isAddArticlesSupported(String serverVersion) {
+        return atLeast(Version.V_2_2_0, serverVersion);
+    }
+
+    /**
+     * Returns {@code true} if the server supports adding multiple articles with a single request
+     * (used by {@link WallabagService#bulkAddArticlesBuilder()}).
+     *
+     * @param wallabagService the {@link WallabagService} instance to get version from
+     * @return {@code true} if list-based article adding is supported
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public static boolean isAddArticlesSupported(WallabagService wallabagService)
+            throws IOException, UnsuccessfulResponseException {
+        return isAddArticlesSupported(wallabagService.getCachedVersion());
+    }
+
+    /**
+     * Returns {@code true} if the server supports deleting multiple articles with a single request
+     * (used by {@link WallabagService#bulkDeleteArticlesBuilder()}).
+     *
+     * @param serverVersion the version to check
+     * @return {@code true} if list-based article deletion is supported
+     */
+    public static boolean isDeleteArticlesSupported(String serverVersion) {
+        return atLeast(Version.V_2_2_0, serverVersion);
+    }
+
+    /**
+     * Returns {@code true} if the server supports deleting multiple articles with a single request
+     * (used by {@link WallabagService#bulkDeleteArticlesBuilder()}).
+     *
+     * @param wallabagService the {@link WallabagService} instance to get version from
+     * @return {@code true} if list-based article deletion is supported
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public static boolean isDeleteArticlesSupported(WallabagService wallabagService)
+            throws IOException, UnsuccessfulResponseException {
+        return isDeleteArticlesSupported(wallabagService.getCachedVersion());
+    }
+
     public static boolean isGetArticleSupported(String serverVersion) {
         return isBaseSupported(serverVersion);
     }
@@ -278,6 +328,56 @@ public class CompatibilityHelper {
         return isDeleteTagsByLabelSupported(wallabagService.getCachedVersion());
     }
 
+    /**
+     * Returns {@code true} if the server supports adding tags to multiple articles with a single request
+     * (used by {@link WallabagService#bulkAddTagsBuilder()}).
+     *
+     * @param serverVersion the version to check
+     * @return {@code true} if list-based tag adding is supported
+     */
+    public static boolean isAddTagsToArticlesSupported(String serverVersion) {
+        return atLeast(Version.V_2_2_0, serverVersion);
+    }
+
+    /**
+     * Returns {@code true} if the server supports adding tags to multiple articles with a single request
+     * (used by {@link WallabagService#bulkAddTagsBuilder()}).
+     *
+     * @param wallabagService the {@link WallabagService} instance to get version from
+     * @return {@code true} if list-based tag adding is supported
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public static boolean isAddTagsToArticlesSupported(WallabagService wallabagService)
+            throws IOException, UnsuccessfulResponseException {
+        return isAddTagsToArticlesSupported(wallabagService.getCachedVersion());
+    }
+
+    /**
+     * Returns {@code true} if the server supports removing tags from multiple articles with a single request
+     * (used by {@link WallabagService#bulkDeleteTagsBuilder()}).
+     *
+     * @param serverVersion the version to check
+     * @return {@code true} if list-based tag removal is supported
+     */
+    public static boolean isDeleteTagsFromArticlesSupported(String serverVersion) {
+        return atLeast(Version.V_2_2_0, serverVersion);
+    }
+
+    /**
+     * Returns {@code true} if the server supports removing tags from multiple articles with a single request
+     * (used by {@link WallabagService#bulkDeleteTagsBuilder()}).
+     *
+     * @param wallabagService the {@link WallabagService} instance to get version from
+     * @return {@code true} if list-based tag removal is supported
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public static boolean isDeleteTagsFromArticlesSupported(WallabagService wallabagService)
+            throws IOException, UnsuccessfulResponseException {
+        return isDeleteTagsFromArticlesSupported(wallabagService.getCachedVersion());
+    }
+
     public static boolean isGetAnnotationsSupported(String serverVersion) {
         return atLeast(Version.V_2_2_0, serverVersion);
     }
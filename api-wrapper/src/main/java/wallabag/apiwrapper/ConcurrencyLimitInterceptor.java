@@ -0,0 +1,202 @@
+package wallabag.apiwrapper;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.services.Markers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code ConcurrencyLimitInterceptor} class is an OkHttp {@code Interceptor}
+ * that limits the number of simultaneous API requests to a server,
+ * adapting the limit to the server's capacity (additive increase, multiplicative decrease).
+ * <p>The limit grows by one per window of successful requests while it is being used,
+ * and is reduced by 10% on every sign of overload: a {@code 429}, {@code 502}, {@code 503} or {@code 504}
+ * response, a timeout or a refused connection.
+ * Requests over the limit wait for a free slot.
+ * <p>The limit is shared by all {@code ConcurrencyLimitInterceptor}s in the JVM
+ * targeting the same host (scheme, host and port),
+ * so several {@link WallabagService} instances don't overload a server together.
+ * The parameters of the interceptor that first targeted the host are used.
+ * <p>Only the API requests are limited (the token requests and other unauthenticated requests are not),
+ * which requires the interceptor to be added as an application interceptor to the {@code OkHttpClient}
+ * passed to {@link WallabagService#instance(String, ParameterHandler, okhttp3.OkHttpClient, CachedVersionHandler)}.
+ * If {@link RetryInterceptor} is also used, it should be added first,
+ * so the requests don't occupy the slots while waiting for a retry:
+ * <pre>{@code
+ * OkHttpClient client = new OkHttpClient.Builder()
+ *         .addInterceptor(new RetryInterceptor())
+ *         .addInterceptor(new ConcurrencyLimitInterceptor())
+ *         .build();
+ * }</pre>
+ * <p>This class is thread safe.
+ */
+public class ConcurrencyLimitInterceptor implements Interceptor {
+
+    /**
+     * The default initial limit.
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 4;
+
+    /**
+     * The default maximum limit.
+     */
+    public static final int DEFAULT_MAX_LIMIT = 32;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConcurrencyLimitInterceptor.class);
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private static final Map<String, Limiter> LIMITERS = new HashMap<>();
+
+    static class Limiter {
+
+        private final int maxLimit;
+
+        private double limit;
+        private int inFlight;
+
+        Limiter(int initialLimit, int maxLimit) {
+            this.limit = initialLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            while (inFlight >= (int) limit) {
+                wait();
+            }
+            inFlight++;
+        }
+
+        synchronized void release(boolean overloaded) {
+            if (overloaded) {
+                limit = Math.max(1, limit * BACKOFF_RATIO);
+                LOG.debug("release() overload, limit decreased to {}", limit);
+            } else if (inFlight * 2 >= limit) {
+                // only grow while the limit is actually being used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            inFlight--;
+            notifyAll();
+        }
+
+        synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+    }
+
+    private final int initialLimit;
+    private final int maxLimit;
+
+    /**
+     * Creates an interceptor with the {@link #DEFAULT_INITIAL_LIMIT} and the {@link #DEFAULT_MAX_LIMIT}.
+     */
+    public ConcurrencyLimitInterceptor() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Creates an interceptor with the specified limits.
+     *
+     * @param initialLimit the initial number of simultaneous requests
+     * @param maxLimit     the maximum number of simultaneous requests
+     * @throws IllegalArgumentException if any of the limits is not positive
+     *                                  or if {@code initialLimit > maxLimit}
+     */
+    public ConcurrencyLimitInterceptor(int initialLimit, int maxLimit) {
+        this.initialLimit = positiveNumber(initialLimit, "initialLimit");
+        this.maxLimit = positiveNumber(maxLimit, "maxLimit");
+
+        if (initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit is greater than maxLimit: "
+                    + initialLimit + " > " + maxLimit);
+        }
+    }
+
+    /**
+     * Returns the current limit for the host of the {@code url}
+     * or {@code -1} if no requests were made to that host.
+     *
+     * @param url the URL of the server
+     * @return the current limit or {@code -1}
+     * @throws NullPointerException if the {@code url} is {@code null}
+     */
+    public static int getCurrentLimit(HttpUrl url) {
+        nonNullValue(url, "url");
+
+        Limiter limiter;
+        synchronized (LIMITERS) {
+            limiter = LIMITERS.get(key(url));
+        }
+        return limiter != null ? limiter.getLimit() : -1;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (request.header(Markers.REQUIRES_AUTH_NAME) == null) {
+            return chain.proceed(request);
+        }
+
+        Limiter limiter = getLimiter(request.url());
+
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request slot");
+        }
+
+        boolean overloaded = false;
+        try {
+            Response response = chain.proceed(request);
+            overloaded = isOverloaded(response.code());
+            return response;
+        } catch (SocketTimeoutException | ConnectException e) {
+            overloaded = true;
+            throw e;
+        } finally {
+            limiter.release(overloaded);
+        }
+    }
+
+    static boolean isOverloaded(int code) {
+        return code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    private Limiter getLimiter(HttpUrl url) {
+        String key = key(url);
+
+        synchronized (LIMITERS) {
+            Limiter limiter = LIMITERS.get(key);
+            if (limiter == null) {
+                limiter = new Limiter(initialLimit, maxLimit);
+                LIMITERS.put(key, limiter);
+            }
+            return limiter;
+        }
+    }
+
+    private static String key(HttpUrl url) {
+        return url.scheme() + "://" + url.host() + ":" + url.port();
+    }
+
+}
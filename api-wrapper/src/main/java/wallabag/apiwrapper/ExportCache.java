@@ -0,0 +1,407 @@
+package wallabag.apiwrapper;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Okio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.WallabagService.ResponseFormat;
+import wallabag.apiwrapper.exceptions.NotFoundException;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static wallabag.apiwrapper.Utils.*;
+
+/**
+ * The {@code ExportCache} class represents an on-disk cache of article exports.
+ * <p>The exports are keyed by the article ID, the {@link ResponseFormat} and the {@link Article#updatedAt},
+ * so a cached export is never stale: an updated article gets a new key.
+ * A request with an older {@code updatedAt} than the cached one is served from the newer cached export
+ * (the server only provides the current version anyway).
+ * The files are written once (atomically, see
+ * {@link WallabagService#exportArticleTo(int, ResponseFormat, File, String, NotFoundPolicy)})
+ * and never modified afterwards; superseded versions of an export are deleted when a newer one is stored.
+ * <p>The total size of the files is kept within the budget by deleting the least recently used files.
+ * The most recently stored file is always kept, even if it alone exceeds the budget.
+ * The cache index is kept in memory and rebuilt from the directory contents on creation
+ * (the file modification times, i.e. the store order, are used as the initial LRU order).
+ * <p>The cache directory must not be shared between multiple {@code ExportCache} instances
+ * and must not contain other files.
+ * <p>This class is thread safe.
+ */
+public class ExportCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportCache.class);
+
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("(\\d+)-(\\d+)\\.([a-z]+)");
+
+    private static final int LOCK_STRIPES = 32;
+
+    private final WallabagService wallabagService;
+    private final File directory;
+    private final long maxSize;
+
+    // access-ordered: the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private static class Entry {
+
+        final File file;
+        final long updatedAt;
+        final long length;
+
+        Entry(File file, long updatedAt, long length) {
+            this.file = file;
+            this.updatedAt = updatedAt;
+            this.length = length;
+        }
+
+    }
+
+    private interface Opener<T> {
+        T open(Entry entry, ResponseFormat format) throws IOException;
+    }
+
+    private static final Opener<File> FILE_OPENER = new Opener<File>() {
+        @Override
+        public File open(Entry entry, ResponseFormat format) {
+            return entry.file;
+        }
+    };
+
+    private static final Opener<ResponseBody> BODY_OPENER = new Opener<ResponseBody>() {
+        @Override
+        public ResponseBody open(Entry entry, ResponseFormat format) throws IOException {
+            // opened while the entry can't be evicted
+            return ResponseBody.create(mediaType(format), entry.length, Okio.buffer(Okio.source(entry.file)));
+        }
+    };
+
+    ExportCache(WallabagService wallabagService, File directory, long maxSize) throws IOException {
+        this.wallabagService = wallabagService;
+        this.directory = nonNullValue(directory, "directory");
+        this.maxSize = positiveNumber(maxSize, "maxSize");
+
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+
+        load();
+    }
+
+    private void load() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create directory " + directory);
+        }
+
+        File[] files = directory.listFiles();
+        if (files == null) throw new IOException("Couldn't list directory " + directory);
+
+        List<File> cached = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (FILE_NAME_PATTERN.matcher(file.getName()).matches()) {
+                cached.add(file);
+            } else if (file.getName().endsWith(".tmp")) {
+                // leftovers of interrupted downloads
+                if (!file.delete()) LOG.warn("load() couldn't delete {}", file);
+            }
+        }
+
+        Collections.sort(cached, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long m1 = f1.lastModified(), m2 = f2.lastModified();
+                return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+            }
+        });
+
+        synchronized (entries) {
+            for (File file : cached) {
+                Matcher matcher = FILE_NAME_PATTERN.matcher(file.getName());
+                if (!matcher.matches()) continue;
+
+                String key = matcher.group(1) + "." + matcher.group(3);
+                Entry entry = new Entry(file, Long.parseLong(matcher.group(2)), file.length());
+
+                Entry previous = entries.get(key);
+                if (previous != null && previous.updatedAt > entry.updatedAt) {
+                    delete(entry.file);
+                    continue;
+                }
+
+                put(key, entry);
+                if (previous != null) delete(previous.file);
+            }
+            trim(null);
+        }
+
+        LOG.debug("load() loaded {} entries, {} bytes", entries.size(), size);
+    }
+
+    /**
+     * Returns the cached export file for the {@code article} in the specified {@code format},
+     * downloading the export if it is not cached.
+     * <p>This method is a shortcut for {@link #getFile(int, ResponseFormat, Date, NotFoundPolicy)}
+     * with the article's {@link Article#id} and {@link Article#updatedAt}, and {@link NotFoundPolicy#SMART}.
+     *
+     * @param article the article to export
+     * @param format  the desired format
+     * @return the cached export file or {@code null} if the article was not found
+     * @throws IOException                   in case of network or file errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NullPointerException          if the {@code article}, its {@code updatedAt}
+     *                                       or the {@code format} is {@code null}
+     */
+    public File getFile(Article article, ResponseFormat format) throws IOException, UnsuccessfulResponseException {
+        nonNullValue(article, "article");
+        return getFile(article.id, format, article.updatedAt, NotFoundPolicy.SMART);
+    }
+
+    /**
+     * Returns the cached export file for the article in the specified {@code format},
+     * downloading the export if it is not cached or {@code null} if the article was not found
+     * (depends on the {@code notFoundPolicy}).
+     * <p>Concurrent requests for the same export are performed only once.
+     * If a newer version of the export is cached, it is returned instead.
+     * <p>The returned file may be deleted by eviction after this method returns;
+     * use {@link #getResponseBody(int, ResponseFormat, Date, NotFoundPolicy)} to open it right away.
+     *
+     * @param articleID      the ID of the article
+     * @param format         the desired format
+     * @param updatedAt      the {@link Article#updatedAt} of the article
+     * @param notFoundPolicy the {@link NotFoundPolicy} to use
+     * @return the cached export file or {@code null} if the article was not found
+     * (depends on the {@code notFoundPolicy})
+     * @throws IOException                   in case of network or file errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NotFoundException             if the article with the specified ID was not found
+     *                                       (depends on the {@code notFoundPolicy})
+     * @throws NullPointerException          if the {@code format} or the {@code updatedAt} is {@code null}
+     */
+    public File getFile(int articleID, ResponseFormat format, Date updatedAt, NotFoundPolicy notFoundPolicy)
+            throws IOException, UnsuccessfulResponseException {
+        return get(articleID, format, updatedAt, notFoundPolicy, FILE_OPENER);
+    }
+
+    /**
+     * Returns the cached export file for the article in the specified {@code format}
+     * (or a newer version of it) or {@code null} if it is not cached. Doesn't perform any requests.
+     *
+     * @param articleID the ID of the article
+     * @param format    the desired format
+     * @param updatedAt the {@link Article#updatedAt} of the article
+     * @return the cached export file or {@code null}
+     * @throws NullPointerException if the {@code format} or the {@code updatedAt} is {@code null}
+     */
+    public File getCachedFile(int articleID, ResponseFormat format, Date updatedAt) {
+        nonNullValue(format, "format");
+        nonNullValue(updatedAt, "updatedAt");
+
+        synchronized (entries) {
+            Entry entry = getCachedEntry(key(articleID, format), updatedAt.getTime());
+            return entry != null ? entry.file : null;
+        }
+    }
+
+    /**
+     * Returns a {@link ResponseBody} reading the cached export for the {@code article} in the specified {@code format}.
+     * <p>This method is a shortcut for {@link #getResponseBody(int, ResponseFormat, Date, NotFoundPolicy)}
+     * with the article's {@link Article#id} and {@link Article#updatedAt}, and {@link NotFoundPolicy#SMART}.
+     *
+     * @param article the article to export
+     * @param format  the desired format
+     * @return a {@link ResponseBody} or {@code null} if the article was not found
+     * @throws IOException                   in case of network or file errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NullPointerException          if the {@code article}, its {@code updatedAt}
+     *                                       or the {@code format} is {@code null}
+     */
+    public ResponseBody getResponseBody(Article article, ResponseFormat format)
+            throws IOException, UnsuccessfulResponseException {
+        nonNullValue(article, "article");
+        return getResponseBody(article.id, format, article.updatedAt, NotFoundPolicy.SMART);
+    }
+
+    /**
+     * Returns a {@link ResponseBody} reading the cached export for the article in the specified {@code format}
+     * (see {@link #getFile(int, ResponseFormat, Date, NotFoundPolicy)})
+     * or {@code null} if the article was not found (depends on the {@code notFoundPolicy}).
+     * <p>The file is opened before it can be evicted, so the returned {@code ResponseBody} stays readable.
+     * <p>The returned {@code ResponseBody} must be closed.
+     *
+     * @param articleID      the ID of the article
+     * @param format         the desired format
+     * @param updatedAt      the {@link Article#updatedAt} of the article
+     * @param notFoundPolicy the {@link NotFoundPolicy} to use
+     * @return a {@link ResponseBody} or {@code null} if the article was not found
+     * (depends on the {@code notFoundPolicy})
+     * @throws IOException                   in case of network or file errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NotFoundException             if the article with the specified ID was not found
+     *                                       (depends on the {@code notFoundPolicy})
+     * @throws NullPointerException          if the {@code format} or the {@code updatedAt} is {@code null}
+     */
+    public ResponseBody getResponseBody(int articleID, ResponseFormat format, Date updatedAt,
+                                        NotFoundPolicy notFoundPolicy)
+            throws IOException, UnsuccessfulResponseException {
+        return get(articleID, format, updatedAt, notFoundPolicy, BODY_OPENER);
+    }
+
+    /**
+     * Deletes all cached exports of the article.
+     *
+     * @param articleID the ID of the article
+     */
+    public void remove(int articleID) {
+        synchronized (entries) {
+            for (ResponseFormat format : ResponseFormat.values()) {
+                Entry entry = entries.remove(key(articleID, format));
+                if (entry != null) {
+                    size -= entry.length;
+                    delete(entry.file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes all cached exports.
+     */
+    public void clear() {
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                delete(entry.file);
+            }
+            entries.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the total size of the cached exports in bytes.
+     *
+     * @return the total size of the cached exports
+     */
+    public long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    /**
+     * Returns the maximum total size of the cached exports in bytes.
+     *
+     * @return the maximum total size of the cached exports
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    private <T> T get(int articleID, ResponseFormat format, Date updatedAt, NotFoundPolicy notFoundPolicy,
+                      Opener<T> opener) throws IOException, UnsuccessfulResponseException {
+        nonNegativeNumber(articleID, "articleID");
+        nonNullValue(format, "format");
+        nonNullValue(updatedAt, "updatedAt");
+
+        String key = key(articleID, format);
+        long timestamp = updatedAt.getTime();
+
+        synchronized (entries) {
+            Entry cached = getCachedEntry(key, timestamp);
+            if (cached != null) return opener.open(cached, format);
+        }
+
+        synchronized (locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES]) {
+            synchronized (entries) {
+                Entry cached = getCachedEntry(key, timestamp);
+                if (cached != null) return opener.open(cached, format);
+            }
+
+            File file = fileFor(articleID, format, updatedAt);
+            ExportResult result = wallabagService.exportArticleTo(articleID, format, file, null, notFoundPolicy);
+            if (result == null) return null;
+
+            LOG.debug("get() stored {} ({} bytes)", file, result.getBytesWritten());
+
+            synchronized (entries) {
+                Entry entry = new Entry(file, timestamp, result.getBytesWritten());
+                Entry previous = put(key, entry);
+                if (previous != null && !previous.file.equals(file)) delete(previous.file);
+                trim(key);
+
+                return opener.open(entry, format);
+            }
+        }
+    }
+
+    // returns the entry with the same or a newer version
+    private Entry getCachedEntry(String key, long updatedAt) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.updatedAt >= updatedAt ? entry : null;
+    }
+
+    private Entry put(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        size += entry.length;
+        if (previous != null) size -= previous.length;
+        return previous;
+    }
+
+    private void trim(String keep) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) continue;
+
+            iterator.remove();
+            size -= eldest.getValue().length;
+            delete(eldest.getValue().file);
+        }
+    }
+
+    private void delete(File file) {
+        LOG.debug("delete() {}", file);
+        if (!file.delete() && file.exists()) LOG.warn("delete() couldn't delete {}", file);
+    }
+
+    private File fileFor(int articleID, ResponseFormat format, Date updatedAt) {
+        return new File(directory, articleID + "-" + updatedAt.getTime() + "." + format.apiValue());
+    }
+
+    private static String key(int articleID, ResponseFormat format) {
+        return articleID + "." + format.apiValue();
+    }
+
+    private static MediaType mediaType(ResponseFormat format) {
+        switch (format) {
+            case XML:
+                return MediaType.get("application/xml");
+            case JSON:
+                return MediaType.get("application/json");
+            case TXT:
+                return MediaType.get("text/plain; charset=utf-8");
+            case CSV:
+                return MediaType.get("text/csv; charset=utf-8");
+            case PDF:
+                return MediaType.get("application/pdf");
+            case EPUB:
+                return MediaType.get("application/epub+zip");
+            case MOBI:
+                return MediaType.get("application/x-mobipocket-ebook");
+            case HTML:
+                return MediaType.get("text/html; charset=utf-8");
+            default:
+                return null;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package wallabag.apiwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An append-only record of completed exports used by {@link BulkExporter} to resume interrupted runs.
+ * <p>Each line is {@code <article ID> <format> <updatedAt millis or -1> <bytes>};
+ * the last line for an ID and format wins, malformed (e.g. truncated) lines are ignored.
+ * <p>This class is thread safe.
+ */
+class ExportManifest implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportManifest.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, Long> entries = new HashMap<>();
+
+    private final Writer writer;
+
+    ExportManifest(File file) throws IOException {
+        if (file.exists()) load(file);
+
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
+    }
+
+    private void load(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length != 4) {
+                    LOG.warn("load() ignoring malformed line: {}", line);
+                    continue;
+                }
+
+                try {
+                    int id = Integer.parseInt(parts[0]);
+                    WallabagService.ResponseFormat format = WallabagService.ResponseFormat.valueOf(parts[1]);
+                    entries.put(key(id, format), Long.parseLong(parts[2]));
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("load() ignoring malformed line: {}", line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        LOG.debug("load() loaded {} entries", entries.size());
+    }
+
+    private static String key(int id, WallabagService.ResponseFormat format) {
+        return id + " " + format;
+    }
+
+    /**
+     * Returns {@code true} if the article was exported in the format.
+     * If {@code updatedAt} is not {@code -1}, the recorded export must also be made for that {@code updatedAt}.
+     */
+    synchronized boolean isExported(int id, WallabagService.ResponseFormat format, long updatedAt) {
+        Long recorded = entries.get(key(id, format));
+        return recorded != null && (updatedAt == -1 || recorded == updatedAt);
+    }
+
+    synchronized void exported(int id, WallabagService.ResponseFormat format, long updatedAt, long bytes)
+            throws IOException {
+        writer.write(key(id, format) + " " + updatedAt + " " + bytes + "\n");
+        writer.flush();
+
+        entries.put(key(id, format), updatedAt);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+}
@@ -0,0 +1,83 @@
+package wallabag.apiwrapper;
+
+import java.io.File;
+
+/**
+ * The {@code ExportResult} class holds information about an article export written to a file or a channel
+ * (see {@link WallabagService#exportArticleTo(int, WallabagService.ResponseFormat, File)}).
+ */
+public class ExportResult {
+
+    private final File file;
+    private final String contentType;
+    private final long bytesWritten;
+    private final String digestAlgorithm;
+    private final String checksum;
+
+    ExportResult(File file, String contentType, long bytesWritten, String digestAlgorithm, String checksum) {
+        this.file = file;
+        this.contentType = contentType;
+        this.bytesWritten = bytesWritten;
+        this.digestAlgorithm = digestAlgorithm;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Returns the file the export was written to or {@code null} if the export was written to a channel.
+     *
+     * @return the target file or {@code null}
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the value of the {@code Content-Type} of the response or {@code null} if it was not provided.
+     *
+     * @return the content type or {@code null}
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes written
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the name of the {@code MessageDigest} algorithm used for the checksum
+     * or {@code null} if no checksum was requested.
+     *
+     * @return the digest algorithm name or {@code null}
+     */
+    public String getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    /**
+     * Returns the checksum of the written bytes as a lowercase hex string
+     * or {@code null} if no checksum was requested.
+     *
+     * @return the checksum or {@code null}
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult{" +
+                "file=" + file +
+                ", contentType='" + contentType + '\'' +
+                ", bytesWritten=" + bytesWritten +
+                ", digestAlgorithm='" + digestAlgorithm + '\'' +
+                ", checksum='" + checksum + '\'' +
+                '}';
+    }
+
+}
@@ -0,0 +1,124 @@
+package wallabag.apiwrapper;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Streams export response bodies to channels and files with constant memory usage.
+ */
+class ExportTransfer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportTransfer.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ExportTransfer() {}
+
+    static MessageDigest createDigest(String digestAlgorithm) {
+        if (digestAlgorithm == null) return null;
+
+        try {
+            return MessageDigest.getInstance(digestAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported digest algorithm: " + digestAlgorithm, e);
+        }
+    }
+
+    static ExportResult toChannel(ResponseBody body, WritableByteChannel channel, String digestAlgorithm)
+            throws IOException {
+        try {
+            return transfer(body, channel, null, digestAlgorithm);
+        } finally {
+            body.close();
+        }
+    }
+
+    /**
+     * Writes the {@code body} to a temporary file next to the {@code target},
+     * then renames it to the {@code target}, so the target is either fully written or not touched.
+     */
+    static ExportResult toFile(ResponseBody body, File target, String digestAlgorithm) throws IOException {
+        try {
+            File directory = target.getAbsoluteFile().getParentFile();
+            File temp = File.createTempFile(".export-", ".tmp", directory);
+
+            boolean success = false;
+            try {
+                ExportResult result;
+                FileOutputStream outputStream = new FileOutputStream(temp);
+                try {
+                    FileChannel fileChannel = outputStream.getChannel();
+                    result = transfer(body, fileChannel, target, digestAlgorithm);
+                    fileChannel.force(false);
+                } finally {
+                    outputStream.close();
+                }
+
+                rename(temp, target);
+                success = true;
+
+                return result;
+            } finally {
+                if (!success && !temp.delete()) {
+                    LOG.warn("toFile() couldn't delete temporary file {}", temp);
+                }
+            }
+        } finally {
+            body.close();
+        }
+    }
+
+    private static void rename(File source, File target) throws IOException {
+        if (source.renameTo(target)) return;
+
+        // some platforms don't replace existing files on rename
+        if (target.exists() && target.delete() && source.renameTo(target)) return;
+
+        throw new IOException("Couldn't rename " + source + " to " + target);
+    }
+
+    private static ExportResult transfer(ResponseBody body, WritableByteChannel channel,
+                                         File file, String digestAlgorithm) throws IOException {
+        MessageDigest digest = createDigest(digestAlgorithm);
+
+        BufferedSource source = body.source();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        long written = 0;
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+
+            if (digest != null) digest.update(buffer.array(), buffer.arrayOffset(), buffer.limit());
+
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        long contentLength = body.contentLength();
+        if (contentLength != -1 && contentLength != written) {
+            throw new IOException("Content-Length mismatch: expected " + contentLength
+                    + " bytes, received " + written);
+        }
+
+        MediaType contentType = body.contentType();
+
+        return new ExportResult(file, contentType != null ? contentType.toString() : null, written,
+                digestAlgorithm, digest != null ? ByteString.of(digest.digest()).hex() : null);
+    }
+
+}
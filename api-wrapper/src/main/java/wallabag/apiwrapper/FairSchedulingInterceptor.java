@@ -0,0 +1,253 @@
+package wallabag.apiwrapper;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.services.Markers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code FairSchedulingInterceptor} class is an OkHttp {@code Interceptor}
+ * that shares the API request slots of an {@code OkHttpClient} between tenants
+ * (several {@link WallabagService} instances using the same client) using weighted fair queuing,
+ * so a tenant making lots of requests doesn't increase the latency for the others.
+ * <p>A tenant is identified by the tenant ID set with {@link WallabagService#setTenantId(String)},
+ * or by the {@link ParameterHandler} of the {@code WallabagService} if no ID is set.
+ * <p>Each tenant gets a share of the slots proportional to its weight (see {@link #setWeight(Object, double)}),
+ * and may have at most {@code maxPerTenant} requests in flight.
+ * Tenants that don't use their share leave it to the others.
+ * <p>Only the API requests are scheduled (the token requests and other unauthenticated requests are not),
+ * which requires the interceptor to be added as an application interceptor to the {@code OkHttpClient}.
+ * If {@link RetryInterceptor} is also used, it should be added first,
+ * so the requests don't occupy the slots while waiting for a retry.
+ * The notes regarding the enqueued calls in {@link PrioritySchedulingInterceptor} apply to this class too.
+ * <p>This class is thread safe.
+ */
+public class FairSchedulingInterceptor implements Interceptor {
+
+    /**
+     * The default maximum number of simultaneous requests.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT = 8;
+
+    /**
+     * The default maximum number of simultaneous requests of a single tenant.
+     */
+    public static final int DEFAULT_MAX_PER_TENANT = 4;
+
+    private static final Logger LOG = LoggerFactory.getLogger(FairSchedulingInterceptor.class);
+
+    /**
+     * The request tag identifying the tenant.
+     */
+    static final class Tenant {
+
+        final Object key;
+
+        Tenant(Object key) {
+            this.key = key;
+        }
+
+    }
+
+    private static class Ticket {
+        final double startTag;
+        final double finishTag;
+        boolean dispatched;
+
+        Ticket(double startTag, double finishTag) {
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+        }
+    }
+
+    private static class TenantState {
+        final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+        double lastFinishTag;
+        int inFlight;
+    }
+
+    private final int maxConcurrent;
+    private final int maxPerTenant;
+
+    private final Map<Object, Double> weights = new HashMap<>();
+    private final Map<Object, TenantState> tenants = new HashMap<>();
+
+    private double virtualTime;
+    private int inFlight;
+
+    /**
+     * Creates an interceptor with the {@link #DEFAULT_MAX_CONCURRENT} and the {@link #DEFAULT_MAX_PER_TENANT}.
+     */
+    public FairSchedulingInterceptor() {
+        this(DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_PER_TENANT);
+    }
+
+    /**
+     * Creates an interceptor with the specified limits.
+     *
+     * @param maxConcurrent the maximum number of simultaneous requests
+     * @param maxPerTenant  the maximum number of simultaneous requests of a single tenant
+     * @throws IllegalArgumentException if any of the limits is not positive
+     */
+    public FairSchedulingInterceptor(int maxConcurrent, int maxPerTenant) {
+        this.maxConcurrent = positiveNumber(maxConcurrent, "maxConcurrent");
+        this.maxPerTenant = positiveNumber(maxPerTenant, "maxPerTenant");
+    }
+
+    /**
+     * Sets the weight of the {@code tenant}. The default weight is {@code 1}.
+     *
+     * @param tenant the tenant ID or the {@link ParameterHandler}
+     * @param weight the weight of the tenant
+     * @throws NullPointerException     if the {@code tenant} is {@code null}
+     * @throws IllegalArgumentException if the {@code weight} is not positive
+     */
+    public synchronized void setWeight(Object tenant, double weight) {
+        nonNullValue(tenant, "tenant");
+        if (!(weight > 0)) throw new IllegalArgumentException("weight is not positive: " + weight);
+
+        weights.put(tenant, weight);
+    }
+
+    /**
+     * Returns the number of requests of the {@code tenant} waiting for a slot.
+     *
+     * @param tenant the tenant ID or the {@link ParameterHandler}
+     * @return the number of waiting requests
+     * @throws NullPointerException if the {@code tenant} is {@code null}
+     */
+    public synchronized int getQueueDepth(Object tenant) {
+        TenantState state = tenants.get(nonNullValue(tenant, "tenant"));
+        return state != null ? state.queue.size() : 0;
+    }
+
+    /**
+     * Returns the number of requests of the {@code tenant} currently being executed.
+     *
+     * @param tenant the tenant ID or the {@link ParameterHandler}
+     * @return the number of requests in flight
+     * @throws NullPointerException if the {@code tenant} is {@code null}
+     */
+    public synchronized int getInFlight(Object tenant) {
+        TenantState state = tenants.get(nonNullValue(tenant, "tenant"));
+        return state != null ? state.inFlight : 0;
+    }
+
+    /**
+     * Returns the queue depths of all tenants that have waiting requests.
+     *
+     * @return a new map of tenants to the number of their waiting requests
+     */
+    public synchronized Map<Object, Integer> getQueueDepths() {
+        Map<Object, Integer> result = new HashMap<>();
+        for (Map.Entry<Object, TenantState> entry : tenants.entrySet()) {
+            int size = entry.getValue().queue.size();
+            if (size > 0) result.put(entry.getKey(), size);
+        }
+        return result;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        Tenant tenant = request.tag(Tenant.class);
+        if (tenant == null || request.header(Markers.REQUIRES_AUTH_NAME) == null) {
+            return chain.proceed(request);
+        }
+
+        acquire(tenant.key);
+        try {
+            return chain.proceed(request);
+        } finally {
+            release(tenant.key);
+        }
+    }
+
+    private synchronized void acquire(Object key) throws InterruptedIOException {
+        TenantState state = tenants.get(key);
+        if (state == null) {
+            state = new TenantState();
+            tenants.put(key, state);
+        }
+
+        Double weight = weights.get(key);
+
+        // start-time fair queuing: an idle tenant starts at the current virtual time
+        double startTag = Math.max(virtualTime, state.lastFinishTag);
+        Ticket ticket = new Ticket(startTag, startTag + 1 / (weight != null ? weight : 1));
+        state.lastFinishTag = ticket.finishTag;
+        state.queue.add(ticket);
+
+        dispatch();
+        try {
+            while (!ticket.dispatched) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            if (ticket.dispatched) {
+                release(key);
+            } else {
+                state.queue.remove(ticket);
+                removeIfIdle(key, state);
+            }
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request slot");
+        }
+    }
+
+    private synchronized void release(Object key) {
+        TenantState state = tenants.get(key);
+        state.inFlight--;
+        inFlight--;
+
+        removeIfIdle(key, state);
+        dispatch();
+    }
+
+    /**
+     * Dispatches the waiting requests while there are free slots.
+     */
+    private void dispatch() {
+        boolean dispatched = false;
+
+        while (inFlight < maxConcurrent) {
+            TenantState next = null;
+            for (TenantState state : tenants.values()) {
+                if (state.queue.isEmpty() || state.inFlight >= maxPerTenant) continue;
+
+                if (next == null || state.queue.peek().finishTag < next.queue.peek().finishTag) next = state;
+            }
+            if (next == null) break;
+
+            Ticket ticket = next.queue.poll();
+            ticket.dispatched = true;
+            virtualTime = Math.max(virtualTime, ticket.startTag);
+            next.inFlight++;
+            inFlight++;
+            dispatched = true;
+        }
+
+        if (dispatched) notifyAll();
+
+        if (LOG.isTraceEnabled()) LOG.trace("dispatch() in flight: {}, tenants: {}", inFlight, tenants.size());
+    }
+
+    private void removeIfIdle(Object key, TenantState state) {
+        // the virtual time of an idle tenant is not needed, it starts from the current one
+        if (state.inFlight == 0 && state.queue.isEmpty()) tenants.remove(key);
+    }
+
+}
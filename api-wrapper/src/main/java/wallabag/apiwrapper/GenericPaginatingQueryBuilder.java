@@ -19,6 +19,7 @@ abstract class GenericPaginatingQueryBuilder<T extends GenericPaginatingQueryBui
 
     protected int page = 1;
     protected int perPage = 30;
+    protected RequestPriority priority;
 
     protected GenericPaginatingQueryBuilder(WallabagService wallabagService) {
         this.wallabagService = wallabagService;
@@ -56,6 +57,19 @@ abstract class GenericPaginatingQueryBuilder<T extends GenericPaginatingQueryBui
         return self();
     }
 
+    /**
+     * Sets the {@link RequestPriority} of the requests made by this builder, returns this builder.
+     * <p>If not set (or {@code null} is set), the priority is determined as described in {@link RequestPriority}.
+     * The priority is only used if the {@code OkHttpClient} has a {@link PrioritySchedulingInterceptor}.
+     *
+     * @param priority the priority of the requests, {@code null}able
+     * @return this builder
+     */
+    public T priority(RequestPriority priority) {
+        this.priority = priority;
+        return self();
+    }
+
     protected Map<String, String> build() {
         Map<String, String> parameters = new HashMap<>();
 
@@ -128,6 +142,7 @@ abstract class GenericPaginatingQueryBuilder<T extends GenericPaginatingQueryBui
 
         copy.page = page;
         copy.perPage = perPage;
+        copy.priority = priority;
 
         return copy;
     }
@@ -0,0 +1,422 @@
+package wallabag.apiwrapper;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.services.Markers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code HedgingInterceptor} class is an OkHttp {@code Interceptor} that sends a duplicate ("hedge") request
+ * if the response to an API request takes longer than usual, and uses whichever response arrives first.
+ * <p>Only the JSON API {@code GET} requests are hedged (like {@link WallabagService#getArticle(int)},
+ * {@link ArticlesQueryBuilder} pages, searches, tags and "exists" requests);
+ * exports and non-idempotent requests are not.
+ * <p>The hedge is sent after the delay equal to the configured percentile of the recent response times
+ * (the latencies of the last {@value #LATENCY_SAMPLES} original requests are tracked,
+ * the delay is recalculated every {@value #DELAY_UPDATE_INTERVAL} samples).
+ * Until enough samples are collected, no hedges are sent.
+ * The response that arrives first wins. A losing hedge is cancelled; a losing original request
+ * is left to complete in the background (OkHttp fails the whole call if its original request is cancelled),
+ * so the latency of every original request is recorded and slow responses keep raising the delay.
+ * <p>The hedging budget caps the extra load: at most {@code budgetRatio} hedges are sent per request on average
+ * (with bursts of up to 10 hedges).
+ * <p>The original request of a hedged call proceeds through the rest of the interceptor chain
+ * on a background thread while the calling thread waits for the first response.
+ * A hedge is a clone of the original call, it goes through the whole chain
+ * (so the interceptors added before this one, like {@link ConcurrencyLimitInterceptor},
+ * see it as a separate call). If the original request fails, the call fails without waiting for the hedge,
+ * so the hedges can't deadlock with the limiting interceptors the call has passed.
+ * <p>The interceptor should be added as an application interceptor to the {@code OkHttpClient}
+ * passed to {@link WallabagService#instance(String, ParameterHandler, okhttp3.OkHttpClient, CachedVersionHandler)}.
+ * If {@link RetryInterceptor} is also used, it should be added after this interceptor,
+ * so that each of the duplicate requests is retried independently.
+ * <p>This class creates background threads, use {@link #shutdown()} to terminate them
+ * when the interceptor is no longer used.
+ * <p>This class is thread safe.
+ */
+public class HedgingInterceptor implements Interceptor {
+
+    /**
+     * The default percentile of the response times used as the hedging delay.
+     */
+    public static final double DEFAULT_PERCENTILE = 0.95;
+
+    /**
+     * The default maximum ratio of hedged requests.
+     */
+    public static final double DEFAULT_BUDGET_RATIO = 0.05;
+
+    /**
+     * The number of tracked latency samples.
+     */
+    public static final int LATENCY_SAMPLES = 1000;
+
+    /**
+     * The number of latency samples after which the hedging delay is recalculated.
+     */
+    public static final int DELAY_UPDATE_INTERVAL = 10;
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int MAX_BUDGET_TOKENS = 10;
+
+    private static final Logger LOG = LoggerFactory.getLogger(HedgingInterceptor.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final double percentile;
+    private final double budgetRatio;
+    private final long minDelayMillis;
+
+    // the calls made by this interceptor, they are passed through
+    private final Set<Call> ownCalls = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<Call, Boolean>()));
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyIndex;
+    private int samplesSinceUpdate;
+
+    private volatile long currentDelay = -1;
+    private volatile boolean shutdown;
+
+    private double budgetTokens;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "wallabag-hedge-scheduler-" + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "wallabag-hedge-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * Creates an interceptor with the {@link #DEFAULT_PERCENTILE}, the {@link #DEFAULT_BUDGET_RATIO}
+     * and the minimum delay of 10 milliseconds.
+     */
+    public HedgingInterceptor() {
+        this(DEFAULT_PERCENTILE, DEFAULT_BUDGET_RATIO, 10, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates an interceptor with the specified parameters.
+     *
+     * @param percentile  the percentile of the response times used as the hedging delay, in {@code (0, 1)}
+     * @param budgetRatio the maximum ratio of hedged requests, in {@code (0, 1]}
+     * @param minDelay    the minimum hedging delay
+     * @param timeUnit    the {@code TimeUnit} of the {@code minDelay}
+     * @throws IllegalArgumentException if any of the parameters is out of range
+     */
+    public HedgingInterceptor(double percentile, double budgetRatio, long minDelay, TimeUnit timeUnit) {
+        if (!(percentile > 0 && percentile < 1)) {
+            throw new IllegalArgumentException("percentile is out of range: " + percentile);
+        }
+        if (!(budgetRatio > 0 && budgetRatio <= 1)) {
+            throw new IllegalArgumentException("budgetRatio is out of range: " + budgetRatio);
+        }
+
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.minDelayMillis = timeUnit.toMillis(positiveNumber(minDelay, "minDelay"));
+    }
+
+    /**
+     * Returns the number of requests eligible for hedging.
+     *
+     * @return the number of eligible requests
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of sent hedges.
+     *
+     * @return the number of hedges
+     */
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+
+    /**
+     * Returns the number of hedges that received the response first.
+     *
+     * @return the number of won hedges
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * Returns the ratio of the won hedges to all hedges.
+     *
+     * @return the hedge win rate, {@code 0} if no hedges were sent
+     */
+    public double getHedgeWinRate() {
+        long hedges = this.hedges.get();
+        return hedges > 0 ? (double) hedgeWins.get() / hedges : 0;
+    }
+
+    /**
+     * Returns the number of hedges that were not sent due to the exhausted budget.
+     *
+     * @return the number of hedges not sent due to the budget
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhausted.get();
+    }
+
+    /**
+     * Returns the current hedging delay in milliseconds or {@code -1} if not enough samples were collected.
+     *
+     * @return the current hedging delay or {@code -1}
+     */
+    public long getCurrentDelayMillis() {
+        return currentDelay;
+    }
+
+    /**
+     * Stops hedging and terminates the background threads after the hedged requests in progress complete.
+     * The requests made after this call are passed through without hedging.
+     * <p>This method does not wait for the requests to complete.
+     */
+    public void shutdown() {
+        shutdown = true;
+
+        scheduler.shutdown();
+        executor.shutdown();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (ownCalls.remove(chain.call()) || shutdown || !isEligible(request)) {
+            return chain.proceed(request);
+        }
+
+        requests.incrementAndGet();
+        addBudget();
+
+        long delay = getCurrentDelayMillis();
+        if (delay == -1) {
+            long start = System.nanoTime();
+            try {
+                return chain.proceed(request);
+            } finally {
+                recordLatency(start);
+            }
+        }
+
+        return new Race(chain, delay).run();
+    }
+
+    private static boolean isEligible(Request request) {
+        String path = request.url().encodedPath();
+        return "GET".equals(request.method())
+                && request.header(Markers.REQUIRES_AUTH_NAME) != null
+                && path.endsWith(".json")
+                && !path.contains("/export."); // export.json is an export too
+    }
+
+    private synchronized void addBudget() {
+        budgetTokens = Math.min(MAX_BUDGET_TOKENS, budgetTokens + budgetRatio);
+    }
+
+    private synchronized boolean acquireBudget() {
+        if (budgetTokens < 1) return false;
+
+        budgetTokens -= 1;
+        return true;
+    }
+
+    private void recordLatency(long startNanos) {
+        long[] sorted;
+        synchronized (this) {
+            latencies[latencyIndex] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            latencyIndex = (latencyIndex + 1) % latencies.length;
+            if (latencyCount < latencies.length) latencyCount++;
+
+            if (latencyCount < MIN_SAMPLES) return;
+            if (latencyCount > MIN_SAMPLES && ++samplesSinceUpdate < DELAY_UPDATE_INTERVAL) return;
+            samplesSinceUpdate = 0;
+
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        }
+
+        // sorting is done outside the lock; a concurrent update may publish a slightly older delay
+        Arrays.sort(sorted);
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+
+        currentDelay = Math.max(minDelayMillis, sorted[Math.max(0, index)]);
+    }
+
+    private class Race {
+
+        final Chain chain;
+        final Call hedge;
+        final long delay;
+        final long start = System.nanoTime();
+
+        final AtomicReference<Call> winner = new AtomicReference<>();
+        // the winning Response or the exception of the original request
+        final BlockingQueue<Object> result = new ArrayBlockingQueue<>(1);
+
+        volatile Future<?> scheduledHedge;
+        volatile boolean hedgeSent;
+
+        Race(Chain chain, long delay) {
+            this.chain = chain;
+            this.hedge = chain.call().clone();
+            this.delay = delay;
+        }
+
+        Response run() throws IOException {
+            try {
+                scheduledHedge = scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        startHedge();
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        runPrimary();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // shut down concurrently, the hedge can't be sent either
+                LOG.debug("run() the interceptor is shut down, proceeding without hedging");
+                if (scheduledHedge != null) scheduledHedge.cancel(false);
+                return chain.proceed(chain.request());
+            }
+
+            Object first;
+            try {
+                first = result.take();
+            } catch (InterruptedException e) {
+                chain.call().cancel();
+                hedge.cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the hedged response");
+            }
+
+            if (winner.get() == chain.call() && stopHedge()) hedge.cancel();
+
+            if (first instanceof Response) return (Response) first;
+            if (first instanceof RuntimeException) throw (RuntimeException) first;
+            if (first instanceof Error) throw (Error) first;
+            throw (IOException) first;
+        }
+
+        void runPrimary() {
+            Object outcome;
+            try {
+                outcome = chain.proceed(chain.request());
+            } catch (IOException e) {
+                outcome = e;
+            } catch (RuntimeException | Error e) {
+                outcome = e;
+            }
+            recordLatency(start);
+
+            // a failure is reported right away: the hedge may be blocked by the interceptors the call has passed
+            if (winner.compareAndSet(null, chain.call())) {
+                result.offer(outcome);
+            } else if (outcome instanceof Response) {
+                LOG.debug("runPrimary() the hedge has won, discarding the response");
+                ((Response) outcome).close();
+            }
+        }
+
+        /**
+         * Prevents the hedge from being sent, returns {@code true} if it has already been sent.
+         */
+        boolean stopHedge() throws InterruptedIOException {
+            if (scheduledHedge.cancel(false)) return false;
+
+            try {
+                scheduledHedge.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the hedge");
+            } catch (ExecutionException | CancellationException e) {
+                LOG.warn("stopHedge() unexpected exception", e);
+            }
+            return hedgeSent;
+        }
+
+        void startHedge() {
+            if (winner.get() != null) return;
+
+            if (!acquireBudget()) {
+                budgetExhausted.incrementAndGet();
+                return;
+            }
+
+            hedges.incrementAndGet();
+            hedgeSent = true;
+            ownCalls.add(hedge);
+            LOG.debug("startHedge() sending a hedge after {} ms", delay);
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            Response response = hedge.execute();
+                            if (winner.compareAndSet(null, hedge)) {
+                                hedgeWins.incrementAndGet();
+                                result.offer(response);
+                            } else {
+                                response.close();
+                            }
+                        } catch (IOException e) {
+                            LOG.debug("startHedge() hedge failed", e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOG.debug("startHedge() the interceptor is shut down, not sending the hedge");
+                hedges.decrementAndGet();
+                hedgeSent = false;
+                ownCalls.remove(hedge);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package wallabag.apiwrapper;
+
+import wallabag.apiwrapper.models.Articles;
+
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code LocalArticlesSearchBuilder} class represents a builder for accumulating parameters
+ * for searching articles in a {@link LocalSearchIndex}.
+ * <p>The parameters are the same as the ones of {@link ArticlesSearchBuilder}, the queries are answered
+ * from the index without server requests.
+ * <p>The search term is split into words, an article matches if each of the words is a prefix
+ * of an indexed word of the article. The matching articles are ordered by relevance
+ * (matches in the title rank higher than in the tags, the domain name, the URL and the content, in that order;
+ * whole-word matches rank higher than prefix matches), then by ID, newest first.
+ * A {@code null} or empty term matches all indexed articles.
+ * <p>Objects of this class can be reused for making queries with different parameters.
+ * <p>This class is not thread safe and cannot be shared between threads.
+ */
+public class LocalArticlesSearchBuilder {
+
+    private final LocalSearchIndex index;
+
+    private String term;
+    private int page = 1;
+    private int perPage = 30;
+
+    LocalArticlesSearchBuilder(LocalSearchIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Sets the search term to this builder, returns the builder.
+     *
+     * @param term the search term to set, {@code null}able
+     * @return this builder
+     */
+    public LocalArticlesSearchBuilder term(String term) {
+        this.term = term;
+        return this;
+    }
+
+    /**
+     * Sets the number of the page to return, returns this builder.
+     * <p>1-based indexing. Defaults to {@code 1}.
+     *
+     * @param page the number of the page to return
+     * @return this builder
+     * @throws IllegalArgumentException if {@code page <= 0}
+     */
+    public LocalArticlesSearchBuilder page(int page) {
+        this.page = positiveNumber(page, "page");
+        return this;
+    }
+
+    /**
+     * Sets the number of articles per page, returns this builder.
+     * <p>Defaults to {@code 30}.
+     *
+     * @param perPage the number of articles per page
+     * @return this builder
+     * @throws IllegalArgumentException if {@code perPage <= 0}
+     */
+    public LocalArticlesSearchBuilder perPage(int perPage) {
+        this.perPage = positiveNumber(perPage, "perPage");
+        return this;
+    }
+
+    /**
+     * Returns an {@link Articles} object with the matching indexed articles of the page set with {@link #page(int)}
+     * or {@code null} if {@link #page(int)} was set to a value {@code > }{@link Articles#pages}.
+     * <p>The {@link Articles#links} are not set.
+     *
+     * @return an {@link Articles} object or {@code null}
+     * if {@link #page(int)} was set to a value {@code > }{@link Articles#pages}
+     */
+    public Articles execute() {
+        return index.search(term, page, perPage);
+    }
+
+}
@@ -0,0 +1,567 @@
+package wallabag.apiwrapper;
+
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Articles;
+import wallabag.apiwrapper.models.Tag;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.*;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code LocalSearchIndex} class is an in-memory full-text index of articles
+ * for searching without server requests (offline and with the servers that don't support
+ * {@link WallabagService#searchArticlesBuilder()}).
+ * <p>The indexed fields are {@link Article#title}, {@link Article#url}, {@link Article#domainName},
+ * the {@link Article#tags} labels and, if {@linkplain #setContentIndexed(boolean) enabled},
+ * the text of {@link Article#content} (the markup is skipped).
+ * The text is split into words of letters and digits, the words are compared case-insensitively
+ * and without diacritics.
+ * <p>The index obtained with {@link WallabagService#getLocalSearchIndex()} is populated from every {@link Article}
+ * decoded by the {@link WallabagService} it belongs to (including every page listed with {@link ArticlesQueryBuilder},
+ * so iterating over all articles builds the complete index), tag changes and article deletions performed
+ * through the same {@code WallabagService} are applied to the index.
+ * An article is only replaced by the data with the same or newer {@link Article#updatedAt}.
+ * The changes made by other clients are only reflected after the article is received again.
+ * An index created with {@link #LocalSearchIndex()} is only populated with {@link #add(Article)}
+ * and {@link #addAll(ArticleIterator)}.
+ * <p>The queries are made with {@link #searchArticlesBuilder()}.
+ * <p>The index keeps a copy of every indexed article without the {@link Article#content}
+ * and the {@link Article#annotations}; the returned articles are shared and must not be modified.
+ * <p>This class is thread safe.
+ */
+public class LocalSearchIndex {
+
+    private static final int FIELD_TITLE = 1;
+    private static final int FIELD_TAG = 1 << 1;
+    private static final int FIELD_DOMAIN = 1 << 2;
+    private static final int FIELD_URL = 1 << 3;
+    private static final int FIELD_CONTENT = 1 << 4;
+
+    private static final int FIELD_BITS = 5;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    // the weight of the most important field of a mask
+    private static final int[] WEIGHTS = new int[1 << FIELD_BITS];
+
+    static {
+        for (int mask = 1; mask < WEIGHTS.length; mask++) {
+            if ((mask & FIELD_TITLE) != 0) WEIGHTS[mask] = 8;
+            else if ((mask & FIELD_TAG) != 0) WEIGHTS[mask] = 4;
+            else if ((mask & FIELD_DOMAIN) != 0) WEIGHTS[mask] = 2;
+            else WEIGHTS[mask] = 1;
+        }
+    }
+
+    private static final int MAX_WORD_LENGTH = 64;
+
+    private static final int MIN_DEAD_DOCUMENTS_TO_COMPACT = 1024;
+
+    private static class Document {
+
+        final Article article;
+        final String[] contentWords;
+
+        Document(Article article, String[] contentWords) {
+            this.article = article;
+            this.contentWords = contentWords;
+        }
+
+    }
+
+    private static class Postings {
+
+        final String word;
+        int[] entries = new int[2]; // document number << FIELD_BITS | field mask, ascending
+        int size;
+
+        Postings(String word) {
+            this.word = word;
+        }
+
+        void add(int entry) {
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            entries[size++] = entry;
+        }
+
+    }
+
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<Integer, Integer> documentsByArticleID = new HashMap<>();
+
+    private volatile boolean contentIndexed;
+
+    final ResponseObserver observer = new ResponseObserver() {
+        @Override
+        void articleReceived(Article article) {
+            add(article);
+        }
+
+        @Override
+        void articleDeleted(int articleID) {
+            remove(articleID);
+        }
+
+        @Override
+        void articleTagsReceived(int articleID, List<Tag> tags) {
+            replaceTags(articleID, tags);
+        }
+
+        @Override
+        void tagsDeleted(List<Tag> tags) {
+            removeTags(tags);
+        }
+    };
+
+    /**
+     * Creates an empty index that is only populated with {@link #add(Article)} and {@link #addAll(ArticleIterator)}.
+     *
+     * @see WallabagService#getLocalSearchIndex()
+     */
+    public LocalSearchIndex() {}
+
+    /**
+     * Sets whether the content of the articles added after this call is indexed.
+     * <p>Indexing the content greatly increases the memory used by the index.
+     * The indexed content of an article is kept if the article is received again without the content.
+     * Defaults to {@code false}.
+     *
+     * @param contentIndexed {@code true} to index the content
+     */
+    public void setContentIndexed(boolean contentIndexed) {
+        this.contentIndexed = contentIndexed;
+    }
+
+    /**
+     * Returns {@code true} if the content of the added articles is indexed.
+     *
+     * @return {@code true} if the content is indexed
+     */
+    public boolean isContentIndexed() {
+        return contentIndexed;
+    }
+
+    /**
+     * Adds the article to the index, replacing the indexed article with the same ID
+     * unless the indexed one has a newer {@link Article#updatedAt}.
+     *
+     * @param article the article to add
+     * @throws NullPointerException     if the {@code article} is {@code null}
+     * @throws IllegalArgumentException if the {@link Article#id} is not positive
+     */
+    public void add(Article article) {
+        nonNullValue(article, "article");
+        positiveNumber(article.id, "article.id");
+
+        String[] contentWords = contentIndexed && article.content != null
+                ? toArray(words(article.content, true)) : null;
+        Article copy = copy(article);
+
+        synchronized (this) {
+            Integer existing = documentsByArticleID.get(article.id);
+            if (existing != null) {
+                Document document = documents.get(existing);
+                Date updatedAt = document.article.updatedAt;
+                if (updatedAt != null && article.updatedAt != null && article.updatedAt.before(updatedAt)) {
+                    return; // older data
+                }
+                if (contentWords == null && article.content == null) contentWords = document.contentWords;
+            }
+
+            put(new Document(copy, contentWords));
+        }
+    }
+
+    /**
+     * Adds all remaining articles of the iterator to the index (see {@link #add(Article)}).
+     *
+     * @param iterator the iterator to add the articles of
+     * @return the number of added articles
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException in case of known wallabag-specific errors
+     * @throws NullPointerException          if the {@code iterator} is {@code null}
+     */
+    public int addAll(ArticleIterator iterator) throws IOException, UnsuccessfulResponseException {
+        nonNullValue(iterator, "iterator");
+
+        int count = 0;
+        while (iterator.hasNext()) {
+            add(iterator.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes the article from the index.
+     *
+     * @param articleID the ID of the article
+     * @return {@code true} if the article was indexed
+     */
+    public synchronized boolean remove(int articleID) {
+        Integer document = documentsByArticleID.remove(articleID);
+        if (document == null) return false;
+
+        kill(document);
+        return true;
+    }
+
+    /**
+     * Removes all articles from the index.
+     */
+    public synchronized void clear() {
+        postings.clear();
+        documents.clear();
+        live.clear();
+        documentsByArticleID.clear();
+    }
+
+    /**
+     * Returns the number of indexed articles.
+     *
+     * @return the number of indexed articles
+     */
+    public synchronized int size() {
+        return documentsByArticleID.size();
+    }
+
+    /**
+     * Returns the number of distinct indexed words.
+     *
+     * @return the number of distinct indexed words
+     */
+    public synchronized int getWordCount() {
+        return postings.size();
+    }
+
+    /**
+     * Returns the indexed article with the specified ID.
+     *
+     * @param articleID the ID of the article
+     * @return the shared indexed {@link Article} or {@code null} if the article is not indexed
+     */
+    public synchronized Article getArticle(int articleID) {
+        Integer document = documentsByArticleID.get(articleID);
+        return document != null ? documents.get(document).article : null;
+    }
+
+    /**
+     * Returns a search query builder for the indexed articles.
+     *
+     * @return a {@link LocalArticlesSearchBuilder}
+     */
+    public LocalArticlesSearchBuilder searchArticlesBuilder() {
+        return new LocalArticlesSearchBuilder(this);
+    }
+
+    /**
+     * Returns a search query builder for the indexed articles
+     * with the parameters of the {@link ArticlesSearchBuilder}
+     * (the term, the page and the number of articles per page).
+     *
+     * @param builder the server query builder to copy the parameters of
+     * @return a {@link LocalArticlesSearchBuilder}
+     * @throws NullPointerException if the {@code builder} is {@code null}
+     */
+    public LocalArticlesSearchBuilder searchArticlesBuilder(ArticlesSearchBuilder builder) {
+        nonNullValue(builder, "builder");
+
+        return new LocalArticlesSearchBuilder(this)
+                .term(builder.term)
+                .page(builder.page)
+                .perPage(builder.perPage);
+    }
+
+    Articles search(String term, int page, int perPage) {
+        List<String> queryWords = term != null ? words(term, false) : Collections.<String>emptyList();
+
+        List<Article> matches;
+        synchronized (this) {
+            matches = find(queryWords);
+        }
+
+        int total = matches.size();
+        int pages = (total + perPage - 1) / perPage;
+        if (page > 1 && page > pages) return null;
+
+        Articles articles = new Articles();
+        articles.page = page;
+        articles.limit = perPage;
+        articles.pages = pages;
+        articles.total = total;
+        articles.embedded = new Articles.Embedded();
+
+        int from = Math.min((page - 1) * perPage, total);
+        articles.embedded.items = new ArrayList<>(matches.subList(from, Math.min(from + perPage, total)));
+
+        return articles;
+    }
+
+    private List<Article> find(List<String> queryWords) {
+        int documentCount = documents.size();
+        long[] keys;
+        int found = 0;
+
+        if (queryWords.isEmpty()) {
+            keys = new long[live.cardinality()];
+            for (int document = live.nextSetBit(0); document >= 0; document = live.nextSetBit(document + 1)) {
+                keys[found++] = key(0, documents.get(document).article.id);
+            }
+        } else {
+            // matched[document] - the number of the query words matched so far,
+            // best[document] - the score of the best match of the current word
+            int[] matched = new int[documentCount];
+            int[] best = new int[documentCount];
+            int[] scores = new int[documentCount];
+
+            for (int i = 0; i < queryWords.size(); i++) {
+                String queryWord = queryWords.get(i);
+                boolean any = false;
+
+                for (Postings wordPostings : postings.subMap(queryWord, true,
+                        queryWord + Character.MAX_VALUE, false).values()) {
+                    int factor = wordPostings.word.length() == queryWord.length() ? 2 : 1;
+
+                    for (int j = 0; j < wordPostings.size; j++) {
+                        int entry = wordPostings.entries[j];
+                        int document = entry >>> FIELD_BITS;
+                        if (!live.get(document)) continue;
+
+                        int score = WEIGHTS[entry & FIELD_MASK] * factor;
+                        if (matched[document] == i) {
+                            matched[document] = i + 1;
+                            best[document] = score;
+                            scores[document] += score;
+                            any = true;
+                        } else if (matched[document] == i + 1 && score > best[document]) {
+                            scores[document] += score - best[document];
+                            best[document] = score;
+                        }
+                    }
+                }
+
+                if (!any) return Collections.emptyList();
+            }
+
+            keys = new long[documentCount];
+            for (int document = 0; document < documentCount; document++) {
+                if (matched[document] == queryWords.size()) {
+                    keys[found++] = key(scores[document], documents.get(document).article.id);
+                }
+            }
+        }
+
+        // the best score first, the newest article first for equal scores
+        Arrays.sort(keys, 0, found);
+
+        List<Article> result = new ArrayList<>(found);
+        for (int i = found - 1; i >= 0; i--) {
+            result.add(documents.get(documentsByArticleID.get((int) keys[i])).article);
+        }
+        return result;
+    }
+
+    private static long key(int score, int articleID) {
+        return (long) score << 32 | articleID;
+    }
+
+    private void put(Document document) {
+        Integer existing = documentsByArticleID.get(document.article.id);
+        if (existing != null) kill(existing);
+
+        int number = documents.size();
+        documents.add(document);
+        live.set(number);
+        documentsByArticleID.put(document.article.id, number);
+
+        Map<String, Integer> fields = new HashMap<>();
+        Article article = document.article;
+        addWords(fields, article.title, FIELD_TITLE);
+        addWords(fields, article.url, FIELD_URL);
+        addWords(fields, article.domainName, FIELD_DOMAIN);
+        if (article.tags != null) {
+            for (Tag tag : article.tags) {
+                if (tag != null) addWords(fields, tag.label, FIELD_TAG);
+            }
+        }
+        if (document.contentWords != null) {
+            for (String word : document.contentWords) addField(fields, word, FIELD_CONTENT);
+        }
+
+        for (Map.Entry<String, Integer> entry : fields.entrySet()) {
+            getPostings(entry.getKey()).add(number << FIELD_BITS | entry.getValue());
+        }
+
+        if (document.contentWords != null) {
+            // share the word instances with the dictionary
+            for (int i = 0; i < document.contentWords.length; i++) {
+                document.contentWords[i] = postings.get(document.contentWords[i]).word;
+            }
+        }
+    }
+
+    private void kill(int document) {
+        live.clear(document);
+
+        int dead = documents.size() - documentsByArticleID.size();
+        if (dead >= MIN_DEAD_DOCUMENTS_TO_COMPACT && dead > documentsByArticleID.size()) compact();
+    }
+
+    private void compact() {
+        List<Document> remaining = new ArrayList<>(documentsByArticleID.size());
+        for (int document = live.nextSetBit(0); document >= 0; document = live.nextSetBit(document + 1)) {
+            remaining.add(documents.get(document));
+        }
+
+        clear();
+        for (Document document : remaining) put(document);
+    }
+
+    private Postings getPostings(String word) {
+        Postings wordPostings = postings.get(word);
+        if (wordPostings == null) {
+            wordPostings = new Postings(word);
+            postings.put(word, wordPostings);
+        }
+        return wordPostings;
+    }
+
+    private synchronized void replaceTags(int articleID, List<Tag> tags) {
+        Integer existing = documentsByArticleID.get(articleID);
+        if (existing == null) return;
+
+        Document document = documents.get(existing);
+        Article copy = copy(document.article);
+        copy.tags = copy(tags);
+        put(new Document(copy, document.contentWords));
+    }
+
+    private synchronized void removeTags(List<Tag> tags) {
+        Set<Integer> ids = new HashSet<>();
+        for (Tag tag : tags) ids.add(tag.id);
+
+        List<Document> changed = new ArrayList<>();
+        for (int document = live.nextSetBit(0); document >= 0; document = live.nextSetBit(document + 1)) {
+            Article article = documents.get(document).article;
+            if (article.tags == null) continue;
+
+            List<Tag> remaining = new ArrayList<>(article.tags.size());
+            for (Tag tag : article.tags) {
+                if (!ids.contains(tag.id)) remaining.add(tag);
+            }
+
+            if (remaining.size() != article.tags.size()) {
+                Article copy = copy(article);
+                copy.tags = Collections.unmodifiableList(remaining);
+                changed.add(new Document(copy, documents.get(document).contentWords));
+            }
+        }
+
+        for (Document document : changed) put(document);
+    }
+
+    private static void addWords(Map<String, Integer> fields, String text, int field) {
+        if (text == null) return;
+
+        for (String word : words(text, false)) addField(fields, word, field);
+    }
+
+    private static void addField(Map<String, Integer> fields, String word, int field) {
+        Integer mask = fields.get(word);
+        fields.put(word, mask != null ? mask | field : field);
+    }
+
+    static List<String> words(String text, boolean markup) {
+        Set<String> words = new LinkedHashSet<>();
+
+        StringBuilder word = new StringBuilder();
+        boolean nonAscii = false;
+        boolean inTag = false;
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+
+            if (markup) {
+                if (inTag) {
+                    if (c == '>') inTag = false;
+                    continue;
+                }
+                if (c == '<') {
+                    inTag = true;
+                    c = ' ';
+                } else if (c == '&') {
+                    // skip the entity
+                    int end = text.indexOf(';', i);
+                    if (end > i && end - i <= 10) i = end;
+                    c = ' ';
+                }
+            }
+
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+                if (c >= 0x80) nonAscii = true;
+            } else if (word.length() > 0) {
+                if (word.length() <= MAX_WORD_LENGTH) {
+                    words.add(nonAscii ? stripDiacritics(word.toString()) : word.toString());
+                }
+                word.setLength(0);
+                nonAscii = false;
+            }
+        }
+
+        return new ArrayList<>(words);
+    }
+
+    private static String stripDiacritics(String word) {
+        String decomposed = Normalizer.normalize(word, Normalizer.Form.NFD);
+
+        StringBuilder result = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) result.append(c);
+        }
+        return result.toString();
+    }
+
+    private static String[] toArray(List<String> list) {
+        return list.toArray(new String[list.size()]);
+    }
+
+    private static Article copy(Article article) {
+        Article copy = new Article();
+        copy.id = article.id;
+        copy.url = article.url;
+        copy.hashedUrl = article.hashedUrl;
+        copy.givenUrl = article.givenUrl;
+        copy.hashedGivenUrl = article.hashedGivenUrl;
+        copy.title = article.title;
+        copy.archived = article.archived;
+        copy.archivedAt = article.archivedAt;
+        copy.starred = article.starred;
+        copy.starredAt = article.starredAt;
+        copy.tags = copy(article.tags);
+        copy.createdAt = article.createdAt;
+        copy.updatedAt = article.updatedAt;
+        copy.mimetype = article.mimetype;
+        copy.language = article.language;
+        copy.readingTime = article.readingTime;
+        copy.domainName = article.domainName;
+        copy.previewPicture = article.previewPicture;
+        copy.originUrl = article.originUrl;
+        copy.publishedAt = article.publishedAt;
+        copy.authors = copy(article.authors);
+        copy.isPublic = article.isPublic;
+        copy.publicUid = article.publicUid;
+        return copy;
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        return list != null ? Collections.unmodifiableList(new ArrayList<>(list)) : null;
+    }
+
+}
@@ -54,13 +54,11 @@ public class ModifyArticleBuilder extends AbstractArticleBuilder<ModifyArticleBu
     }
 
     protected RequestBody build() {
-        FormBody formBody = populateFormBodyBuilder(new FormBody.Builder()).build();
-
-        if (formBody.size() == 0) {
+        if (!hasChanges()) {
             throw new IllegalStateException("No changes done");
         }
 
-        return formBody;
+        return buildRequestBody(new FormBody.Builder());
     }
 
     /**
@@ -70,7 +68,7 @@ public class ModifyArticleBuilder extends AbstractArticleBuilder<ModifyArticleBu
      * @return a {@link Call} that is represented by this builder
      */
     public Call<Article> buildCall() {
-        return wallabagService.modifyArticleCall(id, build());
+        return wallabagService.modifyArticleCall(id, build(), getContentEncoding());
     }
 
     /**
@@ -100,7 +98,7 @@ public class ModifyArticleBuilder extends AbstractArticleBuilder<ModifyArticleBu
      *                                       (depends on the {@code notFoundPolicy})
      */
     public Article execute(NotFoundPolicy notFoundPolicy) throws IOException, UnsuccessfulResponseException {
-        return wallabagService.modifyArticle(id, build(), notFoundPolicy);
+        return wallabagService.modifyArticle(id, build(), getContentEncoding(), notFoundPolicy);
     }
 
 }
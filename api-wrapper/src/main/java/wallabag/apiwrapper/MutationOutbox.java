@@ -0,0 +1,951 @@
+package wallabag.apiwrapper;
+
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import okhttp3.FormBody;
+import okio.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.exceptions.NotFoundException;
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static wallabag.apiwrapper.Utils.*;
+
+/**
+ * The {@code MutationOutbox} class represents a durable local queue of article modifications
+ * (a "write-ahead log"), which are sent to the server in the background.
+ * <p>The operations ({@link #addArticle(AddArticleBuilder)}, {@link #modifyArticle(ModifyArticleBuilder)},
+ * {@link #addTags(int, Collection)}, {@link #deleteArticle(int)}) are appended to a file
+ * and the methods return as soon as the record is written to the storage device
+ * (concurrent callers share a single {@code fsync}), regardless of the server availability.
+ * <p>A background thread replays the pending operations in the order they were submitted.
+ * Before replaying, consecutive operations on the same article are collapsed:
+ * modifications are merged, tags additions are merged, a deletion supersedes the previous operations.
+ * If a request fails because of network errors or server-side errors, the replay is retried later
+ * with an exponential backoff. Operations rejected by the server (e.g. the article was not found)
+ * are dropped and reported to the {@link Listener}.
+ * <p>Operations may be replayed more than once (e.g. if the application was terminated
+ * right after a request was completed). Modifications and deletions are naturally idempotent,
+ * for the article adding an "exists" check is performed: an article that already exists on the server
+ * is not added again (its parameters are not updated).
+ * The "exists" checks are batched up to the next deletion, so an article deleted and then added again
+ * is re-added.
+ * <p>If the server supports list-based adding ({@link CompatibilityHelper#isAddArticlesSupported(WallabagService)}),
+ * consecutive additions without article properties other than the URL are sent in batches
+ * (see {@link BulkArticlesBuilder}); the other operations are sent one by one.
+ * <p>The log file is compacted when it accumulates enough completed operations and every time it is opened.
+ * An interrupted compaction is recovered when the log is opened.
+ * <p>This class creates a background thread.
+ * <p>This class is thread safe.
+ */
+public class MutationOutbox implements Closeable {
+
+    /**
+     * The {@code Listener} interface is used to receive the replay results.
+     * <p>The methods are called on the background thread.
+     */
+    public interface Listener {
+
+        /**
+         * Called when the operation is successfully replayed to the server.
+         *
+         * @param sequenceNumber the sequence number of the operation
+         */
+        void onReplayed(long sequenceNumber);
+
+        /**
+         * Called when the operation is rejected by the server and dropped from the outbox.
+         *
+         * @param sequenceNumber the sequence number of the operation
+         * @param e              the exception returned for the operation
+         */
+        void onDropped(long sequenceNumber, Exception e);
+
+    }
+
+    private enum Type {
+        ADD("add"), MODIFY("modify"), ADD_TAGS("tags"), DELETE("delete");
+
+        private final String value;
+
+        Type(String value) {
+            this.value = value;
+        }
+
+        static Type fromValue(String value) {
+            for (Type type : values()) {
+                if (type.value.equals(value)) return type;
+            }
+            return null;
+        }
+    }
+
+    private static class Operation {
+        final List<Long> sequenceNumbers;
+        final Type type;
+        final int articleID;
+        final Map<String, String> params;
+
+        Operation(Type type, int articleID, Map<String, String> params) {
+            this(new ArrayList<Long>(1), type, articleID, params);
+        }
+
+        Operation(List<Long> sequenceNumbers, Type type, int articleID, Map<String, String> params) {
+            this.sequenceNumbers = sequenceNumbers;
+            this.type = type;
+            this.articleID = articleID;
+            this.params = params;
+        }
+
+        Operation copy() {
+            return new Operation(new ArrayList<>(sequenceNumbers), type, articleID, new LinkedHashMap<>(params));
+        }
+
+        String getUrl() {
+            return params.get("url");
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(MutationOutbox.class);
+
+    private static final String ACK = "ack";
+
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    private static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+    private static final long MAX_BACKOFF = TimeUnit.MINUTES.toMillis(5);
+
+    private final WallabagService wallabagService;
+    private final File file;
+    private final Listener listener;
+
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private final Map<Long, Operation> pending = new LinkedHashMap<>();
+    private FileOutputStream out;
+    private int recordCount;
+    private long nextSequenceNumber = 1;
+    private long writtenSequenceNumber;
+    private long syncedSequenceNumber;
+    private boolean syncing;
+    private boolean retryRequested;
+    private boolean closed;
+
+    private final Random random = new Random();
+
+    private final Thread replayer;
+
+    MutationOutbox(WallabagService wallabagService, File file, Listener listener) throws IOException {
+        this.wallabagService = wallabagService;
+        this.file = nonNullValue(file, "file");
+        this.listener = listener;
+
+        synchronized (lock) {
+            load();
+            rewriteLog(compact(new ArrayList<>(pending.values())));
+        }
+
+        replayer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                replayLoop();
+            }
+        }, "wallabag-outbox");
+        replayer.setDaemon(true);
+        replayer.start();
+    }
+
+    /**
+     * Enqueues adding the article represented by the {@code builder}, returns the sequence number of the operation.
+     * <p>The builder parameters are copied, the builder can be reused afterwards.
+     * Streamed content (e.g. {@link AbstractArticleBuilder#content(java.io.Reader)}) is read and stored in the log.
+     *
+     * @param builder the builder representing the article to add
+     * @return the sequence number of the operation
+     * @throws IOException           if the operation could not be written to the log
+     *                               or the streamed content could not be read
+     * @throws NullPointerException  if the {@code builder} is {@code null}
+     * @throws IllegalStateException if the outbox is closed
+     */
+    public long addArticle(AddArticleBuilder builder) throws IOException {
+        nonNullValue(builder, "builder");
+
+        FormBody.Builder bodyBuilder = new FormBody.Builder().add("url", builder.url);
+
+        return enqueue(new Operation(Type.ADD, -1,
+                toParams(builder.populateFormBodyBuilderWithContent(bodyBuilder).build())));
+    }
+
+    /**
+     * Enqueues the modification represented by the {@code builder}, returns the sequence number of the operation.
+     * <p>The builder parameters are copied, the builder can be reused afterwards.
+     * Streamed content (e.g. {@link AbstractArticleBuilder#content(java.io.Reader)}) is read and stored in the log.
+     *
+     * @param builder the builder representing the modification
+     * @return the sequence number of the operation
+     * @throws IOException           if the operation could not be written to the log
+     *                               or the streamed content could not be read
+     * @throws NullPointerException  if the {@code builder} is {@code null}
+     * @throws IllegalStateException if the {@code builder} has no changes or the outbox is closed
+     */
+    public long modifyArticle(ModifyArticleBuilder builder) throws IOException {
+        nonNullValue(builder, "builder");
+
+        FormBody formBody = builder.populateFormBodyBuilderWithContent(new FormBody.Builder()).build();
+        if (formBody.size() == 0) {
+            throw new IllegalStateException("No changes done");
+        }
+
+        return enqueue(new Operation(Type.MODIFY, builder.id, toParams(formBody)));
+    }
+
+    /**
+     * Enqueues adding the {@code tags} to the article, returns the sequence number of the operation.
+     *
+     * @param articleID the ID of the article
+     * @param tags      the tags to add
+     * @return the sequence number of the operation
+     * @throws IOException              if the operation could not be written to the log
+     * @throws NullPointerException     if the {@code tags} is {@code null}
+     * @throws IllegalArgumentException if the {@code articleID} is less than 0,
+     *                                  or the {@code tags} is an empty {@code Collection}
+     * @throws IllegalStateException    if the outbox is closed
+     */
+    public long addTags(int articleID, Collection<String> tags) throws IOException {
+        nonNegativeNumber(articleID, "articleID");
+        nonEmptyCollection(tags, "tags");
+
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("tags", join(tags, ","));
+
+        return enqueue(new Operation(Type.ADD_TAGS, articleID, params));
+    }
+
+    /**
+     * Enqueues the deletion of the article, returns the sequence number of the operation.
+     *
+     * @param articleID the ID of the article to delete
+     * @return the sequence number of the operation
+     * @throws IOException              if the operation could not be written to the log
+     * @throws IllegalArgumentException if the {@code articleID} is less than 0
+     * @throws IllegalStateException    if the outbox is closed
+     */
+    public long deleteArticle(int articleID) throws IOException {
+        nonNegativeNumber(articleID, "articleID");
+
+        return enqueue(new Operation(Type.DELETE, articleID, new LinkedHashMap<String, String>()));
+    }
+
+    /**
+     * Returns the number of operations that are not yet replayed.
+     *
+     * @return the number of pending operations
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            int count = 0;
+            for (Operation operation : pending.values()) {
+                count += operation.sequenceNumbers.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Makes the background thread retry the replay immediately if it is waiting after a failure.
+     */
+    public void retryNow() {
+        synchronized (lock) {
+            retryRequested = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until all the pending operations are replayed (or dropped), or the timeout occurs,
+     * or the current thread is interrupted, whichever happens first.
+     *
+     * @param timeout  the maximum time to wait
+     * @param timeUnit the time unit of the timeout argument
+     * @return {@code true} if there are no pending operations, {@code false} if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitDrained(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        synchronized (lock) {
+            while (!pending.isEmpty()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) return false;
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stops the background thread (waiting for the current request to finish) and closes the log.
+     * The pending operations stay in the log and are replayed when the outbox is opened next time.
+     * <p>The current request is never aborted, see {@link #close(long, TimeUnit)} for a bounded wait.
+     *
+     * @throws IOException in case of errors closing the log
+     */
+    @Override
+    public void close() throws IOException {
+        close(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the background thread and closes the log, waiting up to the {@code timeout}
+     * for the current request to finish.
+     * The pending operations stay in the log and are replayed when the outbox is opened next time.
+     * <p>If the request doesn't finish in time, the background thread is interrupted, which aborts the request.
+     * The aborted operation stays in the log and is replayed again when the outbox is opened next time,
+     * even if the server has already applied it (see the class description regarding repeated replays).
+     *
+     * @param timeout  the maximum time to wait for the current request
+     * @param timeUnit the time unit of the {@code timeout} argument
+     * @return {@code true} if the background thread stopped without being interrupted
+     * @throws IOException          in case of errors closing the log
+     * @throws NullPointerException if the {@code timeUnit} is {@code null}
+     */
+    public boolean close(long timeout, TimeUnit timeUnit) throws IOException {
+        nonNullValue(timeUnit, "timeUnit");
+
+        synchronized (lock) {
+            if (closed) return true;
+            closed = true;
+            lock.notifyAll();
+        }
+
+        boolean graceful = true;
+        boolean interrupted = false;
+        long timeoutNanos = timeUnit.toNanos(timeout);
+        long start = System.nanoTime();
+        while (replayer.isAlive()) {
+            try {
+                if (graceful) {
+                    long remaining = timeoutNanos - (System.nanoTime() - start);
+                    if (remaining <= 0) {
+                        LOG.info("close() the current request didn't finish in time, aborting");
+                        graceful = false;
+                        replayer.interrupt();
+                        continue;
+                    }
+                    TimeUnit.NANOSECONDS.timedJoin(replayer, remaining);
+                } else {
+                    replayer.join();
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        synchronized (lock) {
+            while (syncing) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            out.close();
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+
+        return graceful;
+    }
+
+    private long enqueue(Operation operation) throws IOException {
+        long sequenceNumber;
+        synchronized (lock) {
+            if (closed) throw new IllegalStateException("The outbox is closed");
+
+            sequenceNumber = nextSequenceNumber++;
+            operation.sequenceNumbers.add(sequenceNumber);
+
+            out.write(toRecord(operation));
+            recordCount++;
+            writtenSequenceNumber = sequenceNumber;
+
+            pending.put(sequenceNumber, operation);
+            lock.notifyAll();
+        }
+
+        sync(sequenceNumber);
+
+        return sequenceNumber;
+    }
+
+    private void sync(long sequenceNumber) throws IOException {
+        while (true) {
+            long target;
+            FileOutputStream stream;
+            synchronized (lock) {
+                while (syncing && syncedSequenceNumber < sequenceNumber) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the log sync");
+                    }
+                }
+                if (syncedSequenceNumber >= sequenceNumber) return;
+
+                // the caller syncs everything written so far, others wait for it
+                syncing = true;
+                target = writtenSequenceNumber;
+                stream = out;
+            }
+
+            boolean synced = false;
+            try {
+                stream.getFD().sync();
+                synced = true;
+            } finally {
+                synchronized (lock) {
+                    syncing = false;
+                    if (synced) syncedSequenceNumber = Math.max(syncedSequenceNumber, target);
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void acknowledge(Operation operation, Exception e) {
+        synchronized (lock) {
+            for (Long sequenceNumber : operation.sequenceNumbers) {
+                try {
+                    // acks are not synced: replaying an operation once more is harmless
+                    out.write(toAckRecord(sequenceNumber));
+                    recordCount++;
+                } catch (IOException ioe) {
+                    LOG.warn("acknowledge() couldn't write ack for {}", sequenceNumber, ioe);
+                }
+                pending.remove(sequenceNumber);
+            }
+            lock.notifyAll();
+        }
+
+        if (listener == null) return;
+
+        for (Long sequenceNumber : operation.sequenceNumbers) {
+            try {
+                if (e == null) {
+                    listener.onReplayed(sequenceNumber);
+                } else {
+                    listener.onDropped(sequenceNumber, e);
+                }
+            } catch (RuntimeException re) {
+                LOG.warn("acknowledge() exception in listener", re);
+            }
+        }
+    }
+
+    private void replayLoop() {
+        long backoff = 0;
+        try {
+            while (true) {
+                List<Operation> snapshot;
+                synchronized (lock) {
+                    while (!closed && pending.isEmpty()) lock.wait();
+                    if (closed) return;
+
+                    snapshot = new ArrayList<>(pending.values());
+                }
+
+                Exception failure = replay(compact(snapshot));
+
+                if (failure == null) {
+                    backoff = 0;
+                    compactLogIfNeeded();
+                    continue;
+                }
+
+                backoff = backoff == 0 ? INITIAL_BACKOFF : Math.min(backoff * 2, MAX_BACKOFF);
+                long delay = backoff / 2 + (long) (random.nextDouble() * backoff / 2);
+                LOG.info("replayLoop() replay failed, retrying in {} ms", delay, failure);
+
+                synchronized (lock) {
+                    long deadline = System.currentTimeMillis() + delay;
+                    retryRequested = false;
+                    long remaining;
+                    while (!closed && !retryRequested
+                            && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        lock.wait(remaining);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.debug("replayLoop() interrupted");
+        }
+    }
+
+    private Exception replay(List<Operation> operations) {
+        // the results of the "exists" checks are valid until the next deletion
+        Set<String> existingUrls = null;
+
+        int index = 0;
+        while (index < operations.size()) {
+            synchronized (lock) {
+                if (closed) return null;
+            }
+
+            Operation operation = operations.get(index);
+
+            if (operation.type == Type.ADD) {
+                int end = index;
+                while (end < operations.size() && operations.get(end).type == Type.ADD) end++;
+
+                try {
+                    if (existingUrls == null) existingUrls = getExistingUrls(operations, index);
+                } catch (IOException | UnsuccessfulResponseException e) {
+                    return e;
+                }
+
+                Exception failure = replayAdds(operations.subList(index, end), existingUrls);
+                if (failure != null) return failure;
+
+                index = end;
+                continue;
+            }
+
+            if (operation.type == Type.DELETE) existingUrls = null;
+
+            Exception failure = replayOne(operation, null);
+            if (failure != null) return failure;
+
+            index++;
+        }
+
+        return null;
+    }
+
+    private Exception replayAdds(List<Operation> adds, Set<String> existingUrls) {
+        List<Operation> listAdds = new ArrayList<>();
+        for (Operation operation : adds) {
+            if (operation.params.size() == 1) listAdds.add(operation); // only the URL
+        }
+
+        if (listAdds.size() > 1) {
+            try {
+                if (!CompatibilityHelper.isAddArticlesSupported(wallabagService)) listAdds.clear();
+            } catch (IOException | UnsuccessfulResponseException e) {
+                return e;
+            }
+        } else {
+            listAdds.clear();
+        }
+
+        for (Operation operation : adds) {
+            if (listAdds.contains(operation)) continue;
+
+            Exception failure = replayOne(operation, existingUrls);
+            if (failure != null) return failure;
+        }
+
+        return listAdds.isEmpty() ? null : replayAddList(listAdds, existingUrls);
+    }
+
+    private Exception replayAddList(List<Operation> adds, Set<String> existingUrls) {
+        BulkArticlesBuilder builder = wallabagService.bulkAddArticlesBuilder();
+        for (Operation operation : adds) {
+            if (existingUrls.contains(operation.getUrl())) {
+                LOG.debug("replayAddList() article already exists: {}", operation.getUrl());
+                acknowledge(operation, null);
+            } else {
+                builder.addUrl(operation.getUrl());
+            }
+        }
+
+        BulkOperationResult result;
+        try {
+            result = builder.execute();
+        } catch (IOException | UnsuccessfulResponseException e) {
+            return e;
+        }
+
+        Map<String, Integer> processed = result.getProcessed();
+        Set<String> notFound = result.getNotFound();
+        Map<String, Exception> failed = result.getFailed();
+
+        Exception failure = null;
+        for (Operation operation : adds) {
+            String url = operation.getUrl();
+            if (processed.containsKey(url)) {
+                existingUrls.add(url);
+                acknowledge(operation, null);
+            } else if (notFound.contains(url)) {
+                LOG.info("replayAddList() dropping operation {}: not added", operation.sequenceNumbers);
+                acknowledge(operation, new NotFoundException(404, "The article was not added", null));
+            } else if (failed.containsKey(url)) {
+                Exception e = failed.get(url);
+                if (e instanceof UnsuccessfulResponseException && isPermanentFailure((UnsuccessfulResponseException) e)) {
+                    LOG.warn("replayAddList() dropping operation {}", operation.sequenceNumbers, e);
+                    acknowledge(operation, e);
+                } else if (failure == null) {
+                    // the operations that were added are acknowledged, the rest is retried
+                    failure = e;
+                }
+            }
+        }
+
+        return failure;
+    }
+
+    /**
+     * Replays the {@code operation}, returns the failure that stops the replay or {@code null}.
+     */
+    private Exception replayOne(Operation operation, Set<String> existingUrls) {
+        try {
+            switch (operation.type) {
+                case ADD:
+                    if (!existingUrls.contains(operation.getUrl())) {
+                        wallabagService.addArticle(toFormBody(operation.params));
+                        existingUrls.add(operation.getUrl());
+                    } else {
+                        LOG.debug("replayOne() article already exists: {}", operation.getUrl());
+                    }
+                    break;
+
+                case MODIFY:
+                    wallabagService.modifyArticle(operation.articleID,
+                            toFormBody(operation.params), NotFoundPolicy.THROW);
+                    break;
+
+                case ADD_TAGS:
+                    wallabagService.addTags(operation.articleID,
+                            Arrays.asList(operation.params.get("tags").split(",")), NotFoundPolicy.THROW);
+                    break;
+
+                case DELETE:
+                    wallabagService.deleteArticle(operation.articleID, NotFoundPolicy.THROW);
+                    break;
+            }
+        } catch (NotFoundException e) {
+            LOG.info("replayOne() dropping operation {}: not found", operation.sequenceNumbers);
+            acknowledge(operation, e);
+            return null;
+        } catch (UnsuccessfulResponseException e) {
+            if (!isPermanentFailure(e)) return e;
+
+            LOG.warn("replayOne() dropping operation {}", operation.sequenceNumbers, e);
+            acknowledge(operation, e);
+            return null;
+        } catch (IOException e) {
+            return e;
+        }
+
+        acknowledge(operation, null);
+        return null;
+    }
+
+    // checks the URLs of the additions from the index up to the next deletion
+    private Set<String> getExistingUrls(List<Operation> operations, int fromIndex)
+            throws IOException, UnsuccessfulResponseException {
+        Set<String> existingUrls = new HashSet<>();
+
+        BatchExistQueryBuilder builder = wallabagService.getArticlesExistQueryBuilder();
+        for (Operation operation : operations.subList(fromIndex, operations.size())) {
+            if (operation.type == Type.DELETE) break;
+            if (operation.type != Type.ADD) continue;
+
+            if (!builder.addUrl(operation.getUrl())) {
+                collectExisting(builder.execute(), existingUrls);
+                builder.reset();
+                builder.addUrl(operation.getUrl());
+            }
+        }
+        if (!builder.isEmpty()) collectExisting(builder.execute(), existingUrls);
+
+        return existingUrls;
+    }
+
+    private static void collectExisting(Map<String, Boolean> results, Set<String> existingUrls) {
+        for (Map.Entry<String, Boolean> entry : results.entrySet()) {
+            if (Boolean.TRUE.equals(entry.getValue())) existingUrls.add(entry.getKey());
+        }
+    }
+
+    private static boolean isPermanentFailure(UnsuccessfulResponseException e) {
+        int code = e.getResponseCode();
+        // 401 may be fixed by updating the credentials
+        return code >= 400 && code < 500 && code != 401 && code != 408 && code != 429;
+    }
+
+    private static List<Operation> compact(List<Operation> operations) {
+        List<Operation> result = new ArrayList<>(operations.size());
+        Map<Integer, Integer> lastIndexByArticle = new HashMap<>();
+
+        for (Operation operation : operations) {
+            if (operation.type == Type.ADD) {
+                int lastIndex = result.size() - 1;
+                Operation previous = lastIndex >= 0 ? result.get(lastIndex) : null;
+                if (previous != null && previous.type == Type.ADD
+                        && previous.getUrl().equals(operation.getUrl())) {
+                    result.set(lastIndex, merge(previous, operation));
+                } else {
+                    result.add(operation);
+                }
+                continue;
+            }
+
+            Integer lastIndex = lastIndexByArticle.get(operation.articleID);
+            Operation previous = lastIndex != null ? result.get(lastIndex) : null;
+
+            if (previous != null && previous.type == operation.type) {
+                result.set(lastIndex, merge(previous, operation));
+            } else if (previous != null && operation.type == Type.DELETE) {
+                // the deletion supersedes the previous operations on the article
+                Operation deletion = operation.copy();
+                for (int i = 0; i < result.size(); i++) {
+                    Operation o = result.get(i);
+                    if (o != null && o.type != Type.ADD && o.articleID == operation.articleID) {
+                        deletion.sequenceNumbers.addAll(o.sequenceNumbers);
+                        result.set(i, null);
+                    }
+                }
+                Collections.sort(deletion.sequenceNumbers);
+                result.add(deletion);
+                lastIndexByArticle.put(operation.articleID, result.size() - 1);
+            } else {
+                result.add(operation);
+                lastIndexByArticle.put(operation.articleID, result.size() - 1);
+            }
+        }
+
+        List<Operation> compacted = new ArrayList<>(result.size());
+        for (Operation operation : result) {
+            if (operation != null) compacted.add(operation);
+        }
+        return compacted;
+    }
+
+    private static Operation merge(Operation first, Operation second) {
+        Operation merged = first.copy();
+        merged.sequenceNumbers.addAll(second.sequenceNumbers);
+
+        if (first.type == Type.ADD_TAGS) {
+            Set<String> tags = new LinkedHashSet<>(Arrays.asList(first.params.get("tags").split(",")));
+            tags.addAll(Arrays.asList(second.params.get("tags").split(",")));
+            merged.params.put("tags", join(tags, ","));
+        } else {
+            merged.params.putAll(second.params);
+        }
+
+        return merged;
+    }
+
+    private void compactLogIfNeeded() {
+        synchronized (lock) {
+            if (closed || recordCount < COMPACTION_THRESHOLD || recordCount < pending.size() * 2) return;
+
+            while (syncing) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            LOG.debug("compactLogIfNeeded() compacting {} records", recordCount);
+            try {
+                rewriteLog(compact(new ArrayList<>(pending.values())));
+            } catch (IOException e) {
+                LOG.warn("compactLogIfNeeded() couldn't compact the log", e);
+            }
+        }
+    }
+
+    // must be called while holding the lock
+    private void rewriteLog(List<Operation> operations) throws IOException {
+        File temp = getTempFile();
+        FileOutputStream tempOut = new FileOutputStream(temp);
+        try {
+            for (Operation operation : operations) {
+                tempOut.write(toRecord(operation));
+            }
+            tempOut.getFD().sync();
+        } finally {
+            tempOut.close();
+        }
+
+        if (out != null) out.close();
+        try {
+            // the fallback isn't atomic: if it is interrupted, the complete temp file is recovered by load()
+            if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+                throw new IOException("Couldn't replace " + file);
+            }
+
+            pending.clear();
+            for (Operation operation : operations) {
+                pending.put(operation.sequenceNumbers.get(0), operation);
+            }
+            recordCount = operations.size();
+        } finally {
+            out = new FileOutputStream(file, true);
+        }
+
+        syncedSequenceNumber = writtenSequenceNumber;
+    }
+
+    private File getTempFile() {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    // must be called while holding the lock
+    private void load() throws IOException {
+        File temp = getTempFile();
+        if (temp.exists()) {
+            if (file.exists()) {
+                // the compaction was interrupted before the replacement, the temp file may be incomplete
+                LOG.info("load() deleting an incomplete compacted log");
+                if (!temp.delete()) throw new IOException("Couldn't delete " + temp);
+            } else {
+                // the compaction was interrupted after the old log was deleted
+                LOG.info("load() recovering the compacted log");
+                if (!temp.renameTo(file)) throw new IOException("Couldn't rename " + temp);
+            }
+        }
+
+        if (!file.exists()) return;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+
+                try {
+                    readRecord(line);
+                } catch (IOException | RuntimeException e) {
+                    // a torn record may only be the last one
+                    LOG.warn("load() couldn't parse a record, ignoring the rest of the log", e);
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        LOG.debug("load() loaded {} pending operations", pending.size());
+    }
+
+    private void readRecord(String line) throws IOException {
+        JsonReader reader = JsonReader.of(new Buffer().writeUtf8(line));
+
+        String op = null;
+        long ackSequenceNumber = -1;
+        List<Long> sequenceNumbers = new ArrayList<>(1);
+        int articleID = -1;
+        Map<String, String> params = new LinkedHashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "op":
+                    op = reader.nextString();
+                    break;
+
+                case "seq":
+                    ackSequenceNumber = reader.nextLong();
+                    break;
+
+                case "seqs":
+                    reader.beginArray();
+                    while (reader.hasNext()) sequenceNumbers.add(reader.nextLong());
+                    reader.endArray();
+                    break;
+
+                case "id":
+                    articleID = reader.nextInt();
+                    break;
+
+                case "params":
+                    reader.beginObject();
+                    while (reader.hasNext()) params.put(reader.nextName(), reader.nextString());
+                    reader.endObject();
+                    break;
+
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (ACK.equals(op)) {
+            pending.remove(ackSequenceNumber);
+            nextSequenceNumber = Math.max(nextSequenceNumber, ackSequenceNumber + 1);
+            return;
+        }
+
+        Type type = Type.fromValue(op);
+        if (type == null || sequenceNumbers.isEmpty()) {
+            throw new IOException("Invalid record: " + line);
+        }
+
+        pending.put(sequenceNumbers.get(0), new Operation(sequenceNumbers, type, articleID, params));
+        for (Long sequenceNumber : sequenceNumbers) {
+            nextSequenceNumber = Math.max(nextSequenceNumber, sequenceNumber + 1);
+        }
+        writtenSequenceNumber = nextSequenceNumber - 1;
+    }
+
+    private static byte[] toRecord(Operation operation) throws IOException {
+        Buffer buffer = new Buffer();
+        JsonWriter writer = JsonWriter.of(buffer);
+
+        writer.beginObject();
+        writer.name("op").value(operation.type.value);
+        writer.name("seqs").beginArray();
+        for (Long sequenceNumber : operation.sequenceNumbers) writer.value(sequenceNumber);
+        writer.endArray();
+        if (operation.articleID >= 0) writer.name("id").value(operation.articleID);
+        writer.name("params").beginObject();
+        for (Map.Entry<String, String> param : operation.params.entrySet()) {
+            writer.name(param.getKey()).value(param.getValue());
+        }
+        writer.endObject();
+        writer.endObject();
+        writer.close();
+
+        return buffer.writeByte('\n').readByteArray();
+    }
+
+    private static byte[] toAckRecord(long sequenceNumber) throws IOException {
+        Buffer buffer = new Buffer();
+        JsonWriter writer = JsonWriter.of(buffer);
+
+        writer.beginObject();
+        writer.name("op").value(ACK);
+        writer.name("seq").value(sequenceNumber);
+        writer.endObject();
+        writer.close();
+
+        return buffer.writeByte('\n').readByteArray();
+    }
+
+    private static Map<String, String> toParams(FormBody formBody) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i < formBody.size(); i++) {
+            params.put(formBody.name(i), formBody.value(i));
+        }
+        return params;
+    }
+
+    private static FormBody toFormBody(Map<String, String> params) {
+        FormBody.Builder builder = new FormBody.Builder();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            builder.add(param.getKey(), param.getValue());
+        }
+        return builder.build();
+    }
+
+}
@@ -6,6 +6,7 @@ import wallabag.apiwrapper.exceptions.NotFoundException;
 import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The {@code NotFoundPolicy} enum represents the available behaviors
@@ -77,26 +78,48 @@ public enum NotFoundPolicy {
      *         </ul>
      *     </li>
      * </ol>
+     * <p>The results of the checks are remembered for a short time
+     * (see {@link WallabagService#setServerHealthTtl(long, TimeUnit)}), so the policy usually performs
+     * no extra requests: any successful API response confirms that the server is available,
+     * while network and server errors make the policy test the server again.
+     * After a failed test, {@code NotFoundException}s are rethrown without testing until the time expires.
      */
     SMART {
         @Override
         void handle(NotFoundException originalNfe, WallabagService service, AvailabilityChecker availabilityChecker)
                 throws IOException, UnsuccessfulResponseException {
-            LOG.debug("Smart policy: checking that the server is available");
-            try {
-                service.testServerAccessibility();
-            } catch (NotFoundException nfe) {
-                LOG.info("Smart policy: the server is actually not found");
-                LOG.debug("Smart policy: NFE during test", nfe);
+            ServerHealth serverHealth = service.getServerHealth();
+
+            if (serverHealth.isFailing()) {
+                LOG.info("Smart policy: the server was recently not found, rethrowing original NFE");
                 throw originalNfe;
-            } catch (IOException | UnsuccessfulResponseException e) {
-                LOG.warn("Smart policy: unexpected exception during test, rethrowing", e);
-                throw e;
+            } else if (serverHealth.isAccessible()) {
+                LOG.debug("Smart policy: the server is known to be available");
+            } else {
+                LOG.debug("Smart policy: checking that the server is available");
+                try {
+                    service.testServerAccessibility();
+                } catch (NotFoundException nfe) {
+                    LOG.info("Smart policy: the server is actually not found");
+                    LOG.debug("Smart policy: NFE during test", nfe);
+                    serverHealth.failing();
+                    throw originalNfe;
+                } catch (IOException | UnsuccessfulResponseException e) {
+                    LOG.warn("Smart policy: unexpected exception during test, rethrowing", e);
+                    throw e;
+                }
+                serverHealth.accessible();
             }
 
             if (availabilityChecker != null) {
                 LOG.info("Smart policy: the server is available, checking method availability");
-                if (availabilityChecker.isAvailable(service)) {
+                Boolean available = serverHealth.isAvailable(availabilityChecker);
+                if (available == null) {
+                    available = availabilityChecker.isAvailable(service);
+                    serverHealth.setAvailable(availabilityChecker, available);
+                }
+
+                if (available) {
                     LOG.info("Smart policy: method is available, ignoring NFE");
                 } else {
                     LOG.info("Smart policy: method is not available, rethrowing original NFE");
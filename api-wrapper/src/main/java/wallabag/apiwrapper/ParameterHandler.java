@@ -43,7 +43,8 @@ import wallabag.apiwrapper.models.TokenResponse;
  * </ul>
  * <p>{@code ParameterHandler} is not used for API methods that don't require authorization
  * (like {@link WallabagService#getVersion()}).
- * <p>{@code WallabagService} does not create additional threads,
+ * <p>{@code WallabagService} does not create additional threads
+ * (except for the helpers that explicitly state otherwise, like {@link ArticleModificationCoalescer}),
  * so if only one thread is using a {@code WallabagService} instance,
  * {@code ParameterHandler} usage is inherently thread-safe.
  * <p>Thread safety is enforced on a {@code WallabagService}-instance level,
@@ -0,0 +1,256 @@
+package wallabag.apiwrapper;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.services.Markers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code PrioritySchedulingInterceptor} class is an OkHttp {@code Interceptor}
+ * that limits the number of simultaneous API requests and lets the waiting requests proceed
+ * in the order of their {@link RequestPriority}, so user-facing requests don't wait behind background traffic.
+ * <p>The requests are scheduled per host ({@code scheme://host:port}): the limits apply to each host separately,
+ * and the requests to different hosts don't wait for each other.
+ * <p>Each priority lane has its own limit of simultaneous requests (in addition to the overall limit),
+ * so background requests never occupy all the slots.
+ * To prevent starvation, waiting requests age: a request waiting for longer than
+ * the {@code agingDelay} is preferred to a request one priority level higher that arrived later.
+ * <p>Only the API requests are scheduled (the token requests and other unauthenticated requests are not),
+ * which requires the interceptor to be added as an application interceptor to the {@code OkHttpClient}
+ * passed to {@link WallabagService#instance(String, ParameterHandler, okhttp3.OkHttpClient, CachedVersionHandler)}.
+ * If {@link RetryInterceptor} is also used, it should be added first,
+ * so the requests don't occupy the slots while waiting for a retry.
+ * <p>The interceptor blocks the calling thread while a request is waiting.
+ * For enqueued (asynchronous) calls this means the threads of the OkHttp {@code Dispatcher},
+ * so its limits ({@code maxRequestsPerHost} in particular) should be higher than the limits of this interceptor.
+ * <p>This class is thread safe.
+ */
+public class PrioritySchedulingInterceptor implements Interceptor {
+
+    /**
+     * The default maximum number of simultaneous requests.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT = 4;
+
+    /**
+     * The default aging delay in milliseconds.
+     */
+    public static final long DEFAULT_AGING_DELAY_MILLIS = 2000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrioritySchedulingInterceptor.class);
+
+    private static class Ticket {
+        final RequestPriority priority;
+        final long deadline;
+        final long sequence;
+
+        Ticket(RequestPriority priority, long deadline, long sequence) {
+            this.priority = priority;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        boolean isBefore(Ticket other) {
+            long diff = deadline - other.deadline;
+            return diff < 0 || diff == 0 && sequence < other.sequence;
+        }
+    }
+
+    private final int maxConcurrent;
+    private final int[] laneLimits = new int[RequestPriority.values().length];
+    private final long agingDelayNanos;
+
+    private final Map<String, Scheduler> schedulers = new HashMap<>(); // guarded by itself
+
+    /**
+     * Creates an interceptor with the {@link #DEFAULT_MAX_CONCURRENT} overall limit,
+     * the {@link RequestPriority#BULK} lane limited to half of it
+     * and the {@link #DEFAULT_AGING_DELAY_MILLIS}.
+     */
+    public PrioritySchedulingInterceptor() {
+        this(DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT / 2,
+                DEFAULT_AGING_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates an interceptor with the specified parameters.
+     * The {@link RequestPriority#INTERACTIVE} lane is limited by the {@code maxConcurrent} only.
+     *
+     * @param maxConcurrent the maximum number of simultaneous requests
+     * @param normalLimit   the maximum number of simultaneous {@link RequestPriority#NORMAL} requests
+     * @param bulkLimit     the maximum number of simultaneous {@link RequestPriority#BULK} requests
+     * @param agingDelay    the waiting time that equals one priority level
+     * @param timeUnit      the {@code TimeUnit} of the {@code agingDelay}
+     * @throws IllegalArgumentException if any of the numbers is not positive
+     */
+    public PrioritySchedulingInterceptor(int maxConcurrent, int normalLimit, int bulkLimit,
+                                         long agingDelay, TimeUnit timeUnit) {
+        this.maxConcurrent = positiveNumber(maxConcurrent, "maxConcurrent");
+        laneLimits[RequestPriority.INTERACTIVE.ordinal()] = maxConcurrent;
+        laneLimits[RequestPriority.NORMAL.ordinal()] = positiveNumber(normalLimit, "normalLimit");
+        laneLimits[RequestPriority.BULK.ordinal()] = positiveNumber(bulkLimit, "bulkLimit");
+        this.agingDelayNanos = timeUnit.toNanos(positiveNumber(agingDelay, "agingDelay"));
+    }
+
+    /**
+     * Returns the number of requests of the {@code priority} currently being executed (to all hosts).
+     *
+     * @param priority the priority
+     * @return the number of requests in flight
+     * @throws NullPointerException if the {@code priority} is {@code null}
+     */
+    public int getInFlight(RequestPriority priority) {
+        nonNullValue(priority, "priority");
+
+        int count = 0;
+        for (Scheduler scheduler : getSchedulers()) {
+            count += scheduler.getInFlight(priority);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of requests of the {@code priority} currently waiting for a slot (to all hosts).
+     *
+     * @param priority the priority
+     * @return the number of waiting requests
+     * @throws NullPointerException if the {@code priority} is {@code null}
+     */
+    public int getQueued(RequestPriority priority) {
+        nonNullValue(priority, "priority");
+
+        int count = 0;
+        for (Scheduler scheduler : getSchedulers()) {
+            count += scheduler.getQueued(priority);
+        }
+        return count;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (request.header(Markers.REQUIRES_AUTH_NAME) == null) {
+            return chain.proceed(request);
+        }
+
+        RequestPriority priority = RequestPriority.of(request);
+        Scheduler scheduler = getScheduler(request.url());
+
+        scheduler.acquire(priority);
+        try {
+            return chain.proceed(request);
+        } finally {
+            scheduler.release(priority);
+        }
+    }
+
+    private Scheduler getScheduler(HttpUrl url) {
+        String key = url.scheme() + "://" + url.host() + ":" + url.port();
+
+        synchronized (schedulers) {
+            Scheduler scheduler = schedulers.get(key);
+            if (scheduler == null) {
+                scheduler = new Scheduler();
+                schedulers.put(key, scheduler);
+            }
+            return scheduler;
+        }
+    }
+
+    private List<Scheduler> getSchedulers() {
+        synchronized (schedulers) {
+            return new ArrayList<>(schedulers.values());
+        }
+    }
+
+    // the scheduling state of a host
+    private class Scheduler {
+
+        final List<Ticket> waiting = new ArrayList<>();
+        final int[] laneInFlight = new int[RequestPriority.values().length];
+        int inFlight;
+        long sequence;
+
+        synchronized int getInFlight(RequestPriority priority) {
+            return laneInFlight[priority.ordinal()];
+        }
+
+        synchronized int getQueued(RequestPriority priority) {
+            int count = 0;
+            for (Ticket ticket : waiting) {
+                if (ticket.priority == priority) count++;
+            }
+            return count;
+        }
+
+        synchronized void acquire(RequestPriority priority) throws InterruptedIOException {
+            // a lower priority is the same as arriving later,
+            // so waiting requests of any priority eventually become the first
+            Ticket ticket = new Ticket(priority,
+                    System.nanoTime() + priority.ordinal() * agingDelayNanos, sequence++);
+
+            waiting.add(ticket);
+            try {
+                while (next() != ticket) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                waiting.remove(ticket);
+                notifyAll();
+
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a request slot");
+            }
+
+            waiting.remove(ticket);
+            inFlight++;
+            laneInFlight[priority.ordinal()]++;
+
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("acquire() {} request started, in flight: {}", priority, inFlight);
+            }
+
+            // the next ticket may be able to proceed too
+            if (!waiting.isEmpty()) notifyAll();
+        }
+
+        synchronized void release(RequestPriority priority) {
+            inFlight--;
+            laneInFlight[priority.ordinal()]--;
+            notifyAll();
+        }
+
+        /**
+         * Returns the ticket that may proceed now or {@code null}.
+         */
+        Ticket next() {
+            if (inFlight >= maxConcurrent) return null;
+
+            Ticket next = null;
+            for (Ticket ticket : waiting) {
+                int lane = ticket.priority.ordinal();
+                if (laneInFlight[lane] >= laneLimits[lane]) continue;
+
+                if (next == null || ticket.isBefore(next)) next = ticket;
+            }
+            return next;
+        }
+
+    }
+
+}
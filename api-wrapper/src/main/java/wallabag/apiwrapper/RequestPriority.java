@@ -0,0 +1,167 @@
+package wallabag.apiwrapper;
+
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.io.IOException;
+
+/**
+ * The {@code RequestPriority} enum represents the priority lanes used by {@link PrioritySchedulingInterceptor}.
+ * <p>The priority of a request is determined when its call is executed or enqueued:
+ * it is either set explicitly (for example, with {@link ArticlesQueryBuilder#priority(RequestPriority)}),
+ * or taken from the current thread (see {@link #setCurrent(RequestPriority)}),
+ * or defaults to {@link #NORMAL}.
+ * <p>The priority of a single call may be set like this:
+ * <pre>{@code
+ * RequestPriority previous = RequestPriority.setCurrent(RequestPriority.INTERACTIVE);
+ * try {
+ *     article = wallabagService.getArticle(articleId);
+ * } finally {
+ *     RequestPriority.setCurrent(previous);
+ * }
+ * }</pre>
+ */
+public enum RequestPriority {
+
+    /**
+     * User-facing requests that someone waits for.
+     */
+    INTERACTIVE,
+
+    /**
+     * The default priority.
+     */
+    NORMAL,
+
+    /**
+     * Background requests like synchronization or bulk exports.
+     */
+    BULK;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Sets the priority of the requests executed or enqueued on the current thread,
+     * returns the previously set priority.
+     * <p>The previous value should be restored once the requests are made.
+     *
+     * @param priority the priority to set or {@code null} to reset it
+     * @return the previously set priority or {@code null} if it wasn't set
+     */
+    public static RequestPriority setCurrent(RequestPriority priority) {
+        RequestPriority previous = CURRENT.get();
+
+        if (priority != null) {
+            CURRENT.set(priority);
+        } else {
+            CURRENT.remove();
+        }
+
+        return previous;
+    }
+
+    /**
+     * Returns the priority set for the current thread with {@link #setCurrent(RequestPriority)}.
+     *
+     * @return the current priority or {@code null} if it wasn't set
+     */
+    public static RequestPriority getCurrent() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the priority of the {@code request}, {@link #NORMAL} if it wasn't set.
+     *
+     * @param request the request
+     * @return the priority of the request
+     */
+    static RequestPriority of(Request request) {
+        RequestPriority priority = request.tag(RequestPriority.class);
+        return priority != null ? priority : NORMAL;
+    }
+
+    /**
+     * Tags the {@code request} with the current thread's priority unless it already has a priority.
+     */
+    static Request tagRequest(Request request) {
+        RequestPriority current = CURRENT.get();
+        if (current == null || request.tag(RequestPriority.class) != null) return request;
+
+        return request.newBuilder().tag(RequestPriority.class, current).build();
+    }
+
+    /**
+     * Returns a {@code Call} that is executed or enqueued with the {@code priority}
+     * (regardless of the current thread's priority), or the {@code call} itself if the {@code priority} is {@code null}.
+     */
+    static <T> Call<T> bind(Call<T> call, RequestPriority priority) {
+        return priority != null ? new PrioritizedCall<>(call, priority) : call;
+    }
+
+    // the request is tagged (see tagRequest()) when the raw call is created,
+    // which happens on the first execute(), enqueue() or request() call
+    private static class PrioritizedCall<T> implements Call<T> {
+
+        private final Call<T> delegate;
+        private final RequestPriority priority;
+
+        PrioritizedCall(Call<T> delegate, RequestPriority priority) {
+            this.delegate = delegate;
+            this.priority = priority;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            RequestPriority previous = setCurrent(priority);
+            try {
+                return delegate.execute();
+            } finally {
+                setCurrent(previous);
+            }
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            RequestPriority previous = setCurrent(priority);
+            try {
+                delegate.enqueue(callback);
+            } finally {
+                setCurrent(previous);
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return delegate.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return delegate.isCanceled();
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new PrioritizedCall<>(delegate.clone(), priority);
+        }
+
+        @Override
+        public Request request() {
+            RequestPriority previous = setCurrent(priority);
+            try {
+                return delegate.request();
+            } finally {
+                setCurrent(previous);
+            }
+        }
+
+    }
+
+}
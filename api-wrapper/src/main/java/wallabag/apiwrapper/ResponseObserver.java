@@ -0,0 +1,45 @@
+package wallabag.apiwrapper;
+
+import wallabag.apiwrapper.models.Annotation;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Articles;
+import wallabag.apiwrapper.models.Tag;
+
+import java.util.List;
+
+/**
+ * Receives the data decoded by {@link WallabagService} methods,
+ * used by the caching helpers to keep themselves up to date.
+ * <p>The methods are called on the threads that performed the requests and must not block.
+ * Only the requests executed by {@code WallabagService} methods are observed
+ * ({@code *Call} methods executed by the user are not).
+ */
+abstract class ResponseObserver {
+
+    void articleReceived(Article article) {}
+
+    void articlesReceived(Articles articles) {
+        if (articles.embedded != null && articles.embedded.items != null) {
+            for (Article article : articles.embedded.items) {
+                articleReceived(article);
+            }
+        }
+    }
+
+    void articleDeleted(int articleID) {}
+
+    void tagsReceived(List<Tag> tags, boolean allTags) {}
+
+    void articleTagsReceived(int articleID, List<Tag> tags) {}
+
+    void tagsDeleted(List<Tag> tags) {}
+
+    void articleAnnotationsReceived(int articleID, List<Annotation> annotations) {}
+
+    void annotationAdded(int articleID, Annotation annotation) {}
+
+    void annotationUpdated(Annotation annotation) {}
+
+    void annotationDeleted(int annotationID) {}
+
+}
@@ -0,0 +1,163 @@
+package wallabag.apiwrapper;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static wallabag.apiwrapper.Utils.nonNegativeNumber;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code RetryInterceptor} class is an OkHttp {@code Interceptor}
+ * that retries idempotent requests failed due to transient errors.
+ * <p>Only {@code GET} and {@code HEAD} requests are retried.
+ * Other API methods are not retried even if they are idempotent by design:
+ * for example, repeating a {@code DELETE} that actually succeeded turns the result into a "not found" error.
+ * <p>A request is retried if it failed with an {@code IOException} (unless the call was canceled)
+ * or received a {@code 429}, {@code 502}, {@code 503} or {@code 504} response.
+ * The delay before the n-th retry is random between zero and {@code min(maxDelay, baseDelay * 2^(n-1))}
+ * ("full jitter"); if the response has a {@code Retry-After} header, its value is used instead.
+ * If the {@code Retry-After} delay is longer than the {@code maxDelay}, the response is returned as is.
+ * <p>The interceptor should be added as an application interceptor to the {@code OkHttpClient}
+ * passed to {@link WallabagService#instance(String, ParameterHandler, okhttp3.OkHttpClient, CachedVersionHandler)}
+ * (see also {@link ConcurrencyLimitInterceptor}).
+ * <p>This class is thread safe.
+ */
+public class RetryInterceptor implements Interceptor {
+
+    /**
+     * The default maximum number of retries.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    /**
+     * The default base delay in milliseconds.
+     */
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 500;
+
+    /**
+     * The default maximum delay in milliseconds.
+     */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 30000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetryInterceptor.class);
+
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private final Random random = new Random();
+
+    /**
+     * Creates an interceptor with the default parameters
+     * ({@link #DEFAULT_MAX_RETRIES}, {@link #DEFAULT_BASE_DELAY_MILLIS}, {@link #DEFAULT_MAX_DELAY_MILLIS}).
+     */
+    public RetryInterceptor() {
+        this(DEFAULT_MAX_RETRIES, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates an interceptor with the specified parameters.
+     *
+     * @param maxRetries the maximum number of retries of a request
+     * @param baseDelay  the base delay
+     * @param maxDelay   the maximum delay
+     * @param timeUnit   the {@code TimeUnit} of the delays
+     * @throws IllegalArgumentException if {@code maxRetries < 0} or any of the delays is not positive
+     */
+    public RetryInterceptor(int maxRetries, long baseDelay, long maxDelay, TimeUnit timeUnit) {
+        this.maxRetries = nonNegativeNumber(maxRetries, "maxRetries");
+        this.baseDelayMillis = timeUnit.toMillis(positiveNumber(baseDelay, "baseDelay"));
+        this.maxDelayMillis = timeUnit.toMillis(positiveNumber(maxDelay, "maxDelay"));
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (!"GET".equals(request.method()) && !"HEAD".equals(request.method())) {
+            return chain.proceed(request);
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (attempt >= maxRetries || chain.call().isCanceled()) throw e;
+
+                long delay = backoffDelay(attempt);
+                LOG.info("intercept() retrying {} in {} ms after exception: {}", request.url(), delay, e.toString());
+                sleep(delay);
+                continue;
+            }
+
+            if (attempt >= maxRetries || !ConcurrencyLimitInterceptor.isOverloaded(response.code())) {
+                return response;
+            }
+
+            long delay = retryAfterDelay(response.header("Retry-After"));
+            if (delay > maxDelayMillis) return response;
+            if (delay < 0) delay = backoffDelay(attempt);
+
+            LOG.info("intercept() retrying {} in {} ms after response code {}", request.url(), delay, response.code());
+            response.close();
+            sleep(delay);
+        }
+    }
+
+    private long backoffDelay(int attempt) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 30));
+        if (cap <= 0) cap = maxDelayMillis;
+
+        synchronized (random) {
+            return (long) (random.nextDouble() * cap);
+        }
+    }
+
+    /**
+     * Returns the delay specified by the {@code Retry-After} header value in milliseconds
+     * or {@code -1} if the value is missing or invalid.
+     */
+    static long retryAfterDelay(String retryAfter) {
+        if (retryAfter == null) return -1;
+        retryAfter = retryAfter.trim();
+
+        try {
+            long seconds = Long.parseLong(retryAfter);
+            return seconds >= 0 ? TimeUnit.SECONDS.toMillis(seconds) : -1;
+        } catch (NumberFormatException ignored) {}
+
+        DateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            Date date = format.parse(retryAfter);
+            return Math.max(0, date.getTime() - System.currentTimeMillis());
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a retry");
+        }
+    }
+
+}
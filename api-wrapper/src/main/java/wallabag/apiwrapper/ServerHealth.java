@@ -0,0 +1,107 @@
+package wallabag.apiwrapper;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the results of the {@link NotFoundPolicy#SMART} checks for a short time,
+ * so the classification of {@code NotFoundException}s usually doesn't require extra requests.
+ * <p>The state works as a circuit breaker:
+ * <ul>
+ *     <li>"accessible" - the server was recently confirmed to be accessible
+ *     (by a test or by any successful API response);</li>
+ *     <li>"failing" - a test recently failed, the tests are not repeated until the TTL expires;</li>
+ *     <li>"unknown" - otherwise (the TTL expired, or a network error or a server error was observed).</li>
+ * </ul>
+ * <p>The results of the {@link NotFoundPolicy.AvailabilityChecker}s are remembered per checker instance
+ * (static method references, like {@code CompatibilityHelper::isSearchSupported}, are evaluated
+ * to the same instance every time).
+ */
+class ServerHealth {
+
+    static final long DEFAULT_TTL_MILLIS = 30000;
+
+    private enum State {
+        UNKNOWN, ACCESSIBLE, FAILING
+    }
+
+    private static class Support {
+        final boolean available;
+        final long timestamp;
+
+        Support(boolean available, long timestamp) {
+            this.available = available;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final Map<NotFoundPolicy.AvailabilityChecker, Support> support = new WeakHashMap<>();
+
+    private long ttlNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TTL_MILLIS);
+
+    private State state = State.UNKNOWN;
+    private long stateTimestamp;
+
+    synchronized void setTtl(long ttl, TimeUnit timeUnit) {
+        ttlNanos = timeUnit.toNanos(ttl);
+    }
+
+    synchronized boolean isAccessible() {
+        return currentState() == State.ACCESSIBLE;
+    }
+
+    synchronized boolean isFailing() {
+        return currentState() == State.FAILING;
+    }
+
+    synchronized void accessible() {
+        setState(State.ACCESSIBLE);
+    }
+
+    synchronized void failing() {
+        setState(State.FAILING);
+    }
+
+    /**
+     * Forgets that the server is accessible, the next check runs a test.
+     */
+    synchronized void suspect() {
+        if (state == State.ACCESSIBLE) state = State.UNKNOWN;
+    }
+
+    /**
+     * Returns the remembered result of the {@code checker} or {@code null} if it is unknown or expired.
+     */
+    synchronized Boolean isAvailable(NotFoundPolicy.AvailabilityChecker checker) {
+        Support s = support.get(checker);
+        if (s == null || isExpired(s.timestamp)) return null;
+        return s.available;
+    }
+
+    synchronized void setAvailable(NotFoundPolicy.AvailabilityChecker checker, boolean available) {
+        if (ttlNanos > 0) support.put(checker, new Support(available, System.nanoTime()));
+    }
+
+    synchronized void reset() {
+        state = State.UNKNOWN;
+        support.clear();
+    }
+
+    private State currentState() {
+        if (state != State.UNKNOWN && isExpired(stateTimestamp)) state = State.UNKNOWN;
+        return state;
+    }
+
+    private void setState(State state) {
+        if (ttlNanos <= 0) return;
+
+        this.state = state;
+        this.stateTimestamp = System.nanoTime();
+    }
+
+    private boolean isExpired(long timestamp) {
+        return System.nanoTime() - timestamp >= ttlNanos;
+    }
+
+}
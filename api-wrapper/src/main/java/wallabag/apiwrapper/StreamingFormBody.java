@@ -0,0 +1,265 @@
+package wallabag.apiwrapper;
+
+import okhttp3.FormBody;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A form-encoded request body with a single field value streamed from a {@link ContentSource}:
+ * the value is percent-encoded on the fly while being written to the request sink,
+ * so it is never held in memory as a whole.
+ */
+class StreamingFormBody extends RequestBody {
+
+    private static final MediaType CONTENT_TYPE = MediaType.get("application/x-www-form-urlencoded");
+
+    private static final byte[] HEX_DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * A source of a streamed field value.
+     */
+    static abstract class ContentSource {
+
+        private final AtomicBoolean consumed = new AtomicBoolean();
+
+        /**
+         * Returns {@code true} if the content can be read more than once.
+         */
+        abstract boolean isRepeatable();
+
+        /**
+         * Opens the content as a UTF-8 byte source.
+         */
+        abstract Source openSource() throws IOException;
+
+        Source open() throws IOException {
+            if (!isRepeatable() && consumed.getAndSet(true)) {
+                throw new IOException("The content can't be read more than once;"
+                        + " use a File if the request may need to be repeated");
+            }
+            return openSource();
+        }
+
+        String readString() throws IOException {
+            BufferedSource source = Okio.buffer(open());
+            try {
+                return source.readUtf8();
+            } finally {
+                source.close();
+            }
+        }
+
+    }
+
+    static ContentSource of(final Source source) {
+        return new ContentSource() {
+            @Override
+            boolean isRepeatable() {
+                return false;
+            }
+
+            @Override
+            Source openSource() {
+                return source;
+            }
+        };
+    }
+
+    static ContentSource of(final File file) {
+        return new ContentSource() {
+            @Override
+            boolean isRepeatable() {
+                return true;
+            }
+
+            @Override
+            Source openSource() throws IOException {
+                return Okio.source(file);
+            }
+        };
+    }
+
+    static ContentSource of(final Reader reader) {
+        return new ContentSource() {
+            @Override
+            boolean isRepeatable() {
+                return false;
+            }
+
+            @Override
+            Source openSource() {
+                return new ReaderSource(reader);
+            }
+        };
+    }
+
+    /**
+     * Encodes chars from a {@code Reader} to UTF-8.
+     */
+    private static class ReaderSource implements Source {
+
+        private final Reader reader;
+        private final char[] chars = new char[CHUNK_SIZE];
+        private int carried;
+        // the encoded bytes that didn't fit into the requested byte count
+        private final Buffer encoded = new Buffer();
+
+        ReaderSource(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            if (byteCount < 0) throw new IllegalArgumentException("byteCount < 0: " + byteCount);
+            if (byteCount == 0) return 0;
+
+            // a char takes up to 3 bytes in UTF-8, so this mostly reads no more than requested
+            int maxChars = (int) Math.max(1, Math.min(chars.length - carried, byteCount / 3));
+            while (encoded.size() == 0) {
+                if (!encodeChunk(maxChars)) return -1;
+            }
+
+            return encoded.read(sink, Math.min(byteCount, encoded.size()));
+        }
+
+        private boolean encodeChunk(int maxChars) throws IOException {
+            int read = reader.read(chars, carried, Math.min(maxChars, chars.length - carried));
+            if (read == -1) {
+                if (carried == 0) return false;
+
+                // a dangling high surrogate
+                encoded.writeUtf8(new String(chars, 0, carried));
+                carried = 0;
+                return true;
+            }
+
+            int end = carried + read;
+            int encodable = end;
+            // don't split surrogate pairs between chunks
+            if (Character.isHighSurrogate(chars[end - 1])) encodable--;
+
+            encoded.writeUtf8(new String(chars, 0, encodable));
+
+            carried = end - encodable;
+            if (carried > 0) chars[0] = chars[end - 1];
+
+            return true;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+    }
+
+    private final FormBody fields;
+    private final String name;
+    private final ContentSource content;
+
+    StreamingFormBody(FormBody fields, String name, ContentSource content) {
+        this.fields = fields;
+        this.name = name;
+        this.content = content;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            sink.writeUtf8(fields.encodedName(i))
+                    .writeByte('=')
+                    .writeUtf8(fields.encodedValue(i))
+                    .writeByte('&');
+        }
+
+        // the name is a plain API parameter name that needs no encoding
+        sink.writeUtf8(name).writeByte('=');
+
+        Source source = content.open();
+        try {
+            Buffer buffer = new Buffer();
+            byte[] encoded = new byte[CHUNK_SIZE * 3];
+            while (source.read(buffer, CHUNK_SIZE) != -1) {
+                while (!buffer.exhausted()) {
+                    int length = 0;
+                    for (int i = 0; i < CHUNK_SIZE && !buffer.exhausted(); i++) {
+                        length = encode(buffer.readByte(), encoded, length);
+                    }
+                    sink.write(encoded, 0, length);
+                }
+            }
+        } finally {
+            source.close();
+        }
+    }
+
+    private static int encode(byte b, byte[] out, int offset) {
+        if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '-' || b == '.' || b == '_' || b == '*') {
+            out[offset++] = b;
+        } else if (b == ' ') {
+            out[offset++] = '+';
+        } else {
+            out[offset++] = '%';
+            out[offset++] = HEX_DIGITS[(b >> 4) & 0xF];
+            out[offset++] = HEX_DIGITS[b & 0xF];
+        }
+        return offset;
+    }
+
+    /**
+     * Compresses the delegate body with gzip.
+     * The request must have the {@code Content-Encoding: gzip} header.
+     */
+    static class GzipRequestBody extends RequestBody {
+
+        private final RequestBody delegate;
+
+        GzipRequestBody(RequestBody delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
+            delegate.writeTo(gzipSink);
+            gzipSink.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,279 @@
+package wallabag.apiwrapper;
+
+import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Tag;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static wallabag.apiwrapper.Utils.nonEmptyString;
+import static wallabag.apiwrapper.Utils.nonNullValue;
+import static wallabag.apiwrapper.Utils.positiveNumber;
+
+/**
+ * The {@code TagDictionary} class maintains a local map of tag labels and IDs.
+ * <p>The dictionary is populated by {@link #load()} (which performs {@link WallabagService#getTags()})
+ * and is kept up to date using the data from the responses to the requests performed
+ * by the {@link WallabagService} it belongs to:
+ * tags of every decoded {@link Article} are added, tags deleted with
+ * {@link WallabagService#deleteTag(String)}, {@link WallabagService#deleteTag(int)}
+ * or {@link WallabagService#deleteTags(Collection)} are removed,
+ * any {@link WallabagService#getTags()} call replaces the content.
+ * The changes made by other clients are only reflected after a reload.
+ * <p>Lookups don't perform network requests (except for {@link #resolveID(String)}) and take constant time,
+ * {@link #complete(String, int)} takes logarithmic time.
+ * <p>The returned {@link Tag} objects are shared and must not be modified.
+ * <p>This class is thread safe.
+ */
+public class TagDictionary {
+
+    private static class Tables {
+        final Map<String, Tag> tagsByLabel = new ConcurrentHashMap<>();
+        final Map<Integer, Tag> tagsByID = new ConcurrentHashMap<>();
+        final NavigableMap<String, Tag> tagsByNormalizedLabel = new ConcurrentSkipListMap<>();
+    }
+
+    private final WallabagService wallabagService;
+
+    // replaced as a whole on reload, so lookups never see a partially filled dictionary
+    private volatile Tables tables = new Tables();
+
+    private final Object updateLock = new Object();
+
+    private volatile boolean loaded;
+
+    final ResponseObserver observer = new ResponseObserver() {
+        @Override
+        void articleReceived(Article article) {
+            if (article.tags != null) add(article.tags);
+        }
+
+        @Override
+        void tagsReceived(List<Tag> tags, boolean allTags) {
+            if (allTags) {
+                replace(tags);
+            } else {
+                add(tags);
+            }
+        }
+
+        @Override
+        void tagsDeleted(List<Tag> tags) {
+            remove(tags);
+        }
+    };
+
+    TagDictionary(WallabagService wallabagService) {
+        this.wallabagService = wallabagService;
+    }
+
+    /**
+     * Loads all tags from the server, replacing the content of the dictionary.
+     *
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public void load() throws IOException, UnsuccessfulResponseException {
+        // the dictionary is updated by the observer
+        wallabagService.getTags();
+    }
+
+    /**
+     * Calls {@link #load()} if the dictionary was never loaded.
+     *
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public void ensureLoaded() throws IOException, UnsuccessfulResponseException {
+        if (!loaded) load();
+    }
+
+    /**
+     * Returns {@code true} if the full tag list was loaded at least once.
+     *
+     * @return {@code true} if the dictionary was loaded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the ID of the tag with the specified {@code label}
+     * or {@code null} if the tag is not present in the dictionary.
+     *
+     * @param label the tag label
+     * @return the tag ID or {@code null}
+     */
+    public Integer getID(String label) {
+        Tag tag = tables.tagsByLabel.get(nonEmptyString(label, "label"));
+        return tag != null ? tag.id : null;
+    }
+
+    /**
+     * Returns the ID of the tag with the specified {@code label}
+     * or {@code null} if there's no such tag.
+     * The dictionary is loaded first if it was never loaded.
+     *
+     * @param label the tag label
+     * @return the tag ID or {@code null}
+     * @throws IOException                   in case of network errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public Integer resolveID(String label) throws IOException, UnsuccessfulResponseException {
+        nonEmptyString(label, "label");
+
+        ensureLoaded();
+        return getID(label);
+    }
+
+    /**
+     * Returns the label of the tag with the specified {@code id}
+     * or {@code null} if the tag is not present in the dictionary.
+     *
+     * @param id the tag ID
+     * @return the tag label or {@code null}
+     */
+    public String getLabel(int id) {
+        Tag tag = tables.tagsByID.get(id);
+        return tag != null ? tag.label : null;
+    }
+
+    /**
+     * Returns the {@link Tag} with the specified {@code label}
+     * or {@code null} if the tag is not present in the dictionary.
+     *
+     * @param label the tag label
+     * @return the {@link Tag} or {@code null}
+     */
+    public Tag getTag(String label) {
+        return tables.tagsByLabel.get(nonEmptyString(label, "label"));
+    }
+
+    /**
+     * Returns the {@link Tag} with the specified {@code id}
+     * or {@code null} if the tag is not present in the dictionary.
+     *
+     * @param id the tag ID
+     * @return the {@link Tag} or {@code null}
+     */
+    public Tag getTag(int id) {
+        return tables.tagsByID.get(id);
+    }
+
+    /**
+     * Returns up to {@code limit} tags which labels start with the specified {@code prefix} (case insensitive),
+     * ordered by label.
+     *
+     * @param prefix the label prefix, may be empty
+     * @param limit  the maximum number of tags to return
+     * @return a {@code List} of matching {@link Tag}s
+     * @throws NullPointerException     if the {@code prefix} is {@code null}
+     * @throws IllegalArgumentException if {@code limit <= 0}
+     */
+    public List<Tag> complete(String prefix, int limit) {
+        nonNullValue(prefix, "prefix");
+        positiveNumber(limit, "limit");
+
+        String normalizedPrefix = normalize(prefix);
+
+        List<Tag> result = new ArrayList<>();
+        NavigableMap<String, Tag> tail = tables.tagsByNormalizedLabel.tailMap(normalizedPrefix, true);
+        for (Map.Entry<String, Tag> entry : tail.entrySet()) {
+            if (!entry.getKey().startsWith(normalizedPrefix) || result.size() >= limit) break;
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns all tags present in the dictionary, ordered by label.
+     *
+     * @return a {@code List} of {@link Tag}s
+     */
+    public List<Tag> getTags() {
+        return new ArrayList<>(tables.tagsByNormalizedLabel.values());
+    }
+
+    /**
+     * Returns the number of tags in the dictionary.
+     *
+     * @return the number of tags
+     */
+    public int size() {
+        return tables.tagsByID.size();
+    }
+
+    private void add(List<Tag> tags) {
+        synchronized (updateLock) {
+            for (Tag tag : tags) {
+                put(tables, tag);
+            }
+        }
+    }
+
+    private void replace(List<Tag> tags) {
+        synchronized (updateLock) {
+            Tables newTables = new Tables();
+            for (Tag tag : tags) {
+                put(newTables, tag);
+            }
+
+            tables = newTables;
+            loaded = true;
+        }
+    }
+
+    private void remove(List<Tag> tags) {
+        synchronized (updateLock) {
+            Tables tables = this.tables;
+            for (Tag tag : tags) {
+                if (tag == null) continue;
+
+                // the ID of a deleted tag may be 0
+                Tag existing = tag.id > 0 ? tables.tagsByID.get(tag.id) : null;
+                if (existing == null && tag.label != null) existing = tables.tagsByLabel.get(tag.label);
+                if (existing != null) removeExisting(tables, existing);
+            }
+        }
+    }
+
+    private static void put(Tables tables, Tag tag) {
+        if (tag == null || tag.id <= 0 || tag.label == null || tag.label.isEmpty()) return;
+
+        Tag existing = tables.tagsByID.get(tag.id);
+        if (existing != null) {
+            if (existing.label.equals(tag.label)) return;
+            removeExisting(tables, existing);
+        }
+        existing = tables.tagsByLabel.get(tag.label);
+        if (existing != null) removeExisting(tables, existing);
+
+        Tag copy = new Tag();
+        copy.id = tag.id;
+        copy.label = tag.label;
+        copy.slug = tag.slug;
+
+        tables.tagsByID.put(copy.id, copy);
+        tables.tagsByLabel.put(copy.label, copy);
+        tables.tagsByNormalizedLabel.put(normalizedKey(copy), copy);
+    }
+
+    private static void removeExisting(Tables tables, Tag tag) {
+        tables.tagsByID.remove(tag.id);
+        tables.tagsByLabel.remove(tag.label);
+        tables.tagsByNormalizedLabel.remove(normalizedKey(tag));
+    }
+
+    private static String normalizedKey(Tag tag) {
+        // the ID keeps the keys unique for labels differing only in case
+        return normalize(tag.label) + '\u0000' + tag.id;
+    }
+
+    private static String normalize(String label) {
+        return label.toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,131 @@
+package wallabag.apiwrapper;
+
+import okhttp3.Request;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The archive format used by {@link TrafficRecorder} and {@link TrafficReplayer}.
+ * <p>An archive is a gzip-compressed stream: a header ({@link #MAGIC}, {@link #VERSION})
+ * followed by the entries, each prefixed with {@link #ENTRY_MARKER}.
+ */
+class TrafficArchive {
+
+    private static final int MAGIC = 0x57425452; // "WBTR"
+    private static final int VERSION = 1;
+    private static final int ENTRY_MARKER = 1;
+
+    static class Entry {
+        String method;
+        String target; // the encoded path and query
+        long offsetMillis; // from the start of the recording
+        long headersMillis; // until the response headers were received
+        long bodyMillis; // reading the response body
+        int code;
+        String message;
+        List<String> headers; // names and values
+        byte[] body;
+    }
+
+    static class Writer implements Closeable {
+
+        private final DataOutputStream out;
+
+        Writer(OutputStream outputStream) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(outputStream)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        void write(Entry entry) throws IOException {
+            out.writeByte(ENTRY_MARKER);
+            writeString(out, entry.method);
+            writeString(out, entry.target);
+            out.writeLong(entry.offsetMillis);
+            out.writeLong(entry.headersMillis);
+            out.writeLong(entry.bodyMillis);
+            out.writeInt(entry.code);
+            writeString(out, entry.message);
+            out.writeInt(entry.headers.size());
+            for (String s : entry.headers) writeString(out, s);
+            out.writeInt(entry.body.length);
+            out.write(entry.body);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+    }
+
+    /**
+     * Returns the target (the encoded path and query) the requests are matched by.
+     */
+    static String getTarget(Request request) {
+        String query = request.url().encodedQuery();
+        return request.url().encodedPath() + (query != null ? "?" + query : "");
+    }
+
+    static List<Entry> read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream)));
+        try {
+            if (in.readInt() != MAGIC) throw new IOException("Not a traffic archive");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported traffic archive version: " + version);
+
+            List<Entry> entries = new ArrayList<>();
+            int marker;
+            while ((marker = in.read()) != -1) {
+                if (marker != ENTRY_MARKER) throw new IOException("Corrupted traffic archive");
+
+                Entry entry = new Entry();
+                try {
+                    entry.method = readString(in);
+                    entry.target = readString(in);
+                    entry.offsetMillis = in.readLong();
+                    entry.headersMillis = in.readLong();
+                    entry.bodyMillis = in.readLong();
+                    entry.code = in.readInt();
+                    entry.message = readString(in);
+                    int headerCount = in.readInt();
+                    entry.headers = new ArrayList<>(headerCount);
+                    for (int i = 0; i < headerCount; i++) entry.headers.add(readString(in));
+                    entry.body = new byte[in.readInt()];
+                    in.readFully(entry.body);
+                } catch (EOFException e) {
+                    // the recording was interrupted, the incomplete entry is dropped
+                    break;
+                }
+                entries.add(entry);
+            }
+            return entries;
+        } catch (EOFException e) {
+            // a truncated gzip stream
+            throw new IOException("Truncated traffic archive", e);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+}
@@ -0,0 +1,154 @@
+package wallabag.apiwrapper;
+
+import okhttp3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wallabag.apiwrapper.services.Markers;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+
+/**
+ * The {@code TrafficRecorder} class is an OkHttp {@code Interceptor}
+ * that records the requests and responses of a {@link WallabagService} with their timings
+ * into a compact archive, so the traffic can be replayed offline by {@link TrafficReplayer}
+ * (e.g. to benchmark changes against real payloads and latencies).
+ * <p>For each request the method and the path with the query are recorded,
+ * for each response: the code, the headers (except {@code Set-Cookie}), the body,
+ * the time until the headers were received and the time spent reading the body.
+ * The request bodies, the {@code Authorization} headers and the token requests are not recorded,
+ * but the responses contain the user's data, so the archives should be treated accordingly.
+ * <p>The response bodies are read into memory as they are recorded.
+ * <p>The interceptor should be added as an application interceptor to the {@code OkHttpClient}
+ * passed to {@link WallabagService#instance(String, ParameterHandler, OkHttpClient, CachedVersionHandler)}.
+ * The recorder must be {@linkplain #close() closed} to complete the archive.
+ * If writing the archive fails, the recording stops, but the requests are not affected.
+ * <p>This class is thread safe.
+ */
+public class TrafficRecorder implements Interceptor, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    private final TrafficArchive.Writer writer;
+    private final long startNanos = System.nanoTime();
+
+    private int recordCount;
+    private boolean closed;
+
+    /**
+     * Creates a recorder writing to the specified file (the file is overwritten).
+     *
+     * @param file the archive file
+     * @throws IOException          if the file could not be created
+     * @throws NullPointerException if the {@code file} is {@code null}
+     */
+    public TrafficRecorder(File file) throws IOException {
+        this(new FileOutputStream(nonNullValue(file, "file")));
+    }
+
+    /**
+     * Creates a recorder writing to the specified stream. The stream is closed when the recorder is closed.
+     *
+     * @param outputStream the stream to write the archive to
+     * @throws IOException          if the archive header could not be written
+     * @throws NullPointerException if the {@code outputStream} is {@code null}
+     */
+    public TrafficRecorder(OutputStream outputStream) throws IOException {
+        writer = new TrafficArchive.Writer(nonNullValue(outputStream, "outputStream"));
+    }
+
+    /**
+     * Returns the number of recorded request/response pairs.
+     *
+     * @return the number of records
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (isTokenRequest(request)) return chain.proceed(request);
+
+        long start = System.nanoTime();
+        Response response = chain.proceed(request);
+        long headersNanos = System.nanoTime() - start;
+
+        byte[] body = new byte[0];
+        MediaType contentType = null;
+        ResponseBody responseBody = response.body();
+        if (responseBody != null) {
+            contentType = responseBody.contentType();
+            body = responseBody.bytes(); // closes the body
+        }
+        long bodyNanos = System.nanoTime() - start - headersNanos;
+
+        TrafficArchive.Entry entry = new TrafficArchive.Entry();
+        entry.method = request.method();
+        entry.target = TrafficArchive.getTarget(request);
+        entry.offsetMillis = TimeUnit.NANOSECONDS.toMillis(start - startNanos);
+        entry.headersMillis = TimeUnit.NANOSECONDS.toMillis(headersNanos);
+        entry.bodyMillis = TimeUnit.NANOSECONDS.toMillis(bodyNanos);
+        entry.code = response.code();
+        entry.message = response.message();
+        entry.headers = getHeaders(response.headers());
+        entry.body = body;
+        write(entry);
+
+        return response.newBuilder()
+                .body(responseBody != null ? ResponseBody.create(contentType, body) : null)
+                .build();
+    }
+
+    /**
+     * Finishes the archive and closes the underlying stream.
+     * The requests made after closing are not recorded.
+     *
+     * @throws IOException if the archive could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+
+        closed = true;
+        writer.close();
+    }
+
+    private synchronized void write(TrafficArchive.Entry entry) {
+        if (closed) return;
+
+        try {
+            writer.write(entry);
+            recordCount++;
+        } catch (IOException e) {
+            LOG.warn("write() couldn't write the archive, stopping the recording", e);
+            closed = true;
+            try {
+                writer.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    static boolean isTokenRequest(Request request) {
+        return request.header(Markers.REQUIRES_AUTH_NAME) == null
+                && request.url().encodedPath().endsWith("/oauth/v2/token");
+    }
+
+    private static List<String> getHeaders(Headers headers) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < headers.size(); i++) {
+            if ("Set-Cookie".equalsIgnoreCase(headers.name(i))) continue;
+
+            result.add(headers.name(i));
+            result.add(headers.value(i));
+        }
+        return result;
+    }
+
+}
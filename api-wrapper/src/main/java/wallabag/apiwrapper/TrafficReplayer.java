@@ -0,0 +1,197 @@
+package wallabag.apiwrapper;
+
+import okhttp3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static wallabag.apiwrapper.Utils.nonNullValue;
+
+/**
+ * The {@code TrafficReplayer} class is an OkHttp {@code Interceptor}
+ * that serves the responses recorded by {@link TrafficRecorder} instead of making network requests,
+ * so the recorded traffic can be replayed deterministically offline.
+ * <p>The requests are matched by the method, path and query. If a request was recorded several times,
+ * the recorded responses are served in the recorded order (starting over after the last one).
+ * The requests without a recorded response get a {@code 404} response (see {@link #getMissCount()}).
+ * The token requests get a fake token, so any credentials can be used.
+ * <p>The responses are delayed by the recorded time multiplied by the latency scale
+ * (see {@link #setLatencyScale(double)}), so the original latencies (scale {@code 1}),
+ * scaled latencies or no latencies (scale {@code 0}, the default) can be simulated.
+ * <p>The interceptor should be added as an application interceptor to the {@code OkHttpClient}
+ * passed to {@link WallabagService#instance(String, ParameterHandler, OkHttpClient, CachedVersionHandler)};
+ * the API base URL should have the same path as in the recording (the host doesn't matter).
+ * <p>This class is thread safe.
+ */
+public class TrafficReplayer implements Interceptor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrafficReplayer.class);
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private static final String TOKEN_RESPONSE = "{\"access_token\":\"replay-access-token\",\"expires_in\":3600,"
+            + "\"refresh_token\":\"replay-refresh-token\",\"scope\":null,\"token_type\":\"bearer\"}";
+
+    private static class Entries {
+        final List<TrafficArchive.Entry> list = new ArrayList<>();
+        int next;
+    }
+
+    private final Map<String, Entries> entries = new HashMap<>();
+    private final int entryCount;
+
+    private volatile double latencyScale;
+
+    private int replayCount;
+    private int missCount;
+
+    /**
+     * Creates a replayer serving the responses from the specified archive file.
+     *
+     * @param file the archive file
+     * @throws IOException          if the archive could not be read
+     * @throws NullPointerException if the {@code file} is {@code null}
+     */
+    public TrafficReplayer(File file) throws IOException {
+        this(new FileInputStream(nonNullValue(file, "file")));
+    }
+
+    /**
+     * Creates a replayer serving the responses from the specified stream. The stream is read fully and closed.
+     *
+     * @param inputStream the stream to read the archive from
+     * @throws IOException          if the archive could not be read
+     * @throws NullPointerException if the {@code inputStream} is {@code null}
+     */
+    public TrafficReplayer(InputStream inputStream) throws IOException {
+        List<TrafficArchive.Entry> list = TrafficArchive.read(nonNullValue(inputStream, "inputStream"));
+        for (TrafficArchive.Entry entry : list) {
+            String key = key(entry.method, entry.target);
+            Entries keyEntries = entries.get(key);
+            if (keyEntries == null) {
+                keyEntries = new Entries();
+                entries.put(key, keyEntries);
+            }
+            keyEntries.list.add(entry);
+        }
+        entryCount = list.size();
+
+        LOG.debug("TrafficReplayer() loaded {} entries for {} requests", entryCount, entries.size());
+    }
+
+    /**
+     * Sets the multiplier of the recorded latencies. Defaults to {@code 0} (no delays).
+     *
+     * @param latencyScale the multiplier of the recorded latencies, {@code 1} for the original latencies
+     * @throws IllegalArgumentException if the {@code latencyScale} is negative
+     */
+    public void setLatencyScale(double latencyScale) {
+        if (!(latencyScale >= 0)) throw new IllegalArgumentException("latencyScale is negative: " + latencyScale);
+
+        this.latencyScale = latencyScale;
+    }
+
+    /**
+     * Returns the number of the recorded responses.
+     *
+     * @return the number of the recorded responses
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the number of the served recorded responses.
+     *
+     * @return the number of the served responses
+     */
+    public synchronized int getReplayCount() {
+        return replayCount;
+    }
+
+    /**
+     * Returns the number of the requests that had no recorded responses.
+     *
+     * @return the number of the requests without recorded responses
+     */
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (TrafficRecorder.isTokenRequest(request)) {
+            return createResponse(request, 200, "OK", Headers.of(), ResponseBody.create(JSON, TOKEN_RESPONSE));
+        }
+
+        TrafficArchive.Entry entry = nextEntry(key(request.method(), TrafficArchive.getTarget(request)));
+        if (entry == null) {
+            LOG.debug("intercept() no recorded response for {} {}", request.method(), request.url());
+            return createResponse(request, 404, "Not Found", Headers.of(),
+                    ResponseBody.create(JSON, "{\"error\":{\"code\":404,\"message\":\"Not recorded\"}}"));
+        }
+
+        delay(entry.headersMillis + entry.bodyMillis);
+
+        Headers.Builder headers = new Headers.Builder();
+        for (int i = 0; i < entry.headers.size(); i += 2) {
+            headers.add(entry.headers.get(i), entry.headers.get(i + 1));
+        }
+        String contentType = headers.get("Content-Type");
+
+        return createResponse(request, entry.code, entry.message, headers.build(),
+                ResponseBody.create(contentType != null ? MediaType.parse(contentType) : null, entry.body));
+    }
+
+    private synchronized TrafficArchive.Entry nextEntry(String key) {
+        Entries keyEntries = entries.get(key);
+        if (keyEntries == null) {
+            missCount++;
+            return null;
+        }
+
+        TrafficArchive.Entry entry = keyEntries.list.get(keyEntries.next);
+        keyEntries.next = (keyEntries.next + 1) % keyEntries.list.size();
+        replayCount++;
+        return entry;
+    }
+
+    private void delay(long recordedMillis) throws InterruptedIOException {
+        long millis = Math.round(recordedMillis * latencyScale);
+        if (millis <= 0) return;
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying a response");
+        }
+    }
+
+    private static Response createResponse(Request request, int code, String message, Headers headers,
+                                           ResponseBody body) {
+        long now = System.currentTimeMillis();
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message(message)
+                .headers(headers)
+                .body(body)
+                .sentRequestAtMillis(now)
+                .receivedResponseAtMillis(now)
+                .build();
+    }
+
+    private static String key(String method, String target) {
+        return method + " " + target;
+    }
+
+}
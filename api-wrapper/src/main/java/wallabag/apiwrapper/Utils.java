@@ -38,12 +38,24 @@ class Utils {
         return value;
     }
 
+    static long nonNegativeNumber(long value, String name) {
+        if (value < 0) throw new IllegalArgumentException(name + " is less than zero: " + value);
+
+        return value;
+    }
+
     static int positiveNumber(int value, String name) {
         if (value <= 0) throw new IllegalArgumentException(name + " is not positive: " + value);
 
         return value;
     }
 
+    static long positiveNumber(long value, String name) {
+        if (value <= 0) throw new IllegalArgumentException(name + " is not positive: " + value);
+
+        return value;
+    }
+
     static String join(Iterable<? extends CharSequence> iterable, String delimiter) {
         Iterator<? extends CharSequence> it = iterable.iterator();
         if (!it.hasNext()) return "";
@@ -1,7 +1,6 @@
 package wallabag.apiwrapper;
 
 import com.squareup.moshi.Moshi;
-import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
@@ -13,11 +12,19 @@ import wallabag.apiwrapper.exceptions.AuthorizationException;
 import wallabag.apiwrapper.exceptions.NotFoundException;
 import wallabag.apiwrapper.exceptions.UnsuccessfulResponseException;
 import wallabag.apiwrapper.models.*;
+import wallabag.apiwrapper.models.adapters.Deduplicator;
+import wallabag.apiwrapper.models.adapters.EntryReferenceAdapter;
+import wallabag.apiwrapper.models.adapters.ModelJsonAdapters;
 import wallabag.apiwrapper.models.adapters.NumericBooleanAdapter;
+import wallabag.apiwrapper.models.adapters.Rfc3339DateAdapter;
 import wallabag.apiwrapper.services.WallabagApiService;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static wallabag.apiwrapper.Utils.*;
 
@@ -63,6 +70,19 @@ public class WallabagService {
 
     private final CachedVersionHandler cachedVersionHandler;
 
+    private final List<ResponseObserver> responseObservers = new CopyOnWriteArrayList<>();
+
+    private final ServerHealth serverHealth = new ServerHealth();
+
+    private final ModelJsonAdapters.Factory modelJsonAdapters = new ModelJsonAdapters.Factory();
+
+    private final ParameterHandler parameterHandler;
+    private volatile FairSchedulingInterceptor.Tenant tenant;
+
+    private volatile TagDictionary tagDictionary;
+    private volatile ArticleSideIndex articleSideIndex;
+    private volatile LocalSearchIndex localSearchIndex;
+
     /**
      * The {@code ResponseFormat} enum represents the formats available
      * for exporting articles as raw data (e.g. for saving as files).
@@ -125,22 +145,28 @@ public class WallabagService {
         if (!apiBaseURL.endsWith("/")) apiBaseURL += "/";
 
         this.apiBaseURL = apiBaseURL;
+        this.parameterHandler = parameterHandler;
+        this.tenant = new FairSchedulingInterceptor.Tenant(parameterHandler);
 
         if (okHttpClient == null) okHttpClient = new OkHttpClient();
 
         TokenRefreshingInterceptor interceptor = new TokenRefreshingInterceptor(parameterHandler);
 
-        okHttpClient = okHttpClient.newBuilder()
+        OkHttpClient client = okHttpClient.newBuilder()
                 .addInterceptor(interceptor)
                 .build();
 
         wallabagApiService = new Retrofit.Builder()
                 .addConverterFactory(MoshiConverterFactory.create(
                         new Moshi.Builder()
+                                .add(modelJsonAdapters)
                                 .add(new NumericBooleanAdapter())
-                                .add(Date.class, new Rfc3339DateJsonAdapter().nullSafe())
+                                .add(new EntryReferenceAdapter())
+                                .add(Date.class, new Rfc3339DateAdapter().nullSafe())
                                 .build()))
-                .client(okHttpClient)
+                .callFactory(request -> client.newCall(RequestPriority.tagRequest(request).newBuilder()
+                        .tag(FairSchedulingInterceptor.Tenant.class, tenant)
+                        .build()))
                 .baseUrl(apiBaseURL)
                 .build()
                 .create(WallabagApiService.class);
@@ -151,6 +177,42 @@ public class WallabagService {
         this.cachedVersionHandler = cachedVersionHandler;
     }
 
+    /**
+     * Sets the tenant ID used by {@link FairSchedulingInterceptor} to share the request slots
+     * between several {@code WallabagService} instances using the same {@code OkHttpClient}.
+     * <p>If no ID is set (or {@code null} is set), the {@link ParameterHandler} of this instance
+     * identifies the tenant.
+     * Instances with the same tenant ID share the same fair share.
+     *
+     * @param tenantId the tenant ID, {@code null}able
+     */
+    public void setTenantId(String tenantId) {
+        tenant = new FairSchedulingInterceptor.Tenant(tenantId != null ? tenantId : parameterHandler);
+    }
+
+    /**
+     * Sets the {@link Deduplicator} that deduplicates the low-cardinality values
+     * (domain names, media types, languages, authors and tags) of the decoded articles,
+     * which reduces the memory usage if many articles are kept in memory.
+     * <p>The deduplicated tags are shared between the articles and must not be modified.
+     * Deduplication is disabled by default (or if {@code null} is set).
+     * The same {@code Deduplicator} may be used by several {@code WallabagService} instances.
+     *
+     * @param deduplicator the {@code Deduplicator}, {@code null}able
+     */
+    public void setDeduplicator(Deduplicator deduplicator) {
+        modelJsonAdapters.setDeduplicator(deduplicator);
+    }
+
+    /**
+     * Returns the {@link Deduplicator} set by {@link #setDeduplicator(Deduplicator)}.
+     *
+     * @return the {@code Deduplicator}, or {@code null} if deduplication is disabled
+     */
+    public Deduplicator getDeduplicator() {
+        return modelJsonAdapters.getDeduplicator();
+    }
+
     String getApiBaseURL() {
         return apiBaseURL;
     }
@@ -166,6 +228,7 @@ public class WallabagService {
 
     /**
      * Returns an {@link Articles} search query builder.
+     * <p>Search is only supported by wallabag 2.4+, see {@link #getLocalSearchIndex()} for local search.
      *
      * @return an {@link Articles} search query builder
      */
@@ -209,31 +272,143 @@ public class WallabagService {
         return new ModifyArticleBuilder(this, id);
     }
 
-    Call<Articles> getArticlesCall(Map<String, String> parameters) {
-        return wallabagApiService.getArticles(parameters);
+    /**
+     * Returns a new {@link ArticleModificationCoalescer} that merges modifications of the same article
+     * submitted within the specified time window into a single request.
+     * <p>This method is an alias for {@link #articleModificationCoalescer(long, TimeUnit, NotFoundPolicy)}
+     * with {@link NotFoundPolicy#SMART}.
+     *
+     * @param delay    the time window to wait for more modifications of the same article
+     * @param timeUnit the time unit of the {@code delay} argument
+     * @return a new {@link ArticleModificationCoalescer} instance
+     * @throws IllegalArgumentException if the {@code delay} is less than zero
+     */
+    public ArticleModificationCoalescer articleModificationCoalescer(long delay, TimeUnit timeUnit) {
+        return articleModificationCoalescer(delay, timeUnit, NotFoundPolicy.SMART);
+    }
+
+    /**
+     * Returns a new {@link ArticleModificationCoalescer} that merges modifications of the same article
+     * submitted within the specified time window into a single request.
+     * <p>See {@link ArticleModificationCoalescer} description for details.
+     *
+     * @param delay          the time window to wait for more modifications of the same article
+     * @param timeUnit       the time unit of the {@code delay} argument
+     * @param notFoundPolicy the {@link NotFoundPolicy} to use for the requests
+     * @return a new {@link ArticleModificationCoalescer} instance
+     * @throws IllegalArgumentException if the {@code delay} is less than zero
+     */
+    public ArticleModificationCoalescer articleModificationCoalescer(long delay, TimeUnit timeUnit,
+                                                                     NotFoundPolicy notFoundPolicy) {
+        return new ArticleModificationCoalescer(this, delay, timeUnit, notFoundPolicy);
+    }
+
+    /**
+     * Opens a {@link MutationOutbox} that stores the operations in the specified {@code file}
+     * and replays them to the server in the background.
+     * <p>This method is an alias for {@link #mutationOutbox(File, MutationOutbox.Listener)}
+     * with {@code null} listener.
+     *
+     * @param file the log file; created if it doesn't exist
+     * @return a new {@link MutationOutbox} instance
+     * @throws IOException          in case of errors reading or writing the {@code file}
+     * @throws NullPointerException if the {@code file} is {@code null}
+     */
+    public MutationOutbox mutationOutbox(File file) throws IOException {
+        return mutationOutbox(file, null);
+    }
+
+    /**
+     * Opens a {@link MutationOutbox} that stores the operations in the specified {@code file}
+     * and replays them to the server in the background.
+     * <p>The pending operations from the previous sessions are replayed too.
+     * Only a single outbox may be open for a file at a time.
+     * <p>See {@link MutationOutbox} description for details.
+     *
+     * @param file     the log file; created if it doesn't exist
+     * @param listener the {@link MutationOutbox.Listener} to receive the replay results, {@code null}able
+     * @return a new {@link MutationOutbox} instance
+     * @throws IOException          in case of errors reading or writing the {@code file}
+     * @throws NullPointerException if the {@code file} is {@code null}
+     */
+    public MutationOutbox mutationOutbox(File file, MutationOutbox.Listener listener) throws IOException {
+        return new MutationOutbox(this, file, listener);
+    }
+
+    /**
+     * Returns a builder for modifying all articles matching the query specified by the {@code queryBuilder}.
+     * <p>The {@code queryBuilder} is copied, its subsequent changes don't affect the returned builder.
+     * <p>See {@link BulkModifyArticlesBuilder} description for details.
+     *
+     * @param queryBuilder the query to get the articles to modify
+     * @return a {@link BulkModifyArticlesBuilder} instance
+     * @throws NullPointerException if the {@code queryBuilder} is {@code null}
+     */
+    public BulkModifyArticlesBuilder bulkModifyArticlesBuilder(ArticlesQueryBuilder queryBuilder) {
+        return new BulkModifyArticlesBuilder(this, queryBuilder);
+    }
+
+    /**
+     * Returns a builder for exporting many articles to a directory or a ZIP stream.
+     * <p>See {@link BulkExporter} description for details.
+     *
+     * @return a {@link BulkExporter} instance
+     */
+    public BulkExporter bulkExporter() {
+        return new BulkExporter(this);
+    }
+
+    /**
+     * Returns an {@link ExportCache} storing the exports in the specified {@code directory}.
+     * <p>See {@link ExportCache} description for details.
+     *
+     * @param directory the directory to store the exports in, created if missing
+     * @param maxSize   the maximum total size of the stored exports in bytes
+     * @return an {@link ExportCache} instance
+     * @throws IOException              if the directory could not be created or read
+     * @throws NullPointerException     if the {@code directory} is {@code null}
+     * @throws IllegalArgumentException if {@code maxSize <= 0}
+     */
+    public ExportCache exportCache(File directory, long maxSize) throws IOException {
+        return new ExportCache(this, directory, maxSize);
     }
 
-    Articles getArticles(Map<String, String> parameters, NotFoundPolicy notFoundPolicy)
+    Call<Articles> getArticlesCall(Map<String, String> parameters, RequestPriority priority) {
+        return RequestPriority.bind(wallabagApiService.getArticles(parameters), priority);
+    }
+
+    Articles getArticles(Map<String, String> parameters, RequestPriority priority, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(getArticlesCall(parameters)), this);
+        return notFoundPolicy.call(() -> execAndCheckBody(getArticlesCall(parameters, priority)), this);
     }
 
-    Call<Articles> searchCall(Map<String, String> parameters) {
-        return wallabagApiService.search(parameters);
+    Call<Articles> searchCall(Map<String, String> parameters, RequestPriority priority) {
+        return RequestPriority.bind(wallabagApiService.search(parameters), priority);
     }
 
-    Articles search(Map<String, String> parameters, NotFoundPolicy notFoundPolicy)
+    Articles search(Map<String, String> parameters, RequestPriority priority, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(searchCall(parameters)), this,
+        return notFoundPolicy.call(() -> execAndCheckBody(searchCall(parameters, priority)), this,
                 CompatibilityHelper::isSearchSupported, null);
     }
 
     Call<Article> addArticleCall(RequestBody requestBody) {
-        return wallabagApiService.addArticle(requestBody);
+        return addArticleCall(requestBody, null);
+    }
+
+    Call<Article> addArticleCall(RequestBody requestBody, String contentEncoding) {
+        return contentEncoding != null
+                ? wallabagApiService.addArticle(requestBody, contentEncoding)
+                : wallabagApiService.addArticle(requestBody);
     }
 
     Article addArticle(RequestBody requestBody) throws IOException, UnsuccessfulResponseException {
-        return execAndCheckBody(addArticleCall(requestBody));
+        return addArticle(requestBody, null);
+    }
+
+    Article addArticle(RequestBody requestBody, String contentEncoding)
+            throws IOException, UnsuccessfulResponseException {
+        return execAndCheckBody(addArticleCall(requestBody, contentEncoding));
     }
 
     /**
@@ -620,6 +795,53 @@ public class WallabagService {
         return new BatchExistQueryBuilder(this, maxQueryLength);
     }
 
+    /**
+     * Returns a builder for checking the existence of a large number of articles
+     * with concurrent batch requests.
+     * <p>See {@link BulkExistsBuilder} description for details.
+     *
+     * @return a {@link BulkExistsBuilder} instance
+     */
+    public BulkExistsBuilder bulkExistsBuilder() {
+        return new BulkExistsBuilder(this);
+    }
+
+    /**
+     * Returns a builder for adding multiple articles at once.
+     * <p>See {@link BulkArticlesBuilder} description for details.
+     *
+     * @return a {@link BulkArticlesBuilder} for adding articles
+     */
+    public BulkArticlesBuilder bulkAddArticlesBuilder() {
+        return new BulkArticlesBuilder(this, false);
+    }
+
+    /**
+     * Returns a builder for deleting multiple articles at once.
+     * <p>See {@link BulkArticlesBuilder} description for details.
+     *
+     * @return a {@link BulkArticlesBuilder} for deleting articles
+     */
+    public BulkArticlesBuilder bulkDeleteArticlesBuilder() {
+        return new BulkArticlesBuilder(this, true);
+    }
+
+    Call<List<ListActionResponse>> addArticlesByListCall(String urls) {
+        return wallabagApiService.addArticlesByList(nonEmptyString(urls, "urls"));
+    }
+
+    List<ListActionResponse> addArticlesByList(String urls) throws IOException, UnsuccessfulResponseException {
+        return execAndCheckBody(addArticlesByListCall(urls));
+    }
+
+    Call<List<ListActionResponse>> deleteArticlesByListCall(String urls) {
+        return wallabagApiService.deleteArticlesByList(nonEmptyString(urls, "urls"));
+    }
+
+    List<ListActionResponse> deleteArticlesByList(String urls) throws IOException, UnsuccessfulResponseException {
+        return execAndCheckBody(deleteArticlesByListCall(urls));
+    }
+
     /**
      * Performs a server-side deletion of an article with the specified ID,
      * returns {@code true} if the article was deleted successfully,
@@ -695,7 +917,9 @@ public class WallabagService {
      *                                       See {@link WallabagService} description for additional details
      */
     public Article deleteArticleWithObject(int articleID) throws IOException, UnsuccessfulResponseException {
-        return execAndCheckBody(deleteArticleWithObjectCall(articleID));
+        Article article = execAndCheckBody(deleteArticleWithObjectCall(articleID));
+        for (ResponseObserver observer : responseObservers) observer.articleDeleted(articleID);
+        return article;
     }
 
     /**
@@ -720,7 +944,9 @@ public class WallabagService {
      *                                       See {@link WallabagService} description for additional details
      */
     public Integer deleteArticleWithId(int articleID) throws IOException, UnsuccessfulResponseException {
-        return execAndCheckBody(deleteArticleWithIdCall(articleID)).id;
+        Integer id = execAndCheckBody(deleteArticleWithIdCall(articleID)).id;
+        for (ResponseObserver observer : responseObservers) observer.articleDeleted(articleID);
+        return id;
     }
 
     /**
@@ -842,6 +1068,9 @@ public class WallabagService {
      * Returns a {@link ResponseBody} containing an article specified by {@code articleID}
      * in the specified {@code format} or {@code null} if the article was not found
      * (depends on the {@code notFoundPolicy}).
+     * <p>The returned {@code ResponseBody} must be closed.
+     * Use {@link #exportArticleTo(int, ResponseFormat, File, String, NotFoundPolicy)} to save large exports
+     * without reading them into memory.
      *
      * @param articleID      the ID of the article to export
      * @param format         the desired response format
@@ -859,13 +1088,135 @@ public class WallabagService {
                 CompatibilityHelper::isExportArticleSupported, null);
     }
 
+    /**
+     * Writes an article specified by {@code articleID} in the specified {@code format} to the {@code target} file,
+     * returns an {@link ExportResult} or {@code null} if the article was not found.
+     * <p>This method is an alias for
+     * {@link #exportArticleTo(int, ResponseFormat, File, String, NotFoundPolicy)}
+     * without a checksum and with {@link NotFoundPolicy#SMART}.
+     *
+     * @param articleID the ID of the article to export
+     * @param format    the desired response format
+     * @param target    the file to write the article to
+     * @return an {@link ExportResult} or {@code null} if the article was not found
+     * @throws IOException                   in case of network or file errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public ExportResult exportArticleTo(int articleID, ResponseFormat format, File target)
+            throws IOException, UnsuccessfulResponseException {
+        return exportArticleTo(articleID, format, target, null, NotFoundPolicy.SMART);
+    }
+
+    /**
+     * Writes an article specified by {@code articleID} in the specified {@code format} to the {@code target} file,
+     * returns an {@link ExportResult} or {@code null} if the article was not found
+     * (depends on the {@code notFoundPolicy}).
+     * <p>The response is streamed to a temporary file in the target's directory,
+     * which is renamed to the {@code target} once the whole response is received,
+     * so the {@code target} is never left partially written.
+     * The memory usage doesn't depend on the export size.
+     * <p>The number of received bytes is checked against the {@code Content-Length} of the response (if known).
+     *
+     * @param articleID       the ID of the article to export
+     * @param format          the desired response format
+     * @param target          the file to write the article to; existing file is replaced
+     * @param digestAlgorithm the name of the {@code MessageDigest} algorithm (e.g. "SHA-256")
+     *                        for calculating {@link ExportResult#getChecksum()}, {@code null}able
+     * @param notFoundPolicy  the {@link NotFoundPolicy} to use
+     * @return an {@link ExportResult} or {@code null} if the article was not found
+     * (depends on the {@code notFoundPolicy})
+     * @throws IOException                   in case of network or file errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NotFoundException             if the article with the specified ID was not found
+     *                                       (depends on the {@code notFoundPolicy})
+     * @throws NullPointerException          if the {@code target} is {@code null}
+     * @throws IllegalArgumentException      if the {@code digestAlgorithm} is not supported
+     */
+    public ExportResult exportArticleTo(int articleID, ResponseFormat format, File target,
+                                        String digestAlgorithm, NotFoundPolicy notFoundPolicy)
+            throws IOException, UnsuccessfulResponseException {
+        nonNullValue(target, "target");
+        ExportTransfer.createDigest(digestAlgorithm);
+
+        return notFoundPolicy.call(() -> ExportTransfer.toFile(
+                execAndCheckBody(exportArticleCall(articleID, format)), target, digestAlgorithm), this,
+                CompatibilityHelper::isExportArticleSupported, null);
+    }
+
+    /**
+     * Writes an article specified by {@code articleID} in the specified {@code format} to the {@code channel},
+     * returns an {@link ExportResult} or {@code null} if the article was not found.
+     * <p>This method is an alias for
+     * {@link #exportArticleTo(int, ResponseFormat, WritableByteChannel, String, NotFoundPolicy)}
+     * without a checksum and with {@link NotFoundPolicy#SMART}.
+     *
+     * @param articleID the ID of the article to export
+     * @param format    the desired response format
+     * @param channel   the channel to write the article to
+     * @return an {@link ExportResult} or {@code null} if the article was not found
+     * @throws IOException                   in case of network or channel errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     */
+    public ExportResult exportArticleTo(int articleID, ResponseFormat format, WritableByteChannel channel)
+            throws IOException, UnsuccessfulResponseException {
+        return exportArticleTo(articleID, format, channel, null, NotFoundPolicy.SMART);
+    }
+
+    /**
+     * Writes an article specified by {@code articleID} in the specified {@code format} to the {@code channel},
+     * returns an {@link ExportResult} or {@code null} if the article was not found
+     * (depends on the {@code notFoundPolicy}).
+     * <p>The response is streamed to the channel with a fixed-size buffer.
+     * The channel is not closed. If an exception is thrown, some data may have already been written.
+     * <p>The number of received bytes is checked against the {@code Content-Length} of the response (if known).
+     *
+     * @param articleID       the ID of the article to export
+     * @param format          the desired response format
+     * @param channel         the channel to write the article to
+     * @param digestAlgorithm the name of the {@code MessageDigest} algorithm (e.g. "SHA-256")
+     *                        for calculating {@link ExportResult#getChecksum()}, {@code null}able
+     * @param notFoundPolicy  the {@link NotFoundPolicy} to use
+     * @return an {@link ExportResult} or {@code null} if the article was not found
+     * (depends on the {@code notFoundPolicy})
+     * @throws IOException                   in case of network or channel errors
+     * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
+     * @throws NotFoundException             if the article with the specified ID was not found
+     *                                       (depends on the {@code notFoundPolicy})
+     * @throws NullPointerException          if the {@code channel} is {@code null}
+     * @throws IllegalArgumentException      if the {@code digestAlgorithm} is not supported
+     */
+    public ExportResult exportArticleTo(int articleID, ResponseFormat format, WritableByteChannel channel,
+                                        String digestAlgorithm, NotFoundPolicy notFoundPolicy)
+            throws IOException, UnsuccessfulResponseException {
+        nonNullValue(channel, "channel");
+        ExportTransfer.createDigest(digestAlgorithm);
+
+        return notFoundPolicy.call(() -> ExportTransfer.toChannel(
+                execAndCheckBody(exportArticleCall(articleID, format)), channel, digestAlgorithm), this,
+                CompatibilityHelper::isExportArticleSupported, null);
+    }
+
     Call<Article> modifyArticleCall(int articleID, RequestBody requestBody) {
-        return wallabagApiService.modifyArticle(nonNegativeNumber(articleID, "articleID"), requestBody);
+        return modifyArticleCall(articleID, requestBody, null);
+    }
+
+    Call<Article> modifyArticleCall(int articleID, RequestBody requestBody, String contentEncoding) {
+        nonNegativeNumber(articleID, "articleID");
+
+        return contentEncoding != null
+                ? wallabagApiService.modifyArticle(articleID, requestBody, contentEncoding)
+                : wallabagApiService.modifyArticle(articleID, requestBody);
     }
 
     Article modifyArticle(int articleID, RequestBody requestBody, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(modifyArticleCall(articleID, requestBody)), this);
+        return modifyArticle(articleID, requestBody, null, notFoundPolicy);
+    }
+
+    Article modifyArticle(int articleID, RequestBody requestBody, String contentEncoding,
+                          NotFoundPolicy notFoundPolicy) throws IOException, UnsuccessfulResponseException {
+        return notFoundPolicy.call(() -> execAndCheckBody(
+                modifyArticleCall(articleID, requestBody, contentEncoding)), this);
     }
 
     /**
@@ -909,7 +1260,14 @@ public class WallabagService {
      */
     public List<Tag> getTags(int articleID, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(getTagsCall(articleID)), this);
+        return notFoundPolicy.call(() -> {
+            List<Tag> tags = execAndCheckBody(getTagsCall(articleID));
+            for (ResponseObserver observer : responseObservers) {
+                observer.tagsReceived(tags, false);
+                observer.articleTagsReceived(articleID, tags);
+            }
+            return tags;
+        }, this);
     }
 
     /**
@@ -1034,7 +1392,112 @@ public class WallabagService {
      * @throws UnsuccessfulResponseException (and subclasses) in case of known wallabag-specific errors
      */
     public List<Tag> getTags() throws IOException, UnsuccessfulResponseException {
-        return execAndCheckBody(getTagsCall());
+        List<Tag> tags = execAndCheckBody(getTagsCall());
+        for (ResponseObserver observer : responseObservers) observer.tagsReceived(tags, true);
+        return tags;
+    }
+
+    /**
+     * Returns the {@link TagDictionary} of this {@code WallabagService} instance.
+     * The dictionary is created on the first call and is not loaded automatically.
+     * <p>See {@link TagDictionary} description for details.
+     *
+     * @return the {@link TagDictionary} instance
+     */
+    public TagDictionary getTagDictionary() {
+        TagDictionary tagDictionary = this.tagDictionary;
+        if (tagDictionary == null) {
+            synchronized (this) {
+                tagDictionary = this.tagDictionary;
+                if (tagDictionary == null) {
+                    tagDictionary = new TagDictionary(this);
+                    addResponseObserver(tagDictionary.observer);
+                    this.tagDictionary = tagDictionary;
+                }
+            }
+        }
+        return tagDictionary;
+    }
+
+    /**
+     * Returns the {@link ArticleSideIndex} of this {@code WallabagService} instance.
+     * The index is created on the first call and only receives the data decoded after that.
+     * <p>See {@link ArticleSideIndex} description for details.
+     *
+     * @return the {@link ArticleSideIndex} instance
+     */
+    public ArticleSideIndex getArticleSideIndex() {
+        ArticleSideIndex articleSideIndex = this.articleSideIndex;
+        if (articleSideIndex == null) {
+            synchronized (this) {
+                articleSideIndex = this.articleSideIndex;
+                if (articleSideIndex == null) {
+                    articleSideIndex = new ArticleSideIndex(this);
+                    addResponseObserver(articleSideIndex.observer);
+                    this.articleSideIndex = articleSideIndex;
+                }
+            }
+        }
+        return articleSideIndex;
+    }
+
+    /**
+     * Returns the {@link LocalSearchIndex} of this {@code WallabagService} instance.
+     * The index is created on the first call and only receives the data decoded after that.
+     * <p>See {@link LocalSearchIndex} description for details.
+     *
+     * @return the {@link LocalSearchIndex} instance
+     */
+    public LocalSearchIndex getLocalSearchIndex() {
+        LocalSearchIndex localSearchIndex = this.localSearchIndex;
+        if (localSearchIndex == null) {
+            synchronized (this) {
+                localSearchIndex = this.localSearchIndex;
+                if (localSearchIndex == null) {
+                    localSearchIndex = new LocalSearchIndex();
+                    addResponseObserver(localSearchIndex.observer);
+                    this.localSearchIndex = localSearchIndex;
+                }
+            }
+        }
+        return localSearchIndex;
+    }
+
+    /**
+     * Returns a builder for adding tags to multiple articles at once.
+     * <p>See {@link BulkTagsBuilder} description for details.
+     *
+     * @return a {@link BulkTagsBuilder} for adding tags
+     */
+    public BulkTagsBuilder bulkAddTagsBuilder() {
+        return new BulkTagsBuilder(this, false);
+    }
+
+    /**
+     * Returns a builder for removing tags from multiple articles at once.
+     * <p>See {@link BulkTagsBuilder} description for details.
+     *
+     * @return a {@link BulkTagsBuilder} for removing tags
+     */
+    public BulkTagsBuilder bulkDeleteTagsBuilder() {
+        return new BulkTagsBuilder(this, true);
+    }
+
+    Call<List<ListActionResponse>> addTagsToArticlesByListCall(String list) {
+        return wallabagApiService.addTagsByList(nonEmptyString(list, "list"));
+    }
+
+    List<ListActionResponse> addTagsToArticlesByList(String list) throws IOException, UnsuccessfulResponseException {
+        return execAndCheckBody(addTagsToArticlesByListCall(list));
+    }
+
+    Call<List<ListActionResponse>> deleteTagsFromArticlesByListCall(String list) {
+        return wallabagApiService.deleteTagsByList(nonEmptyString(list, "list"));
+    }
+
+    List<ListActionResponse> deleteTagsFromArticlesByList(String list)
+            throws IOException, UnsuccessfulResponseException {
+        return execAndCheckBody(deleteTagsFromArticlesByListCall(list));
     }
 
     /**
@@ -1079,7 +1542,7 @@ public class WallabagService {
      */
     public Tag deleteTag(String tagLabel, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(deleteTagCall(tagLabel)), this,
+        return notFoundPolicy.call(() -> tagDeleted(execAndCheckBody(deleteTagCall(tagLabel))), this,
                 CompatibilityHelper::isDeleteTagByLabelSupported, null);
     }
 
@@ -1125,7 +1588,7 @@ public class WallabagService {
      */
     public Tag deleteTag(int tagID, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(deleteTagCall(tagID)), this);
+        return notFoundPolicy.call(() -> tagDeleted(execAndCheckBody(deleteTagCall(tagID))), this);
     }
 
     /**
@@ -1172,8 +1635,18 @@ public class WallabagService {
      */
     public List<Tag> deleteTags(Collection<String> tags, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(deleteTagsCall(tags)), this,
-                CompatibilityHelper::isDeleteTagsByLabelSupported, null);
+        return notFoundPolicy.call(() -> {
+            List<Tag> deletedTags = execAndCheckBody(deleteTagsCall(tags));
+            for (ResponseObserver observer : responseObservers) observer.tagsDeleted(deletedTags);
+            return deletedTags;
+        }, this, CompatibilityHelper::isDeleteTagsByLabelSupported, null);
+    }
+
+    private Tag tagDeleted(Tag tag) {
+        for (ResponseObserver observer : responseObservers) {
+            observer.tagsDeleted(Collections.singletonList(tag));
+        }
+        return tag;
     }
 
     /**
@@ -1216,7 +1689,13 @@ public class WallabagService {
      */
     public Annotations getAnnotations(int articleID, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(getAnnotationsCall(articleID)), this,
+        return notFoundPolicy.call(() -> {
+            Annotations annotations = execAndCheckBody(getAnnotationsCall(articleID));
+            for (ResponseObserver observer : responseObservers) {
+                observer.articleAnnotationsReceived(articleID, annotations.rows);
+            }
+            return annotations;
+        }, this,
                 CompatibilityHelper::isGetAnnotationsSupported, null);
     }
 
@@ -1284,7 +1763,11 @@ public class WallabagService {
     public Annotation addAnnotation(int articleID, List<Annotation.Range> ranges, String text, String quote,
                                     NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(addAnnotationCall(articleID, ranges, text, quote)), this,
+        return notFoundPolicy.call(() -> {
+            Annotation annotation = execAndCheckBody(addAnnotationCall(articleID, ranges, text, quote));
+            for (ResponseObserver observer : responseObservers) observer.annotationAdded(articleID, annotation);
+            return annotation;
+        }, this,
                 CompatibilityHelper::isAddAnnotationSupported, null);
     }
 
@@ -1339,7 +1822,11 @@ public class WallabagService {
      */
     public Annotation updateAnnotation(int annotationID, String text, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(updateAnnotationCall(annotationID, text)), this,
+        return notFoundPolicy.call(() -> {
+            Annotation annotation = execAndCheckBody(updateAnnotationCall(annotationID, text));
+            for (ResponseObserver observer : responseObservers) observer.annotationUpdated(annotation);
+            return annotation;
+        }, this,
                 CompatibilityHelper::isUpdateAnnotationSupported, null);
     }
 
@@ -1386,7 +1873,11 @@ public class WallabagService {
      */
     public Annotation deleteAnnotation(int annotationID, NotFoundPolicy notFoundPolicy)
             throws IOException, UnsuccessfulResponseException {
-        return notFoundPolicy.call(() -> execAndCheckBody(deleteAnnotationCall(annotationID)), this,
+        return notFoundPolicy.call(() -> {
+            Annotation annotation = execAndCheckBody(deleteAnnotationCall(annotationID));
+            for (ResponseObserver observer : responseObservers) observer.annotationDeleted(annotationID);
+            return annotation;
+        }, this,
                 CompatibilityHelper::isDeleteAnnotationSupported, null);
     }
 
@@ -1471,6 +1962,7 @@ public class WallabagService {
      */
     public void resetCachedVersion() {
         cachedVersionHandler.resetCachedVersion(this);
+        serverHealth.reset();
     }
 
     /**
@@ -1495,8 +1987,50 @@ public class WallabagService {
 */
     }
 
+    /**
+     * Sets for how long the {@link NotFoundPolicy#SMART} policy remembers the server state
+     * and the availability of API methods. The default is 30 seconds.
+     * <p>Within that time {@code NotFoundException}s are classified without extra requests.
+     * A zero value disables remembering, so every {@code NotFoundException} is checked with extra requests.
+     *
+     * @param ttl      the time to remember the state for
+     * @param timeUnit the {@code TimeUnit} of the {@code ttl}
+     * @throws IllegalArgumentException if the {@code ttl} is negative
+     */
+    public void setServerHealthTtl(long ttl, TimeUnit timeUnit) {
+        nonNegativeNumber(ttl, "ttl");
+        nonNullValue(timeUnit, "timeUnit");
+
+        serverHealth.setTtl(ttl, timeUnit);
+        serverHealth.reset();
+    }
+
+    /**
+     * Makes the {@link NotFoundPolicy#SMART} policy forget the server state,
+     * so the next {@code NotFoundException} is checked with a test query.
+     * <p>The state is also reset by {@link #resetCachedVersion()}.
+     */
+    public void resetServerHealth() {
+        serverHealth.reset();
+    }
+
+    ServerHealth getServerHealth() {
+        return serverHealth;
+    }
+
+    void addResponseObserver(ResponseObserver observer) {
+        responseObservers.add(observer);
+    }
+
     private <T> T execAndCheckBody(Call<T> call) throws IOException, UnsuccessfulResponseException {
-        return checkResponseBody(call.execute());
+        Response<T> response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            serverHealth.suspect();
+            throw e;
+        }
+        return checkResponseBody(response);
     }
 
     private <T> T checkResponseBody(Response<T> response) throws IOException, UnsuccessfulResponseException {
@@ -1504,11 +2038,22 @@ public class WallabagService {
         if (body == null) { // AFAIK should not happen
             throw new UnsuccessfulResponseException(response.code(), "Response is empty", null);
         }
+
+        if (!responseObservers.isEmpty()) {
+            if (body instanceof Article) {
+                for (ResponseObserver observer : responseObservers) observer.articleReceived((Article) body);
+            } else if (body instanceof Articles) {
+                for (ResponseObserver observer : responseObservers) observer.articlesReceived((Articles) body);
+            }
+        }
+
         return body;
     }
 
     private <T> Response<T> checkResponse(Response<T> response) throws IOException, UnsuccessfulResponseException {
         if (!response.isSuccessful()) {
+            if (response.code() >= 500) serverHealth.suspect();
+
             String bodyString = response.errorBody() != null ? response.errorBody().string() : null;
             switch (response.code()) {
                 case 400:
@@ -1526,6 +2071,7 @@ public class WallabagService {
             }
         }
 
+        serverHealth.accessible();
         return response;
     }
 
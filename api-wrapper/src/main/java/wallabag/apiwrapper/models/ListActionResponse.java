@@ -0,0 +1,30 @@
+package wallabag.apiwrapper.models;
+
+import wallabag.apiwrapper.models.adapters.EntryReference;
+
+/**
+ * The {@code ListActionResponse} class represents a single item of the response to
+ * the list-based ("mass") API methods, which operate on multiple articles specified by their URLs.
+ * <p>This is a direct response mapping, hence the member names.
+ */
+public class ListActionResponse {
+
+    /** The URL of the article as it was passed in the request. */
+    public String url;
+
+    /**
+     * The ID of the corresponding article or {@code null} if the article was not found.
+     * May be 0 if the article was found, but the server doesn't report its ID.
+     */
+    @EntryReference
+    public Integer entry;
+
+    @Override
+    public String toString() {
+        return "ListActionResponse{" +
+                "url='" + url + '\'' +
+                ", entry=" + entry +
+                '}';
+    }
+
+}
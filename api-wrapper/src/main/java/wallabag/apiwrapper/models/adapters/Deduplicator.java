@@ -0,0 +1,176 @@
+package wallabag.apiwrapper.models.adapters;
+
+import wallabag.apiwrapper.models.Article;
+import wallabag.apiwrapper.models.Tag;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@code Deduplicator} class replaces equal low-cardinality values of decoded articles
+ * with shared instances, so that large numbers of articles kept in memory don't hold their own copies
+ * of the same values.
+ * <p>The deduplicated values are the {@link Article#domainName}, {@link Article#mimetype},
+ * {@link Article#language}, {@link Article#authors} strings and the {@link Article#tags}:
+ * equal tags (the same ID, label and slug) are replaced with a shared {@link Tag} instance.
+ * <b>The shared tags must not be modified</b>, as the changes would be visible in all articles.
+ * <p>The tables are bounded: once a table is full, new values are returned as is
+ * (the already stored values are still shared). {@link #clear()} empties the tables.
+ * <p>This class is thread safe.
+ *
+ * @see ModelJsonAdapters.Factory#setDeduplicator(Deduplicator)
+ */
+public final class Deduplicator {
+
+    /** The default maximum number of stored strings. */
+    public static final int DEFAULT_MAX_STRINGS = 10000;
+    /** The default maximum number of stored tags. */
+    public static final int DEFAULT_MAX_TAGS = 10000;
+
+    private final int maxStrings;
+    private final int maxTags;
+
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Tag> tags = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a {@code Deduplicator} with the default limits
+     * ({@link #DEFAULT_MAX_STRINGS}, {@link #DEFAULT_MAX_TAGS}).
+     */
+    public Deduplicator() {
+        this(DEFAULT_MAX_STRINGS, DEFAULT_MAX_TAGS);
+    }
+
+    /**
+     * Creates a {@code Deduplicator} with the specified limits.
+     *
+     * @param maxStrings the maximum number of stored strings
+     * @param maxTags    the maximum number of stored tags
+     * @throws IllegalArgumentException if the {@code maxStrings} or the {@code maxTags} is negative
+     */
+    public Deduplicator(int maxStrings, int maxTags) {
+        if (maxStrings < 0) throw new IllegalArgumentException("maxStrings is negative: " + maxStrings);
+        if (maxTags < 0) throw new IllegalArgumentException("maxTags is negative: " + maxTags);
+
+        this.maxStrings = maxStrings;
+        this.maxTags = maxTags;
+    }
+
+    /**
+     * Deduplicates the values of the article in place (including the elements of
+     * the {@link Article#authors} and {@link Article#tags} lists, so the lists must be modifiable).
+     *
+     * @param article the article to deduplicate the values of
+     * @return the {@code article}
+     */
+    public Article deduplicate(Article article) {
+        if (article == null) return null;
+
+        article.domainName = deduplicate(article.domainName);
+        article.mimetype = deduplicate(article.mimetype);
+        article.language = deduplicate(article.language);
+
+        if (article.authors != null) {
+            for (ListIterator<String> it = article.authors.listIterator(); it.hasNext(); ) {
+                String author = it.next();
+                String shared = deduplicate(author);
+                if (shared != author) it.set(shared);
+            }
+        }
+
+        List<Tag> articleTags = article.tags;
+        if (articleTags != null) {
+            for (ListIterator<Tag> it = articleTags.listIterator(); it.hasNext(); ) {
+                Tag tag = it.next();
+                Tag shared = deduplicate(tag);
+                if (shared != tag) it.set(shared);
+            }
+        }
+
+        return article;
+    }
+
+    /**
+     * Returns the shared instance of the tag equal to the specified one (the same ID, label and slug).
+     * If there's no such instance, the specified tag becomes the shared instance (if the table is not full).
+     * A stored tag with the same ID but a different label or slug (e.g. a renamed tag) is replaced.
+     *
+     * @param tag the tag
+     * @return the shared equal tag, or the {@code tag}
+     */
+    public Tag deduplicate(Tag tag) {
+        if (tag == null) return null;
+
+        Tag existing = tags.get(tag.id);
+        if (existing != null && equal(existing, tag)) return existing;
+
+        tag.label = deduplicate(tag.label);
+        tag.slug = deduplicate(tag.slug);
+
+        if (existing != null) {
+            tags.replace(tag.id, existing, tag);
+            return tag;
+        }
+
+        if (tags.size() >= maxTags) return tag;
+
+        existing = tags.putIfAbsent(tag.id, tag);
+        return existing != null && equal(existing, tag) ? existing : tag;
+    }
+
+    /**
+     * Returns the shared instance of the string equal to the specified one.
+     * If there's no such instance, the specified string becomes the shared instance (if the table is not full).
+     *
+     * @param value the string
+     * @return the shared equal string, or the {@code value}
+     */
+    public String deduplicate(String value) {
+        if (value == null) return null;
+
+        String existing = strings.get(value);
+        if (existing != null) return existing;
+
+        if (strings.size() >= maxStrings) return value;
+
+        existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Returns the number of stored strings.
+     *
+     * @return the number of stored strings
+     */
+    public int getStringCount() {
+        return strings.size();
+    }
+
+    /**
+     * Returns the number of stored tags.
+     *
+     * @return the number of stored tags
+     */
+    public int getTagCount() {
+        return tags.size();
+    }
+
+    /**
+     * Removes all stored values.
+     */
+    public void clear() {
+        strings.clear();
+        tags.clear();
+    }
+
+    private static boolean equal(Tag tag1, Tag tag2) {
+        return tag1.id == tag2.id && equal(tag1.label, tag2.label) && equal(tag1.slug, tag2.slug);
+    }
+
+    private static boolean equal(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
+}
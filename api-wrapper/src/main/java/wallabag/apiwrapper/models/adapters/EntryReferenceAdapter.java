@@ -0,0 +1,41 @@
+package wallabag.apiwrapper.models.adapters;
+
+import com.squareup.moshi.*;
+
+import java.io.IOException;
+
+/**
+ * Ignore this.
+ */
+public class EntryReferenceAdapter {
+
+    @ToJson
+    void toJson(JsonWriter writer, @EntryReference Integer value) throws IOException {
+        if (value != null) {
+            writer.value(value);
+        } else {
+            writer.value(false);
+        }
+    }
+
+    @FromJson
+    @EntryReference
+    Integer fromJson(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NUMBER:
+                return reader.nextInt();
+
+            case BOOLEAN:
+                // "true" is returned when the entry was found, but its ID is not reported
+                return reader.nextBoolean() ? 0 : null;
+
+            case NULL:
+                return reader.nextNull();
+
+            default:
+                throw new JsonDataException("Expected an entry ID or a boolean but was "
+                        + reader.peek() + " at path " + reader.getPath());
+        }
+    }
+
+}
@@ -0,0 +1,1001 @@
+package wallabag.apiwrapper.models.adapters;
+
+import com.squareup.moshi.*;
+import wallabag.apiwrapper.models.*;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ignore this.
+ * <p>Streaming {@code JsonAdapter}s for the classes of the {@code wallabag.apiwrapper.models} package.
+ * They read and write the same JSON as Moshi's reflective adapters (the properties are written in the same order),
+ * but select the properties with {@link JsonReader.Options} and don't use reflection.
+ * The {@code Date} values are handled by the {@code Date} adapter of the {@code Moshi} instance.
+ */
+public final class ModelJsonAdapters {
+
+    /**
+     * The factory that creates the adapters for the model classes.
+     * <p>If a {@link Deduplicator} is set, the values of the decoded articles and tags are deduplicated
+     * (see {@link Deduplicator#deduplicate(Article)}, {@link Deduplicator#deduplicate(Tag)}).
+     * The deduplicator can be changed at any time, the created adapters use the current one.
+     */
+    public static final class Factory implements JsonAdapter.Factory {
+
+        private volatile Deduplicator deduplicator;
+
+        /**
+         * Returns the current {@link Deduplicator}.
+         *
+         * @return the current {@code Deduplicator}, or {@code null} if the values are not deduplicated
+         */
+        public Deduplicator getDeduplicator() {
+            return deduplicator;
+        }
+
+        /**
+         * Sets the {@link Deduplicator} for the decoded values. {@code null} (the default) disables deduplication.
+         *
+         * @param deduplicator a {@code null}able {@code Deduplicator}
+         */
+        public void setDeduplicator(Deduplicator deduplicator) {
+            this.deduplicator = deduplicator;
+        }
+
+        @Override
+        public JsonAdapter<?> create(Type type, Set<? extends java.lang.annotation.Annotation> annotations,
+                                     Moshi moshi) {
+            if (!annotations.isEmpty()) return null;
+
+            ModelAdapter<?> adapter;
+            if (type == Article.class) {
+                adapter = new ArticleAdapter(this, moshi.adapter(Date.class));
+            } else if (type == Articles.class) {
+                adapter = new ArticlesAdapter(new ArticleAdapter(this, moshi.adapter(Date.class)));
+            } else if (type == Articles.Embedded.class) {
+                adapter = new EmbeddedAdapter(new ArticleAdapter(this, moshi.adapter(Date.class)));
+            } else if (type == Links.class) {
+                adapter = new LinksAdapter();
+            } else if (type == Links.Link.class) {
+                adapter = new LinkAdapter();
+            } else if (type == Tag.class) {
+                adapter = new TagAdapter(this);
+            } else if (type == Annotation.class) {
+                adapter = new AnnotationAdapter(moshi.adapter(Date.class));
+            } else if (type == Annotation.Range.class) {
+                adapter = new RangeAdapter();
+            } else if (type == Annotations.class) {
+                adapter = new AnnotationsAdapter(new AnnotationAdapter(moshi.adapter(Date.class)));
+            } else if (type == DeleteWithIdResponse.class) {
+                adapter = new DeleteWithIdResponseAdapter();
+            } else if (type == ExistsResponse.class) {
+                adapter = new ExistsResponseAdapter();
+            } else if (type == ExistsWithIdResponse.class) {
+                adapter = new ExistsWithIdResponseAdapter();
+            } else if (type == Info.class) {
+                adapter = new InfoAdapter();
+            } else if (type == ListActionResponse.class) {
+                adapter = new ListActionResponseAdapter();
+            } else if (type == TokenResponse.class) {
+                adapter = new TokenResponseAdapter();
+            } else {
+                return null;
+            }
+            return adapter.nullSafe();
+        }
+
+    }
+
+    private static final NumericBooleanAdapter NUMERIC_BOOLEAN_ADAPTER = new NumericBooleanAdapter();
+    private static final EntryReferenceAdapter ENTRY_REFERENCE_ADAPTER = new EntryReferenceAdapter();
+
+    private ModelJsonAdapters() {}
+
+    private abstract static class ModelAdapter<T> extends JsonAdapter<T> {
+
+        private final String name;
+
+        ModelAdapter(Class<T> type) {
+            name = type.getSimpleName();
+        }
+
+        T read(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+            return fromJson(reader);
+        }
+
+        void write(JsonWriter writer, T value) throws IOException {
+            if (value == null) {
+                writer.nullValue();
+            } else {
+                toJson(writer, value);
+            }
+        }
+
+        List<T> readList(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+
+            List<T> list = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                list.add(read(reader));
+            }
+            reader.endArray();
+            return list;
+        }
+
+        void writeList(JsonWriter writer, List<T> list) throws IOException {
+            if (list == null) {
+                writer.nullValue();
+                return;
+            }
+
+            writer.beginArray();
+            for (T value : list) {
+                write(writer, value);
+            }
+            writer.endArray();
+        }
+
+        @Override
+        public String toString() {
+            return "ModelJsonAdapter(" + name + ")";
+        }
+
+    }
+
+    private static final class ArticleAdapter extends ModelAdapter<Article> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of(
+                "id", "url", "hashed_url", "given_url", "hashed_given_url", "title", "content",
+                "is_archived", "archived_at", "is_starred", "starred_at", "tags", "created_at", "updated_at",
+                "annotations", "mimetype", "language", "reading_time", "domain_name", "preview_picture",
+                "origin_url", "published_at", "published_by", "is_public", "uid");
+
+        private final ModelJsonAdapters.Factory factory;
+        private final JsonAdapter<Date> dateAdapter;
+        private final TagAdapter tagAdapter;
+        private final AnnotationAdapter annotationAdapter;
+
+        ArticleAdapter(ModelJsonAdapters.Factory factory, JsonAdapter<Date> dateAdapter) {
+            super(Article.class);
+            this.factory = factory;
+            this.dateAdapter = dateAdapter;
+            tagAdapter = new TagAdapter(factory);
+            annotationAdapter = new AnnotationAdapter(dateAdapter);
+        }
+
+        @Override
+        public Article fromJson(JsonReader reader) throws IOException {
+            Article article = new Article();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        article.id = reader.nextInt();
+                        break;
+                    case 1:
+                        article.url = nextString(reader);
+                        break;
+                    case 2:
+                        article.hashedUrl = nextString(reader);
+                        break;
+                    case 3:
+                        article.givenUrl = nextString(reader);
+                        break;
+                    case 4:
+                        article.hashedGivenUrl = nextString(reader);
+                        break;
+                    case 5:
+                        article.title = nextString(reader);
+                        break;
+                    case 6:
+                        article.content = nextString(reader);
+                        break;
+                    case 7:
+                        article.archived = nextNumericBoolean(reader);
+                        break;
+                    case 8:
+                        article.archivedAt = dateAdapter.fromJson(reader);
+                        break;
+                    case 9:
+                        article.starred = nextNumericBoolean(reader);
+                        break;
+                    case 10:
+                        article.starredAt = dateAdapter.fromJson(reader);
+                        break;
+                    case 11:
+                        article.tags = tagAdapter.readList(reader);
+                        break;
+                    case 12:
+                        article.createdAt = dateAdapter.fromJson(reader);
+                        break;
+                    case 13:
+                        article.updatedAt = dateAdapter.fromJson(reader);
+                        break;
+                    case 14:
+                        article.annotations = annotationAdapter.readList(reader);
+                        break;
+                    case 15:
+                        article.mimetype = nextString(reader);
+                        break;
+                    case 16:
+                        article.language = nextString(reader);
+                        break;
+                    case 17:
+                        article.readingTime = reader.nextInt();
+                        break;
+                    case 18:
+                        article.domainName = nextString(reader);
+                        break;
+                    case 19:
+                        article.previewPicture = nextString(reader);
+                        break;
+                    case 20:
+                        article.originUrl = nextString(reader);
+                        break;
+                    case 21:
+                        article.publishedAt = dateAdapter.fromJson(reader);
+                        break;
+                    case 22:
+                        article.authors = nextStringList(reader);
+                        break;
+                    case 23:
+                        article.isPublic = nextBoolean(reader);
+                        break;
+                    case 24:
+                        article.publicUid = nextString(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            Deduplicator deduplicator = factory.deduplicator;
+            return deduplicator != null ? deduplicator.deduplicate(article) : article;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Article value) throws IOException {
+            writer.beginObject();
+            writer.name("annotations");
+            annotationAdapter.writeList(writer, value.annotations);
+            writer.name("archived_at");
+            dateAdapter.toJson(writer, value.archivedAt);
+            writer.name("content").value(value.content);
+            writer.name("created_at");
+            dateAdapter.toJson(writer, value.createdAt);
+            writer.name("domain_name").value(value.domainName);
+            writer.name("given_url").value(value.givenUrl);
+            writer.name("hashed_given_url").value(value.hashedGivenUrl);
+            writer.name("hashed_url").value(value.hashedUrl);
+            writer.name("id").value(value.id);
+            writer.name("is_archived");
+            writeNumericBoolean(writer, value.archived);
+            writer.name("is_public").value(value.isPublic);
+            writer.name("is_starred");
+            writeNumericBoolean(writer, value.starred);
+            writer.name("language").value(value.language);
+            writer.name("mimetype").value(value.mimetype);
+            writer.name("origin_url").value(value.originUrl);
+            writer.name("preview_picture").value(value.previewPicture);
+            writer.name("published_at");
+            dateAdapter.toJson(writer, value.publishedAt);
+            writer.name("published_by");
+            writeStringList(writer, value.authors);
+            writer.name("reading_time").value(value.readingTime);
+            writer.name("starred_at");
+            dateAdapter.toJson(writer, value.starredAt);
+            writer.name("tags");
+            tagAdapter.writeList(writer, value.tags);
+            writer.name("title").value(value.title);
+            writer.name("uid").value(value.publicUid);
+            writer.name("updated_at");
+            dateAdapter.toJson(writer, value.updatedAt);
+            writer.name("url").value(value.url);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class ArticlesAdapter extends ModelAdapter<Articles> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of(
+                "page", "limit", "pages", "total", "_links", "_embedded");
+
+        private final LinksAdapter linksAdapter = new LinksAdapter();
+        private final EmbeddedAdapter embeddedAdapter;
+
+        ArticlesAdapter(ArticleAdapter articleAdapter) {
+            super(Articles.class);
+            embeddedAdapter = new EmbeddedAdapter(articleAdapter);
+        }
+
+        @Override
+        public Articles fromJson(JsonReader reader) throws IOException {
+            Articles articles = new Articles();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        articles.page = reader.nextInt();
+                        break;
+                    case 1:
+                        articles.limit = reader.nextInt();
+                        break;
+                    case 2:
+                        articles.pages = reader.nextInt();
+                        break;
+                    case 3:
+                        articles.total = reader.nextInt();
+                        break;
+                    case 4:
+                        articles.links = linksAdapter.read(reader);
+                        break;
+                    case 5:
+                        articles.embedded = embeddedAdapter.read(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return articles;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Articles value) throws IOException {
+            writer.beginObject();
+            writer.name("_embedded");
+            embeddedAdapter.write(writer, value.embedded);
+            writer.name("_links");
+            linksAdapter.write(writer, value.links);
+            writer.name("limit").value(value.limit);
+            writer.name("page").value(value.page);
+            writer.name("pages").value(value.pages);
+            writer.name("total").value(value.total);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class EmbeddedAdapter extends ModelAdapter<Articles.Embedded> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("items");
+
+        private final ArticleAdapter articleAdapter;
+
+        EmbeddedAdapter(ArticleAdapter articleAdapter) {
+            super(Articles.Embedded.class);
+            this.articleAdapter = articleAdapter;
+        }
+
+        @Override
+        public Articles.Embedded fromJson(JsonReader reader) throws IOException {
+            Articles.Embedded embedded = new Articles.Embedded();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.selectName(OPTIONS) == 0) {
+                    embedded.items = articleAdapter.readList(reader);
+                } else {
+                    reader.skipName();
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return embedded;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Articles.Embedded value) throws IOException {
+            writer.beginObject();
+            writer.name("items");
+            articleAdapter.writeList(writer, value.items);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class LinksAdapter extends ModelAdapter<Links> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("self", "first", "last", "next");
+
+        private final LinkAdapter linkAdapter = new LinkAdapter();
+
+        LinksAdapter() {
+            super(Links.class);
+        }
+
+        @Override
+        public Links fromJson(JsonReader reader) throws IOException {
+            Links links = new Links();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        links.self = linkAdapter.read(reader);
+                        break;
+                    case 1:
+                        links.first = linkAdapter.read(reader);
+                        break;
+                    case 2:
+                        links.last = linkAdapter.read(reader);
+                        break;
+                    case 3:
+                        links.next = linkAdapter.read(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return links;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Links value) throws IOException {
+            writer.beginObject();
+            writer.name("first");
+            linkAdapter.write(writer, value.first);
+            writer.name("last");
+            linkAdapter.write(writer, value.last);
+            writer.name("next");
+            linkAdapter.write(writer, value.next);
+            writer.name("self");
+            linkAdapter.write(writer, value.self);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class LinkAdapter extends ModelAdapter<Links.Link> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("href");
+
+        LinkAdapter() {
+            super(Links.Link.class);
+        }
+
+        @Override
+        public Links.Link fromJson(JsonReader reader) throws IOException {
+            Links.Link link = new Links.Link();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.selectName(OPTIONS) == 0) {
+                    link.href = nextString(reader);
+                } else {
+                    reader.skipName();
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return link;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Links.Link value) throws IOException {
+            writer.beginObject();
+            writer.name("href").value(value.href);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class TagAdapter extends ModelAdapter<Tag> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("id", "label", "slug");
+
+        private final ModelJsonAdapters.Factory factory;
+
+        TagAdapter(ModelJsonAdapters.Factory factory) {
+            super(Tag.class);
+            this.factory = factory;
+        }
+
+        @Override
+        public Tag fromJson(JsonReader reader) throws IOException {
+            Tag tag = new Tag();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        tag.id = reader.nextInt();
+                        break;
+                    case 1:
+                        tag.label = nextString(reader);
+                        break;
+                    case 2:
+                        tag.slug = nextString(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            Deduplicator deduplicator = factory.deduplicator;
+            return deduplicator != null ? deduplicator.deduplicate(tag) : tag;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Tag value) throws IOException {
+            writer.beginObject();
+            writer.name("id").value(value.id);
+            writer.name("label").value(value.label);
+            writer.name("slug").value(value.slug);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class AnnotationAdapter extends ModelAdapter<Annotation> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of(
+                "id", "annotator_schema_version", "text", "created_at", "updated_at", "quote", "ranges");
+
+        private final JsonAdapter<Date> dateAdapter;
+        private final RangeAdapter rangeAdapter = new RangeAdapter();
+
+        AnnotationAdapter(JsonAdapter<Date> dateAdapter) {
+            super(Annotation.class);
+            this.dateAdapter = dateAdapter;
+        }
+
+        @Override
+        public Annotation fromJson(JsonReader reader) throws IOException {
+            Annotation annotation = new Annotation();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        annotation.id = reader.nextInt();
+                        break;
+                    case 1:
+                        annotation.annotatorSchemaVersion = nextString(reader);
+                        break;
+                    case 2:
+                        annotation.text = nextString(reader);
+                        break;
+                    case 3:
+                        annotation.createdAt = dateAdapter.fromJson(reader);
+                        break;
+                    case 4:
+                        annotation.updatedAt = dateAdapter.fromJson(reader);
+                        break;
+                    case 5:
+                        annotation.quote = nextString(reader);
+                        break;
+                    case 6:
+                        annotation.ranges = rangeAdapter.readList(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return annotation;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Annotation value) throws IOException {
+            writer.beginObject();
+            writer.name("annotator_schema_version").value(value.annotatorSchemaVersion);
+            writer.name("created_at");
+            dateAdapter.toJson(writer, value.createdAt);
+            writer.name("id").value(value.id);
+            writer.name("quote").value(value.quote);
+            writer.name("ranges");
+            rangeAdapter.writeList(writer, value.ranges);
+            writer.name("text").value(value.text);
+            writer.name("updated_at");
+            dateAdapter.toJson(writer, value.updatedAt);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class RangeAdapter extends ModelAdapter<Annotation.Range> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of(
+                "start", "end", "startOffset", "endOffset");
+
+        RangeAdapter() {
+            super(Annotation.Range.class);
+        }
+
+        @Override
+        public Annotation.Range fromJson(JsonReader reader) throws IOException {
+            Annotation.Range range = new Annotation.Range();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        range.start = nextString(reader);
+                        break;
+                    case 1:
+                        range.end = nextString(reader);
+                        break;
+                    case 2:
+                        range.startOffset = reader.nextLong();
+                        break;
+                    case 3:
+                        range.endOffset = reader.nextLong();
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return range;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Annotation.Range value) throws IOException {
+            writer.beginObject();
+            writer.name("end").value(value.end);
+            writer.name("endOffset").value(value.endOffset);
+            writer.name("start").value(value.start);
+            writer.name("startOffset").value(value.startOffset);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class AnnotationsAdapter extends ModelAdapter<Annotations> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("total", "rows");
+
+        private final AnnotationAdapter annotationAdapter;
+
+        AnnotationsAdapter(AnnotationAdapter annotationAdapter) {
+            super(Annotations.class);
+            this.annotationAdapter = annotationAdapter;
+        }
+
+        @Override
+        public Annotations fromJson(JsonReader reader) throws IOException {
+            Annotations annotations = new Annotations();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        annotations.total = reader.nextInt();
+                        break;
+                    case 1:
+                        annotations.rows = annotationAdapter.readList(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return annotations;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Annotations value) throws IOException {
+            writer.beginObject();
+            writer.name("rows");
+            annotationAdapter.writeList(writer, value.rows);
+            writer.name("total").value(value.total);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class DeleteWithIdResponseAdapter extends ModelAdapter<DeleteWithIdResponse> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("id");
+
+        DeleteWithIdResponseAdapter() {
+            super(DeleteWithIdResponse.class);
+        }
+
+        @Override
+        public DeleteWithIdResponse fromJson(JsonReader reader) throws IOException {
+            DeleteWithIdResponse response = new DeleteWithIdResponse();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.selectName(OPTIONS) == 0) {
+                    response.id = nextInteger(reader);
+                } else {
+                    reader.skipName();
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return response;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, DeleteWithIdResponse value) throws IOException {
+            writer.beginObject();
+            writer.name("id");
+            writeInteger(writer, value.id);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class ExistsResponseAdapter extends ModelAdapter<ExistsResponse> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("exists");
+
+        ExistsResponseAdapter() {
+            super(ExistsResponse.class);
+        }
+
+        @Override
+        public ExistsResponse fromJson(JsonReader reader) throws IOException {
+            ExistsResponse response = new ExistsResponse();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.selectName(OPTIONS) == 0) {
+                    response.exists = reader.nextBoolean();
+                } else {
+                    reader.skipName();
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return response;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, ExistsResponse value) throws IOException {
+            writer.beginObject();
+            writer.name("exists").value(value.exists);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class ExistsWithIdResponseAdapter extends ModelAdapter<ExistsWithIdResponse> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("exists");
+
+        ExistsWithIdResponseAdapter() {
+            super(ExistsWithIdResponse.class);
+        }
+
+        @Override
+        public ExistsWithIdResponse fromJson(JsonReader reader) throws IOException {
+            ExistsWithIdResponse response = new ExistsWithIdResponse();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.selectName(OPTIONS) == 0) {
+                    response.id = nextInteger(reader);
+                } else {
+                    reader.skipName();
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return response;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, ExistsWithIdResponse value) throws IOException {
+            writer.beginObject();
+            writer.name("exists");
+            writeInteger(writer, value.id);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class InfoAdapter extends ModelAdapter<Info> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of(
+                "appname", "version", "allowed_registration");
+
+        InfoAdapter() {
+            super(Info.class);
+        }
+
+        @Override
+        public Info fromJson(JsonReader reader) throws IOException {
+            Info info = new Info();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        info.appname = nextString(reader);
+                        break;
+                    case 1:
+                        info.version = nextString(reader);
+                        break;
+                    case 2:
+                        info.registrationAllowed = nextBoolean(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return info;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, Info value) throws IOException {
+            writer.beginObject();
+            writer.name("allowed_registration").value(value.registrationAllowed);
+            writer.name("appname").value(value.appname);
+            writer.name("version").value(value.version);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class ListActionResponseAdapter extends ModelAdapter<ListActionResponse> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of("url", "entry");
+
+        ListActionResponseAdapter() {
+            super(ListActionResponse.class);
+        }
+
+        @Override
+        public ListActionResponse fromJson(JsonReader reader) throws IOException {
+            ListActionResponse response = new ListActionResponse();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        response.url = nextString(reader);
+                        break;
+                    case 1:
+                        response.entry = ENTRY_REFERENCE_ADAPTER.fromJson(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return response;
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, ListActionResponse value) throws IOException {
+            writer.beginObject();
+            writer.name("entry");
+            ENTRY_REFERENCE_ADAPTER.toJson(writer, value.entry);
+            writer.name("url").value(value.url);
+            writer.endObject();
+        }
+
+    }
+
+    private static final class TokenResponseAdapter extends ModelAdapter<TokenResponse> {
+
+        private static final JsonReader.Options OPTIONS = JsonReader.Options.of(
+                "access_token", "expires_in", "refresh_token", "scope", "token_type");
+
+        TokenResponseAdapter() {
+            super(TokenResponse.class);
+        }
+
+        @Override
+        public TokenResponse fromJson(JsonReader reader) throws IOException {
+            String accessToken = null;
+            int expiresIn = 0;
+            String refreshToken = null;
+            String scope = null;
+            String tokenType = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(OPTIONS)) {
+                    case 0:
+                        accessToken = nextString(reader);
+                        break;
+                    case 1:
+                        expiresIn = reader.nextInt();
+                        break;
+                    case 2:
+                        refreshToken = nextString(reader);
+                        break;
+                    case 3:
+                        scope = nextString(reader);
+                        break;
+                    case 4:
+                        tokenType = nextString(reader);
+                        break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return new TokenResponse(accessToken, expiresIn, refreshToken, scope, tokenType);
+        }
+
+        @Override
+        public void toJson(JsonWriter writer, TokenResponse value) throws IOException {
+            writer.beginObject();
+            writer.name("access_token").value(value.accessToken);
+            writer.name("expires_in").value(value.expiresIn);
+            writer.name("refresh_token").value(value.refreshToken);
+            writer.name("scope").value(value.scope);
+            writer.name("token_type").value(value.tokenType);
+            writer.endObject();
+        }
+
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextString();
+    }
+
+    private static Integer nextInteger(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextInt();
+    }
+
+    private static Boolean nextBoolean(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextBoolean();
+    }
+
+    private static List<String> nextStringList(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+
+        List<String> list = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            list.add(nextString(reader));
+        }
+        reader.endArray();
+        return list;
+    }
+
+    private static boolean nextNumericBoolean(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            throw new JsonDataException("Expected a numeric boolean but was NULL at path " + reader.getPath());
+        }
+        return NUMERIC_BOOLEAN_ADAPTER.fromJson(reader.nextString());
+    }
+
+    private static void writeInteger(JsonWriter writer, Integer value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else {
+            writer.value(value.intValue());
+        }
+    }
+
+    private static void writeStringList(JsonWriter writer, List<String> list) throws IOException {
+        if (list == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginArray();
+        for (String value : list) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+
+    private static void writeNumericBoolean(JsonWriter writer, boolean value) throws IOException {
+        writer.value(NUMERIC_BOOLEAN_ADAPTER.toJson(value));
+    }
+
+}
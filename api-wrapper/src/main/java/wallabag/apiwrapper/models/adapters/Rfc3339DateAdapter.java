@@ -0,0 +1,183 @@
+package wallabag.apiwrapper.models.adapters;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * A {@code JsonAdapter} for RFC 3339 dates (like {@code 2020-01-31T12:34:56+0100}) that is compatible with
+ * {@link Rfc3339DateJsonAdapter}, but parses the common forms of the dates without {@code Calendar}s,
+ * time zone lookups or intermediate objects.
+ * <p>The dates are parsed directly if they have the {@code yyyy-MM-ddTHH:mm:ss[.S...]} form
+ * (a year after 1582) with the {@code Z}, {@code +HH:MM} or {@code +HHMM} offsets.
+ * Other values (dates without the time or the seconds, leap seconds, invalid values, etc.)
+ * are handled by {@code Rfc3339DateJsonAdapter}, so the results (and the errors) are the same.
+ * <p>{@link #parseMillis(String)} returns the timestamps as epoch milliseconds without creating {@code Date}s.
+ */
+public final class Rfc3339DateAdapter extends JsonAdapter<Date> {
+
+    private static final Rfc3339DateJsonAdapter FALLBACK = new Rfc3339DateJsonAdapter();
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    // days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar
+    private static final long DAYS_0000_TO_1970 = 719468;
+
+    /**
+     * Parses an RFC 3339 date.
+     *
+     * @param value the date string
+     * @return the number of milliseconds since the epoch
+     * @throws JsonDataException    if the {@code value} is not an RFC 3339 date
+     * @throws NullPointerException if the {@code value} is {@code null}
+     */
+    public static long parseMillis(String value) {
+        long millis = parseFast(value);
+        if (millis != Long.MIN_VALUE) return millis;
+
+        return FALLBACK.fromJsonValue(value).getTime();
+    }
+
+    @Override
+    public Date fromJson(JsonReader reader) throws IOException {
+        String value = reader.nextString();
+
+        long millis = parseFast(value);
+        if (millis != Long.MIN_VALUE) return new Date(millis);
+
+        return FALLBACK.fromJsonValue(value);
+    }
+
+    @Override
+    public void toJson(JsonWriter writer, Date value) throws IOException {
+        FALLBACK.toJson(writer, value);
+    }
+
+    @Override
+    public String toString() {
+        return "Rfc3339DateAdapter";
+    }
+
+    /**
+     * Returns the epoch milliseconds, or {@code Long.MIN_VALUE} if the value should be parsed by the fallback.
+     */
+    private static long parseFast(String s) {
+        int length = s.length();
+        // yyyy-MM-ddTHH:mm:ssZ
+        if (length < 20 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T'
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return Long.MIN_VALUE;
+        }
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year <= 1582 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        int offset = 19;
+        int millis = 0;
+        if (s.charAt(offset) == '.') {
+            offset++;
+            int start = offset;
+            while (offset < length && isDigit(s.charAt(offset))) {
+                if (offset - start < 3) millis = millis * 10 + (s.charAt(offset) - '0');
+                offset++;
+            }
+            int count = offset - start;
+            if (count == 0) return Long.MIN_VALUE;
+            if (count == 1) {
+                millis *= 100;
+            } else if (count == 2) {
+                millis *= 10;
+            }
+        }
+
+        if (offset >= length) return Long.MIN_VALUE;
+
+        int zoneOffsetMinutes;
+        char c = s.charAt(offset);
+        if (c == 'Z') {
+            if (offset + 1 != length) return Long.MIN_VALUE;
+            zoneOffsetMinutes = 0;
+        } else if (c == '+' || c == '-') {
+            int zoneHour, zoneMinute;
+            if (length - offset == 6 && s.charAt(offset + 3) == ':') { // +HH:MM
+                zoneHour = digits(s, offset + 1, 2);
+                zoneMinute = digits(s, offset + 4, 2);
+            } else if (length - offset == 5) { // +HHMM
+                zoneHour = digits(s, offset + 1, 2);
+                zoneMinute = digits(s, offset + 3, 2);
+            } else {
+                return Long.MIN_VALUE;
+            }
+            if (zoneHour < 0 || zoneHour > 23 || zoneMinute < 0 || zoneMinute > 59) return Long.MIN_VALUE;
+
+            zoneOffsetMinutes = zoneHour * 60 + zoneMinute;
+            if (c == '-') {
+                if (zoneOffsetMinutes == 0) return Long.MIN_VALUE;
+                zoneOffsetMinutes = -zoneOffsetMinutes;
+            }
+        } else {
+            return Long.MIN_VALUE;
+        }
+
+        return epochDay(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60L + minute - zoneOffsetMinutes) * 60 + second) * 1000 + millis;
+    }
+
+    /**
+     * Returns the number of days since 1970-01-01 in the proleptic Gregorian calendar.
+     */
+    private static long epochDay(int year, int month, int day) {
+        // the year starts in March, so the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = y / 400; // the years are positive
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Returns the number represented by the {@code count} digits at the {@code offset}, or {@code -1}.
+     */
+    private static int digits(String s, int offset, int count) {
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) return -1;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
@@ -30,6 +30,10 @@ public interface WallabagApiService {
     @POST("api/entries.json")
     Call<Article> addArticle(@Body RequestBody requestBody);
 
+    @Headers(REQUIRES_AUTH)
+    @POST("api/entries.json")
+    Call<Article> addArticle(@Body RequestBody requestBody, @Header("Content-Encoding") String contentEncoding);
+
     @Headers(REQUIRES_AUTH)
     @PATCH("api/entries/{entry}/reload.json")
     Call<Article> reloadArticle(@Path("entry") int articleID);
@@ -63,6 +67,14 @@ public interface WallabagApiService {
     @DELETE("api/entries/{entry}.json")
     Call<DeleteWithIdResponse> deleteArticle(@Path("entry") int articleID, @Query("expect") String expect);
 
+    @Headers(REQUIRES_AUTH)
+    @POST("api/entries/lists.json")
+    Call<List<ListActionResponse>> addArticlesByList(@Query("urls") String urls);
+
+    @Headers(REQUIRES_AUTH)
+    @DELETE("api/entries/list.json")
+    Call<List<ListActionResponse>> deleteArticlesByList(@Query("urls") String urls);
+
     @Headers(REQUIRES_AUTH)
     @GET("api/entries/{entry}.json")
     Call<Article> getArticle(@Path("entry") int articleID);
@@ -76,6 +88,11 @@ public interface WallabagApiService {
     @PATCH("api/entries/{entry}.json")
     Call<Article> modifyArticle(@Path("entry") int articleID, @Body RequestBody requestBody);
 
+    @Headers(REQUIRES_AUTH)
+    @PATCH("api/entries/{entry}.json")
+    Call<Article> modifyArticle(@Path("entry") int articleID, @Body RequestBody requestBody,
+                                @Header("Content-Encoding") String contentEncoding);
+
     @Headers(REQUIRES_AUTH)
     @GET("api/entries/{entry}/tags.json")
     Call<List<Tag>> getTags(@Path("entry") int articleID);
@@ -105,6 +122,14 @@ public interface WallabagApiService {
     @GET("api/tags.json")
     Call<List<Tag>> getTags();
 
+    @Headers(REQUIRES_AUTH)
+    @POST("api/entries/tags/lists.json")
+    Call<List<ListActionResponse>> addTagsByList(@Query("list") String list);
+
+    @Headers(REQUIRES_AUTH)
+    @DELETE("api/entries/tags/list.json")
+    Call<List<ListActionResponse>> deleteTagsByList(@Query("list") String list);
+
     @Headers(REQUIRES_AUTH)
     @GET("api/annotations/{entry}.json")
     Call<Annotations> getAnnotations(@Path("entry") int articleID);